@@ -23,6 +23,8 @@ package nl.rug.syntree;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 
+import nl.rug.syntree.editor.TreeEditorJSVGCanvas;
+import nl.rug.syntree.io.IOBatchRenderer;
 import nl.rug.syntree.ui.UIMainJFrame;
 
 /**
@@ -51,14 +53,24 @@ public class Main {
 	public static final int EXIT_FAILURE = -1;
 
 	/**
-	 * Constructs the user interface and schedules it for later invocation.
+	 * Constructs the user interface and schedules it for later invocation, or
+	 * renders the specified files without a user interface in case the first
+	 * argument is --render. Otherwise, the --oslf argument sets the look and
+	 * feel of the operating system, and the --debug-damage argument outlines
+	 * the regions of the canvas that are repainted. These can be combined in
+	 * any order.
 	 * 
 	 * @param args
 	 *            command line arguments
 	 */
 	public static void main(String args[]) {
-		if (args.length > 0) {
-			if (args[0].compareTo("--oslf") == 0) {
+		if (args.length > 0 && args[0].compareTo("--render") == 0) {
+			System.setProperty("java.awt.headless", "true");
+			exit(IOBatchRenderer.run(args));
+			return;
+		}
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].compareTo("--oslf") == 0) {
 				System.out
 						.println("[main()] attempting to set OS-specific look and feel\n");
 				try {
@@ -67,6 +79,9 @@ public class Main {
 				} catch (Exception e) {
 					e.printStackTrace();
 				}
+			} else if (args[i].compareTo("--debug-damage") == 0) {
+				System.setProperty(TreeEditorJSVGCanvas.DEBUG_DAMAGE_PROPERTY,
+						"true");
 			}
 		}
 		SwingUtilities.invokeLater(new Runnable() {
@@ -28,6 +28,8 @@ import nl.rug.syntree.tree.component.TreeElement;
 
 /**
  * This class represents a tree drawer routing point for multiple tree types.
+ * Attribute writes are deferred for the duration of a drawing pass, and all
+ * of the dirty elements are flushed once at the end of the pass.
  * 
  * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
  * @version 1.0
@@ -61,28 +63,44 @@ public class TreeDrawer {
 	}
 
 	/**
-	 * Draws all of the trees in the tree representation.
+	 * Draws all of the trees in the tree representation, and culls the trees
+	 * that are drawn out of view.
 	 */
 	public void draw() {
-		switch (treeType) {
-		case PLAIN_BINARY_TREE:
-			PlainBinaryTree.draw(treeRepresentation);
-			break;
+		treeRepresentation.setDeferredWriteMode(true);
+		try {
+			switch (treeType) {
+			case PLAIN_BINARY_TREE:
+				PlainBinaryTree.draw(treeRepresentation);
+				break;
+			}
+		} finally {
+			treeRepresentation.setDeferredWriteMode(false);
 		}
+		treeRepresentation.getNodeSpatialIndex().update();
+		treeRepresentation.cullTrees();
 	}
 
 	/**
-	 * Draws the specified tree in the tree representation.
+	 * Draws the specified tree in the tree representation, and culls the
+	 * trees that are drawn out of view.
 	 * 
 	 * @param treeElement
 	 *            tree element
 	 */
 	public void draw(TreeElement treeElement) {
-		switch (treeType) {
-		case PLAIN_BINARY_TREE:
-			PlainBinaryTree.draw(treeRepresentation, treeElement);
-			break;
+		treeRepresentation.setDeferredWriteMode(true);
+		try {
+			switch (treeType) {
+			case PLAIN_BINARY_TREE:
+				PlainBinaryTree.draw(treeRepresentation, treeElement);
+				break;
+			}
+		} finally {
+			treeRepresentation.setDeferredWriteMode(false);
 		}
+		treeRepresentation.getNodeSpatialIndex().update();
+		treeRepresentation.cullTrees();
 	}
 
 	/**
@@ -92,11 +110,19 @@ public class TreeDrawer {
 	 *            node element
 	 */
 	public void draw(NodeElement nodeElement) {
-		switch (treeType) {
-		case PLAIN_BINARY_TREE:
-			PlainBinaryTree.drawNodeText(treeRepresentation, nodeElement);
-			break;
+		treeRepresentation.setDeferredWriteMode(true);
+		try {
+			switch (treeType) {
+			case PLAIN_BINARY_TREE:
+				PlainBinaryTree.drawNodeText(treeRepresentation, nodeElement);
+				treeRepresentation.getNodeSpatialIndex().invalidate(
+						nodeElement.getTreeElement());
+				break;
+			}
+		} finally {
+			treeRepresentation.setDeferredWriteMode(false);
 		}
+		treeRepresentation.getNodeSpatialIndex().update();
 	}
 
 	/**
@@ -106,10 +132,15 @@ public class TreeDrawer {
 	 *            mdom branch element
 	 */
 	public void draw(MdomBranchElement mdomBranchElement) {
-		switch (treeType) {
-		case PLAIN_BINARY_TREE:
-			PlainBinaryTree.drawMdomBranch(treeRepresentation,
-					mdomBranchElement);
+		treeRepresentation.setDeferredWriteMode(true);
+		try {
+			switch (treeType) {
+			case PLAIN_BINARY_TREE:
+				PlainBinaryTree.drawMdomBranch(treeRepresentation,
+						mdomBranchElement);
+			}
+		} finally {
+			treeRepresentation.setDeferredWriteMode(false);
 		}
 	}
 
@@ -122,6 +153,15 @@ public class TreeDrawer {
 		return treeRepresentation;
 	}
 
+	/**
+	 * Returns the number of dom attribute writes of the last drawing pass.
+	 * 
+	 * @return number of dom writes
+	 */
+	public int getDOMWriteCount() {
+		return treeRepresentation.getDOMWriteCount();
+	}
+
 	/**
 	 * Returns the current tree type.
 	 * 
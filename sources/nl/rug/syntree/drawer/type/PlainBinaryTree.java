@@ -22,6 +22,7 @@ package nl.rug.syntree.drawer.type;
 
 import java.util.Vector;
 
+import nl.rug.syntree.tree.TreeRecord;
 import nl.rug.syntree.tree.TreeRepresentation;
 import nl.rug.syntree.tree.component.BranchElement;
 import nl.rug.syntree.tree.component.BranchRectElement;
@@ -118,25 +119,36 @@ public class PlainBinaryTree {
 	public static final float UNCONNECTED_MDOM_BRANCH_HEIGHT = 35.0f;
 
 	/**
-	 * Draws all of the trees in the specified tree representation.
+	 * Draws all of the trees in the specified tree representation. Trees
+	 * that are not materialized are positioned by their estimated width.
 	 * 
 	 * @param treeRepresentation
 	 *            tree representation
 	 */
 	public static void draw(TreeRepresentation treeRepresentation) {
 		Vector<TreeElement> treeVector = treeRepresentation.getTreeVector();
+		PlainBinaryTreeLayout.layout(treeRepresentation, treeVector);
+		Vector<TreeRecord> treeRecordVector = treeRepresentation
+				.getTreeRecordVector();
 		float x = 0.0f;
-		for (int i = 0; i < treeVector.size(); i++) {
-			TreeElement treeElement = treeVector.elementAt(i);
-			draw(treeRepresentation, treeElement);
-			x += treeElement.getInnerWidth();
-			treeElement.setXTranslate(x);
-			x += treeElement.getWidth() + TREE_HORIZONTAL_MARGIN;
+		for (int i = 0; i < treeRecordVector.size(); i++) {
+			TreeRecord treeRecord = treeRecordVector.elementAt(i);
+			TreeElement treeElement = treeRecord.getTreeElement();
+			if (treeElement != null) {
+				x += treeElement.getInnerWidth();
+				treeElement.setXTranslate(x);
+				x += treeElement.getWidth() + TREE_HORIZONTAL_MARGIN;
+			} else {
+				x += treeRecord.getInnerWidth();
+				treeRecord.setXTranslate(x);
+				x += treeRecord.getWidth() + TREE_HORIZONTAL_MARGIN;
+			}
 		}
 		Vector<MdomBranchElement> mdomVector = treeRepresentation
 				.getMdomVector();
 		for (int i = 0; i < mdomVector.size(); i++)
 			drawMdomBranch(treeRepresentation, mdomVector.elementAt(i));
+		computeBounds(treeRepresentation);
 	}
 
 	/**
@@ -149,41 +161,77 @@ public class PlainBinaryTree {
 	 */
 	public static void draw(TreeRepresentation treeRepresentation,
 			TreeElement treeElement) {
-		int treeDepth = treeElement.getDepth();
-		for (int i = treeDepth; i >= 0; i--) {
-			Vector<NodeElement> generationVector = treeElement
-					.getNodeGenerationVector(i);
-			float generationHeight = 0.0f;
-			for (int x = 0; x < generationVector.size(); x++) {
-				if (generationVector.elementAt(x).getTextElement()
-						.getTaintMode() == TextElement.TAINTED)
-					drawNodeText(treeRepresentation, generationVector
-							.elementAt(x));
-				if (generationVector.elementAt(x).getMother() != null)
-					generationHeight = Math.max(generationHeight,
-							generationVector.elementAt(x).getMother()
-									.getTextElement().getHeight());
-			}
-			while (generationVector.size() != 0) {
-				NodeElement motherNode = generationVector.firstElement()
-						.getMother();
-				if (motherNode != null) {
-					Vector<NodeElement> sisterVector = motherNode
-							.getDaughterVector();
-					if (motherNode.getTaintMode() == NodeElement.TAINTED)
-						drawNodeSet(treeRepresentation, motherNode,
-								sisterVector, generationHeight);
-					generationVector.removeAll(sisterVector);
-				} else {
-					if (generationVector.firstElement().getTaintMode() == NodeElement.TAINTED) {
-						generationVector.firstElement().computeWidth();
-						generationVector.firstElement().setTaintMode(
-								NodeElement.UNTAINTED);
-					}
-					generationVector.clear();
-				}
+		PlainBinaryTreeLayout.layout(treeRepresentation, treeElement);
+		computeBounds(treeRepresentation);
+	}
+
+	/**
+	 * Computes the bounds of the document from the cached bounds of the trees,
+	 * the estimated extents of the trees that are not materialized, and the
+	 * control points of the multidominance branches, and passes them on to
+	 * the document.
+	 * 
+	 * @param treeRepresentation
+	 *            tree representation
+	 */
+	protected static void computeBounds(TreeRepresentation treeRepresentation) {
+		float bounds[] = null;
+
+		// trees
+		Vector<TreeRecord> treeRecordVector = treeRepresentation
+				.getTreeRecordVector();
+		for (int i = 0; i < treeRecordVector.size(); i++) {
+			TreeRecord treeRecord = treeRecordVector.elementAt(i);
+			if (!treeRecord.isMaterialized()) {
+				float extent[] = treeRecord.getExtent();
+				float x = treeRecord.getXTranslate();
+				float y = treeRecord.getYTranslate();
+				if (bounds == null)
+					bounds = new float[] { extent[0] + x, extent[1] + y,
+							extent[2] + x, extent[3] + y };
+				NodeElement.extendBounds(bounds, extent[0] + x, extent[1] + y);
+				NodeElement.extendBounds(bounds, extent[2] + x, extent[3] + y);
+				continue;
 			}
+			NodeElement rootNode = treeRecord.getTreeElement().getRootNode();
+			if (rootNode == null)
+				continue;
+			float rootBounds[] = rootNode.getBounds();
+			float x = rootNode.getAbsoluteXTranslate();
+			float y = rootNode.getAbsoluteYTranslate();
+			if (bounds == null)
+				bounds = new float[] { rootBounds[0] + x, rootBounds[1] + y,
+						rootBounds[2] + x, rootBounds[3] + y };
+			NodeElement.extendBounds(bounds, rootBounds[0] + x, rootBounds[1]
+					+ y);
+			NodeElement.extendBounds(bounds, rootBounds[2] + x, rootBounds[3]
+					+ y);
+		}
+
+		// multidominance branches
+		Vector<MdomBranchElement> mdomVector = treeRepresentation
+				.getMdomVector();
+		for (int i = 0; bounds != null && i < mdomVector.size(); i++) {
+			MdomBranchPathElement path = mdomVector.elementAt(i)
+					.getMdomBranchPathElement();
+			float x = path.getMovetoX();
+			float y = path.getMovetoY();
+			NodeElement.extendBounds(bounds, x, y);
+			NodeElement.extendBounds(bounds, x + path.getFirstCurvetoCP1X(), y
+					+ path.getFirstCurvetoCP1Y());
+			NodeElement.extendBounds(bounds, x + path.getFirstCurvetoCP2X(), y
+					+ path.getFirstCurvetoCP2Y());
+			x += path.getFirstCurvetoX();
+			y += path.getFirstCurvetoY();
+			NodeElement.extendBounds(bounds, x, y);
+			NodeElement.extendBounds(bounds, x + path.getSecondCurvetoCP1X(),
+					y + path.getSecondCurvetoCP1Y());
+			NodeElement.extendBounds(bounds, x + path.getSecondCurvetoCP2X(),
+					y + path.getSecondCurvetoCP2Y());
+			NodeElement.extendBounds(bounds, x + path.getSecondCurvetoX(), y
+					+ path.getSecondCurvetoY());
 		}
+		treeRepresentation.getSVGDocument().setBounds(bounds);
 	}
 
 	/**
@@ -551,10 +599,12 @@ public class PlainBinaryTree {
 		if (mdomBranchElement.getMotherNode() != null) {
 			NodeRectElement nodeRectElement = mdomBranchElement.getMotherNode()
 					.getNodeRectElement();
-			float x = nodeRectElement.getSVGPoint().getX()
-					+ nodeRectElement.getWidth() / 2.0f;
-			float y = nodeRectElement.getSVGPoint().getY()
-					+ nodeRectElement.getHeight();
+			NodeElement motherNode = mdomBranchElement.getMotherNode();
+			float x = motherNode.getAbsoluteXTranslate()
+					+ nodeRectElement.getX() + nodeRectElement.getWidth()
+					/ 2.0f;
+			float y = motherNode.getAbsoluteYTranslate()
+					+ nodeRectElement.getY() + nodeRectElement.getHeight();
 			if (!mdomBranchElement.getMotherNode().getTextElement().isVisible())
 				y -= (nodeRectElement.getHeight() + 2.0f) / 2.0f;
 			mdomBranchPathElement.setMovetoX(x);
@@ -563,9 +613,12 @@ public class PlainBinaryTree {
 		if (mdomBranchElement.getDaughterNode() != null) {
 			NodeRectElement nodeRectElement = mdomBranchElement
 					.getDaughterNode().getNodeRectElement();
-			float x = nodeRectElement.getSVGPoint().getX()
-					+ nodeRectElement.getWidth() / 2.0f;
-			float y = nodeRectElement.getSVGPoint().getY();
+			NodeElement daughterNode = mdomBranchElement.getDaughterNode();
+			float x = daughterNode.getAbsoluteXTranslate()
+					+ nodeRectElement.getX() + nodeRectElement.getWidth()
+					/ 2.0f;
+			float y = daughterNode.getAbsoluteYTranslate()
+					+ nodeRectElement.getY();
 			x += -mdomBranchPathElement.getFirstCurvetoX()
 					- mdomBranchPathElement.getMovetoX();
 			y += -mdomBranchPathElement.getFirstCurvetoY()
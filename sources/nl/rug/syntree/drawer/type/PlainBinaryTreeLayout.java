@@ -0,0 +1,325 @@
+/* PlainBinaryTreeLayout.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.drawer.type;
+
+import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import nl.rug.syntree.tree.TreeRepresentation;
+import nl.rug.syntree.tree.component.NodeElement;
+import nl.rug.syntree.tree.component.TextElement;
+import nl.rug.syntree.tree.component.TreeElement;
+
+/**
+ * This class represents an incremental layout engine for a plain binary tree.
+ * The layout is computed in post-order, and only the tainted subtrees and
+ * their ancestors are revisited. Untainted subtrees contribute their cached
+ * widths and generation heights, which makes a layout pass linear in the
+ * number of tainted nodes. The resulting geometry is identical to that of
+ * the generation-by-generation layout it replaces. The bounds of each laid
+ * out subtree are cached alongside its generation heights.
+ * 
+ * A layout pass has two phases: the text of a tree is measured and drawn
+ * against the rendered document on the calling thread, after which the tree
+ * is arranged from the cached dimensions alone. Arrangement never touches
+ * the document other than through deferred attribute writes, so that it can
+ * run in parallel for multiple trees.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class PlainBinaryTreeLayout {
+	/**
+	 * Empty generation heights constant
+	 */
+	protected static final float EMPTY_GENERATION_HEIGHTS[] = new float[0];
+
+	/**
+	 * Minimum number of tainted trees for a parallel arrangement constant
+	 */
+	public static final int PARALLEL_THRESHOLD = 2;
+
+	/**
+	 * Fork join pool on which trees are arranged
+	 */
+	protected static ForkJoinPool forkJoinPool;
+
+	/**
+	 * Lays out the specified tree in the specified tree representation.
+	 * 
+	 * @param treeRepresentation
+	 *            tree representation
+	 * @param treeElement
+	 *            tree element
+	 */
+	public static void layout(TreeRepresentation treeRepresentation,
+			TreeElement treeElement) {
+		prepare(treeRepresentation, treeElement);
+		arrange(treeRepresentation, treeElement);
+	}
+
+	/**
+	 * Lays out all of the specified trees in the specified tree
+	 * representation. The text of the trees is measured and drawn on the
+	 * calling thread, after which the geometry of the trees is computed in
+	 * parallel. This requires the tree representation to defer its attribute
+	 * writes, otherwise the trees are arranged one after another.
+	 * 
+	 * @param treeRepresentation
+	 *            tree representation
+	 * @param treeVector
+	 *            tree vector
+	 */
+	public static void layout(final TreeRepresentation treeRepresentation,
+			Vector<TreeElement> treeVector) {
+		// measure and draw the text of the tainted trees
+		Vector<TreeElement> taintedTreeVector = new Vector<TreeElement>();
+		for (int i = 0; i < treeVector.size(); i++) {
+			TreeElement treeElement = treeVector.elementAt(i);
+			if (prepare(treeRepresentation, treeElement))
+				taintedTreeVector.add(treeElement);
+		}
+
+		// arrange the tainted trees
+		if (taintedTreeVector.size() < PARALLEL_THRESHOLD
+				|| !treeRepresentation.isDeferredWriteMode()) {
+			for (int i = 0; i < taintedTreeVector.size(); i++)
+				arrange(treeRepresentation, taintedTreeVector.elementAt(i));
+		} else {
+			final Vector<RecursiveAction> actionVector = new Vector<RecursiveAction>();
+			for (int i = 0; i < taintedTreeVector.size(); i++) {
+				final TreeElement treeElement = taintedTreeVector.elementAt(i);
+
+				// only trees of which all text is drawn can be arranged off
+				// the calling thread
+				if (!isTextDrawn(treeElement.getRootNode())) {
+					System.err
+							.println("[PlainBinaryTreeLayout::layout()] text of tree "
+									+ treeElement.getId()
+									+ " is not drawn, arranging it on the calling thread");
+					drawText(treeRepresentation, treeElement.getRootNode());
+					arrange(treeRepresentation, treeElement);
+					continue;
+				}
+				actionVector.add(new RecursiveAction() {
+					private static final long serialVersionUID = 1L;
+
+					protected void compute() {
+						arrange(treeRepresentation, treeElement);
+					}
+				});
+			}
+			getForkJoinPool().invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				protected void compute() {
+					invokeAll(actionVector);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Prepares the specified tree for arrangement. The generation heights
+	 * are measured before any text is redrawn, after which the tainted text
+	 * of the tree is drawn. Both require access to the rendered document.
+	 * 
+	 * @param treeRepresentation
+	 *            tree representation
+	 * @param treeElement
+	 *            tree element
+	 * @return boolean indicating whether the tree needs to be arranged
+	 */
+	protected static boolean prepare(TreeRepresentation treeRepresentation,
+			TreeElement treeElement) {
+		NodeElement rootNode = treeElement.getRootNode();
+		if (rootNode == null || rootNode.getTaintMode() == NodeElement.UNTAINTED)
+			return false;
+		treeRepresentation.getNodeSpatialIndex().invalidate(treeElement);
+		measure(rootNode);
+		drawText(treeRepresentation, rootNode);
+		return true;
+	}
+
+	/**
+	 * Arranges the specified prepared tree. Arrangement only reads the
+	 * cached text dimensions, which requires the tainted text of the tree to
+	 * be drawn by prepare(), so trees can be arranged concurrently as long as
+	 * attribute writes are deferred.
+	 * 
+	 * @param treeRepresentation
+	 *            tree representation
+	 * @param treeElement
+	 *            tree element
+	 */
+	protected static void arrange(TreeRepresentation treeRepresentation,
+			TreeElement treeElement) {
+		NodeElement rootNode = treeElement.getRootNode();
+		if (rootNode == null || rootNode.getTaintMode() == NodeElement.UNTAINTED)
+			return;
+
+		// lay out the tainted subtrees
+		layout(treeRepresentation, rootNode, 0, rootNode
+				.getGenerationHeights());
+
+		// root node
+		rootNode.computeWidth();
+		rootNode.setTaintMode(NodeElement.UNTAINTED);
+		rootNode.setGenerationHeights(computeGenerationHeights(rootNode));
+		rootNode.computeBounds();
+		treeRepresentation.getNodeSpatialIndex().invalidate(treeElement);
+	}
+
+	/**
+	 * Draws the tainted text of the specified node, and of the nodes in its
+	 * tainted subtrees.
+	 * 
+	 * @param treeRepresentation
+	 *            tree representation
+	 * @param nodeElement
+	 *            node element
+	 */
+	protected static void drawText(TreeRepresentation treeRepresentation,
+			NodeElement nodeElement) {
+		if (nodeElement.getTextElement().getTaintMode() == TextElement.TAINTED)
+			PlainBinaryTree.drawNodeText(treeRepresentation, nodeElement);
+		if (nodeElement.getTaintMode() == NodeElement.UNTAINTED)
+			return;
+		Vector<NodeElement> daughterVector = nodeElement.getDaughterVector();
+		for (int i = 0; i < daughterVector.size(); i++)
+			drawText(treeRepresentation, daughterVector.elementAt(i));
+	}
+
+	/**
+	 * Returns a boolean indicating whether the text of the specified node,
+	 * and of the nodes in its tainted subtrees, is drawn, which means that
+	 * arranging them does not measure any text.
+	 * 
+	 * @param nodeElement
+	 *            node element
+	 * @return boolean
+	 */
+	protected static boolean isTextDrawn(NodeElement nodeElement) {
+		if (nodeElement.getTextElement().getTaintMode() == TextElement.TAINTED)
+			return false;
+		if (nodeElement.getTaintMode() == NodeElement.UNTAINTED)
+			return true;
+		Vector<NodeElement> daughterVector = nodeElement.getDaughterVector();
+		for (int i = 0; i < daughterVector.size(); i++)
+			if (!isTextDrawn(daughterVector.elementAt(i)))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Returns the fork join pool on which trees are arranged.
+	 * 
+	 * @return fork join pool
+	 */
+	protected static synchronized ForkJoinPool getForkJoinPool() {
+		if (forkJoinPool == null)
+			forkJoinPool = new ForkJoinPool();
+		return forkJoinPool;
+	}
+
+	/**
+	 * Computes the generation heights of the tainted subtrees below the
+	 * specified node, reusing the cached generation heights of untainted
+	 * subtrees.
+	 * 
+	 * @param nodeElement
+	 *            node element
+	 */
+	protected static void measure(NodeElement nodeElement) {
+		if (nodeElement.getTaintMode() == NodeElement.UNTAINTED
+				&& nodeElement.getGenerationHeights() != null)
+			return;
+		Vector<NodeElement> daughterVector = nodeElement.getDaughterVector();
+		for (int i = 0; i < daughterVector.size(); i++)
+			measure(daughterVector.elementAt(i));
+		nodeElement.setGenerationHeights(computeGenerationHeights(nodeElement));
+	}
+
+	/**
+	 * Lays out the tainted subtrees below the specified node.
+	 * 
+	 * @param treeRepresentation
+	 *            tree representation
+	 * @param nodeElement
+	 *            node element
+	 * @param depth
+	 *            depth of the node element
+	 * @param generationHeights
+	 *            generation heights of the whole tree
+	 */
+	protected static void layout(TreeRepresentation treeRepresentation,
+			NodeElement nodeElement, int depth, float generationHeights[]) {
+		if (nodeElement.getTaintMode() == NodeElement.UNTAINTED)
+			return;
+		Vector<NodeElement> daughterVector = nodeElement.getDaughterVector();
+		if (daughterVector.size() == 0)
+			return;
+
+		// daughter subtrees
+		for (int i = 0; i < daughterVector.size(); i++)
+			layout(treeRepresentation, daughterVector.elementAt(i), depth + 1,
+					generationHeights);
+
+		// node set
+		PlainBinaryTree.drawNodeSet(treeRepresentation, nodeElement,
+				daughterVector, generationHeights[depth]);
+		for (int i = 0; i < daughterVector.size(); i++)
+			if (daughterVector.elementAt(i).getDaughterVector().size() == 0)
+				daughterVector.elementAt(i).computeBounds();
+		nodeElement.setGenerationHeights(computeGenerationHeights(nodeElement));
+		nodeElement.computeBounds();
+	}
+
+	/**
+	 * Computes the generation heights of the specified node from its text
+	 * height and the cached generation heights of its daughters.
+	 * 
+	 * @param nodeElement
+	 *            node element
+	 * @return generation heights
+	 */
+	protected static float[] computeGenerationHeights(NodeElement nodeElement) {
+		Vector<NodeElement> daughterVector = nodeElement.getDaughterVector();
+		if (daughterVector.size() == 0)
+			return EMPTY_GENERATION_HEIGHTS;
+		int generations = 1;
+		for (int i = 0; i < daughterVector.size(); i++)
+			generations = Math.max(generations, daughterVector.elementAt(i)
+					.getGenerationHeights().length + 1);
+		float generationHeights[] = new float[generations];
+		generationHeights[0] = nodeElement.getTextElement().getHeight();
+		for (int i = 0; i < daughterVector.size(); i++) {
+			float daughterGenerationHeights[] = daughterVector.elementAt(i)
+					.getGenerationHeights();
+			for (int x = 0; x < daughterGenerationHeights.length; x++)
+				generationHeights[x + 1] = Math.max(generationHeights[x + 1],
+						daughterGenerationHeights[x]);
+		}
+		return generationHeights;
+	}
+}
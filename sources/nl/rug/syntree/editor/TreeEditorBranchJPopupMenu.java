@@ -106,5 +106,8 @@ public class TreeEditorBranchJPopupMenu extends JPopupMenu {
 				.getTreeDrawer().draw();
 		treeEditorBridge.getTreeRepresentation().getSVGDocument()
 				.computeViewBox();
+
+		// journal
+		treeEditorBridge.journalTree(nodeElement.getTreeElement());
 	}
 }
\ No newline at end of file
@@ -21,25 +21,23 @@
 package nl.rug.syntree.editor;
 
 import java.io.File;
+import java.util.Vector;
 
 import javax.swing.event.UndoableEditEvent;
 
-import nl.rug.syntree.editor.listener.dom.DOMBranchMouseClickEventListener;
-import nl.rug.syntree.editor.listener.dom.DOMBranchMouseOutEventListener;
-import nl.rug.syntree.editor.listener.dom.DOMBranchMouseOverEventListener;
-import nl.rug.syntree.editor.listener.dom.DOMMdomMouseClickEventListener;
-import nl.rug.syntree.editor.listener.dom.DOMMdomMouseOutEventListener;
-import nl.rug.syntree.editor.listener.dom.DOMMdomMouseOverEventListener;
-import nl.rug.syntree.editor.listener.dom.DOMNodeMouseClickEventListener;
-import nl.rug.syntree.editor.listener.dom.DOMNodeMouseOutEventListener;
-import nl.rug.syntree.editor.listener.dom.DOMNodeMouseOverEventListener;
+import nl.rug.syntree.editor.listener.dom.DOMGroupEventListener;
 import nl.rug.syntree.editor.manager.BranchSelectionManager;
 import nl.rug.syntree.editor.manager.MdomSelectionManager;
 import nl.rug.syntree.editor.manager.NodeCopyCutManager;
 import nl.rug.syntree.editor.manager.NodeSelectionManager;
+import nl.rug.syntree.editor.manager.RedrawScheduler;
 import nl.rug.syntree.editor.manager.UndoRedoManager;
 import nl.rug.syntree.editor.manager.edit.UndoableCreateDaughterEdit;
 import nl.rug.syntree.editor.manager.edit.UndoableCreateTreeEdit;
+import nl.rug.syntree.editor.manager.edit.UndoableImportTreesEdit;
+import nl.rug.syntree.io.IOBracketNode;
+import nl.rug.syntree.io.IOEditJournal;
+import nl.rug.syntree.tree.TreeRecord;
 import nl.rug.syntree.tree.TreeRepresentation;
 import nl.rug.syntree.tree.component.BranchElement;
 import nl.rug.syntree.tree.component.BranchRectElement;
@@ -47,13 +45,14 @@ import nl.rug.syntree.tree.component.MdomBranchBackgroundPathElement;
 import nl.rug.syntree.tree.component.MdomBranchElement;
 import nl.rug.syntree.tree.component.NodeElement;
 import nl.rug.syntree.tree.component.NodeRectElement;
+import nl.rug.syntree.tree.component.TSpanElement;
+import nl.rug.syntree.tree.component.TextElement;
 import nl.rug.syntree.tree.component.TreeElement;
 import nl.rug.syntree.ui.UIFormatJToolBar;
 import nl.rug.syntree.ui.UIJInternalFrame;
 
 import org.apache.batik.bridge.UpdateManager;
 import org.apache.batik.util.RunnableQueue;
-import org.w3c.dom.events.EventTarget;
 
 /**
  * This class represents a tree editor bridge between the graphical and the
@@ -64,6 +63,12 @@ import org.w3c.dom.events.EventTarget;
  * @since 1.0
  */
 public class TreeEditorBridge {
+	/**
+	 * Minimum on screen width constant of a lazily loaded tree to be
+	 * materialized
+	 */
+	public static final float MATERIALIZE_MIN_PIXELS = 48.0f;
+
 	/**
 	 * The internal frame that contains this bridge
 	 */
@@ -94,11 +99,26 @@ public class TreeEditorBridge {
 	 */
 	protected UndoRedoManager undoRedoManager;
 
+	/**
+	 * Redraw scheduler
+	 */
+	protected RedrawScheduler redrawScheduler;
+
 	/**
 	 * Copy/Cut manager
 	 */
 	protected NodeCopyCutManager nodeCopyCutManager;
 
+	/**
+	 * Edit journal of the treespace file, or null
+	 */
+	protected IOEditJournal editJournal;
+
+	/**
+	 * Number of edits made through this bridge
+	 */
+	protected volatile int editCount = 0;
+
 	/**
 	 * Constructs a new tree editor bridge.
 	 * 
@@ -109,6 +129,7 @@ public class TreeEditorBridge {
 		initializeBridge();
 		this.uiJInternalFrame = uiJInternalFrame;
 		treeRepresentation = new TreeRepresentation(this);
+		addGroupElementEventListeners();
 	}
 
 	/**
@@ -120,9 +141,38 @@ public class TreeEditorBridge {
 	 *            the svg xml file to represent
 	 */
 	public TreeEditorBridge(UIJInternalFrame uiJInternalFrame, File svgXMLFile) {
+		this(uiJInternalFrame, svgXMLFile, false);
+	}
+
+	/**
+	 * Constructs a new tree editor bridge for the specified SVG XML file, and
+	 * opens an edit journal for it in case the bridge belongs to an internal
+	 * frame. In case the journal is recovered, the snapshot of the journal,
+	 * if any, is opened instead of the file, and the journal is replayed.
+	 * 
+	 * @param uiJInternalFrame
+	 *            internal frame
+	 * @param svgXMLFile
+	 *            the svg xml file to represent
+	 * @param recoverJournal
+	 *            boolean indicating whether the edit journal is recovered
+	 */
+	public TreeEditorBridge(UIJInternalFrame uiJInternalFrame,
+			File svgXMLFile, boolean recoverJournal) {
 		initializeBridge();
 		this.uiJInternalFrame = uiJInternalFrame;
-		treeRepresentation = new TreeRepresentation(this, svgXMLFile);		
+		File baseFile = svgXMLFile;
+		File journalFile = null;
+		if (recoverJournal) {
+			if (IOEditJournal.getSnapshotFile(svgXMLFile).exists())
+				baseFile = IOEditJournal.getSnapshotFile(svgXMLFile);
+			journalFile = IOEditJournal.getJournalFile(svgXMLFile);
+		}
+		treeRepresentation = new TreeRepresentation(this, baseFile,
+				uiJInternalFrame != null, journalFile);
+		addGroupElementEventListeners();
+		if (uiJInternalFrame != null)
+			openEditJournal(svgXMLFile, recoverJournal);
 	}
 
 	/**
@@ -143,6 +193,9 @@ public class TreeEditorBridge {
 
 		// undo/redo manager
 		undoRedoManager = new UndoRedoManager();
+
+		// redraw scheduler
+		redrawScheduler = new RedrawScheduler(this);
 	}
 
 	// create/add/remove tree ////////////////////////////////////////////////
@@ -163,9 +216,8 @@ public class TreeEditorBridge {
 							treeRepresentation, new UndoableCreateTreeEdit(
 									treeEditorBridge, treeElement)));
 					uiJInternalFrame.setModified(true);
-					uiJInternalFrame.getTreeEditorJSVGScrollPane()
-							.getTreeDrawer().draw();
-					treeRepresentation.getSVGDocument().computeViewBox();
+					redrawScheduler.markDirty(treeElement);
+					redrawScheduler.scheduleRedraw();
 				}
 			});
 		}
@@ -186,9 +238,8 @@ public class TreeEditorBridge {
 				public void run() {
 					treeRepresentation.addTree(treeElement);
 					uiJInternalFrame.setModified(true);
-					uiJInternalFrame.getTreeEditorJSVGScrollPane()
-							.getTreeDrawer().draw();
-					treeRepresentation.getSVGDocument().computeViewBox();
+					redrawScheduler.markDirty(treeElement);
+					redrawScheduler.scheduleRedraw();
 				}
 			});
 		}
@@ -209,9 +260,156 @@ public class TreeEditorBridge {
 				public void run() {
 					treeRepresentation.removeTree(treeElement);
 					uiJInternalFrame.setModified(true);
-					uiJInternalFrame.getTreeEditorJSVGScrollPane()
-							.getTreeDrawer().draw();
-					treeRepresentation.getSVGDocument().computeViewBox();
+					redrawScheduler.markDirty(treeElement);
+					redrawScheduler.scheduleRedraw();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Imports the specified bracket trees into the tree representation. All
+	 * of the trees are built detached from the document in a single update
+	 * manager runnable, appended, and laid out in one pass, after which the
+	 * import is recorded as a single undoable edit.
+	 * 
+	 * @param bracketTreeVector
+	 *            root nodes of the bracket trees
+	 */
+	public void importTrees(final Vector<IOBracketNode> bracketTreeVector) {
+		final TreeEditorBridge treeEditorBridge = this;
+		UpdateManager um = uiJInternalFrame.getTreeEditorJSVGScrollPane()
+				.getTreeEditorJSVGCanvas().getUpdateManager();
+		RunnableQueue rq = um.getUpdateRunnableQueue();
+		if (um != null && rq != null) {
+			rq.invokeLater(new Runnable() {
+				public void run() {
+					Vector<TreeElement> treeVector = new Vector<TreeElement>();
+					for (int i = 0; i < bracketTreeVector.size(); i++) {
+						TreeElement treeElement = new TreeElement(
+								treeRepresentation);
+						treeElement.createRootNode();
+						createNodes(treeElement.getRootNode(),
+								bracketTreeVector.elementAt(i));
+						treeRepresentation.addTree(treeElement);
+						treeVector.add(treeElement);
+					}
+					undoRedoManager.undoableEditHappened(new UndoableEditEvent(
+							treeRepresentation, new UndoableImportTreesEdit(
+									treeEditorBridge, treeVector)));
+					uiJInternalFrame.setModified(true);
+					redrawScheduler.markDirty(treeVector);
+					redrawScheduler.scheduleRedraw();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Labels the specified node after the specified bracket node, and creates
+	 * its daughters after the daughters of the bracket node.
+	 * 
+	 * @param nodeElement
+	 *            node element
+	 * @param bracketNode
+	 *            bracket node
+	 */
+	protected void createNodes(NodeElement nodeElement,
+			IOBracketNode bracketNode) {
+		Vector<TSpanElement> tspanVector = nodeElement.getTextElement()
+				.getTSpanVector();
+		for (int i = 0; i < tspanVector.size(); i++) {
+			if (tspanVector.elementAt(i).getType() == TSpanElement.TEXT_TYPE) {
+				tspanVector.elementAt(i).setText(bracketNode.getLabel());
+				break;
+			}
+		}
+		nodeElement.getTextElement().setTaintMode(TextElement.TAINTED);
+		Vector<IOBracketNode> bracketDaughterVector = bracketNode
+				.getDaughterVector();
+		for (int i = 0; i < bracketDaughterVector.size(); i++)
+			createNodes(nodeElement.createDaughter(), bracketDaughterVector
+					.elementAt(i));
+	}
+
+	/**
+	 * Adds the specified existing trees to the tree representation.
+	 * 
+	 * @param treeVector
+	 *            tree elements
+	 */
+	public void addTrees(final Vector<TreeElement> treeVector) {
+		UpdateManager um = uiJInternalFrame.getTreeEditorJSVGScrollPane()
+				.getTreeEditorJSVGCanvas().getUpdateManager();
+		RunnableQueue rq = um.getUpdateRunnableQueue();
+		if (um != null && rq != null) {
+			rq.invokeLater(new Runnable() {
+				public void run() {
+					for (int i = 0; i < treeVector.size(); i++)
+						treeRepresentation.addTree(treeVector.elementAt(i));
+					uiJInternalFrame.setModified(true);
+					redrawScheduler.markDirty(treeVector);
+					redrawScheduler.scheduleRedraw();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Removes the specified trees from the tree representation.
+	 * 
+	 * @param treeVector
+	 *            tree elements
+	 */
+	public void removeTrees(final Vector<TreeElement> treeVector) {
+		UpdateManager um = uiJInternalFrame.getTreeEditorJSVGScrollPane()
+				.getTreeEditorJSVGCanvas().getUpdateManager();
+		RunnableQueue rq = um.getUpdateRunnableQueue();
+		if (um != null && rq != null) {
+			rq.invokeLater(new Runnable() {
+				public void run() {
+					for (int i = 0; i < treeVector.size(); i++)
+						treeRepresentation.removeTree(treeVector.elementAt(i));
+					uiJInternalFrame.setModified(true);
+					redrawScheduler.markDirty(treeVector);
+					redrawScheduler.scheduleRedraw();
+				}
+			});
+		}
+	}
+
+	// visible trees /////////////////////////////////////////////////////////
+
+	/**
+	 * Updates the trees for the part of the document that is visible in the
+	 * canvas. The lazily loaded trees that are visible and large enough on
+	 * screen to be read are materialized, in which case the tree
+	 * representation is laid out, and the trees that are out of view are
+	 * culled, so that rendering only involves the visible trees.
+	 */
+	public void updateVisibleTrees() {
+		TreeEditorJSVGCanvas treeEditorJSVGCanvas = uiJInternalFrame
+				.getTreeEditorJSVGScrollPane().getTreeEditorJSVGCanvas();
+		final float bounds[] = treeEditorJSVGCanvas.getVisibleDocumentBounds();
+		if (bounds == null)
+			return;
+		final float minWidth = MATERIALIZE_MIN_PIXELS
+				* (bounds[2] - bounds[0]) / treeEditorJSVGCanvas.getWidth();
+		UpdateManager um = treeEditorJSVGCanvas.getUpdateManager();
+		RunnableQueue rq = (um != null) ? um.getUpdateRunnableQueue() : null;
+		if (rq != null) {
+			rq.invokeLater(new Runnable() {
+				public void run() {
+					treeRepresentation.setCullRange(bounds[0], bounds[2]);
+					if (treeRepresentation.isLazy()
+							&& treeRepresentation.materializeTrees(bounds[0],
+									bounds[2], minWidth) > 0) {
+						uiJInternalFrame.getTreeEditorJSVGScrollPane()
+								.getTreeDrawer().draw();
+						treeRepresentation.getSVGDocument().computeViewBox();
+					} else {
+						treeRepresentation.cullTrees();
+					}
 				}
 			});
 		}
@@ -254,9 +452,8 @@ public class TreeEditorBridge {
 									treeEditorBridge, motherNode, daughterNode,
 									nextDaughterNode)));
 					uiJInternalFrame.setModified(true);
-					uiJInternalFrame.getTreeEditorJSVGScrollPane()
-							.getTreeDrawer().draw();
-					treeRepresentation.getSVGDocument().computeViewBox();
+					redrawScheduler.markDirty(motherNode.getTreeElement());
+					redrawScheduler.scheduleRedraw();
 				}
 			});
 		}
@@ -278,6 +475,7 @@ public class TreeEditorBridge {
 		if (um != null && rq != null) {
 			rq.invokeLater(new Runnable() {
 				public void run() {
+					TreeElement mergeTreeElement = mergeNode.getTreeElement();
 					NodeElement daughterNode = motherNode.mergeDaughterBefore(
 							mergeNode, nextDaughterNode);
 					nodeSelectionManager.setProminentNode(daughterNode);
@@ -289,9 +487,10 @@ public class TreeEditorBridge {
 					// treeEditorBridge, motherNode, daughterNode,
 					// nextDaughterNode)));
 					uiJInternalFrame.setModified(true);
-					uiJInternalFrame.getTreeEditorJSVGScrollPane()
-							.getTreeDrawer().draw();
-					treeRepresentation.getSVGDocument().computeViewBox();
+					redrawScheduler.markDirty(mergeTreeElement);
+					redrawScheduler.markDirty(motherNode.getTreeElement());
+					redrawScheduler.markMdomsDirty();
+					redrawScheduler.scheduleRedraw();
 				}
 			});
 		}
@@ -316,9 +515,8 @@ public class TreeEditorBridge {
 				public void run() {
 					motherNode.addDaughter(daughterNode, nextDaughterNode);
 					uiJInternalFrame.setModified(true);
-					uiJInternalFrame.getTreeEditorJSVGScrollPane()
-							.getTreeDrawer().draw();
-					treeRepresentation.getSVGDocument().computeViewBox();
+					redrawScheduler.markDirty(motherNode.getTreeElement());
+					redrawScheduler.scheduleRedraw();
 				}
 			});
 		}
@@ -340,15 +538,16 @@ public class TreeEditorBridge {
 		if (um != null && rq != null) {
 			rq.invokeLater(new Runnable() {
 				public void run() {
+					TreeElement treeElement = daughterNode.getTreeElement();
 					if (motherNode != null)
 						motherNode.removeDaughter(daughterNode);
 					else
 						daughterNode.getTreeRepresentation().removeTree(
 								daughterNode.getTreeElement());
 					uiJInternalFrame.setModified(true);
-					uiJInternalFrame.getTreeEditorJSVGScrollPane()
-							.getTreeDrawer().draw();
-					treeRepresentation.getSVGDocument().computeViewBox();
+					redrawScheduler.markDirty(treeElement);
+					redrawScheduler.markMdomsDirty();
+					redrawScheduler.scheduleRedraw();
 				}
 			});
 		}
@@ -366,264 +565,183 @@ public class TreeEditorBridge {
 				public void run() {
 					treeRepresentation.createMultidominanceRelation(motherNode);
 					uiJInternalFrame.setModified(true);
-					uiJInternalFrame.getTreeEditorJSVGScrollPane()
-							.getTreeDrawer().draw();
-					treeRepresentation.getSVGDocument().computeViewBox();
+					redrawScheduler.markMdomsDirty();
+					redrawScheduler.scheduleRedraw();
 				}
 			});
 		}
 	}
 
-	/**
-	 * Updates the selection highlighting.
-	 */
-	public void updateSelectionHighlighting() {
-		UpdateManager um = uiJInternalFrame.getTreeEditorJSVGScrollPane()
-				.getTreeEditorJSVGCanvas().getUpdateManager();
-		RunnableQueue rq = um.getUpdateRunnableQueue();
-		if (um != null && rq != null) {
-			rq.preemptLater(new Runnable() {
-				public void run() {
-					// tree group
-					for (int i = 0; i < treeRepresentation.getTreeVector()
-							.size(); i++) {
-						for (int x = 0; x < treeRepresentation.getTreeVector()
-								.elementAt(i).getNodeVector().size(); x++) {
-							NodeElement nodeElement = treeRepresentation
-									.getTreeVector().elementAt(i)
-									.getNodeVector().elementAt(x);
-							BranchElement branchElement = nodeElement
-									.getBranchElement();
-
-							// branches
-							if (branchElement != null)
-								if (branchSelectionManager
-										.isSelected(branchElement))
-									branchElement.getBranchRectElement()
-											.setHighlightMode(
-													BranchRectElement.SELECT);
-								else
-									branchElement.getBranchRectElement()
-											.setHighlightMode(
-													BranchRectElement.STANDARD);
-
-							// nodes
-							if (nodeSelectionManager.isSelected(nodeElement))
-								nodeElement.getNodeRectElement()
-										.setHighlightMode(
-												NodeRectElement.SELECT);
-							else
-								nodeElement.getNodeRectElement()
-										.setHighlightMode(
-												NodeRectElement.STANDARD);
-						}
-					}
+	// edit journal //////////////////////////////////////////////////////////
 
-					// meta group
-					for (int i = 0; i < treeRepresentation.getMdomVector()
-							.size(); i++) {
-						MdomBranchElement mdomBranchElement = treeRepresentation
-								.getMdomVector().elementAt(i);
-						if (mdomSelectionManager.isSelected(mdomBranchElement))
-							mdomBranchElement
-									.getMdomBranchBackgroundPathElement()
-									.setHighlightMode(
-											MdomBranchBackgroundPathElement.SELECT);
-						else
-							mdomBranchElement
-									.getMdomBranchBackgroundPathElement()
-									.setHighlightMode(
-											MdomBranchBackgroundPathElement.STANDARD);
-					}
-				}
-			});
+	/**
+	 * Opens an edit journal for the specified treespace file, replacing the
+	 * current journal, if any.
+	 * 
+	 * @param treespaceFile
+	 *            the treespace file
+	 * @param continued
+	 *            boolean indicating whether an existing journal is continued
+	 */
+	public void openEditJournal(File treespaceFile, boolean continued) {
+		closeEditJournal();
+		try {
+			editJournal = new IOEditJournal(treespaceFile, continued);
+		} catch (Exception e) {
+			System.err
+					.println("[TreeEditorBridge::openEditJournal()] unable to open the journal of "
+							+ treespaceFile.getPath());
+			e.printStackTrace();
 		}
 	}
 
 	/**
-	 * Adds branch element event listeners to the branch element of the
-	 * specified node.
-	 * 
-	 * @param nodeElement
-	 *            node element
+	 * Closes the edit journal, if any, and deletes it.
 	 */
-	public void addBranchElementEventListeners(NodeElement nodeElement) {
-		EventTarget et = (EventTarget) nodeElement.getBranchElement()
-				.getElement();
-
-		// mouse click
-		DOMBranchMouseClickEventListener domBranchMouseClickEventListener;
-		domBranchMouseClickEventListener = new DOMBranchMouseClickEventListener(
-				this, nodeElement);
-		et.addEventListener("click", domBranchMouseClickEventListener, false);
-
-		// mouse over
-		DOMBranchMouseOverEventListener domBranchMouseOverEventListener;
-		domBranchMouseOverEventListener = new DOMBranchMouseOverEventListener(
-				this, nodeElement);
-		et
-				.addEventListener("mouseover", domBranchMouseOverEventListener,
-						false);
-
-		// mouse out
-		DOMBranchMouseOutEventListener domBranchMouseOutEventListener;
-		domBranchMouseOutEventListener = new DOMBranchMouseOutEventListener(
-				this, nodeElement);
-		et.addEventListener("mouseout", domBranchMouseOutEventListener, false);		
+	public void closeEditJournal() {
+		if (editJournal != null) {
+			editJournal.delete();
+			editJournal = null;
+		}
 	}
 
 	/**
-	 * Adds branch rectangle event listeners to the branch rectangle element of
-	 * the branch element of the specified node.
+	 * Appends the state of the specified tree to the edit journal. This has to
+	 * be called from the update manager thread, after the tree is drawn.
 	 * 
-	 * @param nodeElement
-	 *            node element
+	 * @param treeElement
+	 *            tree element
 	 */
-	public void addBranchRectElementEventListeners(NodeElement nodeElement) {
-		EventTarget et = (EventTarget) nodeElement.getBranchElement()
-				.getBranchRectElement().getElement();
-
-		// mouse click
-		DOMBranchMouseClickEventListener domBranchMouseClickEventListener;
-		domBranchMouseClickEventListener = new DOMBranchMouseClickEventListener(
-				this, nodeElement);
-		et.addEventListener("click", domBranchMouseClickEventListener, false);
-
-		// mouse over
-		DOMBranchMouseOverEventListener domBranchMouseOverEventListener;
-		domBranchMouseOverEventListener = new DOMBranchMouseOverEventListener(
-				this, nodeElement);
-		et
-				.addEventListener("mouseover", domBranchMouseOverEventListener,
-						false);
-
-		// mouse out
-		DOMBranchMouseOutEventListener domBranchMouseOutEventListener;
-		domBranchMouseOutEventListener = new DOMBranchMouseOutEventListener(
-				this, nodeElement);
-		et.addEventListener("mouseout", domBranchMouseOutEventListener, false);
+	public void journalTree(TreeElement treeElement) {
+		Vector<TreeElement> treeVector = new Vector<TreeElement>();
+		treeVector.add(treeElement);
+		journalTrees(treeVector);
 	}
 
 	/**
-	 * Adds text element event listeners to the text element of specified node.
+	 * Appends the states of the specified trees to the edit journal. Trees
+	 * that are no longer part of the tree representation are journaled as
+	 * removals, together with the multidominance branches, which may have
+	 * been removed with them. The journal is compacted once it has grown too
+	 * large. This has to be called from the update manager thread, after the
+	 * trees are drawn.
 	 * 
-	 * @param nodeElement
-	 *            node element
-	 */
-	public void addTextElementEventListeners(NodeElement nodeElement) {
-		EventTarget et = (EventTarget) nodeElement.getTextElement()
-				.getElement();
-
-		// mouse click
-		DOMNodeMouseClickEventListener domNodeMouseClickEventListener;
-		domNodeMouseClickEventListener = new DOMNodeMouseClickEventListener(
-				this, nodeElement);
-		et.addEventListener("click", domNodeMouseClickEventListener, false);
-
-		// mouse over
-		DOMNodeMouseOverEventListener domNodeMouseOverEventListener;
-		domNodeMouseOverEventListener = new DOMNodeMouseOverEventListener(this,
-				nodeElement);
-		et.addEventListener("mouseover", domNodeMouseOverEventListener, false);
-
-		// mouse out
-		DOMNodeMouseOutEventListener domNodeMouseOutEventListener;
-		domNodeMouseOutEventListener = new DOMNodeMouseOutEventListener(this,
-				nodeElement);
-		et.addEventListener("mouseout", domNodeMouseOutEventListener, false);
+	 * @param treeVector
+	 *            tree elements
+	 */
+	public void journalTrees(Vector<TreeElement> treeVector) {
+		editCount++;
+		if (editJournal == null)
+			return;
+		Vector<TreeRecord> treeRecordVector = new Vector<TreeRecord>();
+		Vector<String> removedIdVector = new Vector<String>();
+		for (int i = 0; i < treeVector.size(); i++) {
+			TreeElement treeElement = treeVector.elementAt(i);
+			TreeRecord treeRecord = treeRepresentation
+					.getTreeRecord(treeElement.getElement());
+			if (treeRecord != null) {
+				if (!treeRecordVector.contains(treeRecord))
+					treeRecordVector.add(treeRecord);
+			} else {
+				removedIdVector.add(treeElement.getId());
+			}
+		}
+		if (treeRecordVector.size() > 0)
+			editJournal.journalTrees(treeRepresentation, treeRecordVector);
+		if (removedIdVector.size() > 0) {
+			editJournal.journalRemovedTrees(removedIdVector);
+			editJournal.journalMdoms(treeRepresentation);
+		}
+		compactEditJournal();
 	}
 
 	/**
-	 * Adds multidominance branch event listeners to the mdom branch path
-	 * element of the specified mdom branch element.
-	 * 
-	 * @param mdomBranchElement
-	 *            mdom branchelement
+	 * Appends the state of the multidominance branches to the edit journal.
+	 * This has to be called from the update manager thread.
 	 */
-	public void addMdomBranchPathElementEventListeners(
-			MdomBranchElement mdomBranchElement) {
-		EventTarget et = (EventTarget) mdomBranchElement
-				.getMdomBranchPathElement().getElement();
-
-		// mouse click
-		DOMMdomMouseClickEventListener domMdomMouseClickEventListener;
-		domMdomMouseClickEventListener = new DOMMdomMouseClickEventListener(
-				this, mdomBranchElement);
-		et.addEventListener("click", domMdomMouseClickEventListener, false);
-
-		// mouse over
-		DOMMdomMouseOverEventListener domMdomMouseOverEventListener;
-		domMdomMouseOverEventListener = new DOMMdomMouseOverEventListener(this,
-				mdomBranchElement);
-		et.addEventListener("mouseover", domMdomMouseOverEventListener, false);
-
-		// mouse out
-		DOMMdomMouseOutEventListener domMdomMouseOutEventListener;
-		domMdomMouseOutEventListener = new DOMMdomMouseOutEventListener(this,
-				mdomBranchElement);
-		et.addEventListener("mouseout", domMdomMouseOutEventListener, false);
-
+	public void journalMdoms() {
+		editCount++;
+		if (editJournal == null)
+			return;
+		editJournal.journalMdoms(treeRepresentation);
+		compactEditJournal();
 	}
 
 	/**
-	 * Adds multidominance branch background event listeners to the mdom branch
-	 * background path element of the specified brannch element.
-	 * 
-	 * @param mdomBranchElement
-	 *            mdom branchelement
+	 * Compacts the edit journal in case it has grown too large.
 	 */
-	public void addMdomBranchBackgroundPathElementEventListeners(
-			MdomBranchElement mdomBranchElement) {
-		EventTarget et = (EventTarget) mdomBranchElement
-				.getMdomBranchBackgroundPathElement().getElement();
-
-		// mouse click
-		DOMMdomMouseClickEventListener domMdomMouseClickEventListener;
-		domMdomMouseClickEventListener = new DOMMdomMouseClickEventListener(
-				this, mdomBranchElement);
-		et.addEventListener("click", domMdomMouseClickEventListener, false);
-
-		// mouse over
-		DOMMdomMouseOverEventListener domMdomMouseOverEventListener;
-		domMdomMouseOverEventListener = new DOMMdomMouseOverEventListener(this,
-				mdomBranchElement);
-		et.addEventListener("mouseover", domMdomMouseOverEventListener, false);
-
-		// mouse out
-		DOMMdomMouseOutEventListener domMdomMouseOutEventListener;
-		domMdomMouseOutEventListener = new DOMMdomMouseOutEventListener(this,
-				mdomBranchElement);
-		et.addEventListener("mouseout", domMdomMouseOutEventListener, false);
+	protected void compactEditJournal() {
+		if (editJournal.isCompactionDue())
+			editJournal.compact(treeRepresentation);
 	}
 
 	/**
-	 * Adds node rectangle event listeners to the node rectangle element of the
-	 * specified node.
-	 * 
-	 * @param nodeElement
-	 *            node element
+	 * Updates the selection highlighting. Only the elements that were
+	 * selected or deselected since the previous update are visited.
 	 */
-	public void addNodeRectElementEventListeners(NodeElement nodeElement) {
-		EventTarget et = (EventTarget) nodeElement.getNodeRectElement()
-				.getElement();
-
-		// mouse click
-		DOMNodeMouseClickEventListener domNodeMouseClickEventListener;
-		domNodeMouseClickEventListener = new DOMNodeMouseClickEventListener(
-				this, nodeElement);
-		et.addEventListener("click", domNodeMouseClickEventListener, false);
-
-		// mouse over
-		DOMNodeMouseOverEventListener domNodeMouseOverEventListener;
-		domNodeMouseOverEventListener = new DOMNodeMouseOverEventListener(this,
-				nodeElement);
-		et.addEventListener("mouseover", domNodeMouseOverEventListener, false);
+	public void updateSelectionHighlighting() {
+		UpdateManager um = uiJInternalFrame.getTreeEditorJSVGScrollPane()
+				.getTreeEditorJSVGCanvas().getUpdateManager();
+		RunnableQueue rq = um.getUpdateRunnableQueue();
+		if (um != null && rq != null) {
+			rq.preemptLater(new Runnable() {
+				public void run() {
+					// branches
+					Vector<BranchElement> addedBranchVector = new Vector<BranchElement>();
+					Vector<BranchElement> removedBranchVector = new Vector<BranchElement>();
+					branchSelectionManager.flush(addedBranchVector,
+							removedBranchVector);
+					for (int i = 0; i < removedBranchVector.size(); i++)
+						removedBranchVector.elementAt(i).getBranchRectElement()
+								.setHighlightMode(BranchRectElement.STANDARD);
+					for (int i = 0; i < addedBranchVector.size(); i++)
+						addedBranchVector.elementAt(i).getBranchRectElement()
+								.setHighlightMode(BranchRectElement.SELECT);
+
+					// nodes
+					Vector<NodeElement> addedNodeVector = new Vector<NodeElement>();
+					Vector<NodeElement> removedNodeVector = new Vector<NodeElement>();
+					nodeSelectionManager.flush(addedNodeVector,
+							removedNodeVector);
+					for (int i = 0; i < removedNodeVector.size(); i++)
+						removedNodeVector.elementAt(i).getNodeRectElement()
+								.setHighlightMode(NodeRectElement.STANDARD);
+					for (int i = 0; i < addedNodeVector.size(); i++)
+						addedNodeVector.elementAt(i).getNodeRectElement()
+								.setHighlightMode(NodeRectElement.SELECT);
+
+					// mdom branches
+					Vector<MdomBranchElement> addedMdomVector = new Vector<MdomBranchElement>();
+					Vector<MdomBranchElement> removedMdomVector = new Vector<MdomBranchElement>();
+					mdomSelectionManager.flush(addedMdomVector,
+							removedMdomVector);
+					for (int i = 0; i < removedMdomVector.size(); i++)
+						removedMdomVector
+								.elementAt(i)
+								.getMdomBranchBackgroundPathElement()
+								.setHighlightMode(
+										MdomBranchBackgroundPathElement.STANDARD);
+					for (int i = 0; i < addedMdomVector.size(); i++)
+						addedMdomVector
+								.elementAt(i)
+								.getMdomBranchBackgroundPathElement()
+								.setHighlightMode(
+										MdomBranchBackgroundPathElement.SELECT);
+				}
+			});
+		}
+	}
 
-		// mouse out
-		DOMNodeMouseOutEventListener domNodeMouseOutEventListener;
-		domNodeMouseOutEventListener = new DOMNodeMouseOutEventListener(this,
-				nodeElement);
-		et.addEventListener("mouseout", domNodeMouseOutEventListener, false);
+	/**
+	 * Adds a dom group event listener to the tree and meta group elements of
+	 * the tree representation, which passes the mouse events of all nodes,
+	 * branches and mdom branches on to their event listeners.
+	 */
+	public void addGroupElementEventListeners() {
+		DOMGroupEventListener domGroupEventListener = new DOMGroupEventListener(
+				this);
+		domGroupEventListener.addTo(treeRepresentation.getTreeGroupElement());
+		domGroupEventListener.addTo(treeRepresentation.getMetaGroupElement());
 	}
 
 	/**
@@ -672,6 +790,15 @@ public class TreeEditorBridge {
 		return undoRedoManager;
 	}
 
+	/**
+	 * Returns the redraw scheduler.
+	 * 
+	 * @return redraw scheduler
+	 */
+	public RedrawScheduler getRedrawScheduler() {
+		return redrawScheduler;
+	}
+
 	/**
 	 * Returns the node copy/cut manager
 	 * 
@@ -681,6 +808,25 @@ public class TreeEditorBridge {
 		return nodeCopyCutManager;
 	}
 
+	/**
+	 * Returns the number of edits made through this bridge, which is
+	 * incremented on the update manager thread whenever an edit is journaled.
+	 * 
+	 * @return number of edits
+	 */
+	public int getEditCount() {
+		return editCount;
+	}
+
+	/**
+	 * Returns the edit journal.
+	 * 
+	 * @return edit journal, or null
+	 */
+	public IOEditJournal getEditJournal() {
+		return editJournal;
+	}
+
 	/**
 	 * Returns the tree representation.
 	 * 
@@ -20,20 +20,33 @@
 
 package nl.rug.syntree.editor;
 
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.event.ActionEvent;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Point2D;
-import java.util.Vector;
+import java.awt.geom.Rectangle2D;
+
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.Timer;
 
 import nl.rug.syntree.editor.manager.NodeTextSelectionManager;
+import nl.rug.syntree.editor.overlay.DamageDebugOverlay;
+import nl.rug.syntree.editor.overlay.OverlayBlinkScheduler;
 import nl.rug.syntree.tree.component.NodeElement;
-import nl.rug.syntree.tree.component.TreeElement;
+import nl.rug.syntree.tree.component.SVGElement;
 
+import org.apache.batik.bridge.UpdateManager;
 import org.apache.batik.dom.AbstractElement;
 import org.apache.batik.gvt.GraphicsNode;
 import org.apache.batik.gvt.event.EventDispatcher;
+import org.apache.batik.gvt.renderer.ImageRenderer;
 import org.apache.batik.swing.JSVGCanvas;
 import org.apache.batik.swing.gvt.TextSelectionManager;
+import org.apache.batik.util.RunnableQueue;
 
 /**
  * This class represents a Scalable Vector Graphics (SVG) canvas which
@@ -49,6 +62,17 @@ public class TreeEditorJSVGCanvas extends JSVGCanvas {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * Delay constant in milliseconds after the last interaction after which
+	 * the canvas is rendered at high quality again
+	 */
+	public static final int QUALITY_RESTORE_DELAY = 300;
+
+	/**
+	 * System property constant that enables damage debugging for new canvases
+	 */
+	public static final String DEBUG_DAMAGE_PROPERTY = "syntree.debugDamage";
+
 	/**
 	 * Tree editor bridge
 	 */
@@ -59,6 +83,59 @@ public class TreeEditorJSVGCanvas extends JSVGCanvas {
 	 */
 	protected NodeTextSelectionManager nodeTextSelectionManager;
 
+	/**
+	 * Blink scheduler for the overlays
+	 */
+	protected OverlayBlinkScheduler overlayBlinkScheduler = new OverlayBlinkScheduler(
+			this);
+
+	/**
+	 * Debug overlay that outlines the repainted regions, or null in case
+	 * damage debugging is disabled
+	 */
+	protected DamageDebugOverlay damageDebugOverlay;
+
+	/**
+	 * Boolean indicating whether the canvas is to be rendered for speed
+	 */
+	protected volatile boolean speedRendering = false;
+
+	/**
+	 * Rendering hints of the renderer for high quality rendering, or null in
+	 * case the renderer does not render for speed. This is only accessed from
+	 * the update manager thread.
+	 */
+	protected RenderingHints qualityRenderingHints;
+
+	/**
+	 * Restore action for high quality rendering
+	 */
+	protected Action restoreQualityAction = new AbstractAction() {
+		/**
+		 * Serial version identifier constant
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Handles the performed action
+		 * 
+		 * @param ae
+		 *            the occurred action event
+		 */
+		public void actionPerformed(ActionEvent ae) {
+			if (speedRendering) {
+				speedRendering = false;
+				updateRenderingHints();
+			}
+		}
+	};
+
+	/**
+	 * Timer that restores high quality rendering once the interaction is idle
+	 */
+	protected Timer restoreQualityTimer = new Timer(QUALITY_RESTORE_DELAY,
+			restoreQualityAction);
+
 	/**
 	 * Constructs a new Scalable Vector Graphics canvas.
 	 * 
@@ -72,6 +149,161 @@ public class TreeEditorJSVGCanvas extends JSVGCanvas {
 		this.setDocumentState(JSVGCanvas.ALWAYS_DYNAMIC);
 		this.getInputMap().clear();
 		this.treeEditorBridge = treeEditorBridge;
+		restoreQualityTimer.setRepeats(false);
+		setDamageDebugging(Boolean.getBoolean(DEBUG_DAMAGE_PROPERTY));
+	}
+
+	/**
+	 * Repaints the part of this canvas that an overlay covered before and
+	 * after a change, instead of the whole canvas.
+	 * 
+	 * @param previousBounds
+	 *            bounds of the overlay before the change, or null
+	 * @param bounds
+	 *            bounds of the overlay after the change, or null
+	 */
+	public void repaintOverlay(Rectangle previousBounds, Rectangle bounds) {
+		Rectangle damage = null;
+		if (previousBounds != null)
+			damage = new Rectangle(previousBounds);
+		if (bounds != null) {
+			if (damage == null)
+				damage = new Rectangle(bounds);
+			else
+				damage.add(bounds);
+		}
+		if (damage != null)
+			repaint(damage);
+	}
+
+	/**
+	 * Enables or disables damage debugging, which outlines every region of
+	 * this canvas that is repainted.
+	 * 
+	 * @param damageDebugging
+	 *            boolean indicating whether damage debugging is enabled
+	 */
+	@SuppressWarnings("unchecked")
+	public void setDamageDebugging(boolean damageDebugging) {
+		if (damageDebugging == (damageDebugOverlay != null))
+			return;
+		if (damageDebugging) {
+			damageDebugOverlay = new DamageDebugOverlay(treeEditorBridge);
+			getOverlays().add(damageDebugOverlay);
+		} else {
+			getOverlays().remove(damageDebugOverlay);
+			damageDebugOverlay = null;
+		}
+		repaint();
+	}
+
+	/**
+	 * Returns a boolean indicating whether damage debugging is enabled.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isDamageDebugging() {
+		return damageDebugOverlay != null;
+	}
+
+	/**
+	 * Signals that the user interacts with this canvas, in a way that makes
+	 * the update manager repaint it. While interactions follow each other
+	 * within the restore delay, the canvas is rendered for speed, without
+	 * anti-aliasing. Once the interaction is idle, the canvas is rendered once
+	 * more at high quality.
+	 */
+	public void interact() {
+		restoreQualityTimer.restart();
+		if (!speedRendering) {
+			speedRendering = true;
+			updateRenderingHints();
+		}
+	}
+
+	/**
+	 * Returns a boolean indicating whether the user interacts with this
+	 * canvas.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isInteracting() {
+		return restoreQualityTimer.isRunning();
+	}
+
+	/**
+	 * Queues an update of the rendering hints of the renderer on the update
+	 * manager thread, so that the repaints of the update manager are rendered
+	 * for speed while the user interacts with this canvas. Changing the hints
+	 * drops the buffers of the renderer, so the canvas is rendered in full
+	 * once the hints are changed.
+	 */
+	protected void updateRenderingHints() {
+		final UpdateManager um = getUpdateManager();
+		RunnableQueue rq = (um != null && um.isRunning()) ? um
+				.getUpdateRunnableQueue() : null;
+		Rectangle renderRect = getRenderRect();
+		if (rq == null || gvtRoot == null || renderRect.width <= 0
+				|| renderRect.height <= 0)
+			return;
+		final AffineTransform at = getRenderingTransform();
+		Shape aoi = renderRect;
+		try {
+			aoi = at.createInverse().createTransformedShape(renderRect);
+		} catch (NoninvertibleTransformException nte) {
+			System.err
+					.println("[TreeEditorJSVGCanvas::updateRenderingHints()] unable to invert the rendering transform");
+			nte.printStackTrace();
+		}
+		final Shape renderAoi = aoi;
+		final boolean dbr = doubleBufferedRendering;
+		final int width = renderRect.width;
+		final int height = renderRect.height;
+		rq.invokeLater(new Runnable() {
+			public void run() {
+				if (applyRenderingHints())
+					um.updateRendering(at, dbr, true, renderAoi, width, height);
+			}
+		});
+	}
+
+	/**
+	 * Sets the rendering hints of the renderer for speed or for high quality,
+	 * depending on whether the user interacts with this canvas. This is run
+	 * from the update manager thread, and does nothing in case the hints are
+	 * already set, so that an interaction that ended before any frame was
+	 * rendered for speed is not followed by a high quality render.
+	 * 
+	 * @return boolean indicating whether the hints were changed
+	 */
+	protected boolean applyRenderingHints() {
+		ImageRenderer imageRenderer = renderer;
+		if (imageRenderer == null)
+			return false;
+		if (speedRendering && qualityRenderingHints == null) {
+			qualityRenderingHints = new RenderingHints(null);
+			qualityRenderingHints.add(imageRenderer.getRenderingHints());
+			RenderingHints speedRenderingHints = new RenderingHints(null);
+			speedRenderingHints.add(qualityRenderingHints);
+			speedRenderingHints.put(RenderingHints.KEY_ANTIALIASING,
+					RenderingHints.VALUE_ANTIALIAS_OFF);
+			speedRenderingHints.put(RenderingHints.KEY_TEXT_ANTIALIASING,
+					RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+			speedRenderingHints.put(RenderingHints.KEY_RENDERING,
+					RenderingHints.VALUE_RENDER_SPEED);
+			speedRenderingHints.put(RenderingHints.KEY_COLOR_RENDERING,
+					RenderingHints.VALUE_COLOR_RENDER_SPEED);
+			speedRenderingHints.put(RenderingHints.KEY_INTERPOLATION,
+					RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+			imageRenderer.setRenderingHints(speedRenderingHints);
+			return true;
+		}
+		if (!speedRendering && qualityRenderingHints != null) {
+			imageRenderer.setRenderingHints(qualityRenderingHints);
+			qualityRenderingHints = null;
+			return true;
+		}
+		return false;
 	}
 
 	/**
@@ -108,29 +340,115 @@ public class TreeEditorJSVGCanvas extends JSVGCanvas {
 			System.err.println("[MdomInteractor::nodeElementAt()");
 			nte.printStackTrace();
 		}
+
+		// node rectangles
+		nodeElement = nodeRectElementAt(x, y);
+		if (nodeElement != null)
+			return nodeElement;
+
+		// other node components, such as branches
 		GraphicsNode graphicsNode = getGraphicsNode().nodeHitAt(point2D);
+		if (graphicsNode == null)
+			return null;
 		AbstractElement abstractElement = (AbstractElement) getUpdateManager()
 				.getBridgeContext().getElement(graphicsNode);
-		if (abstractElement != null)
-			while (abstractElement.getTagName().compareTo("g") != 0)
-				abstractElement = (AbstractElement) abstractElement
-						.getParentNode();
-		Vector<TreeElement> treeVector = treeEditorBridge
-				.getTreeRepresentation().getTreeVector();
-		for (int i = 0; i < treeVector.size(); i++) {
-			Vector<NodeElement> nodeVector = treeVector.elementAt(i)
-					.getNodeVector();
-			for (int z = 0; z < nodeVector.size(); z++) {
-				if (nodeVector.elementAt(z).getElement() == abstractElement) {
-					nodeElement = nodeVector.elementAt(z);
-					z = nodeVector.size();
-					i = treeVector.size();
-				}
-			}
-		}
+		if (abstractElement == null)
+			return null;
+		while (abstractElement.getTagName().compareTo("g") != 0)
+			abstractElement = (AbstractElement) abstractElement.getParentNode();
+		SVGElement svgElement = treeEditorBridge.getTreeRepresentation()
+				.getSVGElement(abstractElement);
+		if (svgElement instanceof NodeElement)
+			nodeElement = (NodeElement) svgElement;
 		return nodeElement;
 	}
 
+	/**
+	 * Returns the node element whose rectangle contains the specified
+	 * x-coordinate and y-coordinate, or null in case there is no such node.
+	 * Only the spatial index over the node rectangles is consulted, so that
+	 * the lookup does not depend on the size of the treespace.
+	 * 
+	 * @param x
+	 *            x-coordinate
+	 * @param y
+	 *            y-coordinate
+	 * @return node element
+	 */
+	public NodeElement nodeRectElementAt(float x, float y) {
+		// the view box transform includes the rendering transform
+		AffineTransform viewBoxTransform = getViewBoxTransform();
+		if (viewBoxTransform == null)
+			return null;
+		try {
+			Point2D documentPoint2D = viewBoxTransform.inverseTransform(
+					new Point2D.Float(x, y), null);
+			return treeEditorBridge.getTreeRepresentation()
+					.getNodeSpatialIndex().nodeElementAt(
+							(float) documentPoint2D.getX(),
+							(float) documentPoint2D.getY());
+		} catch (NoninvertibleTransformException nte) {
+			System.err.println("[TreeEditorJSVGCanvas::nodeRectElementAt()]");
+			nte.printStackTrace();
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the bounds of the part of the document that is visible in this
+	 * canvas as {min x, min y, max x, max y}, or null in case these are
+	 * unknown.
+	 * 
+	 * @return visible document bounds
+	 */
+	public float[] getVisibleDocumentBounds() {
+		AffineTransform viewBoxTransform = getViewBoxTransform();
+		if (viewBoxTransform == null || getWidth() == 0 || getHeight() == 0)
+			return null;
+		try {
+			Rectangle2D rectangle2D = viewBoxTransform.createInverse()
+					.createTransformedShape(
+							new Rectangle2D.Float(0, 0, getWidth(),
+									getHeight())).getBounds2D();
+			return new float[] { (float) rectangle2D.getMinX(),
+					(float) rectangle2D.getMinY(),
+					(float) rectangle2D.getMaxX(),
+					(float) rectangle2D.getMaxY() };
+		} catch (NoninvertibleTransformException nte) {
+			System.err
+					.println("[TreeEditorJSVGCanvas::getVisibleDocumentBounds()]");
+			nte.printStackTrace();
+		}
+		return null;
+	}
+
+	/**
+	 * Zooms in on the specified bounds of the document, in case these do not
+	 * fill this canvas.
+	 * 
+	 * @param bounds
+	 *            document bounds as {min x, min y, max x, max y}
+	 */
+	public void showDocumentBounds(float bounds[]) {
+		AffineTransform viewingTransform = getViewingTransform();
+		if (bounds == null || viewingTransform == null || getWidth() == 0
+				|| getHeight() == 0)
+			return;
+		Rectangle2D rectangle2D = viewingTransform.createTransformedShape(
+				new Rectangle2D.Float(bounds[0], bounds[1], bounds[2]
+						- bounds[0], bounds[3] - bounds[1])).getBounds2D();
+		if (rectangle2D.getWidth() <= 0 || rectangle2D.getHeight() <= 0)
+			return;
+		double scale = Math.min(getWidth() / rectangle2D.getWidth(),
+				getHeight() / rectangle2D.getHeight());
+		if (scale <= 1.0)
+			return;
+		AffineTransform affineTransform = AffineTransform.getScaleInstance(
+				scale, scale);
+		affineTransform.translate(-rectangle2D.getX(), -rectangle2D.getY());
+		setRenderingTransform(affineTransform);
+	}
+
 	/**
 	 * Returns the node text selection manager.
 	 * 
@@ -139,4 +457,13 @@ public class TreeEditorJSVGCanvas extends JSVGCanvas {
 	public NodeTextSelectionManager getNodeTextSelectionManager() {
 		return nodeTextSelectionManager;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Returns the blink scheduler for the overlays.
+	 * 
+	 * @return overlay blink scheduler
+	 */
+	public OverlayBlinkScheduler getOverlayBlinkScheduler() {
+		return overlayBlinkScheduler;
+	}
+}
@@ -39,6 +39,7 @@ import nl.rug.syntree.editor.interactor.TextInteractor;
 import nl.rug.syntree.editor.interactor.ZoomInteractor;
 import nl.rug.syntree.editor.listener.SVGLoadEventDispatcherListener;
 import nl.rug.syntree.editor.listener.TreeEditorJSVGCanvasMouseListener;
+import nl.rug.syntree.editor.listener.TreeEditorJSVGCanvasTransformListener;
 
 import org.apache.batik.swing.JSVGScrollPane;
 import org.apache.batik.swing.gvt.Interactor;
@@ -123,6 +124,9 @@ public class TreeEditorJSVGScrollPane extends JSVGScrollPane {
 						this));
 		treeEditorJSVGCanvas
 				.addMouseListener(new TreeEditorJSVGCanvasMouseListener(this));
+		treeEditorJSVGCanvas
+				.addJGVTComponentListener(new TreeEditorJSVGCanvasTransformListener(
+						this));
 
 		treeEditorInteractors = treeEditorJSVGCanvas.getInteractors();
 		treeEditorInteractors.clear();
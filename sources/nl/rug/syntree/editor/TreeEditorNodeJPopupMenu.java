@@ -92,6 +92,9 @@ public class TreeEditorNodeJPopupMenu extends JPopupMenu {
 						treeEditorBridge.getTreeRepresentation()
 								.getSVGDocument().computeViewBox();
 
+						// journal
+						treeEditorBridge.journalTree(nodeElement
+								.getTreeElement());
 					}
 				}, true));
 
@@ -132,8 +135,8 @@ public class TreeEditorNodeJPopupMenu extends JPopupMenu {
 						treeEditorBridge.removeTree(nodeElement
 								.getTreeElement());
 					}
-				}, (treeEditorBridge.getTreeRepresentation().getTreeVector()
-						.size() > 1)));
+				}, (treeEditorBridge.getTreeRepresentation()
+						.getNumberOfTrees() > 1)));
 
 		// separator /////////////////////////////////////////////////////////
 
@@ -20,6 +20,7 @@
 
 package nl.rug.syntree.editor.interactor;
 
+import java.awt.Rectangle;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
@@ -113,6 +114,8 @@ public class AbstractBranchInteractor extends InteractorAdapter {
 			computeOverlay();
 			treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas().getOverlays()
 					.add(branchInteractorOverlay);
+			treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas()
+					.getOverlayBlinkScheduler().start(branchInteractorOverlay);
 			treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas().repaint();
 			interactionFinished = false;
 			startInteraction = true;
@@ -127,6 +130,8 @@ public class AbstractBranchInteractor extends InteractorAdapter {
 	 * Ends the interaction.
 	 */
 	public void end() {
+		treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas()
+				.getOverlayBlinkScheduler().stop(branchInteractorOverlay);
 		treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas().getOverlays()
 				.remove(branchInteractorOverlay);
 		treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas().repaint();
@@ -203,8 +208,7 @@ public class AbstractBranchInteractor extends InteractorAdapter {
 					position++;
 			x = me.getX();
 			y = me.getX();
-			computeOverlay();
-			treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas().repaint();
+			updateOverlay();
 		}
 	}
 
@@ -230,24 +234,20 @@ public class AbstractBranchInteractor extends InteractorAdapter {
 		if (ke.getKeyCode() == KeyEvent.VK_LEFT)
 			if (position > 0) {
 				position--;
-				computeOverlay();
-				treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas().repaint();
+				updateOverlay();
 			}
 		if (ke.getKeyCode() == KeyEvent.VK_RIGHT)
 			if (position < daughterVector.size()) {
 				position++;
-				computeOverlay();
-				treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas().repaint();
+				updateOverlay();
 			}
 		if (ke.getKeyCode() == KeyEvent.VK_HOME) {
 			position = 0;
-			computeOverlay();
-			treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas().repaint();
+			updateOverlay();
 		}
 		if (ke.getKeyCode() == KeyEvent.VK_END) {
 			position = daughterVector.size();
-			computeOverlay();
-			treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas().repaint();
+			updateOverlay();
 		}
 		if (ke.getKeyCode() == KeyEvent.VK_ENTER) {
 			performEdit();
@@ -258,6 +258,17 @@ public class AbstractBranchInteractor extends InteractorAdapter {
 		}
 	}
 
+	/**
+	 * Recomputes the overlay, and repaints the part of the canvas it covers
+	 * before and after.
+	 */
+	protected void updateOverlay() {
+		Rectangle previousBounds = branchInteractorOverlay.getOverlayBounds();
+		computeOverlay();
+		treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas().repaintOverlay(
+				previousBounds, branchInteractorOverlay.getOverlayBounds());
+	}
+
 	/**
 	 * Computes the coordinates of the branch interactor pendulum string.
 	 */
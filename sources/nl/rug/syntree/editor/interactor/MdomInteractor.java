@@ -20,13 +20,21 @@
 
 package nl.rug.syntree.editor.interactor;
 
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
 import java.awt.event.InputEvent;
 import java.awt.event.MouseEvent;
 
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.Timer;
+
+import nl.rug.syntree.editor.TreeEditorJSVGCanvas;
 import nl.rug.syntree.editor.TreeEditorJSVGScrollPane;
 import nl.rug.syntree.editor.overlay.MdomInteractorOverlay;
 import nl.rug.syntree.tree.component.MdomBranchElement;
 import nl.rug.syntree.tree.component.MdomBranchPathElement;
+import nl.rug.syntree.tree.component.NodeElement;
 
 import org.apache.batik.bridge.UpdateManager;
 import org.apache.batik.dom.svg.SVGOMPoint;
@@ -83,6 +91,12 @@ public class MdomInteractor extends InteractorAdapter {
 	 */
 	public static final int NO_POINT = 0x07;
 
+	/**
+	 * Frame delay constant in milliseconds, at which drag updates are applied
+	 * at most
+	 */
+	public static final int DRAG_FRAME_DELAY = 16;
+
 	/**
 	 * Control point padding constant
 	 */
@@ -118,6 +132,60 @@ public class MdomInteractor extends InteractorAdapter {
 	 */
 	protected MdomBranchElement mdomBranchElement;
 
+	/**
+	 * Latest x-coordinate of the pointer while dragging
+	 */
+	protected volatile int dragX;
+
+	/**
+	 * Latest y-coordinate of the pointer while dragging
+	 */
+	protected volatile int dragY;
+
+	/**
+	 * Boolean indicating whether an update of the mdom branch path is queued
+	 */
+	protected volatile boolean pathUpdatePending = false;
+
+	/**
+	 * Frame action that applies the latest pointer position of a drag
+	 */
+	protected Action dragFrameAction = new AbstractAction() {
+		/**
+		 * Serial version identifier constant
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Handles the performed action
+		 * 
+		 * @param ae
+		 *            the occurred action event
+		 */
+		public void actionPerformed(ActionEvent ae) {
+			applyDrag();
+		}
+	};
+
+	/**
+	 * Timer that applies the latest pointer position of a drag once per frame
+	 */
+	protected Timer dragFrameTimer = new Timer(DRAG_FRAME_DELAY,
+			dragFrameAction);
+
+	/**
+	 * Update of the mdom branch path to the latest pointer position of a drag
+	 */
+	protected Runnable pathUpdate = new Runnable() {
+		public void run() {
+			pathUpdatePending = false;
+			if (getSelectedPoint() == NO_POINT)
+				return;
+			computeMdomBranchPathElement(dragX, dragY, true);
+			treeEditorJSVGScrollPane.getTreeDrawer().draw(mdomBranchElement);
+		}
+	};
+
 	/**
 	 * Constructs a new mdom branch interactor.
 	 * 
@@ -129,6 +197,7 @@ public class MdomInteractor extends InteractorAdapter {
 		this.startInteraction = false;
 		this.interactionFinished = false;
 		mdomInteractorOverlay = new MdomInteractorOverlay(this);
+		dragFrameTimer.setRepeats(false);
 		setSelectedPoint(NO_POINT);
 	}
 
@@ -216,55 +285,84 @@ public class MdomInteractor extends InteractorAdapter {
 	}
 
 	/**
-	 * Processes the specified mouse dragged event.
+	 * Processes the specified mouse dragged event. Only the latest pointer
+	 * position is kept, and applied at most once per frame, so that stale
+	 * intermediate positions are dropped.
 	 * 
 	 * @param me
 	 *            mouse event
 	 */
 	public void mouseDragged(MouseEvent me) {
+		dragX = me.getX();
+		dragY = me.getY();
+		if (!dragFrameTimer.isRunning())
+			dragFrameTimer.start();
+	}
+
+	/**
+	 * Applies the latest pointer position of a drag to the overlay, and
+	 * queues an update of the mdom branch path, unless one is already queued.
+	 */
+	protected void applyDrag() {
+		if (selectedPoint == NO_POINT)
+			return;
+		treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas().interact();
+		int x = dragX;
+		int y = dragY;
+		Rectangle previousBounds = mdomInteractorOverlay.getOverlayBounds();
 		switch (selectedPoint) {
 		case MOVETO:
-			mdomInteractorOverlay.setMovetoX(me.getX());
-			mdomInteractorOverlay.setMovetoY(me.getY());
+			mdomInteractorOverlay.setMovetoX(x);
+			mdomInteractorOverlay.setMovetoY(y);
 			break;
 		case FIRST_CURVETO:
-			mdomInteractorOverlay.setFirstCurvetoX(me.getX());
-			mdomInteractorOverlay.setFirstCurvetoY(me.getY());
+			mdomInteractorOverlay.setFirstCurvetoX(x);
+			mdomInteractorOverlay.setFirstCurvetoY(y);
 			break;
 		case FIRST_CURVETO_CP1:
-			mdomInteractorOverlay.setFirstCurvetoCP1X(me.getX());
-			mdomInteractorOverlay.setFirstCurvetoCP1Y(me.getY());
+			mdomInteractorOverlay.setFirstCurvetoCP1X(x);
+			mdomInteractorOverlay.setFirstCurvetoCP1Y(y);
 			break;
 		case FIRST_CURVETO_CP2:
-			mdomInteractorOverlay.setFirstCurvetoCP2X(me.getX());
-			mdomInteractorOverlay.setFirstCurvetoCP2Y(me.getY());
+			mdomInteractorOverlay.setFirstCurvetoCP2X(x);
+			mdomInteractorOverlay.setFirstCurvetoCP2Y(y);
 			mdomInteractorOverlay.setSecondCurvetoCP1X(mdomInteractorOverlay
 					.getFirstCurvetoX()
-					+ (mdomInteractorOverlay.getFirstCurvetoX() - me.getX()));
+					+ (mdomInteractorOverlay.getFirstCurvetoX() - x));
 			mdomInteractorOverlay.setSecondCurvetoCP1Y(mdomInteractorOverlay
 					.getFirstCurvetoY()
-					+ (mdomInteractorOverlay.getFirstCurvetoY() - me.getY()));
+					+ (mdomInteractorOverlay.getFirstCurvetoY() - y));
 			break;
 		case SECOND_CURVETO:
-			mdomInteractorOverlay.setSecondCurvetoX(me.getX());
-			mdomInteractorOverlay.setSecondCurvetoY(me.getY());
+			mdomInteractorOverlay.setSecondCurvetoX(x);
+			mdomInteractorOverlay.setSecondCurvetoY(y);
 			break;
 		case SECOND_CURVETO_CP1:
-			mdomInteractorOverlay.setSecondCurvetoCP1X(me.getX());
-			mdomInteractorOverlay.setSecondCurvetoCP1Y(me.getY());
+			mdomInteractorOverlay.setSecondCurvetoCP1X(x);
+			mdomInteractorOverlay.setSecondCurvetoCP1Y(y);
 			mdomInteractorOverlay.setFirstCurvetoCP2X(mdomInteractorOverlay
 					.getFirstCurvetoX()
-					+ (mdomInteractorOverlay.getFirstCurvetoX() - me.getX()));
+					+ (mdomInteractorOverlay.getFirstCurvetoX() - x));
 			mdomInteractorOverlay.setFirstCurvetoCP2Y(mdomInteractorOverlay
 					.getFirstCurvetoY()
-					+ (mdomInteractorOverlay.getFirstCurvetoY() - me.getY()));
+					+ (mdomInteractorOverlay.getFirstCurvetoY() - y));
 			break;
 		case SECOND_CURVETO_CP2:
-			mdomInteractorOverlay.setSecondCurvetoCP2X(me.getX());
-			mdomInteractorOverlay.setSecondCurvetoCP2Y(me.getY());
+			mdomInteractorOverlay.setSecondCurvetoCP2X(x);
+			mdomInteractorOverlay.setSecondCurvetoCP2Y(y);
 			break;
 		}
-		treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas().repaint();
+		treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas().repaintOverlay(
+				previousBounds, mdomInteractorOverlay.getOverlayBounds());
+		if (pathUpdatePending)
+			return;
+		UpdateManager um = treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas()
+				.getUpdateManager();
+		RunnableQueue rq = (um != null) ? um.getUpdateRunnableQueue() : null;
+		if (rq != null) {
+			pathUpdatePending = true;
+			rq.invokeLater(pathUpdate);
+		}
 	}
 
 	/**
@@ -276,7 +374,9 @@ public class MdomInteractor extends InteractorAdapter {
 	public void mouseReleased(MouseEvent me) {
 		final float x = me.getX();
 		final float y = me.getY();
+		dragFrameTimer.stop();
 		if (getSelectedPoint() != NO_POINT) {
+			treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas().interact();
 			UpdateManager um = treeEditorJSVGScrollPane
 					.getTreeEditorJSVGCanvas().getUpdateManager();
 			RunnableQueue rq = um.getUpdateRunnableQueue();
@@ -288,6 +388,8 @@ public class MdomInteractor extends InteractorAdapter {
 						treeEditorJSVGScrollPane.getTreeEditorBridge()
 								.getTreeRepresentation().getSVGDocument()
 								.computeViewBox();
+						treeEditorJSVGScrollPane.getTreeEditorBridge()
+								.journalMdoms();
 						computeOverlay();
 						treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas()
 								.repaint();
@@ -318,6 +420,24 @@ public class MdomInteractor extends InteractorAdapter {
 	 *            y-coordinate
 	 */
 	public void computeMdomBranchPathElement(float x, float y) {
+		computeMdomBranchPathElement(x, y, false);
+	}
+
+	/**
+	 * Computes the mdom branch path element. In case only node rectangles
+	 * are snapped to, the mother or daughter node is looked up through the
+	 * spatial index only.
+	 * 
+	 * @param x
+	 *            x-coordinate
+	 * @param y
+	 *            y-coordinate
+	 * @param nodeRectsOnly
+	 *            boolean indicating whether only node rectangles are snapped
+	 *            to
+	 */
+	public void computeMdomBranchPathElement(float x, float y,
+			boolean nodeRectsOnly) {
 		MdomBranchPathElement mdomBranchPathElement = mdomBranchElement
 				.getMdomBranchPathElement();
 		SVGPathElement svgPathElement = (SVGPathElement) mdomBranchPathElement
@@ -336,8 +456,7 @@ public class MdomInteractor extends InteractorAdapter {
 
 		switch (getSelectedPoint()) {
 		case MOVETO:
-			mdomBranchElement.setMotherNode(treeEditorJSVGScrollPane
-					.getTreeEditorJSVGCanvas().nodeElementAt(x, y));
+			mdomBranchElement.setMotherNode(nodeElementAt(x, y, nodeRectsOnly));
 			mdomBranchPathElement.setMovetoX(svgOMPoint.getX());
 			mdomBranchPathElement.setMovetoY(svgOMPoint.getY());
 			break;
@@ -362,8 +481,8 @@ public class MdomInteractor extends InteractorAdapter {
 					- mdomBranchPathElement.getFirstCurvetoCP2Y());
 			break;
 		case SECOND_CURVETO:
-			mdomBranchElement.setDaughterNode(treeEditorJSVGScrollPane
-					.getTreeEditorJSVGCanvas().nodeElementAt(x, y));
+			mdomBranchElement
+					.setDaughterNode(nodeElementAt(x, y, nodeRectsOnly));
 			mdomBranchPathElement.setSecondCurvetoX(svgOMPoint.getX()
 					- firstCurvetoX - movetoX);
 			mdomBranchPathElement.setSecondCurvetoY(svgOMPoint.getY()
@@ -388,6 +507,28 @@ public class MdomInteractor extends InteractorAdapter {
 		}
 	}
 
+	/**
+	 * Returns the node element at the specified x-coordinate and
+	 * y-coordinate of the canvas.
+	 * 
+	 * @param x
+	 *            x-coordinate
+	 * @param y
+	 *            y-coordinate
+	 * @param nodeRectsOnly
+	 *            boolean indicating whether only node rectangles are
+	 *            considered
+	 * @return node element, or null
+	 */
+	protected NodeElement nodeElementAt(float x, float y,
+			boolean nodeRectsOnly) {
+		TreeEditorJSVGCanvas treeEditorJSVGCanvas = treeEditorJSVGScrollPane
+				.getTreeEditorJSVGCanvas();
+		if (nodeRectsOnly)
+			return treeEditorJSVGCanvas.nodeRectElementAt(x, y);
+		return treeEditorJSVGCanvas.nodeElementAt(x, y);
+	}
+
 	/**
 	 * Computes the mdom interactor overlay.
 	 */
@@ -20,12 +20,14 @@
 
 package nl.rug.syntree.editor.interactor;
 
+import java.awt.Rectangle;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.util.Vector;
 
 import nl.rug.syntree.editor.TreeEditorJSVGScrollPane;
+import nl.rug.syntree.editor.manager.RedrawScheduler;
 import nl.rug.syntree.editor.overlay.TextInteractorCursorOverlay;
 import nl.rug.syntree.editor.text.TextEditor;
 import nl.rug.syntree.tree.component.NodeElement;
@@ -97,6 +99,17 @@ public class TextInteractor extends InteractorAdapter {
 	 */
 	protected int characterUpdateBuffer = 0;
 
+	/**
+	 * Cursor update runnable, which is run once a scheduled redraw of the
+	 * edited tree is done
+	 */
+	protected Runnable cursorUpdate = new Runnable() {
+		public void run() {
+			if (!interactionFinished)
+				updateCursor();
+		}
+	};
+
 	/**
 	 * Constructs a new text interactor.
 	 * 
@@ -140,6 +153,9 @@ public class TextInteractor extends InteractorAdapter {
 			setPosition(textElement.getText().length() - 1);
 			treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas().getOverlays()
 					.add(textInteractorCursorOverlay);
+			treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas()
+					.getOverlayBlinkScheduler().start(
+							textInteractorCursorOverlay);
 			updateCursor();
 
 			// disable recenter on resize
@@ -188,6 +204,8 @@ public class TextInteractor extends InteractorAdapter {
 				true);
 
 		// remove cursor overlay
+		treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas()
+				.getOverlayBlinkScheduler().stop(textInteractorCursorOverlay);
 		treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas().getOverlays()
 				.remove(textInteractorCursorOverlay);
 
@@ -496,33 +514,38 @@ public class TextInteractor extends InteractorAdapter {
 
 	/**
 	 * Invokes an appropriate redraw of the modified tree representation.
+	 * Redraws of the tree representation are left to the redraw scheduler,
+	 * which journals the edited tree and updates the cursor once the tree is
+	 * drawn.
 	 * 
 	 * @param fullRedrawRequired
 	 *            full redraw required or not
 	 */
 	public void invokeRedraw(boolean fullRedrawRequired) {
-		if (fullRedrawRequired) {
-			treeEditorJSVGScrollPane.getTreeDrawer().draw();
-			treeEditorJSVGScrollPane.getTreeEditorBridge()
-					.getTreeRepresentation().getSVGDocument().computeViewBox();
-		} else {
-			// redraw node
-			if (characterUpdateBuffer < CHARACTER_UPDATE_INTERVAL)
-				treeEditorJSVGScrollPane.getTreeDrawer().draw(nodeElement);
-
-			// redraw tree
-			if (characterUpdateBuffer == CHARACTER_UPDATE_INTERVAL)
-				treeEditorJSVGScrollPane.getTreeDrawer().draw();
-
-			// compute viewBox
-			treeEditorJSVGScrollPane.getTreeEditorBridge()
-					.getTreeRepresentation().getSVGDocument().computeViewBox();
-
+		RedrawScheduler redrawScheduler = treeEditorJSVGScrollPane
+				.getTreeEditorBridge().getRedrawScheduler();
+		if (!fullRedrawRequired) {
 			// update character update buffer
+			boolean redrawTree = characterUpdateBuffer == CHARACTER_UPDATE_INTERVAL;
 			characterUpdateBuffer++;
 			if (characterUpdateBuffer > CHARACTER_UPDATE_INTERVAL)
 				characterUpdateBuffer = 0;
+
+			// redraw node
+			if (!redrawTree) {
+				treeEditorJSVGScrollPane.getTreeDrawer().draw(nodeElement);
+				treeEditorJSVGScrollPane.getTreeEditorBridge()
+						.getTreeRepresentation().getSVGDocument()
+						.computeViewBox();
+				treeEditorJSVGScrollPane.getTreeEditorBridge().journalTree(
+						nodeElement.getTreeElement());
+				return;
+			}
 		}
+
+		// redraw tree
+		redrawScheduler.markDirty(nodeElement.getTreeElement());
+		redrawScheduler.scheduleRedraw(cursorUpdate);
 	}
 
 	/**
@@ -574,8 +597,11 @@ public class TextInteractor extends InteractorAdapter {
 	 * Recomputes and repaints the cursor overlay.
 	 */
 	public void updateCursor() {
+		Rectangle previousBounds = textInteractorCursorOverlay
+				.getOverlayBounds();
 		computeOverlay();
-		treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas().repaint();
+		treeEditorJSVGScrollPane.getTreeEditorJSVGCanvas().repaintOverlay(
+				previousBounds, textInteractorCursorOverlay.getOverlayBounds());
 	}
 
 	// accessors and mutators ////////////////////////////////////////////////
@@ -20,7 +20,10 @@
 
 package nl.rug.syntree.editor.listener;
 
+import javax.swing.SwingUtilities;
+
 import nl.rug.syntree.editor.TreeEditorJSVGScrollPane;
+import nl.rug.syntree.tree.TreeRepresentation;
 
 import org.apache.batik.bridge.UpdateManager;
 import org.apache.batik.swing.svg.SVGLoadEventDispatcherAdapter;
@@ -70,11 +73,24 @@ public class SVGLoadEventDispatcherListener extends
 							.getTreeRepresentation().getTreeVector().size() == 0) {
 						treeEditorJSVGScrollPane.getTreeEditorBridge()
 								.createTree();
-					} else {						
-						treeEditorJSVGScrollPane.getTreeDrawer().draw();						
-						treeEditorJSVGScrollPane.getTreeEditorBridge()
-								.getTreeRepresentation().getSVGDocument()
-								.computeViewBox();
+					} else {
+						TreeRepresentation treeRepresentation = treeEditorJSVGScrollPane
+								.getTreeEditorBridge().getTreeRepresentation();
+						treeEditorJSVGScrollPane.getTreeDrawer().draw();
+						treeRepresentation.getSVGDocument().computeViewBox();
+
+						// show the first screen of a lazily loaded treespace
+						if (treeRepresentation.isLazy()) {
+							final float bounds[] = treeRepresentation
+									.getMaterializedBounds();
+							SwingUtilities.invokeLater(new Runnable() {
+								public void run() {
+									treeEditorJSVGScrollPane
+											.getTreeEditorJSVGCanvas()
+											.showDocumentBounds(bounds);
+								}
+							});
+						}
 					}
 				}
 			});
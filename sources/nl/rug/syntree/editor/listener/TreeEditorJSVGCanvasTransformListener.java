@@ -0,0 +1,65 @@
+/* TreeEditorJSVGCanvasTransformListener.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.editor.listener;
+
+import java.awt.event.ComponentEvent;
+
+import nl.rug.syntree.editor.TreeEditorJSVGScrollPane;
+
+import org.apache.batik.swing.gvt.JGVTComponentListener;
+
+/**
+ * This class represents a transform listener for the svg canvas, which
+ * materializes the lazily loaded trees that are scrolled or zoomed into view,
+ * and culls the trees that are scrolled or zoomed out of view.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class TreeEditorJSVGCanvasTransformListener implements
+		JGVTComponentListener {
+	/**
+	 * Tree editor scroll pane
+	 */
+	protected TreeEditorJSVGScrollPane treeEditorJSVGScrollPane;
+
+	/**
+	 * Constructs a new transform listener for the svg canvas.
+	 * 
+	 * @param treeEditorJSVGScrollPane
+	 *            tree editor scroll pane
+	 */
+	public TreeEditorJSVGCanvasTransformListener(
+			TreeEditorJSVGScrollPane treeEditorJSVGScrollPane) {
+		this.treeEditorJSVGScrollPane = treeEditorJSVGScrollPane;
+	}
+
+	/**
+	 * Processes a component transform changed event.
+	 * 
+	 * @param ce
+	 *            component event
+	 */
+	public void componentTransformChanged(ComponentEvent ce) {
+		treeEditorJSVGScrollPane.getTreeEditorBridge().updateVisibleTrees();
+	}
+}
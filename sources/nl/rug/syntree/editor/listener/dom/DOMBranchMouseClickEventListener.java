@@ -27,24 +27,23 @@ import nl.rug.syntree.editor.manager.BranchSelectionManager;
 import nl.rug.syntree.editor.manager.MdomSelectionManager;
 import nl.rug.syntree.editor.manager.NodeSelectionManager;
 import nl.rug.syntree.tree.component.BranchElement;
-import nl.rug.syntree.tree.component.BranchRectElement;
 import nl.rug.syntree.tree.component.NodeElement;
 
 import org.apache.batik.bridge.UpdateManager;
 import org.apache.batik.dom.events.DOMMouseEvent;
 import org.apache.batik.util.RunnableQueue;
 import org.w3c.dom.events.Event;
-import org.w3c.dom.events.EventListener;
 
 /**
  * This class represents a document object model mouse click event listener for
- * branch elements.
+ * branch elements. The node that owns the branch is passed along with each
+ * event, so that one listener serves all branches.
  * 
  * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
  * @version 1.0
  * @since 1.0
  */
-public class DOMBranchMouseClickEventListener implements EventListener {
+public class DOMBranchMouseClickEventListener {
 	/**
 	 * Tree editor bridge
 	 */
@@ -65,40 +64,18 @@ public class DOMBranchMouseClickEventListener implements EventListener {
 	 */
 	protected NodeSelectionManager nodeSelectionManager;
 
-	/**
-	 * Branch element
-	 */
-	protected BranchElement branchElement;
-
-	/**
-	 * Node element
-	 */
-	protected NodeElement nodeElement;
-
-	/**
-	 * Branch rectangle element
-	 */
-	protected BranchRectElement branchRectElement;
-
 	/**
 	 * Constructs a new dom click event listener for branch elements.
 	 * 
 	 * @param treeEditorBridge
 	 *            tree editor bridge
-	 * @param nodeElement
-	 *            node element
 	 */
-	public DOMBranchMouseClickEventListener(TreeEditorBridge treeEditorBridge,
-			NodeElement nodeElement) {
+	public DOMBranchMouseClickEventListener(TreeEditorBridge treeEditorBridge) {
 		this.treeEditorBridge = treeEditorBridge;
 		this.branchSelectionManager = treeEditorBridge
 				.getBranchSelectionManager();
 		this.mdomSelectionManager = treeEditorBridge.getMdomSelectionManager();
 		this.nodeSelectionManager = treeEditorBridge.getNodeSelectionManager();
-		this.nodeElement = nodeElement;
-		this.branchElement = nodeElement.getBranchElement();
-		this.branchRectElement = nodeElement.getBranchElement()
-				.getBranchRectElement();
 	}
 
 	/**
@@ -106,8 +83,10 @@ public class DOMBranchMouseClickEventListener implements EventListener {
 	 * 
 	 * @param e
 	 *            event
+	 * @param nodeElement
+	 *            node element
 	 */
-	public void handleEvent(Event e) {
+	public void handleEvent(Event e, final NodeElement nodeElement) {
 		final DOMMouseEvent dme = (DOMMouseEvent) e;
 		UpdateManager um = treeEditorBridge.getUpdateManager();
 		RunnableQueue rq = um.getUpdateRunnableQueue();
@@ -115,9 +94,9 @@ public class DOMBranchMouseClickEventListener implements EventListener {
 			rq.invokeLater(new Runnable() {
 				public void run() {
 					if (dme.getButton() == 0 && dme.getDetail() == 1)
-						singleLeftClick(dme);
+						singleLeftClick(dme, nodeElement);
 					if (dme.getButton() == 2 && dme.getDetail() == 1)
-						singleRightClick(dme);
+						singleRightClick(dme, nodeElement);
 				}
 			});
 		}
@@ -128,8 +107,11 @@ public class DOMBranchMouseClickEventListener implements EventListener {
 	 * 
 	 * @param dme
 	 *            dom mouse event
+	 * @param nodeElement
+	 *            node element
 	 */
-	public void singleLeftClick(DOMMouseEvent dme) {
+	public void singleLeftClick(DOMMouseEvent dme, NodeElement nodeElement) {
+		BranchElement branchElement = nodeElement.getBranchElement();
 		if (!dme.getCtrlKey() && branchSelectionManager.getSelectionSize() >= 0) {
 			branchSelectionManager.clear();
 			mdomSelectionManager.clear();
@@ -150,8 +132,10 @@ public class DOMBranchMouseClickEventListener implements EventListener {
 	 * 
 	 * @param dme
 	 *            dom mouse event
+	 * @param nodeElement
+	 *            node element
 	 */
-	public void singleRightClick(DOMMouseEvent dme) {
+	public void singleRightClick(DOMMouseEvent dme, NodeElement nodeElement) {
 		if (!dme.getCtrlKey()) {
 			TreeEditorJSVGCanvas treeEditorJSVGCanvas;
 			treeEditorJSVGCanvas = treeEditorBridge.getUIJInternalFrame()
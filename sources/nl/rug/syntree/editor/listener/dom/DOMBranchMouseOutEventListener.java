@@ -29,17 +29,17 @@ import nl.rug.syntree.tree.component.NodeElement;
 import org.apache.batik.bridge.UpdateManager;
 import org.apache.batik.util.RunnableQueue;
 import org.w3c.dom.events.Event;
-import org.w3c.dom.events.EventListener;
 
 /**
  * This class represents a document object model mouse out event listener for
- * branch elements.
+ * branch elements. The node that owns the branch is passed along with each
+ * event, so that one listener serves all branches.
  * 
  * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
  * @version 1.0
  * @since 1.0
  */
-public class DOMBranchMouseOutEventListener implements EventListener {
+public class DOMBranchMouseOutEventListener {
 	/**
 	 * Tree editor bridge
 	 */
@@ -50,32 +50,16 @@ public class DOMBranchMouseOutEventListener implements EventListener {
 	 */
 	protected BranchSelectionManager branchSelectionManager;
 
-	/**
-	 * Branch element
-	 */
-	protected BranchElement branchElement;
-
-	/**
-	 * Branch rectangle element
-	 */
-	protected BranchRectElement branchRectElement;
-
 	/**
 	 * Constructs a new dom mouse out event listener for branch elements
 	 * 
 	 * @param treeEditorBridge
 	 *            tree editor bridge
-	 * @param nodeElement
-	 *            node element
 	 */
-	public DOMBranchMouseOutEventListener(TreeEditorBridge treeEditorBridge,
-			NodeElement nodeElement) {
+	public DOMBranchMouseOutEventListener(TreeEditorBridge treeEditorBridge) {
 		this.treeEditorBridge = treeEditorBridge;
-		this.branchElement = nodeElement.getBranchElement();
 		this.branchSelectionManager = treeEditorBridge
 				.getBranchSelectionManager();
-		this.branchRectElement = nodeElement.getBranchElement()
-				.getBranchRectElement();
 	}
 
 	/**
@@ -83,8 +67,13 @@ public class DOMBranchMouseOutEventListener implements EventListener {
 	 * 
 	 * @param e
 	 *            event
+	 * @param nodeElement
+	 *            node element
 	 */
-	public void handleEvent(Event e) {
+	public void handleEvent(Event e, final NodeElement nodeElement) {
+		final BranchElement branchElement = nodeElement.getBranchElement();
+		final BranchRectElement branchRectElement = branchElement
+				.getBranchRectElement();
 		UpdateManager um = treeEditorBridge.getUpdateManager();
 		RunnableQueue rq = um.getUpdateRunnableQueue();
 		if (um != null && rq != null) {
@@ -27,40 +27,30 @@ import nl.rug.syntree.tree.component.NodeElement;
 import org.apache.batik.bridge.UpdateManager;
 import org.apache.batik.util.RunnableQueue;
 import org.w3c.dom.events.Event;
-import org.w3c.dom.events.EventListener;
 
 /**
  * This class represents a document object model mouse over event listener for
- * branch elements.
+ * branch elements. The node that owns the branch is passed along with each
+ * event, so that one listener serves all branches.
  * 
  * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
  * @version 1.0
  * @since 1.0
  */
-public class DOMBranchMouseOverEventListener implements EventListener {
+public class DOMBranchMouseOverEventListener {
 	/**
 	 * Tree editor bridge
 	 */
 	protected TreeEditorBridge treeEditorBridge;
 
-	/**
-	 * Branch rectangle element
-	 */
-	protected BranchRectElement branchRectElement;
-
 	/**
 	 * Constructs a new dom mouse over event listener for branch elements
 	 * 
 	 * @param treeEditorBridge
 	 *            tree editor bridge
-	 * @param nodeElement
-	 *            node element
 	 */
-	public DOMBranchMouseOverEventListener(TreeEditorBridge treeEditorBridge,
-			NodeElement nodeElement) {
+	public DOMBranchMouseOverEventListener(TreeEditorBridge treeEditorBridge) {
 		this.treeEditorBridge = treeEditorBridge;
-		this.branchRectElement = nodeElement.getBranchElement()
-				.getBranchRectElement();
 	}
 
 	/**
@@ -68,8 +58,12 @@ public class DOMBranchMouseOverEventListener implements EventListener {
 	 * 
 	 * @param e
 	 *            event
+	 * @param nodeElement
+	 *            node element
 	 */
-	public void handleEvent(Event e) {
+	public void handleEvent(Event e, final NodeElement nodeElement) {
+		final BranchRectElement branchRectElement = nodeElement
+				.getBranchElement().getBranchRectElement();
 		UpdateManager um = treeEditorBridge.getUpdateManager();
 		RunnableQueue rq = um.getUpdateRunnableQueue();
 		if (um != null && rq != null) {
@@ -0,0 +1,274 @@
+/* DOMGroupEventListener.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.editor.listener.dom;
+
+import nl.rug.syntree.editor.TreeEditorBridge;
+import nl.rug.syntree.tree.TreeRepresentation;
+import nl.rug.syntree.tree.component.BranchElement;
+import nl.rug.syntree.tree.component.BranchRectElement;
+import nl.rug.syntree.tree.component.MdomBranchElement;
+import nl.rug.syntree.tree.component.MdomBranchPathElement;
+import nl.rug.syntree.tree.component.NodeElement;
+import nl.rug.syntree.tree.component.NodeRectElement;
+import nl.rug.syntree.tree.component.SVGElement;
+import nl.rug.syntree.tree.component.TextElement;
+
+import org.apache.batik.dom.AbstractElement;
+import org.w3c.dom.Node;
+import org.w3c.dom.events.Event;
+import org.w3c.dom.events.EventListener;
+
+/**
+ * This class represents a document object mouse event listener for the tree
+ * and meta group elements. Mouse click, over and out events bubble up from the
+ * node, branch and mdom branch components to the group, where the node or mdom
+ * branch that owns the target of the event is looked up, and the event is
+ * passed on to the node, branch or mdom event listener together with its
+ * owner. These listeners are created once, and shared by all components.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class DOMGroupEventListener implements EventListener {
+	/**
+	 * Mouse click event type constant
+	 */
+	public static final String CLICK = "click";
+
+	/**
+	 * Mouse over event type constant
+	 */
+	public static final String MOUSE_OVER = "mouseover";
+
+	/**
+	 * Mouse out event type constant
+	 */
+	public static final String MOUSE_OUT = "mouseout";
+
+	/**
+	 * Tree editor bridge
+	 */
+	protected TreeEditorBridge treeEditorBridge;
+
+	/**
+	 * Node mouse click event listener
+	 */
+	protected DOMNodeMouseClickEventListener domNodeMouseClickEventListener;
+
+	/**
+	 * Node mouse over event listener
+	 */
+	protected DOMNodeMouseOverEventListener domNodeMouseOverEventListener;
+
+	/**
+	 * Node mouse out event listener
+	 */
+	protected DOMNodeMouseOutEventListener domNodeMouseOutEventListener;
+
+	/**
+	 * Branch mouse click event listener
+	 */
+	protected DOMBranchMouseClickEventListener domBranchMouseClickEventListener;
+
+	/**
+	 * Branch mouse over event listener
+	 */
+	protected DOMBranchMouseOverEventListener domBranchMouseOverEventListener;
+
+	/**
+	 * Branch mouse out event listener
+	 */
+	protected DOMBranchMouseOutEventListener domBranchMouseOutEventListener;
+
+	/**
+	 * Mdom mouse click event listener
+	 */
+	protected DOMMdomMouseClickEventListener domMdomMouseClickEventListener;
+
+	/**
+	 * Mdom mouse over event listener
+	 */
+	protected DOMMdomMouseOverEventListener domMdomMouseOverEventListener;
+
+	/**
+	 * Mdom mouse out event listener
+	 */
+	protected DOMMdomMouseOutEventListener domMdomMouseOutEventListener;
+
+	/**
+	 * Constructs a new dom group event listener.
+	 * 
+	 * @param treeEditorBridge
+	 *            tree editor bridge
+	 */
+	public DOMGroupEventListener(TreeEditorBridge treeEditorBridge) {
+		this.treeEditorBridge = treeEditorBridge;
+		domNodeMouseClickEventListener = new DOMNodeMouseClickEventListener(
+				treeEditorBridge);
+		domNodeMouseOverEventListener = new DOMNodeMouseOverEventListener(
+				treeEditorBridge);
+		domNodeMouseOutEventListener = new DOMNodeMouseOutEventListener(
+				treeEditorBridge);
+		domBranchMouseClickEventListener = new DOMBranchMouseClickEventListener(
+				treeEditorBridge);
+		domBranchMouseOverEventListener = new DOMBranchMouseOverEventListener(
+				treeEditorBridge);
+		domBranchMouseOutEventListener = new DOMBranchMouseOutEventListener(
+				treeEditorBridge);
+		domMdomMouseClickEventListener = new DOMMdomMouseClickEventListener(
+				treeEditorBridge);
+		domMdomMouseOverEventListener = new DOMMdomMouseOverEventListener(
+				treeEditorBridge);
+		domMdomMouseOutEventListener = new DOMMdomMouseOutEventListener(
+				treeEditorBridge);
+	}
+
+	/**
+	 * Adds this listener for mouse click, over and out events to the specified
+	 * group element.
+	 * 
+	 * @param svgElement
+	 *            group element
+	 */
+	public void addTo(SVGElement svgElement) {
+		AbstractElement element = svgElement.getElement();
+		element.addEventListener(CLICK, this, false);
+		element.addEventListener(MOUSE_OVER, this, false);
+		element.addEventListener(MOUSE_OUT, this, false);
+	}
+
+	/**
+	 * Process the specified dom event.
+	 * 
+	 * @param e
+	 *            event
+	 */
+	public void handleEvent(Event e) {
+		if (!(e.getTarget() instanceof Node))
+			return;
+		TreeRepresentation treeRepresentation = treeEditorBridge
+				.getTreeRepresentation();
+		Node groupNode = (Node) e.getCurrentTarget();
+
+		// the first component on the way up determines the kind of event, the
+		// first node or mdom branch determines its owner
+		SVGElement componentElement = null;
+		for (Node node = (Node) e.getTarget(); node != null
+				&& node != groupNode; node = node.getParentNode()) {
+			if (!(node instanceof AbstractElement))
+				continue;
+			SVGElement svgElement = treeRepresentation
+					.getSVGElement((AbstractElement) node);
+			if (svgElement == null)
+				continue;
+			if (svgElement instanceof NodeElement) {
+				if (componentElement instanceof BranchElement
+						|| componentElement instanceof BranchRectElement)
+					handleBranchEvent(e, (NodeElement) svgElement);
+				else if (componentElement instanceof NodeRectElement
+						|| componentElement instanceof TextElement)
+					handleNodeEvent(e, (NodeElement) svgElement);
+				return;
+			}
+			if (svgElement instanceof MdomBranchElement) {
+				if (componentElement instanceof MdomBranchPathElement)
+					handleMdomEvent(e, (MdomBranchElement) svgElement);
+				return;
+			}
+			if (componentElement == null && isComponentElement(svgElement))
+				componentElement = svgElement;
+		}
+	}
+
+	/**
+	 * Returns a boolean indicating whether the specified element is a
+	 * component that receives mouse events.
+	 * 
+	 * @param svgElement
+	 *            svg element
+	 * @return boolean
+	 */
+	protected boolean isComponentElement(SVGElement svgElement) {
+		return svgElement instanceof BranchElement
+				|| svgElement instanceof BranchRectElement
+				|| svgElement instanceof NodeRectElement
+				|| svgElement instanceof TextElement
+				|| svgElement instanceof MdomBranchPathElement;
+	}
+
+	/**
+	 * Passes the specified event on to the node event listener of the
+	 * specified node.
+	 * 
+	 * @param e
+	 *            event
+	 * @param nodeElement
+	 *            node element
+	 */
+	protected void handleNodeEvent(Event e, NodeElement nodeElement) {
+		String type = e.getType();
+		if (CLICK.equals(type))
+			domNodeMouseClickEventListener.handleEvent(e, nodeElement);
+		else if (MOUSE_OVER.equals(type))
+			domNodeMouseOverEventListener.handleEvent(e, nodeElement);
+		else if (MOUSE_OUT.equals(type))
+			domNodeMouseOutEventListener.handleEvent(e, nodeElement);
+	}
+
+	/**
+	 * Passes the specified event on to the branch event listener of the
+	 * specified node.
+	 * 
+	 * @param e
+	 *            event
+	 * @param nodeElement
+	 *            node element
+	 */
+	protected void handleBranchEvent(Event e, NodeElement nodeElement) {
+		String type = e.getType();
+		if (CLICK.equals(type))
+			domBranchMouseClickEventListener.handleEvent(e, nodeElement);
+		else if (MOUSE_OVER.equals(type))
+			domBranchMouseOverEventListener.handleEvent(e, nodeElement);
+		else if (MOUSE_OUT.equals(type))
+			domBranchMouseOutEventListener.handleEvent(e, nodeElement);
+	}
+
+	/**
+	 * Passes the specified event on to the mdom event listener of the
+	 * specified mdom branch.
+	 * 
+	 * @param e
+	 *            event
+	 * @param mdomBranchElement
+	 *            mdom branch element
+	 */
+	protected void handleMdomEvent(Event e, MdomBranchElement mdomBranchElement) {
+		String type = e.getType();
+		if (CLICK.equals(type))
+			domMdomMouseClickEventListener.handleEvent(e, mdomBranchElement);
+		else if (MOUSE_OVER.equals(type))
+			domMdomMouseOverEventListener.handleEvent(e, mdomBranchElement);
+		else if (MOUSE_OUT.equals(type))
+			domMdomMouseOutEventListener.handleEvent(e, mdomBranchElement);
+	}
+}
@@ -31,17 +31,17 @@ import org.apache.batik.bridge.UpdateManager;
 import org.apache.batik.dom.events.DOMMouseEvent;
 import org.apache.batik.util.RunnableQueue;
 import org.w3c.dom.events.Event;
-import org.w3c.dom.events.EventListener;
 
 /**
  * This class represents a document object model mouse click event listener for
- * multidominance branch elements.
+ * multidominance branch elements. The mdom branch is passed along with each
+ * event, so that one listener serves all mdom branches.
  * 
  * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
  * @version 1.0
  * @since 1.0
  */
-public class DOMMdomMouseClickEventListener implements EventListener {
+public class DOMMdomMouseClickEventListener {
 	/**
 	 * Tree editor bridge
 	 */
@@ -62,27 +62,18 @@ public class DOMMdomMouseClickEventListener implements EventListener {
 	 */
 	protected NodeSelectionManager nodeSelectionManager;
 
-	/**
-	 * Mdom branch element
-	 */
-	protected MdomBranchElement mdomBranchElement;
-
 	/**
 	 * Constructs a new dom click event listener for mdom branch elements.
 	 * 
 	 * @param treeEditorBridge
 	 *            tree editor bridge
-	 * @param mdomBranchElement
-	 *            mdom branch element
 	 */
-	public DOMMdomMouseClickEventListener(TreeEditorBridge treeEditorBridge,
-			MdomBranchElement mdomBranchElement) {
+	public DOMMdomMouseClickEventListener(TreeEditorBridge treeEditorBridge) {
 		this.treeEditorBridge = treeEditorBridge;
 		this.branchSelectionManager = treeEditorBridge
 				.getBranchSelectionManager();
 		this.mdomSelectionManager = treeEditorBridge.getMdomSelectionManager();
 		this.nodeSelectionManager = treeEditorBridge.getNodeSelectionManager();
-		this.mdomBranchElement = mdomBranchElement;
 	}
 
 	/**
@@ -90,8 +81,10 @@ public class DOMMdomMouseClickEventListener implements EventListener {
 	 * 
 	 * @param e
 	 *            event
+	 * @param mdomBranchElement
+	 *            mdom branch element
 	 */
-	public void handleEvent(Event e) {
+	public void handleEvent(Event e, final MdomBranchElement mdomBranchElement) {
 		final DOMMouseEvent dme = (DOMMouseEvent) e;
 		UpdateManager um = treeEditorBridge.getUpdateManager();
 		RunnableQueue rq = um.getUpdateRunnableQueue();
@@ -99,11 +92,11 @@ public class DOMMdomMouseClickEventListener implements EventListener {
 			rq.invokeLater(new Runnable() {
 				public void run() {
 					if (dme.getButton() == 0 && dme.getDetail() == 1)
-						singleLeftClick(dme);
+						singleLeftClick(dme, mdomBranchElement);
 					if (dme.getButton() == 0 && dme.getDetail() == 2)
-						doubleLeftClick(dme);
+						doubleLeftClick(dme, mdomBranchElement);
 					if (dme.getButton() == 2 && dme.getDetail() == 1)
-						singleRightClick(dme);
+						singleRightClick(dme, mdomBranchElement);
 				}
 
 			});
@@ -115,8 +108,10 @@ public class DOMMdomMouseClickEventListener implements EventListener {
 	 * 
 	 * @param dme
 	 *            dom mouse event
+	 * @param mdomBranchElement
+	 *            mdom branch element
 	 */
-	public void singleLeftClick(DOMMouseEvent dme) {
+	public void singleLeftClick(DOMMouseEvent dme, MdomBranchElement mdomBranchElement) {
 		mdomSelectionManager.setProminentMdomBranch(mdomBranchElement);
 		if (!dme.getCtrlKey() && mdomSelectionManager.getSelectionSize() >= 0) {
 			branchSelectionManager.clear();
@@ -137,8 +132,10 @@ public class DOMMdomMouseClickEventListener implements EventListener {
 	 * 
 	 * @param dme
 	 *            dom mouse event
+	 * @param mdomBranchElement
+	 *            mdom branch element
 	 */
-	public void doubleLeftClick(DOMMouseEvent dme) {
+	public void doubleLeftClick(DOMMouseEvent dme, MdomBranchElement mdomBranchElement) {
 		mdomBranchElement.getMdomBranchBackgroundPathElement()
 				.setHighlightMode(MdomBranchBackgroundPathElement.STANDARD);
 		treeEditorBridge.getMdomSelectionManager().setProminentMdomBranch(
@@ -152,8 +149,10 @@ public class DOMMdomMouseClickEventListener implements EventListener {
 	 * 
 	 * @param dme
 	 *            dom mouse event
+	 * @param mdomBranchElement
+	 *            mdom branch element
 	 */
-	public void singleRightClick(DOMMouseEvent dme) {
+	public void singleRightClick(DOMMouseEvent dme, MdomBranchElement mdomBranchElement) {
 		treeEditorBridge.getMdomSelectionManager().setProminentMdomBranch(
 				mdomBranchElement);
 	}
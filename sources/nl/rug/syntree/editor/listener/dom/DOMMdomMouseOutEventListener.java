@@ -28,17 +28,17 @@ import nl.rug.syntree.tree.component.MdomBranchElement;
 import org.apache.batik.bridge.UpdateManager;
 import org.apache.batik.util.RunnableQueue;
 import org.w3c.dom.events.Event;
-import org.w3c.dom.events.EventListener;
 
 /**
  * This class represents a document object model mouse out event listener for
- * multidominance branch elements.
+ * multidominance branch elements. The mdom branch is passed along with each
+ * event, so that one listener serves all mdom branches.
  * 
  * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
  * @version 1.0
  * @since 1.0
  */
-public class DOMMdomMouseOutEventListener implements EventListener {
+public class DOMMdomMouseOutEventListener {
 	/**
 	 * Tree editor bridge
 	 */
@@ -49,32 +49,16 @@ public class DOMMdomMouseOutEventListener implements EventListener {
 	 */
 	protected MdomSelectionManager mdomSelectionManager;
 
-	/**
-	 * Mdom branch element
-	 */
-	protected MdomBranchElement mdomBranchElement;
-
-	/**
-	 * Mdom branch background path element
-	 */
-	protected MdomBranchBackgroundPathElement mdomBranchBackgroundPathElement;
-
 	/**
 	 * Constructs a new mouse out event listener for multidominance branch
 	 * elements.
 	 * 
 	 * @param treeEditorBridge
 	 *            tree editor bridge
-	 * @param mdomBranchElement
-	 *            mdom branch element
 	 */
-	public DOMMdomMouseOutEventListener(TreeEditorBridge treeEditorBridge,
-			MdomBranchElement mdomBranchElement) {
+	public DOMMdomMouseOutEventListener(TreeEditorBridge treeEditorBridge) {
 		this.treeEditorBridge = treeEditorBridge;
-		this.mdomBranchElement = mdomBranchElement;
 		this.mdomSelectionManager = treeEditorBridge.getMdomSelectionManager();
-		this.mdomBranchBackgroundPathElement = mdomBranchElement
-				.getMdomBranchBackgroundPathElement();
 	}
 
 	/**
@@ -82,8 +66,12 @@ public class DOMMdomMouseOutEventListener implements EventListener {
 	 * 
 	 * @param e
 	 *            event
+	 * @param mdomBranchElement
+	 *            mdom branch element
 	 */
-	public void handleEvent(Event e) {
+	public void handleEvent(Event e, final MdomBranchElement mdomBranchElement) {
+		final MdomBranchBackgroundPathElement mdomBranchBackgroundPathElement = mdomBranchElement
+				.getMdomBranchBackgroundPathElement();
 		UpdateManager um = treeEditorBridge.getUpdateManager();
 		RunnableQueue rq = um.getUpdateRunnableQueue();
 		if (um != null && rq != null) {
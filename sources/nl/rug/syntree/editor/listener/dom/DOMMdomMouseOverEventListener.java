@@ -27,41 +27,31 @@ import nl.rug.syntree.tree.component.MdomBranchElement;
 import org.apache.batik.bridge.UpdateManager;
 import org.apache.batik.util.RunnableQueue;
 import org.w3c.dom.events.Event;
-import org.w3c.dom.events.EventListener;
 
 /**
  * This class represents a document object model mouse over event listener for
- * multidominance branch elements.
+ * multidominance branch elements. The mdom branch is passed along with each
+ * event, so that one listener serves all mdom branches.
  * 
  * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
  * @version 1.0
  * @since 1.0
  */
-public class DOMMdomMouseOverEventListener implements EventListener {
+public class DOMMdomMouseOverEventListener {
 	/**
 	 * Tree editor bridge
 	 */
 	protected TreeEditorBridge treeEditorBridge;
 
-	/**
-	 * Mdom branch background path element
-	 */
-	protected MdomBranchBackgroundPathElement mdomBranchBackgroundPathElement;
-
 	/**
 	 * Constructs a new mouse over event listener for multidominance branch
 	 * elements.
 	 * 
 	 * @param treeEditorBridge
 	 *            tree editor bridge
-	 * @param mdomBranchElement
-	 *            mdom branch element
 	 */
-	public DOMMdomMouseOverEventListener(TreeEditorBridge treeEditorBridge,
-			MdomBranchElement mdomBranchElement) {
+	public DOMMdomMouseOverEventListener(TreeEditorBridge treeEditorBridge) {
 		this.treeEditorBridge = treeEditorBridge;
-		this.mdomBranchBackgroundPathElement = mdomBranchElement
-				.getMdomBranchBackgroundPathElement();
 	}
 
 	/**
@@ -69,8 +59,12 @@ public class DOMMdomMouseOverEventListener implements EventListener {
 	 * 
 	 * @param e
 	 *            event
+	 * @param mdomBranchElement
+	 *            mdom branch element
 	 */
-	public void handleEvent(Event e) {
+	public void handleEvent(Event e, final MdomBranchElement mdomBranchElement) {
+		final MdomBranchBackgroundPathElement mdomBranchBackgroundPathElement = mdomBranchElement
+				.getMdomBranchBackgroundPathElement();
 		UpdateManager um = treeEditorBridge.getUpdateManager();
 		RunnableQueue rq = um.getUpdateRunnableQueue();
 		if (um != null && rq != null) {
@@ -27,23 +27,22 @@ import nl.rug.syntree.editor.manager.BranchSelectionManager;
 import nl.rug.syntree.editor.manager.MdomSelectionManager;
 import nl.rug.syntree.editor.manager.NodeSelectionManager;
 import nl.rug.syntree.tree.component.NodeElement;
-import nl.rug.syntree.tree.component.NodeRectElement;
 
 import org.apache.batik.bridge.UpdateManager;
 import org.apache.batik.dom.events.DOMMouseEvent;
 import org.apache.batik.util.RunnableQueue;
 import org.w3c.dom.events.Event;
-import org.w3c.dom.events.EventListener;
 
 /**
  * This class represents a document object model mouse click event listener for
- * node elements.
+ * node elements. The node is passed along with each event, so that one listener
+ * serves all nodes.
  * 
  * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
  * @version 1.0
  * @since 1.0
  */
-public class DOMNodeMouseClickEventListener implements EventListener {
+public class DOMNodeMouseClickEventListener {
 	/**
 	 * Tree editor bridge
 	 */
@@ -64,33 +63,18 @@ public class DOMNodeMouseClickEventListener implements EventListener {
 	 */
 	protected NodeSelectionManager nodeSelectionManager;
 
-	/**
-	 * Node element
-	 */
-	protected NodeElement nodeElement;
-
-	/**
-	 * Node rectangle element
-	 */
-	protected NodeRectElement nodeRectElement;
-
 	/**
 	 * Constructs a new dom mouse click event listener.
 	 * 
 	 * @param treeEditorBridge
 	 *            tree editor bridge
-	 * @param nodeElement
-	 *            node element
 	 */
-	public DOMNodeMouseClickEventListener(TreeEditorBridge treeEditorBridge,
-			NodeElement nodeElement) {
+	public DOMNodeMouseClickEventListener(TreeEditorBridge treeEditorBridge) {
 		this.treeEditorBridge = treeEditorBridge;
 		this.branchSelectionManager = treeEditorBridge
 				.getBranchSelectionManager();
 		this.mdomSelectionManager = treeEditorBridge.getMdomSelectionManager();
 		this.nodeSelectionManager = treeEditorBridge.getNodeSelectionManager();
-		this.nodeElement = nodeElement;
-		this.nodeRectElement = nodeElement.getNodeRectElement();
 	}
 
 	/**
@@ -98,8 +82,10 @@ public class DOMNodeMouseClickEventListener implements EventListener {
 	 * 
 	 * @param e
 	 *            event
+	 * @param nodeElement
+	 *            node element
 	 */
-	public void handleEvent(Event e) {
+	public void handleEvent(Event e, final NodeElement nodeElement) {
 		final DOMMouseEvent dme = (DOMMouseEvent) e;
 		UpdateManager um = treeEditorBridge.getUpdateManager();
 		RunnableQueue rq = um.getUpdateRunnableQueue();
@@ -107,11 +93,11 @@ public class DOMNodeMouseClickEventListener implements EventListener {
 			rq.invokeLater(new Runnable() {
 				public void run() {
 					if (dme.getButton() == 0 && dme.getDetail() == 1)
-						singleLeftClick(dme);
+						singleLeftClick(dme, nodeElement);
 					if (dme.getButton() == 2 && dme.getDetail() == 1)
-						singleRightClick(dme);
+						singleRightClick(dme, nodeElement);
 					if (dme.getButton() == 0 && dme.getDetail() == 2)
-						doubleLeftClick(dme);
+						doubleLeftClick(dme, nodeElement);
 				}
 			});
 		}
@@ -122,8 +108,10 @@ public class DOMNodeMouseClickEventListener implements EventListener {
 	 * 
 	 * @param dme
 	 *            dom mouse event
+	 * @param nodeElement
+	 *            node element
 	 */
-	protected void singleLeftClick(DOMMouseEvent dme) {
+	protected void singleLeftClick(DOMMouseEvent dme, NodeElement nodeElement) {
 		nodeSelectionManager.setProminentNode(nodeElement);
 		if (!dme.getShiftKey()) {
 			if (!dme.getCtrlKey()
@@ -153,8 +141,10 @@ public class DOMNodeMouseClickEventListener implements EventListener {
 	 * 
 	 * @param dme
 	 *            dom mouse event
+	 * @param nodeElement
+	 *            node element
 	 */
-	protected void singleRightClick(DOMMouseEvent dme) {
+	protected void singleRightClick(DOMMouseEvent dme, NodeElement nodeElement) {
 		if (!dme.getCtrlKey()) {
 			TreeEditorJSVGCanvas treeEditorJSVGCanvas;
 			treeEditorJSVGCanvas = treeEditorBridge.getUIJInternalFrame()
@@ -174,8 +164,10 @@ public class DOMNodeMouseClickEventListener implements EventListener {
 	 * 
 	 * @param dme
 	 *            dom mouse event
+	 * @param nodeElement
+	 *            node element
 	 */
-	protected void doubleLeftClick(DOMMouseEvent dme) {
+	protected void doubleLeftClick(DOMMouseEvent dme, NodeElement nodeElement) {
 		nodeSelectionManager.setProminentNode(nodeElement);
 		treeEditorBridge.getUIJInternalFrame().getTreeEditorJSVGScrollPane()
 				.getTextInteractor().start();
@@ -28,17 +28,17 @@ import nl.rug.syntree.tree.component.NodeRectElement;
 import org.apache.batik.bridge.UpdateManager;
 import org.apache.batik.util.RunnableQueue;
 import org.w3c.dom.events.Event;
-import org.w3c.dom.events.EventListener;
 
 /**
  * This class represents a document object mouse out event listener for node
- * elements.
+ * elements. The node is passed along with each event, so that one listener
+ * serves all nodes.
  * 
  * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
  * @version 1.0
  * @since 1.0
  */
-public class DOMNodeMouseOutEventListener implements EventListener {
+public class DOMNodeMouseOutEventListener {
 	/**
 	 * Tree editor bridge
 	 */
@@ -49,30 +49,15 @@ public class DOMNodeMouseOutEventListener implements EventListener {
 	 */
 	protected NodeSelectionManager nodeSelectionManager;
 
-	/**
-	 * Node element
-	 */
-	protected NodeElement nodeElement;
-
-	/**
-	 * Node rectangle element
-	 */
-	protected NodeRectElement nodeRectElement;
-
 	/**
 	 * Constructs a new dom mouse out event listener.
 	 * 
 	 * @param treeEditorBridge
 	 *            tree editor bridge
-	 * @param nodeElement
-	 *            node element
 	 */
-	public DOMNodeMouseOutEventListener(TreeEditorBridge treeEditorBridge,
-			NodeElement nodeElement) {
+	public DOMNodeMouseOutEventListener(TreeEditorBridge treeEditorBridge) {
 		this.treeEditorBridge = treeEditorBridge;
 		this.nodeSelectionManager = treeEditorBridge.getNodeSelectionManager();
-		this.nodeElement = nodeElement;
-		this.nodeRectElement = nodeElement.getNodeRectElement();
 	}
 
 	/**
@@ -80,8 +65,11 @@ public class DOMNodeMouseOutEventListener implements EventListener {
 	 * 
 	 * @param e
 	 *            event
+	 * @param nodeElement
+	 *            node element
 	 */
-	public void handleEvent(Event e) {		
+	public void handleEvent(Event e, final NodeElement nodeElement) {		
+		final NodeRectElement nodeRectElement = nodeElement.getNodeRectElement();
 		UpdateManager um = treeEditorBridge.getUpdateManager();
 		RunnableQueue rq = um.getUpdateRunnableQueue();
 		if (um != null && rq != null) {
@@ -27,45 +27,30 @@ import nl.rug.syntree.tree.component.NodeRectElement;
 import org.apache.batik.bridge.UpdateManager;
 import org.apache.batik.util.RunnableQueue;
 import org.w3c.dom.events.Event;
-import org.w3c.dom.events.EventListener;
 
 /**
  * This class represents a document object mouse over event listener for node
- * elements.
+ * elements. The node is passed along with each event, so that one listener
+ * serves all nodes.
  * 
  * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
  * @version 1.0
  * @since 1.0
  */
-public class DOMNodeMouseOverEventListener implements EventListener {
+public class DOMNodeMouseOverEventListener {
 	/**
 	 * Tree editor bridge
 	 */
 	protected TreeEditorBridge treeEditorBridge;
 
-	/**
-	 * Node element
-	 */
-	protected NodeElement nodeElement;
-
-	/**
-	 * Node rectangle element
-	 */
-	protected NodeRectElement nodeRectElement;
-
 	/**
 	 * Constructs a new dom mouse over event listener.
 	 * 
 	 * @param treeEditorBridge
 	 *            tree editor bridge
-	 * @param nodeElement
-	 *            node element
 	 */
-	public DOMNodeMouseOverEventListener(TreeEditorBridge treeEditorBridge,
-			NodeElement nodeElement) {
+	public DOMNodeMouseOverEventListener(TreeEditorBridge treeEditorBridge) {
 		this.treeEditorBridge = treeEditorBridge;
-		this.nodeElement = nodeElement;
-		this.nodeRectElement = nodeElement.getNodeRectElement();
 	}
 
 	/**
@@ -73,8 +58,11 @@ public class DOMNodeMouseOverEventListener implements EventListener {
 	 * 
 	 * @param e
 	 *            event
+	 * @param nodeElement
+	 *            node element
 	 */
-	public void handleEvent(Event e) {
+	public void handleEvent(Event e, final NodeElement nodeElement) {
+		final NodeRectElement nodeRectElement = nodeElement.getNodeRectElement();
 		UpdateManager um = treeEditorBridge.getUpdateManager();
 		RunnableQueue rq = um.getUpdateRunnableQueue();
 		if (um != null && rq != null) {
@@ -39,48 +39,47 @@ public class BranchSelectionManager {
 	protected TreeEditorBridge treeEditorBridge;
 
 	/**
-	 * Vector containing the selected branch elements
+	 * Set containing the selected branch elements
 	 */
-	protected Vector<BranchElement> selectionVector;
+	protected SelectionSet<BranchElement> selectionSet;
 
 	/**
 	 * Constructs a new branch selection manager.
 	 */
 	public BranchSelectionManager(TreeEditorBridge treeEditorBridge) {
 		this.treeEditorBridge = treeEditorBridge;
-		selectionVector = new Vector<BranchElement>();
+		selectionSet = new SelectionSet<BranchElement>();
 	}
 
 	/**
-	 * Adds a new branch element to the selection vector.
+	 * Adds a new branch element to the selection set.
 	 * 
 	 * @param branchElement
 	 *            branch element
 	 */
 	public void add(BranchElement branchElement) {
-		if (!isSelected(branchElement))
-			selectionVector.add(branchElement);
+		selectionSet.add(branchElement);
 	}
 
 	/**
-	 * Removes the specified branch element from the selection vector.
+	 * Removes the specified branch element from the selection set.
 	 * 
 	 * @param branchElement
 	 *            branch element
 	 */
 	public void remove(BranchElement branchElement) {
-		selectionVector.remove(branchElement);
+		selectionSet.remove(branchElement);
 	}
 
 	/**
-	 * Clears the selection vector.
+	 * Clears the selection set.
 	 */
 	public void clear() {
-		selectionVector.clear();
+		selectionSet.clear();
 	}
 
 	/**
-	 * Verifies whether the specified branch element is on the selecion vector.
+	 * Verifies whether the specified branch element is in the selection set.
 	 * 
 	 * @param branchElement
 	 *            branch element
@@ -88,16 +87,16 @@ public class BranchSelectionManager {
 	 * @return boolean
 	 */
 	public boolean isSelected(BranchElement branchElement) {
-		return selectionVector.contains(branchElement);
+		return selectionSet.contains(branchElement);
 	}
 
 	/**
-	 * Returns the size of the selection vector
+	 * Returns the size of the selection set
 	 * 
-	 * @return selection vector size
+	 * @return selection set size
 	 */
 	public int getSelectionSize() {
-		return selectionVector.size();
+		return selectionSet.size();
 	}
 
 	/**
@@ -110,11 +109,24 @@ public class BranchSelectionManager {
 	}
 
 	/**
-	 * Returns the selection vector.
+	 * Returns a vector containing the selected elements.
 	 * 
 	 * @return selection vector
 	 */
 	public Vector<BranchElement> getSelectionVector() {
-		return selectionVector;
+		return selectionSet.toVector();
+	}
+
+	/**
+	 * Moves the branch elements that were selected and deselected since the
+	 * last flush to the specified vectors.
+	 * 
+	 * @param addedVector
+	 *            vector receiving the selected branch elements
+	 * @param removedVector
+	 *            vector receiving the deselected branch elements
+	 */
+	public void flush(Vector<BranchElement> addedVector, Vector<BranchElement> removedVector) {
+		selectionSet.flush(addedVector, removedVector);
 	}
 }
\ No newline at end of file
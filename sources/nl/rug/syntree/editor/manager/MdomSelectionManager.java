@@ -39,9 +39,9 @@ public class MdomSelectionManager {
 	protected TreeEditorBridge treeEditorBridge;
 
 	/**
-	 * Vector containing the selected mdom branch elements
+	 * Set containing the selected mdom branch elements
 	 */
-	protected Vector<MdomBranchElement> selectionVector;
+	protected SelectionSet<MdomBranchElement> selectionSet;
 
 	/**
 	 * Prominent mdom branch element
@@ -56,40 +56,39 @@ public class MdomSelectionManager {
 	 */
 	public MdomSelectionManager(TreeEditorBridge treeEditorBridge) {
 		this.treeEditorBridge = treeEditorBridge;
-		selectionVector = new Vector<MdomBranchElement>();
+		selectionSet = new SelectionSet<MdomBranchElement>();
 	}
 
 	/**
-	 * Adds a new mdom branch element to the selection vector.
+	 * Adds a new mdom branch element to the selection set.
 	 * 
 	 * @param mdomBranchElement
 	 *            mdom branch element
 	 */
 	public void add(MdomBranchElement mdomBranchElement) {
-		if (!isSelected(mdomBranchElement))
-			selectionVector.add(mdomBranchElement);
+		selectionSet.add(mdomBranchElement);
 	}
 
 	/**
-	 * Removes the specified mdom branch element from the selection vector.
+	 * Removes the specified mdom branch element from the selection set.
 	 * 
 	 * @param mdomBranchElement
 	 *            mdom branch element
 	 */
 	public void remove(MdomBranchElement mdomBranchElement) {
-		selectionVector.remove(mdomBranchElement);
+		selectionSet.remove(mdomBranchElement);
 	}
 
 	/**
-	 * Clears the selection vector.
+	 * Clears the selection set.
 	 */
 	public void clear() {
-		selectionVector.clear();
+		selectionSet.clear();
 	}
 
 	/**
-	 * Verifies whether the specified mdom branch element is on the selection
-	 * vector.
+	 * Verifies whether the specified mdom branch element is in the selection
+	 * set.
 	 * 
 	 * @param mdomBranchElement
 	 *            mdom branch element
@@ -97,16 +96,16 @@ public class MdomSelectionManager {
 	 * @return boolean
 	 */
 	public boolean isSelected(MdomBranchElement mdomBranchElement) {
-		return selectionVector.contains(mdomBranchElement);
+		return selectionSet.contains(mdomBranchElement);
 	}
 
 	/**
-	 * Returns the size of the selection vector.
+	 * Returns the size of the selection set.
 	 * 
-	 * @return selection vector size
+	 * @return selection set size
 	 */
 	public int getSelectionSize() {
-		return selectionVector.size();
+		return selectionSet.size();
 	}
 
 	/**
@@ -139,11 +138,24 @@ public class MdomSelectionManager {
 	}
 
 	/**
-	 * Returns the selection vector.
+	 * Returns a vector containing the selected elements.
 	 * 
 	 * @return selection vector
 	 */
 	public Vector<MdomBranchElement> getSelectionVector() {
-		return selectionVector;
+		return selectionSet.toVector();
+	}
+
+	/**
+	 * Moves the mdom branch elements that were selected and deselected since the
+	 * last flush to the specified vectors.
+	 * 
+	 * @param addedVector
+	 *            vector receiving the selected mdom branch elements
+	 * @param removedVector
+	 *            vector receiving the deselected mdom branch elements
+	 */
+	public void flush(Vector<MdomBranchElement> addedVector, Vector<MdomBranchElement> removedVector) {
+		selectionSet.flush(addedVector, removedVector);
 	}
 }
\ No newline at end of file
@@ -39,9 +39,9 @@ public class NodeSelectionManager {
 	protected TreeEditorBridge treeEditorBridge;
 
 	/**
-	 * Vector containing the selected node elements
+	 * Set containing the selected node elements
 	 */
-	protected Vector<NodeElement> selectionVector;
+	protected SelectionSet<NodeElement> selectionSet;
 
 	/**
 	 * Branch selection manager
@@ -61,41 +61,40 @@ public class NodeSelectionManager {
 	 */
 	public NodeSelectionManager(TreeEditorBridge treeEditorBridge) {
 		this.treeEditorBridge = treeEditorBridge;
-		selectionVector = new Vector<NodeElement>();
+		selectionSet = new SelectionSet<NodeElement>();
 		this.branchSelectionManager = treeEditorBridge
 				.getBranchSelectionManager();
 	}
 
 	/**
-	 * Adds a new node element to the selection vector.
+	 * Adds a new node element to the selection set.
 	 * 
 	 * @param nodeElement
 	 *            node element
 	 */
 	public void add(NodeElement nodeElement) {
-		if (!isSelected(nodeElement))
-			selectionVector.add(nodeElement);
+		selectionSet.add(nodeElement);
 	}
 
 	/**
-	 * Removes the specified node element from the selection vector.
+	 * Removes the specified node element from the selection set.
 	 * 
 	 * @param nodeElement
 	 *            node element
 	 */
 	public void remove(NodeElement nodeElement) {
-		selectionVector.remove(nodeElement);
+		selectionSet.remove(nodeElement);
 	}
 
 	/**
-	 * Clears the selection vector.
+	 * Clears the selection set.
 	 */
 	public void clear() {
-		selectionVector.clear();
+		selectionSet.clear();
 	}
 
 	/**
-	 * Verifies whether the specified node element is on the selection vector.
+	 * Verifies whether the specified node element is in the selection set.
 	 * 
 	 * @param nodeElement
 	 *            node element
@@ -103,16 +102,16 @@ public class NodeSelectionManager {
 	 * @return boolean
 	 */
 	public boolean isSelected(NodeElement nodeElement) {
-		return selectionVector.contains(nodeElement);
+		return selectionSet.contains(nodeElement);
 	}
 
 	/**
-	 * Returns the size of the selection vector.
+	 * Returns the size of the selection set.
 	 * 
-	 * @return selection vector size
+	 * @return selection set size
 	 */
 	public int getSelectionSize() {
-		return selectionVector.size();
+		return selectionSet.size();
 	}
 
 	/**
@@ -171,11 +170,24 @@ public class NodeSelectionManager {
 	}
 
 	/**
-	 * Returns the selection vector.
+	 * Returns a vector containing the selected elements.
 	 * 
 	 * @return selection vector
 	 */
 	public Vector<NodeElement> getSelectionVector() {
-		return selectionVector;
+		return selectionSet.toVector();
+	}
+
+	/**
+	 * Moves the node elements that were selected and deselected since the
+	 * last flush to the specified vectors.
+	 * 
+	 * @param addedVector
+	 *            vector receiving the selected node elements
+	 * @param removedVector
+	 *            vector receiving the deselected node elements
+	 */
+	public void flush(Vector<NodeElement> addedVector, Vector<NodeElement> removedVector) {
+		selectionSet.flush(addedVector, removedVector);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,300 @@
+/* RedrawScheduler.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.editor.manager;
+
+import java.awt.event.ActionEvent;
+import java.util.Vector;
+
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.Timer;
+
+import nl.rug.syntree.drawer.TreeDrawer;
+import nl.rug.syntree.editor.TreeEditorBridge;
+import nl.rug.syntree.tree.component.TreeElement;
+
+import org.apache.batik.bridge.UpdateManager;
+import org.apache.batik.util.RunnableQueue;
+
+/**
+ * This class represents a redraw scheduler. Edits mark the trees they changed
+ * as dirty and schedule a redraw instead of drawing the tree representation
+ * themselves, and once per frame the scheduler draws the tree representation,
+ * computes the viewBox, and journals the dirty trees, so that a burst of edits
+ * is laid out only once. Since the drawer only lays out tainted nodes, the
+ * single drawing pass covers all of the queued edits. The damage debug overlay
+ * shows how many layouts are saved this way.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class RedrawScheduler {
+	/**
+	 * Frame delay constant in milliseconds
+	 */
+	public static final int FRAME_DELAY = 16;
+
+	/**
+	 * Tree editor bridge
+	 */
+	protected TreeEditorBridge treeEditorBridge;
+
+	/**
+	 * Dirty trees to journal after the next drawing pass
+	 */
+	protected Vector<TreeElement> dirtyTreeVector = new Vector<TreeElement>();
+
+	/**
+	 * Boolean indicating whether the multidominance branches are to be
+	 * journaled after the next drawing pass
+	 */
+	protected boolean dirtyMdoms = false;
+
+	/**
+	 * Runnables to run after the next drawing pass
+	 */
+	protected Vector<Runnable> runnableVector = new Vector<Runnable>();
+
+	/**
+	 * Number of redraws requested since the last drawing pass
+	 */
+	protected int pendingCount = 0;
+
+	/**
+	 * Number of redraws requested
+	 */
+	protected int requestCount = 0;
+
+	/**
+	 * Number of drawing passes
+	 */
+	protected int layoutCount = 0;
+
+	/**
+	 * Redraw runnable, which is run in the update manager thread
+	 */
+	protected Runnable redrawRunnable = new Runnable() {
+		public void run() {
+			redraw();
+		}
+	};
+
+	/**
+	 * Frame action, which queues the redraw runnable
+	 */
+	protected Action frameAction = new AbstractAction() {
+		/**
+		 * Serial version UID
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Invoked when an action occurs.
+		 * 
+		 * @param ae
+		 *            action event
+		 */
+		public void actionPerformed(ActionEvent ae) {
+			UpdateManager um = treeEditorBridge.getUpdateManager();
+			RunnableQueue rq = (um != null) ? um.getUpdateRunnableQueue()
+					: null;
+			if (rq != null)
+				rq.invokeLater(redrawRunnable);
+		}
+	};
+
+	/**
+	 * Frame timer
+	 */
+	protected Timer frameTimer = new Timer(FRAME_DELAY, frameAction);
+
+	/**
+	 * Constructs a new redraw scheduler.
+	 * 
+	 * @param treeEditorBridge
+	 *            tree editor bridge
+	 */
+	public RedrawScheduler(TreeEditorBridge treeEditorBridge) {
+		this.treeEditorBridge = treeEditorBridge;
+		frameTimer.setRepeats(false);
+	}
+
+	/**
+	 * Marks the specified tree as dirty, so that it is journaled after the
+	 * next redraw.
+	 * 
+	 * @param treeElement
+	 *            tree element
+	 */
+	public synchronized void markDirty(TreeElement treeElement) {
+		if (!dirtyTreeVector.contains(treeElement))
+			dirtyTreeVector.add(treeElement);
+	}
+
+	/**
+	 * Marks the specified trees as dirty, so that they are journaled after
+	 * the next redraw.
+	 * 
+	 * @param treeVector
+	 *            tree elements
+	 */
+	public synchronized void markDirty(Vector<TreeElement> treeVector) {
+		for (int i = 0; i < treeVector.size(); i++)
+			markDirty(treeVector.elementAt(i));
+	}
+
+	/**
+	 * Marks the multidominance branches as dirty, so that they are journaled
+	 * after the next redraw.
+	 */
+	public synchronized void markMdomsDirty() {
+		dirtyMdoms = true;
+	}
+
+	/**
+	 * Schedules a redraw of the tree representation for the next frame.
+	 */
+	public void scheduleRedraw() {
+		scheduleRedraw(null);
+	}
+
+	/**
+	 * Schedules a redraw of the tree representation for the next frame, after
+	 * which the specified runnable is run.
+	 * 
+	 * @param runnable
+	 *            runnable to run after the redraw, or null
+	 */
+	public synchronized void scheduleRedraw(Runnable runnable) {
+		if (runnable != null)
+			runnableVector.add(runnable);
+		requestCount++;
+		pendingCount++;
+		if (!frameTimer.isRunning())
+			frameTimer.start();
+	}
+
+	/**
+	 * Draws the tree representation in case a redraw is pending. This has to
+	 * be called from the update manager thread, and can be used to bring the
+	 * layout up to date before the document is read.
+	 */
+	public void flush() {
+		frameTimer.stop();
+		redraw();
+	}
+
+	/**
+	 * Stops the scheduler. Pending redraws are dropped.
+	 */
+	public synchronized void stop() {
+		frameTimer.stop();
+		dirtyTreeVector.clear();
+		runnableVector.clear();
+		dirtyMdoms = false;
+		requestCount -= pendingCount;
+		pendingCount = 0;
+	}
+
+	/**
+	 * Draws the tree representation, computes the viewBox, journals the
+	 * dirty trees and multidominance branches, and runs the runnables that
+	 * waited for the redraw. This is run from the update manager thread.
+	 */
+	protected void redraw() {
+		Vector<TreeElement> treeVector;
+		Vector<Runnable> runnables;
+		boolean mdoms;
+		synchronized (this) {
+			if (pendingCount == 0)
+				return;
+			treeVector = dirtyTreeVector;
+			runnables = runnableVector;
+			mdoms = dirtyMdoms;
+			dirtyTreeVector = new Vector<TreeElement>();
+			runnableVector = new Vector<Runnable>();
+			dirtyMdoms = false;
+			pendingCount = 0;
+			layoutCount++;
+		}
+
+		// draw
+		getTreeDrawer().draw();
+		treeEditorBridge.getTreeRepresentation().getSVGDocument()
+				.computeViewBox();
+
+		// journal
+		if (treeVector.size() > 0)
+			treeEditorBridge.journalTrees(treeVector);
+		if (mdoms)
+			treeEditorBridge.journalMdoms();
+
+		for (int i = 0; i < runnables.size(); i++)
+			runnables.elementAt(i).run();
+	}
+
+	/**
+	 * Returns the tree drawer of the tree representation.
+	 * 
+	 * @return tree drawer
+	 */
+	protected TreeDrawer getTreeDrawer() {
+		return treeEditorBridge.getUIJInternalFrame()
+				.getTreeEditorJSVGScrollPane().getTreeDrawer();
+	}
+
+	/**
+	 * Returns a boolean indicating whether a redraw is pending.
+	 * 
+	 * @return boolean
+	 */
+	public synchronized boolean isRedrawPending() {
+		return pendingCount > 0;
+	}
+
+	/**
+	 * Returns the number of redraws requested.
+	 * 
+	 * @return number of requests
+	 */
+	public synchronized int getRequestCount() {
+		return requestCount;
+	}
+
+	/**
+	 * Returns the number of drawing passes.
+	 * 
+	 * @return number of layouts
+	 */
+	public synchronized int getLayoutCount() {
+		return layoutCount;
+	}
+
+	/**
+	 * Returns the number of layouts saved by coalescing redraws.
+	 * 
+	 * @return number of saved layouts
+	 */
+	public synchronized int getSavedLayoutCount() {
+		return requestCount - layoutCount - pendingCount;
+	}
+}
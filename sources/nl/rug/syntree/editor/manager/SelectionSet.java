@@ -0,0 +1,139 @@
+/* SelectionSet.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.editor.manager;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Vector;
+
+/**
+ * This class represents a set of selected elements that keeps track of the
+ * elements that were added to and removed from the selection since the last
+ * flush. Elements are compared by identity, since the tree components do not
+ * override equality, and are kept in selection order. The selection is
+ * changed on the event dispatch thread and flushed on the update manager
+ * thread, so all of the methods are synchronized.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class SelectionSet<E> {
+	/**
+	 * Selected elements
+	 */
+	protected LinkedHashSet<E> selectionSet = new LinkedHashSet<E>();
+
+	/**
+	 * Elements added to the selection since the last flush
+	 */
+	protected LinkedHashSet<E> addedSet = new LinkedHashSet<E>();
+
+	/**
+	 * Elements removed from the selection since the last flush
+	 */
+	protected LinkedHashSet<E> removedSet = new LinkedHashSet<E>();
+
+	/**
+	 * Adds the specified element to the selection.
+	 * 
+	 * @param element
+	 *            element
+	 */
+	public synchronized void add(E element) {
+		if (element != null && selectionSet.add(element))
+			if (!removedSet.remove(element))
+				addedSet.add(element);
+	}
+
+	/**
+	 * Removes the specified element from the selection.
+	 * 
+	 * @param element
+	 *            element
+	 */
+	public synchronized void remove(E element) {
+		if (selectionSet.remove(element))
+			if (!addedSet.remove(element))
+				removedSet.add(element);
+	}
+
+	/**
+	 * Removes all of the elements from the selection.
+	 */
+	public synchronized void clear() {
+		Iterator<E> iterator = selectionSet.iterator();
+		while (iterator.hasNext()) {
+			E element = iterator.next();
+			if (!addedSet.remove(element))
+				removedSet.add(element);
+		}
+		selectionSet.clear();
+	}
+
+	/**
+	 * Returns a boolean indicating whether the specified element is
+	 * selected.
+	 * 
+	 * @param element
+	 *            element
+	 * @return boolean
+	 */
+	public synchronized boolean contains(E element) {
+		return selectionSet.contains(element);
+	}
+
+	/**
+	 * Returns the number of selected elements.
+	 * 
+	 * @return size
+	 */
+	public synchronized int size() {
+		return selectionSet.size();
+	}
+
+	/**
+	 * Returns a vector containing the selected elements in selection order.
+	 * 
+	 * @return selection vector
+	 */
+	public synchronized Vector<E> toVector() {
+		return new Vector<E>(selectionSet);
+	}
+
+	/**
+	 * Moves the elements that were added to and removed from the selection
+	 * since the last flush to the specified collections.
+	 * 
+	 * @param addedCollection
+	 *            collection receiving the added elements
+	 * @param removedCollection
+	 *            collection receiving the removed elements
+	 */
+	public synchronized void flush(Collection<E> addedCollection,
+			Collection<E> removedCollection) {
+		addedCollection.addAll(addedSet);
+		removedCollection.addAll(removedSet);
+		addedSet.clear();
+		removedSet.clear();
+	}
+}
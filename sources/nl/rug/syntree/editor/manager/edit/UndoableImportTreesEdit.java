@@ -0,0 +1,92 @@
+/* UndoableImportTreesEdit.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.editor.manager.edit;
+
+import java.util.Vector;
+
+import javax.swing.undo.AbstractUndoableEdit;
+
+import nl.rug.syntree.editor.TreeEditorBridge;
+import nl.rug.syntree.tree.component.TreeElement;
+
+/**
+ * This class represents an undoable import trees edit, which covers all of
+ * the trees of a single import.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class UndoableImportTreesEdit extends AbstractUndoableEdit {
+	/**
+	 * Serial version identifier constant
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Presentation name constant
+	 */
+	public static final String PRESENTATION_NAME = "Import trees";
+
+	/**
+	 * Tree editor bridge
+	 */
+	protected TreeEditorBridge treeEditorBridge;
+
+	/**
+	 * Imported tree elements
+	 */
+	protected Vector<TreeElement> treeVector;
+
+	/**
+	 * Constructs a new undoable import trees edit.
+	 */
+	public UndoableImportTreesEdit(TreeEditorBridge treeEditorBridge,
+			Vector<TreeElement> treeVector) {
+		this.treeEditorBridge = treeEditorBridge;
+		this.treeVector = treeVector;
+	}
+
+	/**
+	 * Undo the last significant import trees edit.
+	 */
+	public void undo() {
+		super.undo();
+		treeEditorBridge.removeTrees(treeVector);
+	}
+
+	/**
+	 * Redo the last significant import trees edit.
+	 */
+	public void redo() {
+		super.redo();
+		treeEditorBridge.addTrees(treeVector);
+	}
+
+	/**
+	 * Returns the presentation name of this undoable edit
+	 * 
+	 * @return presentation name
+	 */
+	public String getPresentationName() {
+		return PRESENTATION_NAME;
+	}
+}
@@ -0,0 +1,54 @@
+/* BlinkingOverlay.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.editor.overlay;
+
+import java.awt.Rectangle;
+
+/**
+ * This interface represents an overlay that blinks while its interactor is
+ * active. Blinking overlays are animated by the blink scheduler of their
+ * canvas, which only repaints the bounds of the overlay.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public interface BlinkingOverlay extends BoundedOverlay {
+	/**
+	 * Returns the delay between two blinks in milliseconds.
+	 * 
+	 * @return blink delay
+	 */
+	public int getBlinkDelay();
+
+	/**
+	 * Advances the overlay to its next blink state.
+	 */
+	public void blink();
+
+	/**
+	 * Returns the bounds of the overlay in the current blink state, in
+	 * canvas coordinates.
+	 * 
+	 * @return bounds
+	 */
+	public Rectangle getBlinkBounds();
+}
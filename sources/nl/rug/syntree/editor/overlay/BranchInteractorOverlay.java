@@ -23,20 +23,15 @@ package nl.rug.syntree.editor.overlay;
 import java.awt.BasicStroke;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.Stroke;
-import java.awt.event.ActionEvent;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Line2D;
-
-import javax.swing.AbstractAction;
-import javax.swing.Action;
-import javax.swing.Timer;
+import java.awt.geom.Rectangle2D;
 
 import nl.rug.syntree.editor.interactor.AbstractBranchInteractor;
 import nl.rug.syntree.ui.UIColors;
 
-import org.apache.batik.swing.gvt.Overlay;
-
 /**
  * This class represents an overlay for the branching interactor.
  * 
@@ -44,7 +39,7 @@ import org.apache.batik.swing.gvt.Overlay;
  * @version 1.0
  * @since 1.0
  */
-public class BranchInteractorOverlay implements Overlay {
+public class BranchInteractorOverlay implements BlinkingOverlay {
 	/**
 	 * Radius constant for the pendulum bob
 	 */
@@ -55,6 +50,11 @@ public class BranchInteractorOverlay implements Overlay {
 	 */
 	protected static final int BOB_BLINK_DELAY = 5;
 
+	/**
+	 * Width constant of the pendulum string and the outline of the bob
+	 */
+	protected static final float STRING_WIDTH = 1.5f;
+
 	/**
 	 * Abstract branch interactor
 	 */
@@ -96,33 +96,9 @@ public class BranchInteractorOverlay implements Overlay {
 	protected float bobRadius = 0.0f;
 
 	/**
-	 * Blink action for the bob
+	 * Boolean indicating upwards iteration of the bob radius
 	 */
-	protected Action bobBlinkAction = new AbstractAction() {
-		/**
-		 * Serial version identifier constant
-		 */
-		private static final long serialVersionUID = 1L;
-
-		/**
-		 * Boolean indicating upwards iteration
-		 */
-		protected boolean upwards = true;
-
-		public void actionPerformed(ActionEvent ae) {
-			if (upwards)
-				if (bobRadius < BOB_RADIUS)
-					bobRadius += 0.5;
-				else
-					upwards = false;
-			else if (bobRadius > 1)
-				bobRadius -= 0.5;
-			else
-				upwards = true;
-			abstractBranchInteractor.getTreeEditorJSVGScrollPane()
-					.getTreeEditorJSVGCanvas().repaint();
-		}
-	};
+	protected boolean upwards = true;
 
 	/**
 	 * Constructs a new overlay for the branch interactor.
@@ -133,7 +109,56 @@ public class BranchInteractorOverlay implements Overlay {
 	public BranchInteractorOverlay(
 			AbstractBranchInteractor abstractBranchInteractor) {
 		this.abstractBranchInteractor = abstractBranchInteractor;
-		new Timer(BOB_BLINK_DELAY, bobBlinkAction).start();
+	}
+
+	/**
+	 * Returns the delay between two blinks of the bob in milliseconds.
+	 * 
+	 * @return blink delay
+	 */
+	public int getBlinkDelay() {
+		return BOB_BLINK_DELAY;
+	}
+
+	/**
+	 * Grows or shrinks the radius of the bob.
+	 */
+	public void blink() {
+		if (upwards)
+			if (bobRadius < BOB_RADIUS)
+				bobRadius += 0.5;
+			else
+				upwards = false;
+		else if (bobRadius > 1)
+			bobRadius -= 0.5;
+		else
+			upwards = true;
+	}
+
+	/**
+	 * Returns the bounds of the bob at its largest radius, including its
+	 * outline.
+	 * 
+	 * @return bounds
+	 */
+	public Rectangle getBlinkBounds() {
+		float radius = BOB_RADIUS + STRING_WIDTH;
+		return new Rectangle2D.Float(x2 - radius, y2 - radius, radius * 2.0f,
+				radius * 2.0f).getBounds();
+	}
+
+	/**
+	 * Returns the bounds of the pendulum string and the bob at its largest
+	 * radius, including their outlines.
+	 * 
+	 * @return bounds
+	 */
+	public Rectangle getOverlayBounds() {
+		Rectangle bounds = new Line2D.Float(x1, y1, x2, y2).getBounds();
+		int margin = (int) Math.ceil(STRING_WIDTH);
+		bounds.grow(margin, margin);
+		bounds.add(getBlinkBounds());
+		return bounds;
 	}
 
 	/**
@@ -145,8 +170,8 @@ public class BranchInteractorOverlay implements Overlay {
 	public void paint(Graphics g) {
 		string = new Line2D.Float(x1, y1, x2, y2);
 		Graphics2D g2d = (Graphics2D) g;
-		Stroke stringStroke = new BasicStroke(1.5f, BasicStroke.CAP_ROUND,
-				BasicStroke.JOIN_MITER);
+		Stroke stringStroke = new BasicStroke(STRING_WIDTH,
+				BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
 		g2d.setColor(UIColors.EDITOR_PENDULUM_STRING);
 		g2d.setStroke(stringStroke);
 		g2d.draw(string);
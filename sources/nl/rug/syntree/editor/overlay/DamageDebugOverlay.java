@@ -0,0 +1,87 @@
+/* DamageDebugOverlay.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.editor.overlay;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+
+import nl.rug.syntree.editor.TreeEditorBridge;
+import nl.rug.syntree.editor.manager.RedrawScheduler;
+
+import org.apache.batik.swing.gvt.Overlay;
+
+/**
+ * This class represents a debug overlay that outlines every region of the
+ * canvas that is repainted, which shows how much of the canvas an interaction
+ * damages. Each outline is labelled with the number of redraws requested from
+ * the redraw scheduler, the number of drawing passes, and the number of
+ * layouts saved by coalescing the redraws.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class DamageDebugOverlay implements Overlay {
+	/**
+	 * Color constant of the outline of a repainted region
+	 */
+	public static final Color DAMAGE_COLOR = new Color(255, 0, 0, 160);
+
+	/**
+	 * Tree editor bridge
+	 */
+	protected TreeEditorBridge treeEditorBridge;
+
+	/**
+	 * Constructs a new damage debug overlay.
+	 * 
+	 * @param treeEditorBridge
+	 *            tree editor bridge
+	 */
+	public DamageDebugOverlay(TreeEditorBridge treeEditorBridge) {
+		this.treeEditorBridge = treeEditorBridge;
+	}
+
+	/**
+	 * Paints the outline of the repainted region, which is the clip of the
+	 * specified graphics component, and labels it with the redraw counts.
+	 * 
+	 * @param g
+	 *            graphics component
+	 */
+	public void paint(Graphics g) {
+		Rectangle clipBounds = g.getClipBounds();
+		if (clipBounds == null)
+			return;
+		g.setColor(DAMAGE_COLOR);
+		g.drawRect(clipBounds.x, clipBounds.y, clipBounds.width - 1,
+				clipBounds.height - 1);
+		RedrawScheduler redrawScheduler = treeEditorBridge
+				.getRedrawScheduler();
+		if (redrawScheduler != null)
+			g.drawString(redrawScheduler.getRequestCount() + " requests, "
+					+ redrawScheduler.getLayoutCount() + " layouts, "
+					+ redrawScheduler.getSavedLayoutCount() + " saved",
+					clipBounds.x + 2, clipBounds.y
+							+ g.getFontMetrics().getAscent());
+	}
+}
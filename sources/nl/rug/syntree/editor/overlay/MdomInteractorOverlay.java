@@ -23,6 +23,7 @@ package nl.rug.syntree.editor.overlay;
 import java.awt.BasicStroke;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.Stroke;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Line2D;
@@ -30,8 +31,6 @@ import java.awt.geom.Line2D;
 import nl.rug.syntree.editor.interactor.MdomInteractor;
 import nl.rug.syntree.ui.UIColors;
 
-import org.apache.batik.swing.gvt.Overlay;
-
 /**
  * This class represents an overlay for the mdom interactor.
  * 
@@ -39,10 +38,13 @@ import org.apache.batik.swing.gvt.Overlay;
  * @version 1.0
  * @since 1.0
  */
-public class MdomInteractorOverlay implements Overlay {
+public class MdomInteractorOverlay implements BoundedOverlay {
 	/** */
 	protected static final float POINT_RADIUS = 3.5f;
 
+	/** Width of the lines and of the outlines of the points */
+	protected static final float STROKE_WIDTH = 2.0f;
+
 	/** Mdom branch interactor */
 	protected MdomInteractor mdomInteractor;
 
@@ -137,6 +139,37 @@ public class MdomInteractorOverlay implements Overlay {
 		this.mdomInteractor = mdomInteractor;
 	}
 
+	/**
+	 * Returns the bounds of the points and the lines between them, including
+	 * their outlines. The lines and the curve of the branch lie within the
+	 * hull of the points.
+	 * 
+	 * @return bounds
+	 */
+	public Rectangle getOverlayBounds() {
+		float points[] = { movetoX, movetoY, firstCurvetoCP1X,
+				firstCurvetoCP1Y, firstCurvetoCP2X, firstCurvetoCP2Y,
+				firstCurvetoX, firstCurvetoY, secondCurvetoCP1X,
+				secondCurvetoCP1Y, secondCurvetoCP2X, secondCurvetoCP2Y,
+				secondCurvetoX, secondCurvetoY };
+		float minX = points[0];
+		float minY = points[1];
+		float maxX = points[0];
+		float maxY = points[1];
+		for (int i = 2; i < points.length; i += 2) {
+			minX = Math.min(minX, points[i]);
+			minY = Math.min(minY, points[i + 1]);
+			maxX = Math.max(maxX, points[i]);
+			maxY = Math.max(maxY, points[i + 1]);
+		}
+		int margin = (int) Math.ceil(POINT_RADIUS + STROKE_WIDTH);
+		Rectangle bounds = new Rectangle((int) Math.floor(minX),
+				(int) Math.floor(minY), (int) Math.ceil(maxX - minX) + 1,
+				(int) Math.ceil(maxY - minY) + 1);
+		bounds.grow(margin, margin);
+		return bounds;
+	}
+
 	/**
 	 * Paints the overlay.
 	 * 
@@ -147,11 +180,12 @@ public class MdomInteractorOverlay implements Overlay {
 		Graphics2D g2d = (Graphics2D) g;
 
 		float dash[] = { 5.0f, 5.0f };
-		Stroke lineStroke = new BasicStroke(2.0f, BasicStroke.CAP_ROUND,
-				BasicStroke.JOIN_MITER, 10.0f, dash, 0.0f);
+		Stroke lineStroke = new BasicStroke(STROKE_WIDTH,
+				BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER, 10.0f, dash,
+				0.0f);
 
-		Stroke ellipseStroke = new BasicStroke(2.0f, BasicStroke.CAP_ROUND,
-				BasicStroke.JOIN_MITER);
+		Stroke ellipseStroke = new BasicStroke(STROKE_WIDTH,
+				BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
 
 		// first curveto cp line
 		g2d.setColor(UIColors.EDITOR_MDOM_INTERACTOR_LINE);
@@ -0,0 +1,178 @@
+/* OverlayBlinkScheduler.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.editor.overlay;
+
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.util.Vector;
+
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.JComponent;
+import javax.swing.Timer;
+
+/**
+ * This class represents the blink scheduler of a canvas. A single timer
+ * animates all of the blinking overlays of the canvas, and only runs while at
+ * least one overlay blinks. Each blink only repaints the bounds of the
+ * overlay before and after the blink.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class OverlayBlinkScheduler {
+	/**
+	 * Canvas to repaint
+	 */
+	protected JComponent canvas;
+
+	/**
+	 * Blinking overlays
+	 */
+	protected Vector<BlinkingOverlay> overlayVector = new Vector<BlinkingOverlay>();
+
+	/**
+	 * Times in milliseconds of the last blink of the blinking overlays
+	 */
+	protected Vector<Long> blinkTimeVector = new Vector<Long>();
+
+	/**
+	 * Blink action for the overlays
+	 */
+	protected Action blinkAction = new AbstractAction() {
+		/**
+		 * Serial version identifier constant
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Handles the performed action
+		 * 
+		 * @param ae
+		 *            the occurred action event
+		 */
+		public void actionPerformed(ActionEvent ae) {
+			blink();
+		}
+	};
+
+	/**
+	 * Blink timer
+	 */
+	protected Timer blinkTimer = new Timer(0, blinkAction);
+
+	/**
+	 * Constructs a new blink scheduler for the specified canvas.
+	 * 
+	 * @param canvas
+	 *            canvas
+	 */
+	public OverlayBlinkScheduler(JComponent canvas) {
+		this.canvas = canvas;
+		blinkTimer.setCoalesce(true);
+	}
+
+	/**
+	 * Starts blinking the specified overlay, in case it does not blink yet.
+	 * 
+	 * @param blinkingOverlay
+	 *            blinking overlay
+	 */
+	public void start(BlinkingOverlay blinkingOverlay) {
+		if (overlayVector.contains(blinkingOverlay))
+			return;
+		overlayVector.add(blinkingOverlay);
+		blinkTimeVector.add(System.currentTimeMillis());
+		updateTimer();
+	}
+
+	/**
+	 * Stops blinking the specified overlay, and stops the timer in case no
+	 * other overlay blinks.
+	 * 
+	 * @param blinkingOverlay
+	 *            blinking overlay
+	 */
+	public void stop(BlinkingOverlay blinkingOverlay) {
+		int i = overlayVector.indexOf(blinkingOverlay);
+		if (i < 0)
+			return;
+		overlayVector.removeElementAt(i);
+		blinkTimeVector.removeElementAt(i);
+		updateTimer();
+	}
+
+	/**
+	 * Stops blinking all of the overlays.
+	 */
+	public void stopAll() {
+		overlayVector.clear();
+		blinkTimeVector.clear();
+		updateTimer();
+	}
+
+	/**
+	 * Returns a boolean indicating whether any overlay blinks.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isRunning() {
+		return blinkTimer.isRunning();
+	}
+
+	/**
+	 * Runs the timer at the shortest blink delay of the blinking overlays,
+	 * or stops it in case no overlay blinks.
+	 */
+	protected void updateTimer() {
+		if (overlayVector.isEmpty()) {
+			blinkTimer.stop();
+			return;
+		}
+		int delay = Integer.MAX_VALUE;
+		for (int i = 0; i < overlayVector.size(); i++)
+			delay = Math.min(delay, overlayVector.elementAt(i)
+					.getBlinkDelay());
+		blinkTimer.setDelay(delay);
+		if (!blinkTimer.isRunning())
+			blinkTimer.start();
+	}
+
+	/**
+	 * Blinks the overlays whose blink delay has passed, and repaints their
+	 * bounds.
+	 */
+	protected void blink() {
+		long time = System.currentTimeMillis();
+		for (int i = 0; i < overlayVector.size(); i++) {
+			BlinkingOverlay blinkingOverlay = overlayVector.elementAt(i);
+			if (time - blinkTimeVector.elementAt(i) < blinkingOverlay
+					.getBlinkDelay())
+				continue;
+			blinkTimeVector.setElementAt(time, i);
+			Rectangle bounds = blinkingOverlay.getBlinkBounds();
+			blinkingOverlay.blink();
+			bounds.add(blinkingOverlay.getBlinkBounds());
+			canvas.repaint(bounds);
+		}
+	}
+}
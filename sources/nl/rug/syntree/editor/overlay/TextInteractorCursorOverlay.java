@@ -23,19 +23,13 @@ package nl.rug.syntree.editor.overlay;
 import java.awt.BasicStroke;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.Stroke;
-import java.awt.event.ActionEvent;
 import java.awt.geom.Line2D;
 
-import javax.swing.AbstractAction;
-import javax.swing.Action;
-import javax.swing.Timer;
-
 import nl.rug.syntree.editor.interactor.TextInteractor;
 import nl.rug.syntree.ui.UIColors;
 
-import org.apache.batik.swing.gvt.Overlay;
-
 /**
  * This class represents a cursor overlay for the text interactor.
  * 
@@ -43,12 +37,17 @@ import org.apache.batik.swing.gvt.Overlay;
  * @version 1.0
  * @since 1.0
  */
-public class TextInteractorCursorOverlay implements Overlay {
+public class TextInteractorCursorOverlay implements BlinkingOverlay {
 	/**
 	 * Cursor blink delay constant
 	 */
 	public static final int CURSOR_BLINK_DELAY = 250;
 
+	/**
+	 * Width constant of the cursor string
+	 */
+	public static final float CURSOR_STRING_WIDTH = 2.0f;
+
 	/**
 	 * Text interactor
 	 */
@@ -84,28 +83,6 @@ public class TextInteractorCursorOverlay implements Overlay {
 	 */
 	protected boolean drawCursor = false;
 
-	/**
-	 * Blink action for the cursor
-	 */
-	protected Action cursorBlinkAction = new AbstractAction() {
-		/**
-		 * Serial version identifier constant
-		 */
-		private static final long serialVersionUID = 1L;
-
-		/**
-		 * Handles the performed action
-		 * 
-		 * @param ae
-		 *            the occurred action event
-		 */
-		public void actionPerformed(ActionEvent ae) {
-			drawCursor = !drawCursor;
-			textInteractor.getTreeEditorJSVGScrollPane()
-					.getTreeEditorJSVGCanvas().repaint();
-		}
-	};
-
 	/**
 	 * Constructs a new cursor overlay for the text interactor.
 	 * 
@@ -114,7 +91,43 @@ public class TextInteractorCursorOverlay implements Overlay {
 	 */
 	public TextInteractorCursorOverlay(TextInteractor textInteractor) {
 		this.textInteractor = textInteractor;
-		new Timer(CURSOR_BLINK_DELAY, cursorBlinkAction).start();
+	}
+
+	/**
+	 * Returns the delay between two blinks of the cursor in milliseconds.
+	 * 
+	 * @return blink delay
+	 */
+	public int getBlinkDelay() {
+		return CURSOR_BLINK_DELAY;
+	}
+
+	/**
+	 * Shows or hides the cursor string.
+	 */
+	public void blink() {
+		drawCursor = !drawCursor;
+	}
+
+	/**
+	 * Returns the bounds of the cursor string, including its stroke.
+	 * 
+	 * @return bounds
+	 */
+	public Rectangle getBlinkBounds() {
+		Rectangle bounds = new Line2D.Float(x1, y1, x2, y2).getBounds();
+		int margin = (int) Math.ceil(CURSOR_STRING_WIDTH);
+		bounds.grow(margin, margin);
+		return bounds;
+	}
+
+	/**
+	 * Returns the bounds of the cursor string, including its stroke.
+	 * 
+	 * @return bounds
+	 */
+	public Rectangle getOverlayBounds() {
+		return getBlinkBounds();
 	}
 
 	/**
@@ -127,8 +140,8 @@ public class TextInteractorCursorOverlay implements Overlay {
 		if (drawCursor) {
 			string = new Line2D.Float(x1, y1, x2, y2);
 			Graphics2D g2d = (Graphics2D) g;
-			Stroke stringStroke = new BasicStroke(2.0f, BasicStroke.CAP_ROUND,
-					BasicStroke.JOIN_MITER);
+			Stroke stringStroke = new BasicStroke(CURSOR_STRING_WIDTH,
+					BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
 			g2d.setColor(UIColors.EDITOR_CURSOR_STRING);
 			g2d.setStroke(stringStroke);
 			g2d.draw(string);
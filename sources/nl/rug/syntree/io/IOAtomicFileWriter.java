@@ -0,0 +1,126 @@
+/* IOAtomicFileWriter.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * This class represents a writer that replaces a file atomically. The
+ * contents are written to a uniquely named temporary file in the directory of
+ * the file, which is forced to disk and then moved over the file, so that a
+ * failed or cancelled write never leaves a truncated file behind. Subclasses
+ * write the contents.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public abstract class IOAtomicFileWriter {
+	/**
+	 * Suffix constant of the temporary file
+	 */
+	public static final String TEMPORARY_SUFFIX = ".tmp";
+
+	/**
+	 * File to replace
+	 */
+	protected File file;
+
+	/**
+	 * Constructs a new atomic file writer.
+	 * 
+	 * @param file
+	 *            file to replace
+	 */
+	public IOAtomicFileWriter(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Writes the contents to the specified output stream of the temporary
+	 * file.
+	 * 
+	 * @param fileOutputStream
+	 *            output stream of the temporary file
+	 * @throws Exception
+	 */
+	protected abstract void writeContents(FileOutputStream fileOutputStream)
+			throws Exception;
+
+	/**
+	 * Returns a boolean indicating whether writing is cancelled, in which
+	 * case the temporary file is deleted instead of replacing the file.
+	 * 
+	 * @return boolean
+	 */
+	protected boolean isCancelled() {
+		return false;
+	}
+
+	/**
+	 * Writes the contents to a temporary file, and moves it over the file.
+	 * The temporary file is deleted in case writing fails or is cancelled.
+	 * The name of the temporary file starts with a dot, the name of the file
+	 * and another dot, which also keeps its prefix at the minimum length of
+	 * three characters in case the name of the file is a single character.
+	 * 
+	 * @return true in case the file is replaced, false in case writing is
+	 *         cancelled
+	 * @throws Exception
+	 */
+	public boolean write() throws Exception {
+		File directory = file.getAbsoluteFile().getParentFile();
+		File temporaryFile = File.createTempFile("." + file.getName() + ".",
+				TEMPORARY_SUFFIX, directory);
+		try {
+			// write
+			FileOutputStream fileOutputStream = new FileOutputStream(
+					temporaryFile);
+			try {
+				writeContents(fileOutputStream);
+				if (isCancelled())
+					return false;
+				fileOutputStream.getChannel().force(true);
+			} finally {
+				fileOutputStream.close();
+			}
+
+			// replace
+			try {
+				Files.move(temporaryFile.toPath(), file.toPath(),
+						StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException amnse) {
+				Files.move(temporaryFile.toPath(), file.toPath(),
+						StandardCopyOption.REPLACE_EXISTING);
+			}
+			temporaryFile = null;
+		} finally {
+			if (temporaryFile != null)
+				temporaryFile.delete();
+		}
+		return true;
+	}
+}
@@ -0,0 +1,348 @@
+/* IOBatchRenderer.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.io;
+
+import java.awt.Color;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Vector;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import nl.rug.syntree.Main;
+import nl.rug.syntree.drawer.TreeDrawer;
+import nl.rug.syntree.editor.TreeEditorBridge;
+import nl.rug.syntree.tree.TreeRepresentation;
+import nl.rug.syntree.tree.component.SVGDocument;
+
+import org.apache.batik.bridge.BridgeContext;
+import org.apache.batik.bridge.DocumentLoader;
+import org.apache.batik.bridge.GVTBuilder;
+import org.apache.batik.bridge.UserAgentAdapter;
+import org.apache.batik.transcoder.Transcoder;
+import org.apache.batik.transcoder.TranscoderInput;
+import org.apache.batik.transcoder.TranscoderOutput;
+import org.apache.batik.transcoder.image.ImageTranscoder;
+import org.apache.batik.transcoder.image.PNGTranscoder;
+import org.apache.fop.svg.PDFTranscoder;
+
+/**
+ * This class represents a headless batch renderer that lays out treespace
+ * files and transcodes them to images or documents. Files are rendered on a
+ * bounded pool of worker threads, each of which owns its own transcoder.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class IOBatchRenderer {
+	/**
+	 * PNG format constant
+	 */
+	public static final String PNG_FORMAT = "png";
+
+	/**
+	 * JPEG format constant
+	 */
+	public static final String JPG_FORMAT = "jpg";
+
+	/**
+	 * PDF format constant
+	 */
+	public static final String PDF_FORMAT = "pdf";
+
+	/**
+	 * JPEG quality constant
+	 */
+	public static final float JPG_QUALITY = 0.9f;
+
+	/**
+	 * Number of queued files per worker thread constant
+	 */
+	public static final int QUEUE_CAPACITY_PER_THREAD = 4;
+
+	/**
+	 * Usage constant
+	 */
+	public static final String USAGE = "usage: --render in... --format png|jpg|pdf --out dir [--threads n]";
+
+	/**
+	 * Input files
+	 */
+	protected Vector<File> inputFileVector;
+
+	/**
+	 * Output format
+	 */
+	protected String format;
+
+	/**
+	 * Output directory
+	 */
+	protected File outputDirectory;
+
+	/**
+	 * Number of worker threads
+	 */
+	protected int threads;
+
+	/**
+	 * Transcoder of the current worker thread
+	 */
+	protected ThreadLocal<Transcoder> transcoder = new ThreadLocal<Transcoder>() {
+		protected Transcoder initialValue() {
+			return createTranscoder();
+		}
+	};
+
+	/**
+	 * Number of rendered files
+	 */
+	protected AtomicInteger renderedCount = new AtomicInteger();
+
+	/**
+	 * Number of files that could not be rendered
+	 */
+	protected AtomicInteger failedCount = new AtomicInteger();
+
+	/**
+	 * Constructs a new batch renderer.
+	 * 
+	 * @param inputFileVector
+	 *            input files
+	 * @param format
+	 *            output format
+	 * @param outputDirectory
+	 *            output directory
+	 * @param threads
+	 *            number of worker threads
+	 */
+	public IOBatchRenderer(Vector<File> inputFileVector, String format,
+			File outputDirectory, int threads) {
+		this.inputFileVector = inputFileVector;
+		this.format = format;
+		this.outputDirectory = outputDirectory;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Renders all of the input files and reports the throughput.
+	 * 
+	 * @return number of files that could not be rendered
+	 */
+	public int render() {
+		long startTime = System.nanoTime();
+		ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(threads,
+				threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(threads
+						* QUEUE_CAPACITY_PER_THREAD),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+		for (int i = 0; i < inputFileVector.size(); i++) {
+			final File inputFile = inputFileVector.elementAt(i);
+			threadPoolExecutor.execute(new Runnable() {
+				public void run() {
+					render(inputFile);
+				}
+			});
+		}
+		threadPoolExecutor.shutdown();
+		try {
+			while (!threadPoolExecutor.awaitTermination(1, TimeUnit.SECONDS))
+				;
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+		double seconds = (System.nanoTime() - startTime) / 1.0e9;
+		System.out.println("[IOBatchRenderer::render()] rendered "
+				+ renderedCount.get() + " file(s), " + failedCount.get()
+				+ " failed, in " + String.format("%.2f", seconds) + "s ("
+				+ String.format("%.2f", renderedCount.get() / seconds)
+				+ " files/s)");
+		return failedCount.get();
+	}
+
+	/**
+	 * Lays out and transcodes the specified treespace file.
+	 * 
+	 * @param inputFile
+	 *            input file
+	 */
+	protected void render(File inputFile) {
+		File outputFile = new File(outputDirectory, getBaseName(inputFile)
+				+ "." + format);
+		try {
+			// load and lay out
+			TreeEditorBridge treeEditorBridge = new TreeEditorBridge(null,
+					inputFile);
+			TreeRepresentation treeRepresentation = treeEditorBridge
+					.getTreeRepresentation();
+			SVGDocument svgDocument = treeRepresentation.getSVGDocument();
+			BridgeContext bridgeContext = createBridgeContext();
+			try {
+				new GVTBuilder().build(bridgeContext, svgDocument
+						.getDocument());
+				new TreeDrawer(treeRepresentation).draw();
+				svgDocument.computeViewBox();
+			} finally {
+				bridgeContext.dispose();
+			}
+
+			// size the document to its view box
+			float bounds[] = svgDocument.getBounds();
+			if (bounds != null) {
+				svgDocument.getDocumentElement().setAttribute("width",
+						"" + (bounds[2] - bounds[0]));
+				svgDocument.getDocumentElement().setAttribute("height",
+						"" + (bounds[3] - bounds[1]));
+			}
+
+			// transcode
+			OutputStream outputStream = new BufferedOutputStream(
+					new FileOutputStream(outputFile));
+			try {
+				transcoder.get().transcode(
+						new TranscoderInput(svgDocument.getDocument()),
+						new TranscoderOutput(outputStream));
+			} finally {
+				outputStream.close();
+			}
+			renderedCount.incrementAndGet();
+		} catch (Exception e) {
+			failedCount.incrementAndGet();
+			System.err.println("[IOBatchRenderer::render()] unable to render "
+					+ inputFile.getPath());
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Creates a dynamic bridge context, so that the geometry of text can be
+	 * measured and updated while laying out a document without a canvas.
+	 * 
+	 * @return bridge context
+	 */
+	protected BridgeContext createBridgeContext() {
+		UserAgentAdapter userAgent = new UserAgentAdapter();
+		BridgeContext bridgeContext = new BridgeContext(userAgent,
+				new DocumentLoader(userAgent));
+		bridgeContext.setDynamicState(BridgeContext.DYNAMIC);
+		return bridgeContext;
+	}
+
+	/**
+	 * Creates a transcoder for the output format.
+	 * 
+	 * @return transcoder
+	 */
+	protected Transcoder createTranscoder() {
+		Transcoder transcoder;
+		if (format.compareTo(PDF_FORMAT) == 0) {
+			transcoder = new PDFTranscoder();
+		} else if (format.compareTo(JPG_FORMAT) == 0) {
+			transcoder = new IOJPEGTranscoder(JPG_QUALITY);
+		} else {
+			transcoder = new PNGTranscoder();
+			transcoder.addTranscodingHint(
+					ImageTranscoder.KEY_BACKGROUND_COLOR, Color.white);
+		}
+		return transcoder;
+	}
+
+	/**
+	 * Returns the name of the specified file without its extension.
+	 * 
+	 * @param file
+	 *            file
+	 * @return base name
+	 */
+	protected static String getBaseName(File file) {
+		String name = file.getName();
+		int i = name.lastIndexOf('.');
+		if (i > 0)
+			name = name.substring(0, i);
+		return name;
+	}
+
+	/**
+	 * Runs the batch renderer for the specified command line arguments, which
+	 * are of the form --render in... --format png|jpg|pdf --out dir.
+	 * 
+	 * @param args
+	 *            command line arguments
+	 * @return exit status
+	 */
+	public static int run(String args[]) {
+		Vector<File> inputFileVector = new Vector<File>();
+		String format = PNG_FORMAT;
+		File outputDirectory = new File(".");
+		int threads = Runtime.getRuntime().availableProcessors();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].compareTo("--render") == 0)
+				continue;
+			if (args[i].compareTo("--format") == 0 && i + 1 < args.length)
+				format = args[++i].toLowerCase();
+			else if (args[i].compareTo("--out") == 0 && i + 1 < args.length)
+				outputDirectory = new File(args[++i]);
+			else if (args[i].compareTo("--threads") == 0) {
+				try {
+					threads = Integer.parseInt(args[++i]);
+				} catch (NumberFormatException nfe) {
+					threads = 0;
+				} catch (ArrayIndexOutOfBoundsException aioobe) {
+					threads = 0;
+				}
+				if (threads < 1) {
+					System.err
+							.println("[IOBatchRenderer::run()] the number of threads must be a positive integer");
+					System.err.println(USAGE);
+					return Main.EXIT_FAILURE;
+				}
+			} else
+				inputFileVector.add(new File(args[i]));
+		}
+		if (format.compareTo("jpeg") == 0)
+			format = JPG_FORMAT;
+		if (format.compareTo(PNG_FORMAT) != 0
+				&& format.compareTo(JPG_FORMAT) != 0
+				&& format.compareTo(PDF_FORMAT) != 0) {
+			System.err.println("[IOBatchRenderer::run()] unknown format "
+					+ format);
+			return Main.EXIT_FAILURE;
+		}
+		if (inputFileVector.size() == 0) {
+			System.err.println(USAGE);
+			return Main.EXIT_FAILURE;
+		}
+		if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+			System.err.println("[IOBatchRenderer::run()] unable to create "
+					+ outputDirectory.getPath());
+			return Main.EXIT_FAILURE;
+		}
+		IOBatchRenderer ioBatchRenderer = new IOBatchRenderer(inputFileVector,
+				format, outputDirectory, threads);
+		return ioBatchRenderer.render() == 0 ? Main.EXIT_SUCCESS
+				: Main.EXIT_FAILURE;
+	}
+}
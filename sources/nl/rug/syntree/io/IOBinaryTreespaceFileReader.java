@@ -0,0 +1,663 @@
+/* IOBinaryTreespaceFileReader.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import nl.rug.syntree.tree.TreeRepresentation;
+import nl.rug.syntree.tree.component.BranchElement;
+import nl.rug.syntree.tree.component.MdomBranchPathElement;
+import nl.rug.syntree.tree.component.TSpanElement;
+import nl.rug.syntree.tree.component.TextElement;
+
+import org.apache.batik.dom.AbstractElement;
+import org.w3c.dom.Document;
+
+/**
+ * This class represents a reader for binary treespace files. A binary
+ * treespace file holds the structural model of a treespace: its trees, their
+ * nodes in child order, the text spans of the nodes with their styles, the
+ * branch types, and the control points of the multidominance branches. Styles
+ * and texts are stored once in a string table. The file is memory-mapped, and
+ * a table of per-tree offsets allows single trees to be decoded on demand,
+ * into the same dom structure a SVG XML file would have loaded. Geometry is
+ * not stored, apart from the translation and the extent of each tree, which
+ * allow a tree to be laid out before it is decoded; decoded shapes get an
+ * empty geometry that the tree drawer recomputes.
+ * 
+ * Windows does not allow a file to be replaced while it is memory-mapped,
+ * and a mapping is only released once its buffer is garbage collected, so
+ * saving over an open file would fail there. On Windows the file is
+ * therefore read into memory and closed instead of mapped, trading memory
+ * for the ability to save in place. Elsewhere, a mapping stays valid after
+ * the file is replaced, since it refers to the replaced file.
+ * 
+ * The file starts with a header (magic, version, tree count, mdom count,
+ * mdom offset, string table offset, tree table offset), followed by the
+ * encoded trees, the fixed-size mdom records, the string table, and the tree
+ * table. All values are big-endian.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class IOBinaryTreespaceFileReader {
+	/**
+	 * Magic number constant ("STBF")
+	 */
+	public static final int MAGIC = 0x53544246;
+
+	/**
+	 * Format version constant
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Header size constant in bytes
+	 */
+	public static final int HEADER_SIZE = 40;
+
+	/**
+	 * Tree table entry size constant in bytes: offset, length, identifier,
+	 * x-translation, y-translation, and extent
+	 */
+	public static final int TREE_ENTRY_SIZE = 40;
+
+	/**
+	 * Number of path coordinates constant of a multidominance branch: moveto
+	 * and two curvetos
+	 */
+	public static final int MDOM_PATH_COORDINATES = 14;
+
+	/**
+	 * Mdom record size constant in bytes: identifier, mother, daughter, path
+	 * style, background path style, and path coordinates
+	 */
+	public static final int MDOM_ENTRY_SIZE = 20 + 4 * MDOM_PATH_COORDINATES;
+
+	/**
+	 * Alignment constants, indexed by their encoding
+	 */
+	public static final String ALIGNMENTS[] = { TextElement.ALIGN_LEFT,
+			TextElement.ALIGN_CENTER, TextElement.ALIGN_RIGHT };
+
+	/**
+	 * Branch type constants, indexed by their encoding
+	 */
+	public static final String BRANCH_TYPES[] = { BranchElement.LINE,
+			BranchElement.TRIANGLE };
+
+	/**
+	 * Branch rectangle style constant
+	 */
+	protected static final String BRANCH_RECTANGLE_STYLE = "fill:none;";
+
+	/**
+	 * UTF-8 character set constant
+	 */
+	protected static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Boolean constant indicating whether files are memory-mapped, which is
+	 * the case everywhere but on Windows
+	 */
+	protected static final boolean MAP_FILES = !System.getProperty(
+			"os.name", "").startsWith("Windows");
+
+	/**
+	 * Binary treespace file
+	 */
+	protected File binaryTreespaceFile;
+
+	/**
+	 * Memory-mapped, or on Windows read, contents of the file
+	 */
+	protected ByteBuffer buffer;
+
+	/**
+	 * Number of trees
+	 */
+	protected int treeCount;
+
+	/**
+	 * Number of multidominance branches
+	 */
+	protected int mdomCount;
+
+	/**
+	 * Offset of the mdom records
+	 */
+	protected int mdomOffset;
+
+	/**
+	 * Offset of the tree table
+	 */
+	protected int treeTableOffset;
+
+	/**
+	 * Number of strings in the string table
+	 */
+	protected int stringCount;
+
+	/**
+	 * Offset of the string offsets in the string table
+	 */
+	protected int stringOffsetsOffset;
+
+	/**
+	 * Offset of the string bytes in the string table
+	 */
+	protected int stringBytesOffset;
+
+	/**
+	 * Decoded strings, which are decoded on first use
+	 */
+	protected String strings[];
+
+	/**
+	 * Constructs a new reader that maps the specified binary treespace file,
+	 * or reads it into memory on Windows. Only the header is validated; trees
+	 * and strings are decoded on demand.
+	 * 
+	 * @param binaryTreespaceFile
+	 *            the binary treespace file to read
+	 * @throws IOException
+	 *             in case the file cannot be mapped, or is not a binary
+	 *             treespace file
+	 */
+	public IOBinaryTreespaceFileReader(File binaryTreespaceFile)
+			throws IOException {
+		this.binaryTreespaceFile = binaryTreespaceFile;
+		RandomAccessFile randomAccessFile = new RandomAccessFile(
+				binaryTreespaceFile, "r");
+		try {
+			FileChannel fileChannel = randomAccessFile.getChannel();
+			if (fileChannel.size() < HEADER_SIZE
+					|| fileChannel.size() > Integer.MAX_VALUE)
+				throw new IOException("not a binary treespace file: "
+						+ binaryTreespaceFile.getPath());
+			if (MAP_FILES) {
+				buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0,
+						fileChannel.size());
+			} else {
+				buffer = ByteBuffer.allocate((int) fileChannel.size());
+				while (buffer.hasRemaining())
+					if (fileChannel.read(buffer) < 0)
+						throw new IOException("unexpected end of file: "
+								+ binaryTreespaceFile.getPath());
+				buffer.flip();
+			}
+		} finally {
+			randomAccessFile.close();
+		}
+		readHeader();
+	}
+
+	/**
+	 * Constructs a new reader for the specified binary treespace image in
+	 * memory, such as a record of an edit journal.
+	 * 
+	 * @param buffer
+	 *            binary treespace image
+	 * @throws IOException
+	 *             in case the buffer does not hold a binary treespace image
+	 */
+	public IOBinaryTreespaceFileReader(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.capacity() < HEADER_SIZE)
+			throw new IOException("not a binary treespace image");
+		readHeader();
+	}
+
+	/**
+	 * Validates the header, and reads the counts and the offsets of the
+	 * sections.
+	 * 
+	 * @throws IOException
+	 *             in case the header is not valid
+	 */
+	protected void readHeader() throws IOException {
+		if (buffer.getInt(0) != MAGIC)
+			throw new IOException("not a binary treespace file: "
+					+ binaryTreespaceFile);
+		if (buffer.getInt(4) != VERSION)
+			throw new IOException("unsupported binary treespace version "
+					+ buffer.getInt(4) + ": " + binaryTreespaceFile);
+		treeCount = buffer.getInt(8);
+		mdomCount = buffer.getInt(12);
+		mdomOffset = (int) buffer.getLong(16);
+		int stringTableOffset = (int) buffer.getLong(24);
+		treeTableOffset = (int) buffer.getLong(32);
+
+		// string table
+		stringCount = buffer.getInt(stringTableOffset);
+		stringOffsetsOffset = stringTableOffset + 4;
+		stringBytesOffset = stringOffsetsOffset + 4 * (stringCount + 1);
+		strings = new String[stringCount];
+	}
+
+	/**
+	 * Returns the number of trees.
+	 * 
+	 * @return number of trees
+	 */
+	public int getNumberOfTrees() {
+		return treeCount;
+	}
+
+	/**
+	 * Returns the number of multidominance branches.
+	 * 
+	 * @return number of mdoms
+	 */
+	public int getNumberOfMdoms() {
+		return mdomCount;
+	}
+
+	/**
+	 * Returns the identifier of the specified tree.
+	 * 
+	 * @param index
+	 *            tree index
+	 * @return identifier
+	 */
+	public String getTreeId(int index) {
+		return getString(buffer.getInt(getTreeEntryOffset(index) + 12));
+	}
+
+	/**
+	 * Returns the translation of the specified tree as {x, y}.
+	 * 
+	 * @param index
+	 *            tree index
+	 * @return translation
+	 */
+	public float[] getTreeTranslate(int index) {
+		int offset = getTreeEntryOffset(index);
+		return new float[] { buffer.getFloat(offset + 16),
+				buffer.getFloat(offset + 20) };
+	}
+
+	/**
+	 * Returns the saved extent of the specified tree as {min x, min y, max x,
+	 * max y}, relative to its translation.
+	 * 
+	 * @param index
+	 *            tree index
+	 * @return extent
+	 */
+	public float[] getTreeExtent(int index) {
+		int offset = getTreeEntryOffset(index);
+		float extent[] = new float[4];
+		for (int i = 0; i < extent.length; i++)
+			extent[i] = buffer.getFloat(offset + 24 + 4 * i);
+		return extent;
+	}
+
+	/**
+	 * Returns the encoded bytes of the specified tree, so that an unchanged
+	 * tree can be copied without decoding it. The encoding refers to the
+	 * string table of this file.
+	 * 
+	 * @param index
+	 *            tree index
+	 * @return encoded tree
+	 */
+	public ByteBuffer getEncodedTree(int index) {
+		int offset = getTreeEntryOffset(index);
+		ByteBuffer encodedTree = buffer.duplicate();
+		int treeOffset = (int) buffer.getLong(offset);
+		encodedTree.limit(treeOffset + buffer.getInt(offset + 8));
+		encodedTree.position(treeOffset);
+		return encodedTree.slice();
+	}
+
+	/**
+	 * Decodes the nodes of the specified tree, and appends them to the
+	 * specified dom element of the tree.
+	 * 
+	 * @param index
+	 *            tree index
+	 * @param treeElement
+	 *            dom element of the tree
+	 */
+	public void decodeTree(int index, AbstractElement treeElement) {
+		ByteBuffer encodedTree = getEncodedTree(index);
+		decodeNode(encodedTree, treeElement.getOwnerDocument(), treeElement
+				.getNamespaceURI(), treeElement, null, getTreeId(index));
+	}
+
+	/**
+	 * Decodes a node and its daughters, and appends them to the specified
+	 * parent element.
+	 * 
+	 * @param encodedTree
+	 *            encoded tree, positioned at the node
+	 * @param document
+	 *            dom document
+	 * @param namespace
+	 *            namespace of the document
+	 * @param parentElement
+	 *            dom element of the tree or of the mother node
+	 * @param motherId
+	 *            identifier of the mother node, or null for the root
+	 * @param treeId
+	 *            identifier of the tree
+	 */
+	protected void decodeNode(ByteBuffer encodedTree, Document document,
+			String namespace, AbstractElement parentElement, String motherId,
+			String treeId) {
+		String id = getNodeId(encodedTree.getInt(), treeId);
+		AbstractElement nodeElement = createElement(document, namespace, "g");
+		nodeElement.setAttribute("id", id);
+		parentElement.appendChild(nodeElement);
+
+		// node rectangle
+		AbstractElement rectElement = createElement(document, namespace,
+				"rect");
+		rectElement.setAttribute("id",
+				TreeRepresentation.NODE_RECTANGLE_IDENTIFIER_PREFIX + "@" + id);
+		setEmptyRect(rectElement);
+		nodeElement.appendChild(rectElement);
+
+		// text
+		AbstractElement textElement = createElement(document, namespace,
+				"text");
+		textElement.setAttribute("id",
+				TreeRepresentation.NODE_TEXT_IDENTIFIER_PREFIX + "@" + id);
+		textElement.setAttribute("xml:space", "preserve");
+		textElement.setAttribute("style", "text-anchor:start;");
+		int alignment = encodedTree.get();
+		if (alignment >= 0 && alignment < ALIGNMENTS.length)
+			textElement.setAttribute("alignment", ALIGNMENTS[alignment]);
+		textElement.setAttribute("visibility",
+				encodedTree.get() != 0 ? TextElement.VISIBLE
+						: TextElement.INVISIBLE);
+		int tspanCount = encodedTree.getInt();
+		for (int i = 0; i < tspanCount; i++) {
+			AbstractElement tspanElement = createElement(document, namespace,
+					"tspan");
+			tspanElement.setAttribute("line", "" + encodedTree.getShort());
+			tspanElement.setAttribute("type", "" + encodedTree.get());
+			tspanElement.setAttribute("style", getString(encodedTree
+					.getInt()));
+			tspanElement.appendChild(document.createTextNode(getString(encodedTree
+					.getInt())));
+			textElement.appendChild(tspanElement);
+		}
+		nodeElement.appendChild(textElement);
+
+		// branch
+		int branchType = encodedTree.get();
+		if (branchType >= 0) {
+			String branchId = motherId + ":" + id;
+			AbstractElement branchElement = createElement(document, namespace,
+					"polygon");
+			branchElement.setAttribute("id",
+					TreeRepresentation.BRANCH_IDENTIFIER_PREFIX + ":"
+							+ branchId);
+			branchElement.setAttribute("style", getString(encodedTree
+					.getInt()));
+			if (branchType < BRANCH_TYPES.length)
+				branchElement.setAttribute("type", BRANCH_TYPES[branchType]);
+			branchElement.setAttribute("points",
+					branchType == 1 ? "0.0,0.0 0.0,0.0 0.0,0.0"
+							: "0.0,0.0 0.0,0.0");
+			nodeElement.appendChild(branchElement);
+			AbstractElement branchRectElement = createElement(document,
+					namespace, "rect");
+			branchRectElement.setAttribute("id",
+					TreeRepresentation.BRANCH_RECTANGLE_IDENTIFIER_PREFIX + ":"
+							+ branchId);
+			branchRectElement.setAttribute("style", BRANCH_RECTANGLE_STYLE);
+			setEmptyRect(branchRectElement);
+			nodeElement.appendChild(branchRectElement);
+		}
+
+		// daughters
+		int daughterCount = encodedTree.getInt();
+		for (int i = 0; i < daughterCount; i++)
+			decodeNode(encodedTree, document, namespace, nodeElement, id,
+					treeId);
+	}
+
+	/**
+	 * Gives the specified rectangle element an empty geometry, which is
+	 * computed when the tree is drawn.
+	 * 
+	 * @param rectElement
+	 *            rectangle element
+	 */
+	protected static void setEmptyRect(AbstractElement rectElement) {
+		rectElement.setAttribute("x", "0.0");
+		rectElement.setAttribute("y", "0.0");
+		rectElement.setAttribute("width", "0.0");
+		rectElement.setAttribute("height", "0.0");
+	}
+
+	/**
+	 * Returns the yield of the specified tree, which consists of the labels
+	 * of its leaves separated by spaces, without building any dom elements.
+	 * 
+	 * @param index
+	 *            tree index
+	 * @return yield
+	 */
+	public String getYield(int index) {
+		StringBuilder stringBuilder = new StringBuilder();
+		appendYield(getEncodedTree(index), stringBuilder);
+		return stringBuilder.toString();
+	}
+
+	/**
+	 * Appends the yield of a node to the specified string builder.
+	 * 
+	 * @param encodedTree
+	 *            encoded tree, positioned at the node
+	 * @param stringBuilder
+	 *            string builder
+	 */
+	protected void appendYield(ByteBuffer encodedTree,
+			StringBuilder stringBuilder) {
+		encodedTree.getInt(); // identifier
+		encodedTree.get(); // alignment
+		encodedTree.get(); // visibility
+		StringBuilder labelBuilder = new StringBuilder();
+		int line = -1;
+		int tspanCount = encodedTree.getInt();
+		for (int i = 0; i < tspanCount; i++) {
+			int tspanLine = encodedTree.getShort();
+			int type = encodedTree.get();
+			encodedTree.getInt(); // style
+			String text = getString(encodedTree.getInt());
+			if (type != TSpanElement.TEXT_TYPE)
+				continue;
+			if (line != -1 && tspanLine != line)
+				labelBuilder.append(' ');
+			line = tspanLine;
+			labelBuilder.append(text);
+		}
+		if (encodedTree.get() >= 0)
+			encodedTree.getInt(); // branch style
+		int daughterCount = encodedTree.getInt();
+		if (daughterCount == 0 && labelBuilder.length() > 0) {
+			if (stringBuilder.length() > 0)
+				stringBuilder.append(' ');
+			stringBuilder.append(labelBuilder);
+		}
+		for (int i = 0; i < daughterCount; i++)
+			appendYield(encodedTree, stringBuilder);
+	}
+
+	/**
+	 * Decodes the specified multidominance branch into a new dom element,
+	 * which has to be appended to the multidominance group.
+	 * 
+	 * @param index
+	 *            mdom index
+	 * @param document
+	 *            dom document
+	 * @param namespace
+	 *            namespace of the document
+	 * @return dom element of the mdom
+	 */
+	public AbstractElement decodeMdom(int index, Document document,
+			String namespace) {
+		int offset = mdomOffset + index * MDOM_ENTRY_SIZE;
+		String id = getString(buffer.getInt(offset));
+		AbstractElement mdomElement = createElement(document, namespace, "g");
+		mdomElement.setAttribute("id", id);
+		mdomElement.setAttribute("mother", getString(buffer
+				.getInt(offset + 4)));
+		mdomElement.setAttribute("daughter", getString(buffer
+				.getInt(offset + 8)));
+
+		// path data
+		StringBuilder pathData = new StringBuilder();
+		for (int i = 0; i < MDOM_PATH_COORDINATES; i += 2) {
+			if (i == 0)
+				pathData.append(MdomBranchPathElement.MOVETO);
+			else if ((i - 2) % 6 == 0)
+				pathData.append(' ').append(MdomBranchPathElement.CURVETO);
+			else
+				pathData.append(' ');
+			pathData.append(buffer.getFloat(offset + 20 + 4 * i)).append(',')
+					.append(buffer.getFloat(offset + 24 + 4 * i));
+		}
+
+		// background path
+		AbstractElement backgroundPathElement = createElement(document,
+				namespace, "path");
+		backgroundPathElement.setAttribute("id",
+				TreeRepresentation.MDOM_BRANCH_BACKGROUND_PATH_IDENTIFIER_PREFIX
+						+ "@" + id);
+		backgroundPathElement.setAttribute("style", getString(buffer
+				.getInt(offset + 16)));
+		backgroundPathElement.setAttribute("d", pathData.toString());
+		mdomElement.appendChild(backgroundPathElement);
+
+		// path
+		AbstractElement pathElement = createElement(document, namespace,
+				"path");
+		pathElement.setAttribute("id",
+				TreeRepresentation.MDOM_BRANCH_PATH_IDENTIFIER_PREFIX + "@"
+						+ id);
+		pathElement.setAttribute("style", getString(buffer
+				.getInt(offset + 12)));
+		pathElement.setAttribute("d", pathData.toString());
+		mdomElement.appendChild(pathElement);
+		return mdomElement;
+	}
+
+	/**
+	 * Returns the number of strings in the string table.
+	 * 
+	 * @return number of strings
+	 */
+	public int getNumberOfStrings() {
+		return stringCount;
+	}
+
+	/**
+	 * Returns the specified string of the string table.
+	 * 
+	 * @param index
+	 *            string index
+	 * @return string
+	 */
+	public String getString(int index) {
+		String string = strings[index];
+		if (string == null) {
+			int begin = buffer.getInt(stringOffsetsOffset + 4 * index);
+			int end = buffer.getInt(stringOffsetsOffset + 4 * index + 4);
+			byte bytes[] = new byte[end - begin];
+			ByteBuffer stringBuffer = buffer.duplicate();
+			stringBuffer.position(stringBytesOffset + begin);
+			stringBuffer.get(bytes);
+			string = new String(bytes, UTF8);
+			strings[index] = string;
+		}
+		return string;
+	}
+
+	/**
+	 * Returns the binary treespace file, or null in case the image is read
+	 * from memory.
+	 * 
+	 * @return binary treespace file
+	 */
+	public File getFile() {
+		return binaryTreespaceFile;
+	}
+
+	/**
+	 * Returns the identifier of a node from its encoding, which is either the
+	 * index of the node within its tree, or minus one minus the string index
+	 * of an identifier that does not follow the node identifier scheme.
+	 * 
+	 * @param key
+	 *            encoded identifier
+	 * @param treeId
+	 *            identifier of the tree
+	 * @return identifier
+	 */
+	protected String getNodeId(int key, String treeId) {
+		if (key < 0)
+			return getString(-1 - key);
+		return TreeRepresentation.NODE_IDENTIFIER_PREFIX + "-" + key + "@"
+				+ treeId;
+	}
+
+	/**
+	 * Returns the offset of the tree table entry of the specified tree.
+	 * 
+	 * @param index
+	 *            tree index
+	 * @return offset
+	 */
+	protected int getTreeEntryOffset(int index) {
+		if (index < 0 || index >= treeCount)
+			throw new IndexOutOfBoundsException("tree " + index + " of "
+					+ treeCount);
+		return treeTableOffset + index * TREE_ENTRY_SIZE;
+	}
+
+	/**
+	 * Creates a new element with the specified tag.
+	 * 
+	 * @param document
+	 *            dom document
+	 * @param namespace
+	 *            namespace of the document
+	 * @param tag
+	 *            tag
+	 * @return element
+	 */
+	protected static AbstractElement createElement(Document document,
+			String namespace, String tag) {
+		return (AbstractElement) document.createElementNS(namespace, tag);
+	}
+}
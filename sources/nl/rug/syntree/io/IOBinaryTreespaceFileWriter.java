@@ -0,0 +1,544 @@
+/* IOBinaryTreespaceFileWriter.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Vector;
+
+import nl.rug.syntree.tree.TreeRecord;
+import nl.rug.syntree.tree.TreeRepresentation;
+import nl.rug.syntree.tree.component.BranchElement;
+import nl.rug.syntree.tree.component.TextElement;
+
+import org.apache.batik.dom.AbstractElement;
+import org.w3c.dom.Node;
+
+/**
+ * This class represents a binary treespace file writer. The trees of a tree
+ * representation are encoded from their dom subtrees in the format described
+ * by IOBinaryTreespaceFileReader. Trees that were opened from a binary
+ * treespace file and that are not materialized cannot have changed, so their
+ * encoded bytes are copied from the mapped file without decoding them. The
+ * trees are encoded into memory by snapshot(), which has to be called from
+ * the update manager thread, after which writeFile() writes the image on any
+ * other thread. Like the SVG XML file writer, the image is written to a
+ * temporary file that atomically replaces the binary treespace file once it
+ * is complete. Since the unchanged trees are copied into the image by
+ * snapshot(), the replaced file is no longer read by the writer; on Windows,
+ * where a mapped file cannot be replaced, IOBinaryTreespaceFileReader does
+ * not keep the file mapped, so that saving over the open file succeeds.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class IOBinaryTreespaceFileWriter implements IOTreespaceFileWriter {
+	/**
+	 * Tree representation to write
+	 */
+	protected TreeRepresentation treeRepresentation;
+
+	/**
+	 * Binary treespace file to write to
+	 */
+	protected File binaryTreespaceFile;
+
+	/**
+	 * Strings of the string table, in order
+	 */
+	protected Vector<String> stringVector = new Vector<String>();
+
+	/**
+	 * Indices of the strings in the string table, keyed by string
+	 */
+	protected HashMap<String, Integer> stringMap = new HashMap<String, Integer>();
+
+	/**
+	 * Binary treespace image taken by the snapshot
+	 */
+	protected byte image[];
+
+	/**
+	 * Constructs a new binary treespace file writer.
+	 * 
+	 * @param treeRepresentation
+	 *            the tree representation to write
+	 * @param binaryTreespaceFile
+	 *            the binary treespace file to write to
+	 */
+	public IOBinaryTreespaceFileWriter(TreeRepresentation treeRepresentation,
+			File binaryTreespaceFile) {
+		this.treeRepresentation = treeRepresentation;
+		this.binaryTreespaceFile = binaryTreespaceFile;
+	}
+
+	/**
+	 * Encodes the tree representation into a binary treespace image in
+	 * memory. This has to be called from the update manager thread.
+	 * 
+	 * @return 0 on success, -1 on failure
+	 */
+	public int snapshot() {
+		try {
+			image = encode(treeRepresentation.getTreeRecordVector(), true,
+					treeRepresentation.getBinaryTreespaceFileReader());
+		} catch (Exception e) {
+			System.err
+					.println("[IOBinaryTreespaceFileWriter::snapshot()] unable to encode the treespace");
+			e.printStackTrace();
+			image = null;
+			return -1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Writes the snapshot to the binary treespace file.
+	 * 
+	 * @return 0 on success, -1 on failure
+	 */
+	public int writeFile() {
+		if (image == null && snapshot() != 0)
+			return -1;
+		int returnCode = 0;
+		try {
+			new IOAtomicFileWriter(binaryTreespaceFile) {
+				protected void writeContents(FileOutputStream fileOutputStream)
+						throws Exception {
+					FileChannel fileChannel = fileOutputStream.getChannel();
+					ByteBuffer byteBuffer = ByteBuffer.wrap(image);
+					while (byteBuffer.hasRemaining())
+						fileChannel.write(byteBuffer);
+				}
+			}.write();
+		} catch (Exception e) {
+			System.err
+					.println("[IOBinaryTreespaceFileWriter::writeFile()] unable to write "
+							+ binaryTreespaceFile.getPath());
+			e.printStackTrace();
+			returnCode = -1;
+		}
+		return returnCode;
+	}
+
+	/**
+	 * Encodes the trees of the specified records, and optionally the
+	 * multidominance branches, into a binary treespace image in memory.
+	 * 
+	 * @param treeRecordVector
+	 *            records of the trees to encode
+	 * @param includeMdoms
+	 *            boolean indicating whether the mdoms are encoded
+	 * @return binary treespace image
+	 * @throws IOException
+	 */
+	public byte[] encode(Vector<TreeRecord> treeRecordVector,
+			boolean includeMdoms) throws IOException {
+		return encode(treeRecordVector, includeMdoms, null);
+	}
+
+	/**
+	 * Encodes the trees of the specified records, and optionally the
+	 * multidominance branches, into a binary treespace image in memory,
+	 * copying the unchanged trees of the specified source file.
+	 * 
+	 * @param treeRecordVector
+	 *            records of the trees to encode
+	 * @param includeMdoms
+	 *            boolean indicating whether the mdoms are encoded
+	 * @param sourceReader
+	 *            reader of the file unchanged trees may be copied from, or
+	 *            null
+	 * @return binary treespace image
+	 * @throws IOException
+	 */
+	protected byte[] encode(Vector<TreeRecord> treeRecordVector,
+			boolean includeMdoms, IOBinaryTreespaceFileReader sourceReader)
+			throws IOException {
+		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(byteArrayOutputStream);
+		ByteBuffer header = write(out, treeRecordVector, includeMdoms,
+				sourceReader);
+		out.flush();
+		byte bytes[] = byteArrayOutputStream.toByteArray();
+		header.get(bytes, 0, header.remaining());
+		return bytes;
+	}
+
+	/**
+	 * Writes the trees of the specified records, and optionally the
+	 * multidominance branches, to the specified output stream, leaving room
+	 * for the header, which is returned once all offsets are known.
+	 * 
+	 * @param out
+	 *            output stream
+	 * @param treeRecordVector
+	 *            records of the trees to write
+	 * @param includeMdoms
+	 *            boolean indicating whether the mdoms are written
+	 * @param sourceReader
+	 *            reader of the file unchanged trees may be copied from, or
+	 *            null
+	 * @return header
+	 * @throws IOException
+	 */
+	protected ByteBuffer write(DataOutputStream out,
+			Vector<TreeRecord> treeRecordVector, boolean includeMdoms,
+			IOBinaryTreespaceFileReader sourceReader) throws IOException {
+		stringVector.clear();
+		stringMap.clear();
+
+		// the encoded bytes of copied trees refer to the string table of
+		// their file, so that table is carried over as a whole
+		for (int i = 0; i < treeRecordVector.size(); i++)
+			if (isCopied(treeRecordVector.elementAt(i), sourceReader)) {
+				for (int s = 0; s < sourceReader.getNumberOfStrings(); s++)
+					getStringIndex(sourceReader.getString(s));
+				break;
+			}
+
+		// header placeholder
+		out.write(new byte[IOBinaryTreespaceFileReader.HEADER_SIZE]);
+
+		// trees
+		int treeCount = treeRecordVector.size();
+		long treeOffsets[] = new long[treeCount];
+		int treeLengths[] = new int[treeCount];
+		int treeIds[] = new int[treeCount];
+		for (int i = 0; i < treeCount; i++) {
+			TreeRecord treeRecord = treeRecordVector.elementAt(i);
+			treeOffsets[i] = out.size();
+			treeIds[i] = getStringIndex(treeRecord.getId());
+			if (isCopied(treeRecord, sourceReader)) {
+				ByteBuffer encodedTree = sourceReader.getEncodedTree(treeRecord
+						.getBinaryTreeIndex());
+				byte bytes[] = new byte[encodedTree.remaining()];
+				encodedTree.get(bytes);
+				out.write(bytes);
+			} else {
+				AbstractElement rootElement = getChildElement(treeRecord
+						.getElement(),
+						TreeRepresentation.NODE_IDENTIFIER_PREFIX);
+				if (rootElement != null)
+					encodeNode(out, rootElement, treeRecord.getId());
+			}
+			treeLengths[i] = (int) (out.size() - treeOffsets[i]);
+		}
+
+		// mdoms
+		long mdomOffset = out.size();
+		int mdomCount = 0;
+		if (includeMdoms)
+			for (Node node = treeRepresentation.getMetaGroupElement()
+					.getElement().getFirstChild(); node != null; node = node
+					.getNextSibling())
+				if (hasPrefix(node,
+						TreeRepresentation.MDOM_BRANCH_IDENTIFIER_PREFIX)) {
+					encodeMdom(out, (AbstractElement) node);
+					mdomCount++;
+				}
+
+		// string table
+		long stringTableOffset = out.size();
+		byte stringBytes[][] = new byte[stringVector.size()][];
+		out.writeInt(stringVector.size());
+		int stringOffset = 0;
+		for (int i = 0; i < stringVector.size(); i++) {
+			stringBytes[i] = stringVector.elementAt(i).getBytes(
+					IOBinaryTreespaceFileReader.UTF8);
+			out.writeInt(stringOffset);
+			stringOffset += stringBytes[i].length;
+		}
+		out.writeInt(stringOffset);
+		for (int i = 0; i < stringBytes.length; i++)
+			out.write(stringBytes[i]);
+
+		// tree table
+		long treeTableOffset = out.size();
+		for (int i = 0; i < treeCount; i++) {
+			TreeRecord treeRecord = treeRecordVector.elementAt(i);
+			float translate[] = { treeRecord.getXTranslate(),
+					treeRecord.getYTranslate() };
+			float extent[] = treeRecord.getExtent();
+			if (treeRecord.isMaterialized()) {
+				translate = TreeRecord.parseTranslate(treeRecord.getElement()
+						.getAttribute("transform"));
+				extent = TreeRecord.estimateExtent(treeRecord.getElement());
+			}
+			out.writeLong(treeOffsets[i]);
+			out.writeInt(treeLengths[i]);
+			out.writeInt(treeIds[i]);
+			out.writeFloat(translate[0]);
+			out.writeFloat(translate[1]);
+			for (int e = 0; e < extent.length; e++)
+				out.writeFloat(extent[e]);
+		}
+
+		// header
+		ByteBuffer header = ByteBuffer
+				.allocate(IOBinaryTreespaceFileReader.HEADER_SIZE);
+		header.putInt(IOBinaryTreespaceFileReader.MAGIC);
+		header.putInt(IOBinaryTreespaceFileReader.VERSION);
+		header.putInt(treeCount);
+		header.putInt(mdomCount);
+		header.putLong(mdomOffset);
+		header.putLong(stringTableOffset);
+		header.putLong(treeTableOffset);
+		header.flip();
+		return header;
+	}
+
+	/**
+	 * Returns a boolean indicating whether the encoded bytes of the tree of
+	 * the specified record can be copied from the specified source file.
+	 * 
+	 * @param treeRecord
+	 *            tree record
+	 * @param sourceReader
+	 *            reader of the binary treespace file the tree representation
+	 *            was opened from, or null
+	 * @return boolean
+	 */
+	protected static boolean isCopied(TreeRecord treeRecord,
+			IOBinaryTreespaceFileReader sourceReader) {
+		return sourceReader != null && !treeRecord.isMaterialized()
+				&& treeRecord.getBinaryTreespaceFileReader() == sourceReader;
+	}
+
+	/**
+	 * Encodes the specified node and its daughters.
+	 * 
+	 * @param out
+	 *            output stream
+	 * @param nodeElement
+	 *            dom element of the node
+	 * @param treeId
+	 *            identifier of the tree
+	 * @throws IOException
+	 */
+	protected void encodeNode(DataOutputStream out,
+			AbstractElement nodeElement, String treeId) throws IOException {
+		out.writeInt(getNodeKey(nodeElement.getAttribute("id"), treeId));
+
+		// text
+		AbstractElement textElement = getChildElement(nodeElement,
+				TreeRepresentation.NODE_TEXT_IDENTIFIER_PREFIX);
+		int alignment = -1;
+		String alignmentValue = textElement == null ? "" : textElement
+				.getAttribute("alignment");
+		for (int i = 0; i < IOBinaryTreespaceFileReader.ALIGNMENTS.length; i++)
+			if (IOBinaryTreespaceFileReader.ALIGNMENTS[i]
+					.compareTo(alignmentValue) == 0)
+				alignment = i;
+		out.writeByte(alignment);
+		out.writeByte(textElement != null
+				&& textElement.getAttribute("visibility").compareTo(
+						TextElement.INVISIBLE) == 0 ? 0 : 1);
+		Vector<AbstractElement> tspanVector = new Vector<AbstractElement>();
+		if (textElement != null)
+			for (Node node = textElement.getFirstChild(); node != null; node = node
+					.getNextSibling())
+				if (node.getNodeName().compareTo("tspan") == 0)
+					tspanVector.add((AbstractElement) node);
+		out.writeInt(tspanVector.size());
+		for (int i = 0; i < tspanVector.size(); i++) {
+			AbstractElement tspanElement = tspanVector.elementAt(i);
+			out.writeShort(parseInt(tspanElement.getAttribute("line")));
+			out.writeByte(parseInt(tspanElement.getAttribute("type")));
+			out.writeInt(getStringIndex(tspanElement.getAttribute("style")));
+			out.writeInt(getStringIndex(tspanElement.getTextContent()));
+		}
+
+		// branch
+		AbstractElement branchElement = getChildElement(nodeElement,
+				TreeRepresentation.BRANCH_IDENTIFIER_PREFIX);
+		if (branchElement == null) {
+			out.writeByte(-1);
+		} else {
+			out.writeByte(branchElement.getAttribute("type").compareTo(
+					BranchElement.TRIANGLE) == 0 ? 1 : 0);
+			out.writeInt(getStringIndex(branchElement.getAttribute("style")));
+		}
+
+		// daughters
+		Vector<AbstractElement> daughterVector = new Vector<AbstractElement>();
+		for (Node node = nodeElement.getFirstChild(); node != null; node = node
+				.getNextSibling())
+			if (node.getNodeName().compareTo("g") == 0
+					&& hasPrefix(node, TreeRepresentation.NODE_IDENTIFIER_PREFIX))
+				daughterVector.add((AbstractElement) node);
+		out.writeInt(daughterVector.size());
+		for (int i = 0; i < daughterVector.size(); i++)
+			encodeNode(out, daughterVector.elementAt(i), treeId);
+	}
+
+	/**
+	 * Encodes the specified multidominance branch.
+	 * 
+	 * @param out
+	 *            output stream
+	 * @param mdomElement
+	 *            dom element of the mdom
+	 * @throws IOException
+	 */
+	protected void encodeMdom(DataOutputStream out, AbstractElement mdomElement)
+			throws IOException {
+		AbstractElement pathElement = getChildElement(mdomElement,
+				TreeRepresentation.MDOM_BRANCH_PATH_IDENTIFIER_PREFIX);
+		AbstractElement backgroundPathElement = getChildElement(mdomElement,
+				TreeRepresentation.MDOM_BRANCH_BACKGROUND_PATH_IDENTIFIER_PREFIX);
+		out.writeInt(getStringIndex(mdomElement.getAttribute("id")));
+		out.writeInt(getStringIndex(mdomElement.getAttribute("mother")));
+		out.writeInt(getStringIndex(mdomElement.getAttribute("daughter")));
+		out.writeInt(getStringIndex(pathElement == null ? "" : pathElement
+				.getAttribute("style")));
+		out.writeInt(getStringIndex(backgroundPathElement == null ? ""
+				: backgroundPathElement.getAttribute("style")));
+		String pathData[] = pathElement == null ? new String[0] : pathElement
+				.getAttribute("d").replaceAll("M|c", " ").trim().split(
+						"[\\s,]+");
+		for (int i = 0; i < IOBinaryTreespaceFileReader.MDOM_PATH_COORDINATES; i++)
+			out.writeFloat(i < pathData.length ? parseFloat(pathData[i])
+					: 0.0f);
+	}
+
+	/**
+	 * Returns the index of the specified string in the string table, adding
+	 * it in case it is not in the table yet.
+	 * 
+	 * @param string
+	 *            string
+	 * @return string index
+	 */
+	protected int getStringIndex(String string) {
+		if (string == null)
+			string = "";
+		Integer index = stringMap.get(string);
+		if (index == null) {
+			index = stringVector.size();
+			stringVector.add(string);
+			stringMap.put(string, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the encoding of the specified node identifier, which is the
+	 * index of the node within its tree in case the identifier follows the
+	 * node identifier scheme, and minus one minus its string index otherwise.
+	 * 
+	 * @param id
+	 *            node identifier
+	 * @param treeId
+	 *            identifier of the tree
+	 * @return encoded identifier
+	 */
+	protected int getNodeKey(String id, String treeId) {
+		String prefix = TreeRepresentation.NODE_IDENTIFIER_PREFIX + "-";
+		String suffix = "@" + treeId;
+		if (id.startsWith(prefix) && id.endsWith(suffix)) {
+			String key = id.substring(prefix.length(), id.length()
+					- suffix.length());
+			try {
+				int index = Integer.parseInt(key);
+				if (index >= 0 && ("" + index).compareTo(key) == 0)
+					return index;
+			} catch (NumberFormatException nfe) {
+			}
+		}
+		return -1 - getStringIndex(id);
+	}
+
+	/**
+	 * Returns the first child element of the specified dom element whose
+	 * identifier starts with the specified prefix, or null in case there is
+	 * no such element.
+	 * 
+	 * @param element
+	 *            dom element
+	 * @param prefix
+	 *            identifier prefix
+	 * @return child element
+	 */
+	protected static AbstractElement getChildElement(AbstractElement element,
+			String prefix) {
+		for (Node node = element.getFirstChild(); node != null; node = node
+				.getNextSibling())
+			if (hasPrefix(node, prefix))
+				return (AbstractElement) node;
+		return null;
+	}
+
+	/**
+	 * Returns a boolean indicating whether the specified dom node is an
+	 * element whose identifier starts with the specified prefix.
+	 * 
+	 * @param node
+	 *            dom node
+	 * @param prefix
+	 *            identifier prefix
+	 * @return boolean
+	 */
+	protected static boolean hasPrefix(Node node, String prefix) {
+		return node.getNodeType() == Node.ELEMENT_NODE
+				&& ((AbstractElement) node).getAttribute("id").startsWith(
+						prefix);
+	}
+
+	/**
+	 * Returns the integer value of the specified string, or 0 in case it is
+	 * not a number.
+	 * 
+	 * @param string
+	 *            string
+	 * @return integer
+	 */
+	protected static int parseInt(String string) {
+		try {
+			return Integer.parseInt(string);
+		} catch (Exception e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Returns the float value of the specified string, or 0 in case it is not
+	 * a number.
+	 * 
+	 * @param string
+	 *            string
+	 * @return float
+	 */
+	protected static float parseFloat(String string) {
+		try {
+			return Float.parseFloat(string);
+		} catch (Exception e) {
+			return 0.0f;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/* IOBracketNode.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.io;
+
+import java.util.Vector;
+
+/**
+ * This class represents a node of a parsed labelled bracketing. Bracket nodes
+ * are plain objects, so that bracketings can be parsed away from the update
+ * manager thread, and turned into tree elements afterwards.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class IOBracketNode {
+	/**
+	 * Label
+	 */
+	protected String label;
+
+	/**
+	 * Daughter nodes
+	 */
+	protected Vector<IOBracketNode> daughterVector = new Vector<IOBracketNode>();
+
+	/**
+	 * Constructs a new bracket node with the specified label.
+	 * 
+	 * @param label
+	 *            label
+	 */
+	public IOBracketNode(String label) {
+		this.label = label;
+	}
+
+	/**
+	 * Sets the label of this node.
+	 * 
+	 * @param label
+	 *            label
+	 */
+	public void setLabel(String label) {
+		this.label = label;
+	}
+
+	/**
+	 * Returns the label of this node.
+	 * 
+	 * @return label
+	 */
+	public String getLabel() {
+		return label;
+	}
+
+	/**
+	 * Returns the daughters of this node.
+	 * 
+	 * @return daughter vector
+	 */
+	public Vector<IOBracketNode> getDaughterVector() {
+		return daughterVector;
+	}
+}
@@ -0,0 +1,228 @@
+/* IOBracketReader.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Vector;
+
+/**
+ * This class represents a streaming reader for Penn-style labelled
+ * bracketings, such as (S (NP (DT the) (NN dog)) (VP (VBZ barks))). Trees are
+ * read one at a time, and may span multiple lines. An unlabelled outer
+ * bracket around a single tree, as found in treebank files, is removed.
+ * Labels are read as they are: the -LRB-, -RRB- and underscore escapes of
+ * IOBracketWriter are not undone.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class IOBracketReader {
+	/**
+	 * End of input constant
+	 */
+	protected static final int EOF = -1;
+
+	/**
+	 * Reader
+	 */
+	protected Reader reader;
+
+	/**
+	 * Character read ahead, or -2 in case no character is read ahead
+	 */
+	protected int peekedChar = -2;
+
+	/**
+	 * Line number, for error reporting
+	 */
+	protected int line = 1;
+
+	/**
+	 * Token buffer
+	 */
+	protected StringBuilder tokenBuilder = new StringBuilder();
+
+	/**
+	 * Constructs a new bracket reader for the specified reader.
+	 * 
+	 * @param reader
+	 *            reader
+	 */
+	public IOBracketReader(Reader reader) {
+		this.reader = new BufferedReader(reader);
+	}
+
+	/**
+	 * Reads all of the trees in the specified UTF-8 encoded bracket file.
+	 * 
+	 * @param bracketFile
+	 *            bracket file
+	 * @return root nodes of the trees
+	 * @throws IOException
+	 */
+	public static Vector<IOBracketNode> readFile(File bracketFile)
+			throws IOException {
+		Reader fileReader = new InputStreamReader(new FileInputStream(
+				bracketFile), "UTF-8");
+		try {
+			return new IOBracketReader(fileReader).readTrees();
+		} finally {
+			fileReader.close();
+		}
+	}
+
+	/**
+	 * Reads all of the remaining trees.
+	 * 
+	 * @return root nodes of the trees
+	 * @throws IOException
+	 */
+	public Vector<IOBracketNode> readTrees() throws IOException {
+		Vector<IOBracketNode> treeVector = new Vector<IOBracketNode>();
+		IOBracketNode rootNode;
+		while ((rootNode = readTree()) != null)
+			treeVector.add(rootNode);
+		return treeVector;
+	}
+
+	/**
+	 * Reads the next tree.
+	 * 
+	 * @return root node of the tree, or null at the end of the input
+	 * @throws IOException
+	 *             in case the bracketing is malformed
+	 */
+	public IOBracketNode readTree() throws IOException {
+		Vector<IOBracketNode> stack = new Vector<IOBracketNode>();
+		while (true) {
+			int c = skipWhitespace();
+			if (c == EOF) {
+				if (stack.size() > 0)
+					throw new IOException("line " + line + ": missing ')'");
+				return null;
+			}
+
+			// open bracket
+			if (c == '(') {
+				read();
+				IOBracketNode bracketNode = new IOBracketNode("");
+				c = skipWhitespace();
+				if (c != '(' && c != ')' && c != EOF)
+					bracketNode.setLabel(readToken());
+				if (stack.size() > 0)
+					stack.lastElement().getDaughterVector().add(bracketNode);
+				stack.add(bracketNode);
+				continue;
+			}
+
+			// close bracket
+			if (c == ')') {
+				read();
+				if (stack.size() == 0)
+					throw new IOException("line " + line + ": unexpected ')'");
+				IOBracketNode bracketNode = stack.remove(stack.size() - 1);
+				if (stack.size() == 0)
+					return unwrap(bracketNode);
+				continue;
+			}
+
+			// token
+			IOBracketNode bracketNode = new IOBracketNode(readToken());
+			if (stack.size() == 0)
+				return bracketNode;
+			stack.lastElement().getDaughterVector().add(bracketNode);
+		}
+	}
+
+	/**
+	 * Removes the unlabelled outer brackets around the specified tree.
+	 * 
+	 * @param rootNode
+	 *            root node
+	 * @return root node
+	 */
+	protected static IOBracketNode unwrap(IOBracketNode rootNode) {
+		while (rootNode.getLabel().length() == 0
+				&& rootNode.getDaughterVector().size() == 1)
+			rootNode = rootNode.getDaughterVector().firstElement();
+		return rootNode;
+	}
+
+	/**
+	 * Reads a token, which ends at whitespace or a bracket.
+	 * 
+	 * @return token
+	 * @throws IOException
+	 */
+	protected String readToken() throws IOException {
+		tokenBuilder.setLength(0);
+		int c;
+		while ((c = peek()) != EOF && c != '(' && c != ')'
+				&& !Character.isWhitespace(c))
+			tokenBuilder.append((char) read());
+		return tokenBuilder.toString();
+	}
+
+	/**
+	 * Skips whitespace, and returns the next character without consuming it.
+	 * 
+	 * @return next character
+	 * @throws IOException
+	 */
+	protected int skipWhitespace() throws IOException {
+		int c;
+		while ((c = peek()) != EOF && Character.isWhitespace(c))
+			read();
+		return c;
+	}
+
+	/**
+	 * Returns the next character without consuming it.
+	 * 
+	 * @return next character
+	 * @throws IOException
+	 */
+	protected int peek() throws IOException {
+		if (peekedChar == -2)
+			peekedChar = reader.read();
+		return peekedChar;
+	}
+
+	/**
+	 * Consumes and returns the next character.
+	 * 
+	 * @return next character
+	 * @throws IOException
+	 */
+	protected int read() throws IOException {
+		int c = peek();
+		peekedChar = -2;
+		if (c == '\n')
+			line++;
+		return c;
+	}
+}
@@ -0,0 +1,303 @@
+/* IOBracketWriter.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.io;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Vector;
+
+import nl.rug.syntree.tree.TreeRecord;
+import nl.rug.syntree.tree.TreeRepresentation;
+import nl.rug.syntree.tree.component.NodeElement;
+import nl.rug.syntree.tree.component.TSpanElement;
+
+import org.apache.batik.dom.AbstractElement;
+import org.w3c.dom.Node;
+
+/**
+ * This class represents a writer for Penn-style labelled bracketings. The
+ * trees of a tree representation are converted to bracketings by snapshot(),
+ * which has to be called from the update manager thread, after which
+ * writeFile() writes one bracketing per line on any other thread. Brackets in
+ * labels are written as -LRB- and -RRB-, and whitespace as underscores.
+ * Neither mapping is undone by IOBracketReader, so a label containing
+ * whitespace or brackets does not survive a round trip: "a b" is read back
+ * as "a_b", and "(" as "-LRB-".
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class IOBracketWriter {
+	/**
+	 * Tree representation to write
+	 */
+	protected TreeRepresentation treeRepresentation;
+
+	/**
+	 * Bracket file to write to
+	 */
+	protected File bracketFile;
+
+	/**
+	 * Bracketings of the trees
+	 */
+	protected Vector<String> bracketVector;
+
+	/**
+	 * Constructs a new bracket writer.
+	 * 
+	 * @param treeRepresentation
+	 *            the tree representation to write
+	 * @param bracketFile
+	 *            the bracket file to write to
+	 */
+	public IOBracketWriter(TreeRepresentation treeRepresentation,
+			File bracketFile) {
+		this.treeRepresentation = treeRepresentation;
+		this.bracketFile = bracketFile;
+	}
+
+	/**
+	 * Converts the trees of the tree representation to bracketings. Trees
+	 * that are not materialized are converted from their dom subtrees, and
+	 * trees that are not decoded yet are decoded outside of the document.
+	 */
+	public void snapshot() {
+		bracketVector = new Vector<String>();
+		Vector<TreeRecord> treeRecordVector = treeRepresentation
+				.getTreeRecordVector();
+		StringBuilder stringBuilder = new StringBuilder();
+		for (int i = 0; i < treeRecordVector.size(); i++) {
+			TreeRecord treeRecord = treeRecordVector.elementAt(i);
+			stringBuilder.setLength(0);
+			if (treeRecord.isMaterialized()) {
+				NodeElement rootNode = treeRecord.getTreeElement()
+						.getRootNode();
+				if (rootNode == null)
+					continue;
+				appendNode(stringBuilder, rootNode, true);
+			} else {
+				AbstractElement rootElement = getChildElement(treeRecord
+						.isDecoded() ? treeRecord.getElement() : treeRecord
+						.decodeDetachedElement(),
+						TreeRepresentation.NODE_IDENTIFIER_PREFIX, 0);
+				if (rootElement == null)
+					continue;
+				appendElement(stringBuilder, rootElement, true);
+			}
+			bracketVector.add(stringBuilder.toString());
+		}
+	}
+
+	/**
+	 * Writes the bracketings to the UTF-8 encoded bracket file, one tree per
+	 * line. The bracketings are written to a temporary file in the same
+	 * directory, which replaces the bracket file once it is complete.
+	 * 
+	 * @return 0 on success, -1 on failure
+	 */
+	public int writeFile() {
+		int returnCode = 0;
+		try {
+			if (bracketVector == null)
+				snapshot();
+			new IOAtomicFileWriter(bracketFile) {
+				protected void writeContents(FileOutputStream fileOutputStream)
+						throws Exception {
+					Writer writer = new BufferedWriter(new OutputStreamWriter(
+							fileOutputStream, "UTF-8"));
+					for (int i = 0; i < bracketVector.size(); i++) {
+						writer.write(bracketVector.elementAt(i));
+						writer.write('\n');
+					}
+					writer.flush();
+				}
+			}.write();
+		} catch (Exception e) {
+			System.err.println("[IOBracketWriter::writeFile()] unable to write "
+					+ bracketFile.getPath());
+			e.printStackTrace();
+			returnCode = -1;
+		}
+		return returnCode;
+	}
+
+	/**
+	 * Appends the bracketing of the specified node to the specified string
+	 * builder. Daughterless nodes that are not a root are written as bare
+	 * tokens.
+	 * 
+	 * @param stringBuilder
+	 *            string builder
+	 * @param nodeElement
+	 *            node element
+	 * @param isRoot
+	 *            boolean indicating whether the node is a root
+	 */
+	protected static void appendNode(StringBuilder stringBuilder,
+			NodeElement nodeElement, boolean isRoot) {
+		String label = getLabel(nodeElement);
+		Vector<NodeElement> daughterVector = nodeElement.getDaughterVector();
+		if (daughterVector.size() == 0 && !isRoot && label.length() > 0) {
+			stringBuilder.append(label);
+			return;
+		}
+		stringBuilder.append('(');
+		stringBuilder.append(label);
+		for (int i = 0; i < daughterVector.size(); i++) {
+			stringBuilder.append(' ');
+			appendNode(stringBuilder, daughterVector.elementAt(i), false);
+		}
+		stringBuilder.append(')');
+	}
+
+	/**
+	 * Returns the escaped label of the specified node, which consists of the
+	 * text of its text tspans, with lines separated by whitespace.
+	 * 
+	 * @param nodeElement
+	 *            node element
+	 * @return label
+	 */
+	public static String getLabel(NodeElement nodeElement) {
+		StringBuilder labelBuilder = new StringBuilder();
+		Vector<TSpanElement> tspanVector = nodeElement.getTextElement()
+				.getTSpanVector();
+		int line = -1;
+		for (int i = 0; i < tspanVector.size(); i++) {
+			TSpanElement tspanElement = tspanVector.elementAt(i);
+			if (tspanElement.getType() != TSpanElement.TEXT_TYPE)
+				continue;
+			if (line != -1 && tspanElement.getLine() != line)
+				labelBuilder.append(' ');
+			line = tspanElement.getLine();
+			String text = tspanElement.getText();
+			if (text != null)
+				labelBuilder.append(text);
+		}
+		return escapeLabel(labelBuilder.toString());
+	}
+
+	/**
+	 * Appends the bracketing of the specified dom element of a node that is
+	 * not materialized to the specified string builder.
+	 * 
+	 * @param stringBuilder
+	 *            string builder
+	 * @param nodeElement
+	 *            dom element of the node
+	 * @param isRoot
+	 *            boolean indicating whether the node is a root
+	 */
+	protected static void appendElement(StringBuilder stringBuilder,
+			AbstractElement nodeElement, boolean isRoot) {
+		String label = getLabel(getChildElement(nodeElement,
+				TreeRepresentation.NODE_TEXT_IDENTIFIER_PREFIX, 0));
+		AbstractElement daughterElement = getChildElement(nodeElement,
+				TreeRepresentation.NODE_IDENTIFIER_PREFIX, 0);
+		if (daughterElement == null && !isRoot && label.length() > 0) {
+			stringBuilder.append(label);
+			return;
+		}
+		stringBuilder.append('(');
+		stringBuilder.append(label);
+		for (Node node = daughterElement; node != null; node = node
+				.getNextSibling()) {
+			if (node.getNodeType() != Node.ELEMENT_NODE
+					|| !((AbstractElement) node).getAttribute("id").startsWith(
+							TreeRepresentation.NODE_IDENTIFIER_PREFIX))
+				continue;
+			stringBuilder.append(' ');
+			appendElement(stringBuilder, (AbstractElement) node, false);
+		}
+		stringBuilder.append(')');
+	}
+
+	/**
+	 * Returns the escaped label of the specified dom text element of a node
+	 * that is not materialized.
+	 * 
+	 * @param textElement
+	 *            dom text element, or null
+	 * @return label
+	 */
+	protected static String getLabel(AbstractElement textElement) {
+		StringBuilder labelBuilder = new StringBuilder();
+		String line = null;
+		for (Node node = textElement == null ? null : textElement
+				.getFirstChild(); node != null; node = node.getNextSibling()) {
+			if (node.getNodeType() != Node.ELEMENT_NODE)
+				continue;
+			AbstractElement tspanElement = (AbstractElement) node;
+			if (tspanElement.getAttribute("type").compareTo(
+					"" + TSpanElement.TEXT_TYPE) != 0)
+				continue;
+			if (line != null
+					&& tspanElement.getAttribute("line").compareTo(line) != 0)
+				labelBuilder.append(' ');
+			line = tspanElement.getAttribute("line");
+			labelBuilder.append(tspanElement.getTextContent());
+		}
+		return escapeLabel(labelBuilder.toString());
+	}
+
+	/**
+	 * Returns the n-th child element of the specified dom element whose
+	 * identifier starts with the specified prefix, or null in case there is
+	 * no such element.
+	 * 
+	 * @param element
+	 *            dom element
+	 * @param prefix
+	 *            identifier prefix
+	 * @param n
+	 *            index among the matching child elements
+	 * @return child element
+	 */
+	protected static AbstractElement getChildElement(AbstractElement element,
+			String prefix, int n) {
+		for (Node node = element.getFirstChild(); node != null; node = node
+				.getNextSibling()) {
+			if (node.getNodeType() == Node.ELEMENT_NODE
+					&& ((AbstractElement) node).getAttribute("id").startsWith(
+							prefix) && n-- == 0)
+				return (AbstractElement) node;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the specified label with brackets written as -LRB- and -RRB-,
+	 * and whitespace as underscores.
+	 * 
+	 * @param label
+	 *            label
+	 * @return escaped label
+	 */
+	protected static String escapeLabel(String label) {
+		return label.trim().replace("(", "-LRB-").replace(")", "-RRB-")
+				.replaceAll("\\s+", "_");
+	}
+}
@@ -0,0 +1,709 @@
+/* IOEditJournal.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Vector;
+import java.util.zip.CRC32;
+
+import nl.rug.syntree.tree.TreeRecord;
+import nl.rug.syntree.tree.TreeRepresentation;
+
+/**
+ * This class represents an append-only edit journal of a treespace file. After
+ * every edit, the state of the affected trees, or of the multidominance
+ * branches, is appended to the journal as a small binary treespace image.
+ * Records are framed by their length and a CRC-32 checksum, and are written
+ * by a committer thread, which gathers the records that arrive within
+ * GROUP_COMMIT_DELAY milliseconds and forces them to disk at once. As records
+ * hold states rather than operations, replaying a record twice is harmless.
+ * 
+ * Once the journal grows beyond COMPACTION_THRESHOLD bytes, the whole tree
+ * representation is encoded into a binary treespace image, which the
+ * committer thread writes to a snapshot next to the journal before it
+ * truncates the journal. On startup, the snapshot, or else the
+ * treespace file, is opened and the journal is replayed onto it, up to the
+ * first incomplete or corrupt record.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class IOEditJournal implements Runnable {
+	/**
+	 * Journal file extension constant
+	 */
+	public static final String JOURNAL_FILE_EXTENSION = "journal";
+
+	/**
+	 * Magic number constant ("STJ1")
+	 */
+	public static final int MAGIC = 0x53544a31;
+
+	/**
+	 * Version constant
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Size of the journal header in bytes constant
+	 */
+	public static final int HEADER_SIZE = 8;
+
+	/**
+	 * Size of the framing of a record in bytes constant
+	 */
+	public static final int RECORD_HEADER_SIZE = 9;
+
+	/**
+	 * Tree state record type constant
+	 */
+	public static final byte TREES = 1;
+
+	/**
+	 * Tree removal record type constant
+	 */
+	public static final byte REMOVE_TREES = 2;
+
+	/**
+	 * Multidominance state record type constant
+	 */
+	public static final byte MDOMS = 3;
+
+	/**
+	 * Time in milliseconds records are gathered before they are committed
+	 * constant
+	 */
+	public static final long GROUP_COMMIT_DELAY = 20;
+
+	/**
+	 * Size in bytes beyond which the journal is compacted constant
+	 */
+	public static final long COMPACTION_THRESHOLD = 0x400000;
+
+	/**
+	 * Marker that truncates the journal after a compaction
+	 */
+	protected static final byte TRUNCATE[] = new byte[0];
+
+	/**
+	 * Marker that truncates the journal and deletes the snapshot after a save
+	 */
+	protected static final byte RESET[] = new byte[0];
+
+	/**
+	 * Journal file
+	 */
+	protected File journalFile;
+
+	/**
+	 * Snapshot file
+	 */
+	protected File snapshotFile;
+
+	/**
+	 * Random access file of the journal
+	 */
+	protected RandomAccessFile randomAccessFile;
+
+	/**
+	 * File channel of the journal
+	 */
+	protected FileChannel fileChannel;
+
+	/**
+	 * Records that have not been committed yet
+	 */
+	protected Vector<byte[]> pendingVector = new Vector<byte[]>();
+
+	/**
+	 * Snapshot writers of the pending truncate markers, in order
+	 */
+	protected Vector<IOBinaryTreespaceFileWriter> snapshotWriterVector = new Vector<IOBinaryTreespaceFileWriter>();
+
+	/**
+	 * Size of the journal once all pending records are committed
+	 */
+	protected long size;
+
+	/**
+	 * Boolean indicating whether a batch of records is being committed
+	 */
+	protected boolean committing = false;
+
+	/**
+	 * Boolean indicating whether the journal is closed
+	 */
+	protected boolean closed = false;
+
+	/**
+	 * Committer thread
+	 */
+	protected Thread committerThread;
+
+	/**
+	 * Constructs a new edit journal for the specified treespace file. In case
+	 * the journal is continued, new records are appended to the valid records
+	 * of the existing journal. Otherwise, the existing journal and snapshot
+	 * are discarded.
+	 * 
+	 * @param treespaceFile
+	 *            the treespace file
+	 * @param continued
+	 *            boolean indicating whether an existing journal is continued
+	 * @throws IOException
+	 */
+	public IOEditJournal(File treespaceFile, boolean continued)
+			throws IOException {
+		journalFile = getJournalFile(treespaceFile);
+		snapshotFile = getSnapshotFile(treespaceFile);
+		randomAccessFile = new RandomAccessFile(journalFile, "rw");
+		fileChannel = randomAccessFile.getChannel();
+		ByteBuffer journal = continued ? readJournal(journalFile) : null;
+		size = -1;
+		if (journal != null) {
+			readRecords(journal, null);
+			size = journal.position();
+		}
+		if (size < HEADER_SIZE) {
+			snapshotFile.delete();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC);
+			header.putInt(VERSION);
+			header.flip();
+			fileChannel.truncate(0);
+			fileChannel.write(header, 0);
+			fileChannel.force(true);
+			size = HEADER_SIZE;
+		}
+		fileChannel.truncate(size);
+		fileChannel.position(size);
+		committerThread = new Thread(this, "IOEditJournal-"
+				+ treespaceFile.getName());
+		committerThread.setDaemon(true);
+		committerThread.start();
+	}
+
+	/**
+	 * Appends the states of the trees of the specified records to the
+	 * journal. This has to be called from the update manager thread.
+	 * 
+	 * @param treeRepresentation
+	 *            tree representation
+	 * @param treeRecordVector
+	 *            records of the trees
+	 */
+	public void journalTrees(TreeRepresentation treeRepresentation,
+			Vector<TreeRecord> treeRecordVector) {
+		try {
+			byte image[] = new IOBinaryTreespaceFileWriter(treeRepresentation,
+					null).encode(treeRecordVector, false);
+			ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(
+					4 + 4 * treeRecordVector.size() + image.length);
+			DataOutputStream out = new DataOutputStream(byteArrayOutputStream);
+			out.writeInt(treeRecordVector.size());
+			for (int i = 0; i < treeRecordVector.size(); i++)
+				out.writeInt(treeRepresentation.getTreeRecordVector().indexOf(
+						treeRecordVector.elementAt(i)));
+			out.write(image);
+			append(TREES, byteArrayOutputStream.toByteArray());
+		} catch (Exception e) {
+			System.err.println("[IOEditJournal::journalTrees()] unable to journal "
+					+ treeRecordVector.size() + " trees");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Appends the removal of the trees with the specified identifiers to the
+	 * journal.
+	 * 
+	 * @param idVector
+	 *            tree identifiers
+	 */
+	public void journalRemovedTrees(Vector<String> idVector) {
+		try {
+			ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(byteArrayOutputStream);
+			out.writeInt(idVector.size());
+			for (int i = 0; i < idVector.size(); i++)
+				out.writeUTF(idVector.elementAt(i));
+			append(REMOVE_TREES, byteArrayOutputStream.toByteArray());
+		} catch (Exception e) {
+			System.err
+					.println("[IOEditJournal::journalRemovedTrees()] unable to journal the removal of "
+							+ idVector.size() + " trees");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Appends the state of the multidominance branches to the journal. This
+	 * has to be called from the update manager thread.
+	 * 
+	 * @param treeRepresentation
+	 *            tree representation
+	 */
+	public void journalMdoms(TreeRepresentation treeRepresentation) {
+		try {
+			append(MDOMS, new IOBinaryTreespaceFileWriter(treeRepresentation,
+					null).encode(new Vector<TreeRecord>(), true));
+		} catch (Exception e) {
+			System.err
+					.println("[IOEditJournal::journalMdoms()] unable to journal the mdoms");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Returns a boolean indicating whether the journal has grown beyond the
+	 * compaction threshold.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isCompactionDue() {
+		synchronized (pendingVector) {
+			return size > COMPACTION_THRESHOLD;
+		}
+	}
+
+	/**
+	 * Encodes the specified tree representation into a snapshot image, which
+	 * the committer thread writes to the snapshot file once the pending
+	 * records are committed, after which it truncates the journal. This has
+	 * to be called from the update manager thread.
+	 * 
+	 * @param treeRepresentation
+	 *            tree representation
+	 * @return 0 on success, -1 on failure
+	 */
+	public int compact(TreeRepresentation treeRepresentation) {
+		IOBinaryTreespaceFileWriter snapshotWriter = new IOBinaryTreespaceFileWriter(
+				treeRepresentation, snapshotFile);
+		if (snapshotWriter.snapshot() != 0)
+			return -1;
+		synchronized (pendingVector) {
+			if (closed)
+				return -1;
+			snapshotWriterVector.add(snapshotWriter);
+			enqueue(TRUNCATE, HEADER_SIZE);
+		}
+		return 0;
+	}
+
+	/**
+	 * Truncates the journal and deletes the snapshot, once the pending
+	 * records are committed. This is called after the tree representation
+	 * has been saved to the treespace file.
+	 */
+	public void reset() {
+		enqueue(RESET, HEADER_SIZE);
+	}
+
+	/**
+	 * Waits until all pending records are committed.
+	 */
+	public void flush() {
+		synchronized (pendingVector) {
+			while ((committing || !pendingVector.isEmpty())
+					&& committerThread.isAlive()) {
+				try {
+					pendingVector.wait();
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Commits the pending records and closes the journal.
+	 */
+	public void close() {
+		synchronized (pendingVector) {
+			if (closed)
+				return;
+			closed = true;
+			pendingVector.notifyAll();
+		}
+		try {
+			committerThread.join();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			randomAccessFile.close();
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+		}
+	}
+
+	/**
+	 * Closes the journal, and deletes the journal and the snapshot.
+	 */
+	public void delete() {
+		close();
+		journalFile.delete();
+		snapshotFile.delete();
+	}
+
+	/**
+	 * Commits the pending records in batches, until the journal is closed.
+	 */
+	public void run() {
+		Vector<byte[]> batchVector = new Vector<byte[]>();
+		while (true) {
+			synchronized (pendingVector) {
+				while (pendingVector.isEmpty() && !closed) {
+					try {
+						pendingVector.wait();
+					} catch (InterruptedException ie) {
+						return;
+					}
+				}
+				if (pendingVector.isEmpty())
+					break;
+				committing = true;
+			}
+
+			// gather the records of the edits that follow
+			if (!closed) {
+				try {
+					Thread.sleep(GROUP_COMMIT_DELAY);
+				} catch (InterruptedException ie) {
+				}
+			}
+			synchronized (pendingVector) {
+				batchVector.addAll(pendingVector);
+				pendingVector.clear();
+			}
+
+			try {
+				commit(batchVector);
+			} catch (Exception e) {
+				System.err.println("[IOEditJournal::run()] unable to write "
+						+ journalFile.getPath());
+				e.printStackTrace();
+			}
+			batchVector.clear();
+			synchronized (pendingVector) {
+				committing = false;
+				pendingVector.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Writes the specified batch of records, and forces them to disk at once.
+	 * 
+	 * @param batchVector
+	 *            records and markers
+	 * @throws IOException
+	 */
+	protected void commit(Vector<byte[]> batchVector) throws IOException {
+		boolean written = false;
+		for (int i = 0; i < batchVector.size(); i++) {
+			byte record[] = batchVector.elementAt(i);
+			if (record == TRUNCATE || record == RESET) {
+				if (written)
+					fileChannel.force(false);
+				written = false;
+				// the journal is only truncated once the snapshot that
+				// supersedes it is on disk
+				if (record == TRUNCATE) {
+					IOBinaryTreespaceFileWriter snapshotWriter;
+					synchronized (pendingVector) {
+						snapshotWriter = snapshotWriterVector.remove(0);
+					}
+					if (snapshotWriter.writeFile() != 0) {
+						System.err
+								.println("[IOEditJournal::commit()] unable to compact "
+										+ journalFile.getPath());
+						// the records before the marker stay in the journal,
+						// so they count towards the next compaction, unless
+						// a later marker truncates them anyway
+						synchronized (pendingVector) {
+							if (!isMarkerPending(batchVector, i + 1))
+								size += fileChannel.position() - HEADER_SIZE;
+						}
+						continue;
+					}
+				}
+				// the snapshot is superseded by the saved treespace file, and
+				// replaying the journal onto that file is harmless
+				if (record == RESET)
+					snapshotFile.delete();
+				fileChannel.truncate(HEADER_SIZE);
+				fileChannel.position(HEADER_SIZE);
+				fileChannel.force(false);
+				continue;
+			}
+			ByteBuffer byteBuffer = ByteBuffer.wrap(record);
+			while (byteBuffer.hasRemaining())
+				fileChannel.write(byteBuffer);
+			written = true;
+		}
+		if (written)
+			fileChannel.force(false);
+	}
+
+	/**
+	 * Returns a boolean indicating whether a truncate or reset marker follows
+	 * the specified index of the specified batch, in the batch or in the
+	 * pending records. This has to be called while holding the lock on the
+	 * pending records.
+	 * 
+	 * @param batchVector
+	 *            records and markers
+	 * @param index
+	 *            index of the first record to consider
+	 * @return boolean
+	 */
+	protected boolean isMarkerPending(Vector<byte[]> batchVector, int index) {
+		for (int i = index; i < batchVector.size(); i++)
+			if (batchVector.elementAt(i) == TRUNCATE
+					|| batchVector.elementAt(i) == RESET)
+				return true;
+		for (int i = 0; i < pendingVector.size(); i++)
+			if (pendingVector.elementAt(i) == TRUNCATE
+					|| pendingVector.elementAt(i) == RESET)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Frames the specified payload as a record of the specified type, and
+	 * hands it to the committer thread.
+	 * 
+	 * @param type
+	 *            record type
+	 * @param payload
+	 *            payload
+	 */
+	protected void append(byte type, byte payload[]) {
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE
+				+ payload.length);
+		CRC32 crc32 = new CRC32();
+		crc32.update(type);
+		crc32.update(payload);
+		record.putInt(payload.length);
+		record.putInt((int) crc32.getValue());
+		record.put(type);
+		record.put(payload);
+		enqueue(record.array(), -1);
+	}
+
+	/**
+	 * Hands the specified record or marker to the committer thread.
+	 * 
+	 * @param record
+	 *            record or marker
+	 * @param newSize
+	 *            size of the journal after the marker, or -1 for a record
+	 */
+	protected void enqueue(byte record[], long newSize) {
+		synchronized (pendingVector) {
+			if (closed)
+				return;
+			pendingVector.add(record);
+			size = newSize < 0 ? size + record.length : newSize;
+			pendingVector.notifyAll();
+		}
+	}
+
+	/**
+	 * Returns the journal file of the specified treespace file.
+	 * 
+	 * @param treespaceFile
+	 *            the treespace file
+	 * @return journal file
+	 */
+	public static File getJournalFile(File treespaceFile) {
+		return new File(treespaceFile.getPath() + "."
+				+ JOURNAL_FILE_EXTENSION);
+	}
+
+	/**
+	 * Returns the snapshot file of the specified treespace file.
+	 * 
+	 * @param treespaceFile
+	 *            the treespace file
+	 * @return snapshot file
+	 */
+	public static File getSnapshotFile(File treespaceFile) {
+		return new File(getJournalFile(treespaceFile).getPath() + "."
+				+ IOBinaryTreespaceFileFilter.BINARY_TREESPACE_FILE_EXTENSION);
+	}
+
+	/**
+	 * Returns a boolean indicating whether the specified treespace file has
+	 * edits that can be recovered.
+	 * 
+	 * @param treespaceFile
+	 *            the treespace file
+	 * @return boolean
+	 */
+	public static boolean hasJournal(File treespaceFile) {
+		return getSnapshotFile(treespaceFile).exists()
+				|| getJournalFile(treespaceFile).length() > HEADER_SIZE;
+	}
+
+	/**
+	 * Replays the specified journal onto the specified tree representation,
+	 * up to the first incomplete or corrupt record.
+	 * 
+	 * @param journalFile
+	 *            the journal file
+	 * @param treeRepresentation
+	 *            tree representation, whose trees are not materialized yet
+	 * @return number of replayed records
+	 */
+	public static int replay(File journalFile,
+			TreeRepresentation treeRepresentation) {
+		int replayCount = 0;
+		try {
+			ByteBuffer journal = readJournal(journalFile);
+			if (journal != null)
+				replayCount = readRecords(journal, treeRepresentation);
+		} catch (Exception e) {
+			System.err.println("[IOEditJournal::replay()] unable to read "
+					+ journalFile.getPath());
+			e.printStackTrace();
+		}
+		return replayCount;
+	}
+
+	/**
+	 * Reads the specified journal file into a buffer, positioned after the
+	 * header.
+	 * 
+	 * @param journalFile
+	 *            the journal file
+	 * @return buffer, or null in case the journal does not exist or has no
+	 *         valid header
+	 * @throws IOException
+	 */
+	protected static ByteBuffer readJournal(File journalFile)
+			throws IOException {
+		if (!journalFile.exists())
+			return null;
+		ByteBuffer journal = ByteBuffer.wrap(Files.readAllBytes(journalFile
+				.toPath()));
+		if (journal.limit() < HEADER_SIZE || journal.getInt(0) != MAGIC
+				|| journal.getInt(4) != VERSION)
+			return null;
+		journal.position(HEADER_SIZE);
+		return journal;
+	}
+
+	/**
+	 * Reads the valid records of the specified journal, and applies them to
+	 * the specified tree representation, if any. The journal is left
+	 * positioned after the last valid record.
+	 * 
+	 * @param journal
+	 *            journal, positioned after the header
+	 * @param treeRepresentation
+	 *            tree representation, or null
+	 * @return number of valid records
+	 * @throws IOException
+	 */
+	protected static int readRecords(ByteBuffer journal,
+			TreeRepresentation treeRepresentation) throws IOException {
+		int count = 0;
+		CRC32 crc32 = new CRC32();
+		while (journal.remaining() >= RECORD_HEADER_SIZE) {
+			int start = journal.position();
+			int length = journal.getInt(start);
+			int checksum = journal.getInt(start + 4);
+			if (length < 0
+					|| length > journal.limit() - start - RECORD_HEADER_SIZE)
+				break;
+			crc32.reset();
+			crc32.update(journal.array(), start + 8, length + 1);
+			if ((int) crc32.getValue() != checksum)
+				break;
+			byte type = journal.get(start + 8);
+			journal.position(start + RECORD_HEADER_SIZE);
+			ByteBuffer payload = journal.slice();
+			payload.limit(length);
+			if (treeRepresentation != null)
+				apply(type, payload, treeRepresentation);
+			journal.position(start + RECORD_HEADER_SIZE + length);
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Applies the specified record to the specified tree representation.
+	 * 
+	 * @param type
+	 *            record type
+	 * @param payload
+	 *            payload
+	 * @param treeRepresentation
+	 *            tree representation
+	 * @throws IOException
+	 */
+	protected static void apply(byte type, ByteBuffer payload,
+			TreeRepresentation treeRepresentation) throws IOException {
+		switch (type) {
+		case TREES: {
+			int count = payload.getInt();
+			int positions[] = new int[count];
+			for (int i = 0; i < count; i++)
+				positions[i] = payload.getInt();
+			IOBinaryTreespaceFileReader reader = new IOBinaryTreespaceFileReader(
+					payload.slice());
+			for (int i = 0; i < count; i++)
+				treeRepresentation.restoreTree(reader, i, positions[i]);
+			break;
+		}
+		case REMOVE_TREES: {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+					payload.array(), payload.arrayOffset()
+							+ payload.position(), payload.remaining()));
+			int count = in.readInt();
+			for (int i = 0; i < count; i++)
+				treeRepresentation.discardTree(in.readUTF());
+			break;
+		}
+		case MDOMS:
+			treeRepresentation.restoreMdoms(new IOBinaryTreespaceFileReader(
+					payload.slice()));
+			break;
+		default:
+			System.err.println("[IOEditJournal::apply()] unknown record type "
+					+ type);
+		}
+	}
+}
@@ -48,6 +48,11 @@ public class IOJFileChooser extends JFileChooser {
 	 */
 	public static final int TRANSCODED_IMAGE = 0x01;
 
+	/**
+	 * Labelled bracketing files identifier
+	 */
+	public static final int BRACKET = 0x02;
+
 	/**
 	 * Constructs a new file chooser for input and output.
 	 * 
@@ -62,6 +67,7 @@ public class IOJFileChooser extends JFileChooser {
 
 		switch (fileType) {
 		case SVG_XML:
+			addChoosableFileFilter(new IOBinaryTreespaceFileFilter());
 			setFileFilter(new IOSVGXMLFileFilter());
 			try {
 				File svgXMLFile = new File("."
@@ -74,6 +80,9 @@ public class IOJFileChooser extends JFileChooser {
 		case TRANSCODED_IMAGE:
 			setFileFilter(new IOTranscodedImageFileFilter());
 			break;
+		case BRACKET:
+			setFileFilter(new IOBracketFileFilter());
+			break;
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,146 @@
+/* IOJPEGTranscoder.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.io;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.batik.transcoder.TranscoderException;
+import org.apache.batik.transcoder.TranscoderOutput;
+import org.apache.batik.transcoder.image.ImageTranscoder;
+
+/**
+ * This class represents a JPEG transcoder that encodes through the image I/O
+ * framework, rather than through the JPEG codec of the Batik transcoder,
+ * which relies on classes that are not available on every Java runtime.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class IOJPEGTranscoder extends ImageTranscoder {
+	/**
+	 * JPEG quality
+	 */
+	protected float quality;
+
+	/**
+	 * Constructs a new JPEG transcoder with a white background.
+	 * 
+	 * @param quality
+	 *            JPEG quality between 0 and 1
+	 */
+	public IOJPEGTranscoder(float quality) {
+		this.quality = quality;
+		addTranscodingHint(KEY_BACKGROUND_COLOR, Color.white);
+	}
+
+	/**
+	 * Creates a new image of the specified size.
+	 * 
+	 * @param width
+	 *            width of the image
+	 * @param height
+	 *            height of the image
+	 * @return image
+	 */
+	public BufferedImage createImage(int width, int height) {
+		return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+	}
+
+	/**
+	 * Writes the specified image to the specified output.
+	 * 
+	 * @param image
+	 *            image
+	 * @param output
+	 *            transcoder output
+	 * @throws TranscoderException
+	 */
+	public void writeImage(BufferedImage image, TranscoderOutput output)
+			throws TranscoderException {
+		OutputStream outputStream = output.getOutputStream();
+		if (outputStream == null)
+			throw new TranscoderException("no output stream");
+		writeImage(image, outputStream, quality);
+	}
+
+	/**
+	 * Writes the specified image as a JPEG image to the specified output
+	 * stream. Any transparency is flattened onto a white background.
+	 * 
+	 * @param image
+	 *            image
+	 * @param outputStream
+	 *            output stream
+	 * @param quality
+	 *            JPEG quality between 0 and 1
+	 * @throws TranscoderException
+	 */
+	public static void writeImage(BufferedImage image,
+			OutputStream outputStream, float quality)
+			throws TranscoderException {
+		BufferedImage rgbImage = image;
+		if (image.getType() != BufferedImage.TYPE_INT_RGB) {
+			rgbImage = new BufferedImage(image.getWidth(), image.getHeight(),
+					BufferedImage.TYPE_INT_RGB);
+			Graphics2D g2d = rgbImage.createGraphics();
+			g2d.setColor(Color.white);
+			g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+			g2d.drawImage(image, 0, 0, null);
+			g2d.dispose();
+		}
+		Iterator<ImageWriter> iterator = ImageIO
+				.getImageWritersByFormatName("jpeg");
+		if (!iterator.hasNext())
+			throw new TranscoderException("no JPEG image writer");
+		ImageWriter imageWriter = iterator.next();
+		try {
+			ImageOutputStream imageOutputStream = ImageIO
+					.createImageOutputStream(outputStream);
+			try {
+				ImageWriteParam imageWriteParam = imageWriter
+						.getDefaultWriteParam();
+				imageWriteParam
+						.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+				imageWriteParam.setCompressionQuality(quality);
+				imageWriter.setOutput(imageOutputStream);
+				imageWriter.write(null, new IIOImage(rgbImage, null, null),
+						imageWriteParam);
+			} finally {
+				imageOutputStream.close();
+			}
+		} catch (Exception e) {
+			throw new TranscoderException(e);
+		} finally {
+			imageWriter.dispose();
+		}
+	}
+}
@@ -0,0 +1,271 @@
+/* IOPNGStripEncoder.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.io;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * This class represents an encoder that writes a truecolor PNG image strip by
+ * strip. Every strip is compressed as soon as it is written, so that only a
+ * single strip of the image has to be kept in memory.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class IOPNGStripEncoder {
+	/**
+	 * PNG signature constant
+	 */
+	protected static final byte SIGNATURE[] = { (byte) 0x89, 'P', 'N', 'G',
+			'\r', '\n', 0x1a, '\n' };
+
+	/**
+	 * Maximum length of an image data chunk constant
+	 */
+	public static final int CHUNK_LENGTH = 0x10000;
+
+	/**
+	 * Output stream
+	 */
+	protected DataOutputStream dataOutputStream;
+
+	/**
+	 * Compressed image data stream
+	 */
+	protected DeflaterOutputStream deflaterOutputStream;
+
+	/**
+	 * Deflater of the image data stream
+	 */
+	protected Deflater deflater;
+
+	/**
+	 * Width of the image
+	 */
+	protected int width;
+
+	/**
+	 * Height of the image
+	 */
+	protected int height;
+
+	/**
+	 * Number of rows written
+	 */
+	protected int rows = 0;
+
+	/**
+	 * Filtered row buffer
+	 */
+	protected byte rowBuffer[];
+
+	/**
+	 * Pixel buffer
+	 */
+	protected int pixelBuffer[];
+
+	/**
+	 * Constructs a new PNG strip encoder and writes the image header.
+	 * 
+	 * @param outputStream
+	 *            output stream
+	 * @param width
+	 *            width of the image
+	 * @param height
+	 *            height of the image
+	 * @throws IOException
+	 */
+	public IOPNGStripEncoder(OutputStream outputStream, int width, int height)
+			throws IOException {
+		this.dataOutputStream = new DataOutputStream(outputStream);
+		this.width = width;
+		this.height = height;
+		this.rowBuffer = new byte[1 + 3 * width];
+		this.pixelBuffer = new int[width];
+
+		// signature and header
+		dataOutputStream.write(SIGNATURE);
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		DataOutputStream headerOutputStream = new DataOutputStream(header);
+		headerOutputStream.writeInt(width);
+		headerOutputStream.writeInt(height);
+		headerOutputStream.writeByte(8); // bit depth
+		headerOutputStream.writeByte(2); // truecolor
+		headerOutputStream.writeByte(0); // compression
+		headerOutputStream.writeByte(0); // filter
+		headerOutputStream.writeByte(0); // interlace
+		writeChunk("IHDR", header.toByteArray(), header.size());
+
+		// image data
+		deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+		deflaterOutputStream = new DeflaterOutputStream(
+				new ImageDataOutputStream(), deflater, CHUNK_LENGTH);
+	}
+
+	/**
+	 * Writes the rows of the specified strip. The strip has to be as wide as
+	 * the image.
+	 * 
+	 * @param strip
+	 *            image strip
+	 * @param stripHeight
+	 *            number of rows of the strip to write
+	 * @throws IOException
+	 */
+	public void writeStrip(BufferedImage strip, int stripHeight)
+			throws IOException {
+		for (int y = 0; y < stripHeight && rows < height; y++, rows++) {
+			strip.getRGB(0, y, width, 1, pixelBuffer, 0, width);
+			rowBuffer[0] = 0; // no filter
+			for (int x = 0, i = 1; x < width; x++) {
+				int pixel = pixelBuffer[x];
+				rowBuffer[i++] = (byte) (pixel >> 16);
+				rowBuffer[i++] = (byte) (pixel >> 8);
+				rowBuffer[i++] = (byte) pixel;
+			}
+			deflaterOutputStream.write(rowBuffer);
+		}
+	}
+
+	/**
+	 * Finishes the image data and writes the image trailer.
+	 * 
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		deflaterOutputStream.close();
+		writeChunk("IEND", new byte[0], 0);
+		dataOutputStream.flush();
+	}
+
+	/**
+	 * Releases the native memory of the deflater. This has to be called
+	 * whether the image was finished or not, for instance because the export
+	 * was cancelled.
+	 */
+	public void end() {
+		deflater.end();
+	}
+
+	/**
+	 * Writes a chunk of the specified type.
+	 * 
+	 * @param type
+	 *            chunk type
+	 * @param data
+	 *            chunk data
+	 * @param length
+	 *            length of the chunk data
+	 * @throws IOException
+	 */
+	protected void writeChunk(String type, byte data[], int length)
+			throws IOException {
+		byte typeBytes[] = type.getBytes("US-ASCII");
+		CRC32 crc32 = new CRC32();
+		crc32.update(typeBytes);
+		crc32.update(data, 0, length);
+		dataOutputStream.writeInt(length);
+		dataOutputStream.write(typeBytes);
+		dataOutputStream.write(data, 0, length);
+		dataOutputStream.writeInt((int) crc32.getValue());
+	}
+
+	/**
+	 * This class represents the stream that splits the compressed image data
+	 * into image data chunks.
+	 */
+	protected class ImageDataOutputStream extends OutputStream {
+		/**
+		 * Chunk buffer
+		 */
+		protected byte buffer[] = new byte[CHUNK_LENGTH];
+
+		/**
+		 * Number of bytes in the chunk buffer
+		 */
+		protected int count = 0;
+
+		/**
+		 * Writes the specified byte.
+		 * 
+		 * @param b
+		 *            byte
+		 * @throws IOException
+		 */
+		public void write(int b) throws IOException {
+			if (count == buffer.length)
+				flush();
+			buffer[count++] = (byte) b;
+		}
+
+		/**
+		 * Writes the specified bytes.
+		 * 
+		 * @param b
+		 *            bytes
+		 * @param offset
+		 *            offset of the first byte
+		 * @param length
+		 *            number of bytes
+		 * @throws IOException
+		 */
+		public void write(byte b[], int offset, int length) throws IOException {
+			while (length > 0) {
+				if (count == buffer.length)
+					flush();
+				int n = Math.min(length, buffer.length - count);
+				System.arraycopy(b, offset, buffer, count, n);
+				count += n;
+				offset += n;
+				length -= n;
+			}
+		}
+
+		/**
+		 * Writes the buffered bytes as an image data chunk.
+		 * 
+		 * @throws IOException
+		 */
+		public void flush() throws IOException {
+			if (count > 0) {
+				writeChunk("IDAT", buffer, count);
+				count = 0;
+			}
+		}
+
+		/**
+		 * Writes the remaining buffered bytes.
+		 * 
+		 * @throws IOException
+		 */
+		public void close() throws IOException {
+			flush();
+		}
+	}
+}
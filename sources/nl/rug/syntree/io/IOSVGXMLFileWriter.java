@@ -20,27 +20,38 @@
 
 package nl.rug.syntree.io;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.channels.Channels;
 
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-
+import nl.rug.syntree.tree.TreeRecord;
 import nl.rug.syntree.tree.TreeRepresentation;
 
 import org.apache.batik.dom.AbstractDocument;
+import org.apache.batik.dom.AbstractElement;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
 
 /**
- * This class represents a SVG XML file writer.
+ * This class represents a SVG XML file writer. The document is serialized
+ * into memory by snapshot(), which has to be called from the update manager
+ * thread, after which writeFile() writes the serialization into a temporary
+ * file next to the SVG XML file on any other thread. The temporary file
+ * atomically replaces the SVG XML file once it is completely written, so that
+ * a failed save never leaves a truncated file behind. The serialization is
+ * kept in memory until it is written, which costs about as much memory as the
+ * file itself, but keeps the update manager thread free of disk I/O. A deep
+ * clone of the document would be smaller to hand over, but Batik clones a
+ * document several times slower than it is serialized.
  * 
  * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
  * @version 1.0
  * @since 1.0
  */
-public class IOSVGXMLFileWriter {
+public class IOSVGXMLFileWriter implements IOTreespaceFileWriter {
 	/**
 	 * Reference to the tree representation we want to save
 	 */
@@ -51,13 +62,19 @@ public class IOSVGXMLFileWriter {
 	 */
 	File svgXMLFile;
 
+	/**
+	 * Serialization of the document taken by the snapshot
+	 */
+	protected ByteArrayOutputStream snapshotStream;
+
 	/**
 	 * Constructs a new SVG XML file writer.
 	 * 
 	 * @param treeRepresentation
 	 *            the tree representation to write
 	 * @param svgXMLFile
-	 *            the svg xml file to write to
+	 *            the svg xml file to write to, or null in case the snapshot
+	 *            is only read through getSnapshotInputStream()
 	 */
 	public IOSVGXMLFileWriter(TreeRepresentation treeRepresentation,
 			File svgXMLFile) {
@@ -66,26 +83,100 @@ public class IOSVGXMLFileWriter {
 	}
 
 	/**
-	 * Writes the tree representation to the SVG XML file.
+	 * Returns a boolean indicating whether the specified attribute only hides
+	 * a tree that is not materialized or culled.
+	 * 
+	 * @param element
+	 *            element
+	 * @param attr
+	 *            attribute
+	 * @return boolean
 	 */
-	public int writeFile() {
-		int returnCode = 0;
+	protected boolean isLazyAttribute(Element element, Attr attr) {
+		if (attr.getName().compareTo("display") != 0)
+			return false;
+		TreeRecord treeRecord = treeRepresentation
+				.getTreeRecord((AbstractElement) element);
+		return treeRecord != null
+				&& (!treeRecord.isMaterialized() || treeRecord.isCulled());
+	}
+
+	/**
+	 * Returns the initial capacity of the snapshot buffer, which is the
+	 * length of the SVG XML file plus some slack, so that the buffer does not
+	 * have to grow while a treespace that is saved again is serialized.
+	 * 
+	 * @return capacity in bytes
+	 */
+	protected int getSnapshotCapacity() {
+		long capacity = (svgXMLFile != null ? svgXMLFile.length() : 0)
+				+ IOSVGXMLSerializer.BUFFER_CAPACITY;
+		return (int) Math.min(capacity, Integer.MAX_VALUE - 8);
+	}
+
+	/**
+	 * Serializes the document of the tree representation into memory. Trees
+	 * that were opened from a binary treespace file are decoded first.
+	 * 
+	 * @return 0 on success, -1 on failure
+	 */
+	public int snapshot() {
 		try {
+			treeRepresentation.decodeTrees();
 			AbstractDocument document = treeRepresentation.getSVGDocument()
 					.getDocument();
-			FileOutputStream fileOutputStream = new FileOutputStream(svgXMLFile);
-			Transformer transformer = TransformerFactory.newInstance()
-					.newTransformer();
-			transformer.setOutputProperty(OutputKeys.METHOD, "xml");
-			// transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-			// transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount",
-			// "10");
-			transformer.transform(new DOMSource(document), new StreamResult(
-					fileOutputStream));
+			snapshotStream = new ByteArrayOutputStream(getSnapshotCapacity());
+			IOSVGXMLSerializer ioSVGXMLSerializer = new IOSVGXMLSerializer(
+					Channels.newChannel(snapshotStream)) {
+				protected boolean isSerialized(Element element, Attr attr) {
+					return !isLazyAttribute(element, attr);
+				}
+			};
+			ioSVGXMLSerializer.serialize(document);
+		} catch (Exception e) {
+			System.err
+					.println("[IOSVGXMLFileWriter::snapshot()] unable to serialize the document");
+			e.printStackTrace();
+			snapshotStream = null;
+			return -1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns an input stream that reads the serialization taken by the
+	 * snapshot.
+	 * 
+	 * @return input stream, or null in case no snapshot was taken
+	 */
+	public InputStream getSnapshotInputStream() {
+		if (snapshotStream == null)
+			return null;
+		return new ByteArrayInputStream(snapshotStream.toByteArray());
+	}
+
+	/**
+	 * Writes the snapshot to the SVG XML file.
+	 * 
+	 * @return 0 on success, -1 on failure
+	 */
+	public int writeFile() {
+		if (snapshotStream == null && snapshot() != 0)
+			return -1;
+		int returnCode = 0;
+		try {
+			new IOAtomicFileWriter(svgXMLFile) {
+				protected void writeContents(FileOutputStream fileOutputStream)
+						throws Exception {
+					snapshotStream.writeTo(fileOutputStream);
+				}
+			}.write();
 		} catch (Exception e) {
+			System.err.println("[IOSVGXMLFileWriter::writeFile()] unable to write "
+					+ svgXMLFile.getPath());
 			e.printStackTrace();
 			returnCode = -1;
 		}
 		return returnCode;
 	}
-}
\ No newline at end of file
+}
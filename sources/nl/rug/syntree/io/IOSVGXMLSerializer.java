@@ -0,0 +1,444 @@
+/* IOSVGXMLSerializer.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.HashMap;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * This class represents a streaming serializer for SVG XML documents. The
+ * document is encoded as UTF-8 directly into a reusable byte buffer, which is
+ * written to a channel whenever it fills up, so that no intermediate string
+ * or tree of the whole document is built. Characters that XML does not allow
+ * are never written: unpaired surrogates and the noncharacters U+FFFE and
+ * U+FFFF are replaced by U+FFFD, and control characters other than tab, line
+ * feed and carriage return are dropped.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class IOSVGXMLSerializer {
+	/**
+	 * Buffer capacity constant
+	 */
+	public static final int BUFFER_CAPACITY = 0x10000;
+
+	/**
+	 * Replacement character constant for characters that XML does not allow
+	 */
+	public static final char REPLACEMENT_CHARACTER = 0xfffd;
+
+	/**
+	 * XML declaration constant
+	 */
+	public static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>";
+
+	/**
+	 * XML namespace constant
+	 */
+	protected static final String XML_NAMESPACE = "http://www.w3.org/XML/1998/namespace";
+
+	/**
+	 * XML namespace declaration namespace constant
+	 */
+	protected static final String XMLNS_NAMESPACE = "http://www.w3.org/2000/xmlns/";
+
+	/**
+	 * Channel to write to
+	 */
+	protected WritableByteChannel channel;
+
+	/**
+	 * Byte buffer
+	 */
+	protected ByteBuffer buffer;
+
+	/**
+	 * Number of bytes written to the channel
+	 */
+	protected long byteCount = 0;
+
+	/**
+	 * Constructs a new serializer that writes to the specified channel.
+	 * 
+	 * @param channel
+	 *            channel to write to
+	 */
+	public IOSVGXMLSerializer(WritableByteChannel channel) {
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocate(BUFFER_CAPACITY);
+	}
+
+	/**
+	 * Serializes the specified document, and flushes the buffer.
+	 * 
+	 * @param document
+	 *            document
+	 * @throws IOException
+	 */
+	public void serialize(Document document) throws IOException {
+		write(XML_DECLARATION);
+		for (Node node = document.getFirstChild(); node != null; node = node
+				.getNextSibling())
+			serialize(node, new HashMap<String, String>());
+		flush();
+	}
+
+	/**
+	 * Serializes the specified node.
+	 * 
+	 * @param node
+	 *            node
+	 * @param namespaceMap
+	 *            namespaces in scope, keyed by prefix, with the empty prefix
+	 *            for the default namespace
+	 * @throws IOException
+	 */
+	protected void serialize(Node node, HashMap<String, String> namespaceMap)
+			throws IOException {
+		switch (node.getNodeType()) {
+		case Node.ELEMENT_NODE:
+			serializeElement((Element) node, namespaceMap);
+			break;
+		case Node.TEXT_NODE:
+			writeEscaped(node.getNodeValue(), false);
+			break;
+		case Node.CDATA_SECTION_NODE:
+			write("<![CDATA[");
+			write(node.getNodeValue());
+			write("]]>");
+			break;
+		case Node.COMMENT_NODE:
+			write("<!--");
+			write(node.getNodeValue());
+			write("-->");
+			break;
+		case Node.PROCESSING_INSTRUCTION_NODE:
+			write("<?");
+			write(node.getNodeName());
+			write(" ");
+			write(node.getNodeValue());
+			write("?>");
+			break;
+		}
+	}
+
+	/**
+	 * Serializes the specified element, declaring the namespaces it uses that
+	 * are not yet in scope.
+	 * 
+	 * @param element
+	 *            element
+	 * @param namespaceMap
+	 *            namespaces in scope
+	 * @throws IOException
+	 */
+	protected void serializeElement(Element element,
+			HashMap<String, String> namespaceMap) throws IOException {
+		NamedNodeMap attributes = element.getAttributes();
+		HashMap<String, String> scopeMap = namespaceMap;
+
+		// declared namespaces
+		for (int i = 0; i < attributes.getLength(); i++) {
+			Attr attr = (Attr) attributes.item(i);
+			String name = attr.getName();
+			if (name.compareTo("xmlns") == 0)
+				scopeMap = declare(scopeMap, namespaceMap, "", attr.getValue());
+			else if (name.startsWith("xmlns:"))
+				scopeMap = declare(scopeMap, namespaceMap, name.substring(6),
+						attr.getValue());
+		}
+
+		write("<");
+		write(element.getTagName());
+		for (int i = 0; i < attributes.getLength(); i++) {
+			Attr attr = (Attr) attributes.item(i);
+			if (isSerialized(element, attr))
+				writeAttribute(attr.getName(), attr.getValue());
+		}
+
+		// undeclared element namespace
+		String namespace = element.getNamespaceURI();
+		String prefix = element.getPrefix() == null ? "" : element.getPrefix();
+		if (namespace != null && !isInScope(scopeMap, prefix, namespace)) {
+			scopeMap = declare(scopeMap, namespaceMap, prefix, namespace);
+			writeAttribute(prefix.length() == 0 ? "xmlns" : "xmlns:" + prefix,
+					namespace);
+		}
+
+		// undeclared attribute namespaces
+		for (int i = 0; i < attributes.getLength(); i++) {
+			Attr attr = (Attr) attributes.item(i);
+			String attrNamespace = attr.getNamespaceURI();
+			String attrPrefix = attr.getPrefix();
+			if (attrNamespace == null || attrPrefix == null
+					|| attrNamespace.compareTo(XML_NAMESPACE) == 0
+					|| attrNamespace.compareTo(XMLNS_NAMESPACE) == 0)
+				continue;
+			if (!isInScope(scopeMap, attrPrefix, attrNamespace)) {
+				scopeMap = declare(scopeMap, namespaceMap, attrPrefix,
+						attrNamespace);
+				writeAttribute("xmlns:" + attrPrefix, attrNamespace);
+			}
+		}
+
+		// children
+		Node child = element.getFirstChild();
+		if (child == null) {
+			write("/>");
+			return;
+		}
+		write(">");
+		for (; child != null; child = child.getNextSibling())
+			serialize(child, scopeMap);
+		write("</");
+		write(element.getTagName());
+		write(">");
+	}
+
+	/**
+	 * Returns a boolean indicating whether the specified attribute of the
+	 * specified element is serialized. All attributes are serialized by
+	 * default.
+	 * 
+	 * @param element
+	 *            element
+	 * @param attr
+	 *            attribute
+	 * @return boolean
+	 */
+	protected boolean isSerialized(Element element, Attr attr) {
+		return true;
+	}
+
+	/**
+	 * Returns a boolean indicating whether the specified prefix is bound to
+	 * the specified namespace.
+	 * 
+	 * @param namespaceMap
+	 *            namespaces in scope
+	 * @param prefix
+	 *            prefix
+	 * @param namespace
+	 *            namespace
+	 * @return boolean
+	 */
+	protected static boolean isInScope(HashMap<String, String> namespaceMap,
+			String prefix, String namespace) {
+		String scopeNamespace = namespaceMap.get(prefix);
+		return scopeNamespace != null
+				&& scopeNamespace.compareTo(namespace) == 0;
+	}
+
+	/**
+	 * Binds the specified prefix to the specified namespace, copying the
+	 * namespaces in scope the first time they are changed for an element.
+	 * 
+	 * @param scopeMap
+	 *            namespaces in scope of the element
+	 * @param parentMap
+	 *            namespaces in scope of the parent element
+	 * @param prefix
+	 *            prefix
+	 * @param namespace
+	 *            namespace
+	 * @return namespaces in scope of the element
+	 */
+	protected static HashMap<String, String> declare(
+			HashMap<String, String> scopeMap,
+			HashMap<String, String> parentMap, String prefix, String namespace) {
+		if (scopeMap == parentMap)
+			scopeMap = new HashMap<String, String>(parentMap);
+		scopeMap.put(prefix, namespace);
+		return scopeMap;
+	}
+
+	/**
+	 * Writes the specified attribute.
+	 * 
+	 * @param name
+	 *            attribute name
+	 * @param value
+	 *            attribute value
+	 * @throws IOException
+	 */
+	protected void writeAttribute(String name, String value)
+			throws IOException {
+		write(" ");
+		write(name);
+		write("=\"");
+		writeEscaped(value, true);
+		write("\"");
+	}
+
+	/**
+	 * Writes the specified string, escaping markup characters.
+	 * 
+	 * @param string
+	 *            string
+	 * @param attribute
+	 *            boolean indicating whether the string is an attribute value
+	 * @throws IOException
+	 */
+	protected void writeEscaped(String string, boolean attribute)
+			throws IOException {
+		int length = string.length();
+		for (int i = 0; i < length; i++) {
+			char c = string.charAt(i);
+			switch (c) {
+			case '&':
+				write("&amp;");
+				break;
+			case '<':
+				write("&lt;");
+				break;
+			case '>':
+				write("&gt;");
+				break;
+			case '"':
+				if (attribute)
+					write("&quot;");
+				else
+					writeChar(c);
+				break;
+			case '\n':
+			case '\r':
+			case '\t':
+				if (attribute || c == '\r') {
+					write("&#");
+					write(Integer.toString(c));
+					write(";");
+				} else {
+					writeChar(c);
+				}
+				break;
+			default:
+				if (Character.isHighSurrogate(c) && i + 1 < length
+						&& Character.isLowSurrogate(string.charAt(i + 1))) {
+					writeCodePoint(Character.toCodePoint(c, string
+							.charAt(++i)));
+				} else {
+					writeChar(c);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the specified string without escaping.
+	 * 
+	 * @param string
+	 *            string
+	 * @throws IOException
+	 */
+	protected void write(String string) throws IOException {
+		int length = string.length();
+		for (int i = 0; i < length; i++) {
+			char c = string.charAt(i);
+			if (Character.isHighSurrogate(c) && i + 1 < length
+					&& Character.isLowSurrogate(string.charAt(i + 1)))
+				writeCodePoint(Character.toCodePoint(c, string.charAt(++i)));
+			else
+				writeChar(c);
+		}
+	}
+
+	/**
+	 * Writes the specified character as UTF-8. Surrogates reach this method
+	 * only when they are unpaired, and are replaced like the noncharacters
+	 * U+FFFE and U+FFFF, while control characters that XML does not allow are
+	 * dropped.
+	 * 
+	 * @param c
+	 *            character
+	 * @throws IOException
+	 */
+	protected void writeChar(char c) throws IOException {
+		if (c < 0x80) {
+			if (c < 0x20 && c != '\t' && c != '\n' && c != '\r')
+				return;
+			if (!buffer.hasRemaining())
+				flush();
+			buffer.put((byte) c);
+		} else if (Character.isSurrogate(c) || c == 0xfffe || c == 0xffff) {
+			writeCodePoint(REPLACEMENT_CHARACTER);
+		} else {
+			writeCodePoint(c);
+		}
+	}
+
+	/**
+	 * Writes the specified code point as UTF-8.
+	 * 
+	 * @param codePoint
+	 *            code point
+	 * @throws IOException
+	 */
+	protected void writeCodePoint(int codePoint) throws IOException {
+		if (buffer.remaining() < 4)
+			flush();
+		if (codePoint < 0x80) {
+			buffer.put((byte) codePoint);
+		} else if (codePoint < 0x800) {
+			buffer.put((byte) (0xc0 | (codePoint >> 6)));
+			buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+		} else if (codePoint < 0x10000) {
+			buffer.put((byte) (0xe0 | (codePoint >> 12)));
+			buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+			buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+		} else {
+			buffer.put((byte) (0xf0 | (codePoint >> 18)));
+			buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+			buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+			buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+		}
+	}
+
+	/**
+	 * Writes the buffered bytes to the channel.
+	 * 
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			byteCount += channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Returns the number of bytes written to the channel.
+	 * 
+	 * @return byte count
+	 */
+	public long getByteCount() {
+		return byteCount;
+	}
+}
@@ -0,0 +1,48 @@
+/* IOTreespaceFileWriter.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.io;
+
+/**
+ * This interface represents a writer for treespace files. The tree
+ * representation is captured by snapshot(), which has to be called from the
+ * update manager thread, after which writeFile() writes the snapshot on any
+ * other thread, while the tree representation may be edited further.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public interface IOTreespaceFileWriter {
+	/**
+	 * Captures the state of the tree representation to write.
+	 * 
+	 * @return 0 on success, -1 on failure
+	 */
+	public int snapshot();
+
+	/**
+	 * Writes the snapshot to the treespace file. In case no snapshot was
+	 * taken, it is taken first.
+	 * 
+	 * @return 0 on success, -1 on failure
+	 */
+	public int writeFile();
+}
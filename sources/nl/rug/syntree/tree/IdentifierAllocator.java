@@ -0,0 +1,167 @@
+/* IdentifierAllocator.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.tree;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class represents an allocator for the numeric part of element
+ * identifiers, such as the i in 03-i@06-j. Indices are handed out from a
+ * counter; released indices, and indices skipped by claimed ones, are kept as
+ * ranges of free indices from which the lowest index is reused first, so
+ * that claiming a very large index does not cost memory in proportion to
+ * the index.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class IdentifierAllocator {
+	/**
+	 * Next index that has never been allocated
+	 */
+	protected int nextIndex = 0;
+
+	/**
+	 * Ranges of available indices below the next index, as the first index
+	 * of a range mapped to the index that follows the range
+	 */
+	protected TreeMap<Integer, Integer> freeRangeMap = new TreeMap<Integer, Integer>();
+
+	/**
+	 * Allocates an available index.
+	 * 
+	 * @return index
+	 */
+	public int allocate() {
+		Map.Entry<Integer, Integer> firstRange = freeRangeMap.pollFirstEntry();
+		if (firstRange == null)
+			return nextIndex++;
+		int index = firstRange.getKey().intValue();
+		if (index + 1 < firstRange.getValue().intValue())
+			freeRangeMap.put(Integer.valueOf(index + 1), firstRange.getValue());
+		return index;
+	}
+
+	/**
+	 * Marks the specified index as in use, for instance because it was found
+	 * in a loaded document.
+	 * 
+	 * @param index
+	 *            index
+	 */
+	public void claim(int index) {
+		if (index < 0)
+			return;
+		if (index >= nextIndex) {
+			if (index > nextIndex)
+				addRange(nextIndex, index);
+			nextIndex = index + 1;
+			return;
+		}
+		Map.Entry<Integer, Integer> range = freeRangeMap.floorEntry(Integer
+				.valueOf(index));
+		if (range == null || index >= range.getValue().intValue())
+			return;
+		int begin = range.getKey().intValue();
+		int end = range.getValue().intValue();
+		freeRangeMap.remove(range.getKey());
+		if (begin < index)
+			freeRangeMap.put(Integer.valueOf(begin), Integer.valueOf(index));
+		if (index + 1 < end)
+			freeRangeMap.put(Integer.valueOf(index + 1), Integer.valueOf(end));
+	}
+
+	/**
+	 * Makes the specified index available again.
+	 * 
+	 * @param index
+	 *            index
+	 */
+	public void release(int index) {
+		if (index < 0 || index >= nextIndex)
+			return;
+		Map.Entry<Integer, Integer> range = freeRangeMap.floorEntry(Integer
+				.valueOf(index));
+		if (range != null && index < range.getValue().intValue())
+			return;
+		if (index == nextIndex - 1) {
+			nextIndex--;
+			Map.Entry<Integer, Integer> lastRange = freeRangeMap.lastEntry();
+			if (lastRange != null
+					&& lastRange.getValue().intValue() == nextIndex) {
+				freeRangeMap.remove(lastRange.getKey());
+				nextIndex = lastRange.getKey().intValue();
+			}
+		} else {
+			addRange(index, index + 1);
+		}
+	}
+
+	/**
+	 * Adds the specified range of free indices, and merges it with the
+	 * adjacent ranges.
+	 * 
+	 * @param begin
+	 *            first index of the range
+	 * @param end
+	 *            index that follows the range
+	 */
+	protected void addRange(int begin, int end) {
+		Map.Entry<Integer, Integer> previousRange = freeRangeMap
+				.floorEntry(Integer.valueOf(begin));
+		if (previousRange != null
+				&& previousRange.getValue().intValue() == begin) {
+			freeRangeMap.remove(previousRange.getKey());
+			begin = previousRange.getKey().intValue();
+		}
+		Integer nextRangeEnd = freeRangeMap.remove(Integer.valueOf(end));
+		if (nextRangeEnd != null)
+			end = nextRangeEnd.intValue();
+		freeRangeMap.put(Integer.valueOf(begin), Integer.valueOf(end));
+	}
+
+	/**
+	 * Returns the index in the specified identifier, which is the number
+	 * between the first hyphen and either the first at sign or the end of
+	 * the identifier, or -1 in case the identifier contains no such number.
+	 * 
+	 * @param id
+	 *            identifier
+	 * @return index
+	 */
+	public static int parseIndex(String id) {
+		if (id == null)
+			return -1;
+		int begin = id.indexOf('-');
+		if (begin < 0)
+			return -1;
+		int end = id.indexOf('@', begin);
+		if (end < 0)
+			end = id.length();
+		try {
+			return Integer.parseInt(id.substring(begin + 1, end));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,342 @@
+/* NodeSpatialIndex.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.tree;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Vector;
+
+import nl.rug.syntree.tree.component.NodeElement;
+import nl.rug.syntree.tree.component.NodeRectElement;
+import nl.rug.syntree.tree.component.TreeElement;
+
+/**
+ * This class represents a spatial index over the node rectangles of a tree
+ * representation. Every tree has its own uniform grid in tree coordinates,
+ * so that moving a tree does not require its grid to be rebuilt. Since the
+ * trees are laid out horizontally, the trees are found through an index over
+ * their x-intervals in document coordinates, so that a query only visits the
+ * grids of the trees that span the queried x-coordinate. The drawer
+ * invalidates the grids of the trees it lays out, and updates the index once
+ * the trees are positioned. Should a query find the index out of date, it is
+ * updated first.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class NodeSpatialIndex {
+	/**
+	 * Width and height constant of a grid cell
+	 */
+	public static final float CELL_SIZE = 64.0f;
+
+	/**
+	 * Tree representation
+	 */
+	protected TreeRepresentation treeRepresentation;
+
+	/**
+	 * Grids of the trees, keyed by tree element
+	 */
+	protected IdentityHashMap<TreeElement, Grid> gridMap;
+
+	/**
+	 * Trees with a grid, ordered by the start of their x-interval in
+	 * document coordinates
+	 */
+	protected Interval intervals[] = new Interval[0];
+
+	/**
+	 * Boolean indicating whether the x-interval index has to be updated
+	 */
+	protected boolean intervalsStale = true;
+
+	/**
+	 * Constructs a new spatial index for the specified tree representation.
+	 * 
+	 * @param treeRepresentation
+	 *            tree representation
+	 */
+	public NodeSpatialIndex(TreeRepresentation treeRepresentation) {
+		this.treeRepresentation = treeRepresentation;
+		this.gridMap = new IdentityHashMap<TreeElement, Grid>();
+	}
+
+	/**
+	 * Invalidates the grid of the specified tree.
+	 * 
+	 * @param treeElement
+	 *            tree element
+	 */
+	public synchronized void invalidate(TreeElement treeElement) {
+		gridMap.remove(treeElement);
+		intervalsStale = true;
+	}
+
+	/**
+	 * Invalidates the grids of all of the trees.
+	 */
+	public synchronized void invalidateAll() {
+		gridMap.clear();
+		intervalsStale = true;
+	}
+
+	/**
+	 * Rebuilds the invalidated grids and the x-interval index over the
+	 * trees. This is called by the drawer after the trees are laid out and
+	 * positioned.
+	 */
+	public synchronized void update() {
+		Vector<TreeElement> treeVector = treeRepresentation.getTreeVector();
+		Vector<Interval> intervalVector = new Vector<Interval>(treeVector
+				.size());
+		for (int i = 0; i < treeVector.size(); i++) {
+			TreeElement treeElement = treeVector.elementAt(i);
+			if (treeElement.getRootNode() == null)
+				continue;
+			Grid grid = getGrid(treeElement);
+			if (grid.bounds[0] > grid.bounds[2])
+				continue;
+			float x = treeElement.getXTranslate();
+			intervalVector.add(new Interval(treeElement, grid.bounds[0] + x,
+					grid.bounds[2] + x));
+		}
+		intervals = intervalVector.toArray(new Interval[intervalVector
+				.size()]);
+		Arrays.sort(intervals, new Comparator<Interval>() {
+			public int compare(Interval a, Interval b) {
+				return Float.compare(a.minX, b.minX);
+			}
+		});
+		float maxX = -Float.MAX_VALUE;
+		for (int i = 0; i < intervals.length; i++) {
+			maxX = Math.max(maxX, intervals[i].maxX);
+			intervals[i].reachX = maxX;
+		}
+		intervalsStale = false;
+	}
+
+	/**
+	 * Returns the node whose rectangle contains the specified point in
+	 * document coordinates, or null in case there is no such node. In case
+	 * multiple rectangles contain the point, the deepest node is returned.
+	 * 
+	 * @param x
+	 *            x-coordinate
+	 * @param y
+	 *            y-coordinate
+	 * @return node element
+	 */
+	public synchronized NodeElement nodeElementAt(float x, float y) {
+		if (intervalsStale)
+			update();
+		NodeElement nodeElement = null;
+
+		// the last tree that starts at or before x, and the trees before it
+		// that may still reach x
+		int low = 0;
+		int high = intervals.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (intervals[middle].minX <= x)
+				low = middle + 1;
+			else
+				high = middle - 1;
+		}
+		for (int i = high; i >= 0 && intervals[i].reachX >= x; i--) {
+			if (intervals[i].maxX < x)
+				continue;
+			TreeElement treeElement = intervals[i].treeElement;
+			float treeX = x - treeElement.getXTranslate();
+			float treeY = y - treeElement.getYTranslate();
+			Grid grid = getGrid(treeElement);
+			if (treeX < grid.bounds[0] || treeX > grid.bounds[2]
+					|| treeY < grid.bounds[1] || treeY > grid.bounds[3])
+				continue;
+			Vector<NodeElement> cellVector = grid.cellMap.get(createKey(
+					getCell(treeX), getCell(treeY)));
+			if (cellVector == null)
+				continue;
+			for (int z = 0; z < cellVector.size(); z++) {
+				NodeElement candidateNode = cellVector.elementAt(z);
+				float rect[] = grid.rectMap.get(candidateNode);
+				if (treeX >= rect[0] && treeX <= rect[2] && treeY >= rect[1]
+						&& treeY <= rect[3])
+					if (nodeElement == null
+							|| candidateNode.getDepth() > nodeElement
+									.getDepth())
+						nodeElement = candidateNode;
+			}
+		}
+		return nodeElement;
+	}
+
+	/**
+	 * Returns the grid of the specified tree, building it in case it has been
+	 * invalidated.
+	 * 
+	 * @param treeElement
+	 *            tree element
+	 * @return grid
+	 */
+	protected Grid getGrid(TreeElement treeElement) {
+		Grid grid = gridMap.get(treeElement);
+		if (grid == null) {
+			grid = new Grid();
+			NodeElement rootNode = treeElement.getRootNode();
+			addNode(grid, rootNode, rootNode.getXTranslate(), rootNode
+					.getYTranslate());
+			gridMap.put(treeElement, grid);
+		}
+		return grid;
+	}
+
+	/**
+	 * Adds the rectangles of the specified node and its descendants to the
+	 * specified grid.
+	 * 
+	 * @param grid
+	 *            grid
+	 * @param nodeElement
+	 *            node element
+	 * @param x
+	 *            x-coordinate of the node in tree coordinates
+	 * @param y
+	 *            y-coordinate of the node in tree coordinates
+	 */
+	protected void addNode(Grid grid, NodeElement nodeElement, float x, float y) {
+		NodeRectElement nodeRectElement = nodeElement.getNodeRectElement();
+		float rect[] = new float[] { x + nodeRectElement.getX(),
+				y + nodeRectElement.getY(),
+				x + nodeRectElement.getX() + nodeRectElement.getWidth(),
+				y + nodeRectElement.getY() + nodeRectElement.getHeight() };
+		grid.rectMap.put(nodeElement, rect);
+		NodeElement.extendBounds(grid.bounds, rect[0], rect[1]);
+		NodeElement.extendBounds(grid.bounds, rect[2], rect[3]);
+		for (int cx = getCell(rect[0]); cx <= getCell(rect[2]); cx++)
+			for (int cy = getCell(rect[1]); cy <= getCell(rect[3]); cy++) {
+				Long key = createKey(cx, cy);
+				Vector<NodeElement> cellVector = grid.cellMap.get(key);
+				if (cellVector == null) {
+					cellVector = new Vector<NodeElement>();
+					grid.cellMap.put(key, cellVector);
+				}
+				cellVector.add(nodeElement);
+			}
+		Vector<NodeElement> daughterVector = nodeElement.getDaughterVector();
+		for (int i = 0; i < daughterVector.size(); i++) {
+			NodeElement daughterNode = daughterVector.elementAt(i);
+			addNode(grid, daughterNode, x + daughterNode.getXTranslate(), y
+					+ daughterNode.getYTranslate());
+		}
+	}
+
+	/**
+	 * Returns the grid cell index of the specified coordinate.
+	 * 
+	 * @param coordinate
+	 *            coordinate
+	 * @return cell index
+	 */
+	protected static int getCell(float coordinate) {
+		return (int) Math.floor(coordinate / CELL_SIZE);
+	}
+
+	/**
+	 * Creates a key for the specified grid cell.
+	 * 
+	 * @param cx
+	 *            column of the cell
+	 * @param cy
+	 *            row of the cell
+	 * @return key
+	 */
+	protected static Long createKey(int cx, int cy) {
+		return Long.valueOf(((long) cx << 32) | (cy & 0xffffffffL));
+	}
+
+	/**
+	 * This class represents the x-interval of a single tree in document
+	 * coordinates.
+	 */
+	protected static class Interval {
+		/**
+		 * Tree element
+		 */
+		protected TreeElement treeElement;
+
+		/**
+		 * Start of the interval
+		 */
+		protected float minX;
+
+		/**
+		 * End of the interval
+		 */
+		protected float maxX;
+
+		/**
+		 * Largest end of this interval and of the intervals before it
+		 */
+		protected float reachX;
+
+		/**
+		 * Constructs a new interval for the specified tree.
+		 * 
+		 * @param treeElement
+		 *            tree element
+		 * @param minX
+		 *            start of the interval
+		 * @param maxX
+		 *            end of the interval
+		 */
+		protected Interval(TreeElement treeElement, float minX, float maxX) {
+			this.treeElement = treeElement;
+			this.minX = minX;
+			this.maxX = maxX;
+		}
+	}
+
+	/**
+	 * This class represents the grid of a single tree.
+	 */
+	protected static class Grid {
+		/**
+		 * Nodes whose rectangles overlap a cell, keyed by cell
+		 */
+		protected HashMap<Long, Vector<NodeElement>> cellMap = new HashMap<Long, Vector<NodeElement>>();
+
+		/**
+		 * Rectangles of the nodes in tree coordinates, as {min x, min y, max
+		 * x, max y}
+		 */
+		protected IdentityHashMap<NodeElement, float[]> rectMap = new IdentityHashMap<NodeElement, float[]>();
+
+		/**
+		 * Bounds of all of the rectangles in tree coordinates
+		 */
+		protected float bounds[] = new float[] { Float.MAX_VALUE,
+				Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+	}
+}
@@ -0,0 +1,523 @@
+/* TreeRecord.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.tree;
+
+import nl.rug.syntree.io.IOBinaryTreespaceFileReader;
+import nl.rug.syntree.tree.component.TreeElement;
+
+import org.apache.batik.dom.AbstractElement;
+import org.w3c.dom.Node;
+
+/**
+ * This class represents the record of a tree in a tree representation. A
+ * record either refers to the materialized tree element of the tree, or only
+ * to its hidden dom subtree, in which case the extent of the tree is
+ * estimated from the geometry that was saved with the subtree, so that the
+ * tree can be laid out without being materialized. Records of trees that were
+ * opened from a binary treespace file only refer to an empty dom element of
+ * the tree, into which the tree is decoded on first access.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class TreeRecord {
+	/**
+	 * Estimated width constant of a leaf without saved geometry
+	 */
+	public static final float ESTIMATED_LEAF_WIDTH = 50.0f;
+
+	/**
+	 * Estimated height constant of a generation without saved geometry
+	 */
+	public static final float ESTIMATED_GENERATION_HEIGHT = 55.0f;
+
+	/**
+	 * Dom element of the tree
+	 */
+	protected AbstractElement element;
+
+	/**
+	 * Materialized tree element, or null in case the tree is not materialized
+	 */
+	protected TreeElement treeElement;
+
+	/**
+	 * Estimated extent of the tree as {min x, min y, max x, max y}, relative
+	 * to the translation of the tree
+	 */
+	protected float extent[] = new float[4];
+
+	/**
+	 * Reader of the binary treespace file the tree is decoded from, or null
+	 */
+	protected IOBinaryTreespaceFileReader binaryTreespaceFileReader;
+
+	/**
+	 * Index of the tree in the binary treespace file
+	 */
+	protected int binaryTreeIndex = -1;
+
+	/**
+	 * Boolean indicating whether the tree has been decoded into its dom
+	 * element
+	 */
+	protected boolean isDecoded = true;
+
+	/**
+	 * Cached x-translation of the unmaterialized tree
+	 */
+	protected float cachedXTranslate;
+
+	/**
+	 * Cached y-translation of the unmaterialized tree
+	 */
+	protected float cachedYTranslate;
+
+	/**
+	 * Boolean indicating whether the materialized tree is culled
+	 */
+	protected boolean isCulled = false;
+
+	/**
+	 * Constructs a new record for the specified materialized tree.
+	 * 
+	 * @param treeElement
+	 *            tree element
+	 */
+	public TreeRecord(TreeElement treeElement) {
+		this.element = treeElement.getElement();
+		this.treeElement = treeElement;
+	}
+
+	/**
+	 * Constructs a new record for the specified dom element of a tree, which
+	 * is not materialized yet.
+	 * 
+	 * @param element
+	 *            dom element
+	 */
+	public TreeRecord(AbstractElement element) {
+		this.element = element;
+		float translate[] = parseTranslate(element.getAttribute("transform"));
+		cachedXTranslate = translate[0];
+		cachedYTranslate = translate[1];
+	}
+
+	/**
+	 * Constructs a new record for the specified tree of a binary treespace
+	 * file, which is neither decoded nor materialized yet. The translation
+	 * and the extent of the tree are read from the tree table of the file.
+	 * 
+	 * @param element
+	 *            empty dom element of the tree
+	 * @param binaryTreespaceFileReader
+	 *            reader of the binary treespace file
+	 * @param binaryTreeIndex
+	 *            index of the tree in the binary treespace file
+	 */
+	public TreeRecord(AbstractElement element,
+			IOBinaryTreespaceFileReader binaryTreespaceFileReader,
+			int binaryTreeIndex) {
+		this.element = element;
+		this.binaryTreespaceFileReader = binaryTreespaceFileReader;
+		this.binaryTreeIndex = binaryTreeIndex;
+		isDecoded = false;
+		float translate[] = binaryTreespaceFileReader
+				.getTreeTranslate(binaryTreeIndex);
+		cachedXTranslate = translate[0];
+		cachedYTranslate = translate[1];
+		extent = binaryTreespaceFileReader.getTreeExtent(binaryTreeIndex);
+	}
+
+	/**
+	 * Estimates the extent of the unmaterialized tree from the saved
+	 * translations of its nodes and the saved sizes of their rectangles. In
+	 * case the tree has no saved geometry, the extent is estimated from its
+	 * number of leaves and generations.
+	 */
+	public void estimateExtent() {
+		extent = estimateExtent(element);
+	}
+
+	/**
+	 * Estimates the extent of the tree with the specified dom element, as
+	 * {min x, min y, max x, max y} relative to the translation of the tree.
+	 * 
+	 * @param treeElement
+	 *            dom element of the tree
+	 * @return extent
+	 */
+	public static float[] estimateExtent(AbstractElement treeElement) {
+		float bounds[] = null;
+		int counts[] = { 0, 0 }; // leaves, generations
+		for (Node node = treeElement.getFirstChild(); node != null; node = node
+				.getNextSibling())
+			if (isNode(node))
+				bounds = estimateExtent((AbstractElement) node, 0.0f, 0.0f, 1,
+						bounds, counts);
+		if (bounds == null || bounds[2] - bounds[0] <= 0.0f) {
+			float width = Math.max(1, counts[0]) * ESTIMATED_LEAF_WIDTH;
+			bounds = new float[] { -width / 2, 0.0f, width / 2,
+					Math.max(1, counts[1]) * ESTIMATED_GENERATION_HEIGHT };
+		}
+		return bounds;
+	}
+
+	/**
+	 * Extends the specified bounds with the rectangles of the specified node
+	 * and its descendants.
+	 * 
+	 * @param nodeElement
+	 *            dom element of the node
+	 * @param x
+	 *            x-translation of the mother node
+	 * @param y
+	 *            y-translation of the mother node
+	 * @param depth
+	 *            generation of the node
+	 * @param bounds
+	 *            bounds, or null in case no rectangle has been seen
+	 * @param counts
+	 *            number of leaves and number of generations
+	 * @return bounds
+	 */
+	protected static float[] estimateExtent(AbstractElement nodeElement,
+			float x, float y, int depth, float bounds[], int counts[]) {
+		float translate[] = parseTranslate(nodeElement
+				.getAttribute("transform"));
+		x += translate[0];
+		y += translate[1];
+		counts[1] = Math.max(counts[1], depth);
+		boolean leaf = true;
+		for (Node node = nodeElement.getFirstChild(); node != null; node = node
+				.getNextSibling()) {
+			if (isNode(node)) {
+				leaf = false;
+				bounds = estimateExtent((AbstractElement) node, x, y,
+						depth + 1, bounds, counts);
+			} else if (hasPrefix(node,
+					TreeRepresentation.NODE_RECTANGLE_IDENTIFIER_PREFIX)) {
+				AbstractElement rectElement = (AbstractElement) node;
+				float rx = x + parseFloat(rectElement.getAttribute("x"));
+				float ry = y + parseFloat(rectElement.getAttribute("y"));
+				float rw = parseFloat(rectElement.getAttribute("width"));
+				float rh = parseFloat(rectElement.getAttribute("height"));
+				if (bounds == null)
+					bounds = new float[] { rx, ry, rx + rw, ry + rh };
+				bounds[0] = Math.min(bounds[0], rx);
+				bounds[1] = Math.min(bounds[1], ry);
+				bounds[2] = Math.max(bounds[2], rx + rw);
+				bounds[3] = Math.max(bounds[3], ry + rh);
+			}
+		}
+		if (leaf)
+			counts[0]++;
+		return bounds;
+	}
+
+	/**
+	 * Returns a boolean indicating whether the specified dom node is the
+	 * group of a tree node.
+	 * 
+	 * @param node
+	 *            dom node
+	 * @return boolean
+	 */
+	protected static boolean isNode(Node node) {
+		return node.getNodeName().compareTo("g") == 0
+				&& hasPrefix(node, TreeRepresentation.NODE_IDENTIFIER_PREFIX);
+	}
+
+	/**
+	 * Returns a boolean indicating whether the identifier of the specified
+	 * dom node starts with the specified prefix.
+	 * 
+	 * @param node
+	 *            dom node
+	 * @param prefix
+	 *            identifier prefix
+	 * @return boolean
+	 */
+	protected static boolean hasPrefix(Node node, String prefix) {
+		if (node.getNodeType() != Node.ELEMENT_NODE)
+			return false;
+		return ((AbstractElement) node).getAttribute("id").startsWith(prefix);
+	}
+
+	/**
+	 * Returns the translation of the specified transform attribute value.
+	 * 
+	 * @param transform
+	 *            transform attribute value
+	 * @return {x, y}
+	 */
+	public static float[] parseTranslate(String transform) {
+		float translate[] = { 0.0f, 0.0f };
+		if (transform == null)
+			return translate;
+		int begin = transform.indexOf("translate(");
+		if (begin < 0)
+			return translate;
+		begin += "translate(".length();
+		int end = transform.indexOf(')', begin);
+		if (end < 0)
+			return translate;
+		String values[] = transform.substring(begin, end).trim().split(
+				"[\\s,]+");
+		if (values.length > 0)
+			translate[0] = parseFloat(values[0]);
+		if (values.length > 1)
+			translate[1] = parseFloat(values[1]);
+		return translate;
+	}
+
+	/**
+	 * Returns the float value of the specified string, or 0 in case it is not
+	 * a number.
+	 * 
+	 * @param string
+	 *            string
+	 * @return float
+	 */
+	protected static float parseFloat(String string) {
+		try {
+			return Float.parseFloat(string);
+		} catch (Exception e) {
+			return 0.0f;
+		}
+	}
+
+	/**
+	 * Returns a boolean indicating whether the tree is materialized.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isMaterialized() {
+		return treeElement != null;
+	}
+
+	/**
+	 * Sets the materialized tree element of the tree.
+	 * 
+	 * @param treeElement
+	 *            tree element
+	 */
+	public void setTreeElement(TreeElement treeElement) {
+		this.treeElement = treeElement;
+	}
+
+	/**
+	 * Returns the materialized tree element of the tree, or null in case the
+	 * tree is not materialized.
+	 * 
+	 * @return tree element
+	 */
+	public TreeElement getTreeElement() {
+		return treeElement;
+	}
+
+	/**
+	 * Returns the dom element of the tree, decoding the tree from its binary
+	 * treespace file in case this has not been done yet.
+	 * 
+	 * @return dom element
+	 */
+	public AbstractElement getElement() {
+		if (!isDecoded) {
+			binaryTreespaceFileReader.decodeTree(binaryTreeIndex, element);
+			isDecoded = true;
+		}
+		return element;
+	}
+
+	/**
+	 * Returns the dom element of the tree, without decoding the tree.
+	 * 
+	 * @return dom element
+	 */
+	public AbstractElement getContainerElement() {
+		return element;
+	}
+
+	/**
+	 * Hides or shows the dom element of the tree, without decoding the tree.
+	 * Hidden trees have no graphics nodes.
+	 * 
+	 * @param hidden
+	 *            boolean indicating whether the tree is hidden
+	 */
+	public void setHidden(boolean hidden) {
+		if (hidden)
+			element.setAttribute("display", "none");
+		else
+			element.removeAttribute("display");
+	}
+
+	/**
+	 * Culls or restores the materialized tree. A culled tree is hidden
+	 * because it lies outside of the visible part of the document, and is
+	 * shown again once it is scrolled back into view.
+	 * 
+	 * @param culled
+	 *            boolean indicating whether the tree is culled
+	 */
+	public void setCulled(boolean culled) {
+		if (culled == isCulled)
+			return;
+		isCulled = culled;
+		setHidden(culled);
+	}
+
+	/**
+	 * Returns a boolean indicating whether the materialized tree is culled.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isCulled() {
+		return isCulled;
+	}
+
+	/**
+	 * Decodes the tree from its binary treespace file into a detached copy of
+	 * its empty dom element, leaving the document untouched.
+	 * 
+	 * @return detached dom element
+	 */
+	public AbstractElement decodeDetachedElement() {
+		AbstractElement detachedElement = (AbstractElement) element
+				.cloneNode(false);
+		binaryTreespaceFileReader.decodeTree(binaryTreeIndex, detachedElement);
+		return detachedElement;
+	}
+
+	/**
+	 * Returns a boolean indicating whether the tree has been decoded into its
+	 * dom element.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isDecoded() {
+		return isDecoded;
+	}
+
+	/**
+	 * Returns the reader of the binary treespace file the tree is decoded
+	 * from, or null in case the tree is not backed by a binary treespace
+	 * file.
+	 * 
+	 * @return binary treespace file reader
+	 */
+	public IOBinaryTreespaceFileReader getBinaryTreespaceFileReader() {
+		return binaryTreespaceFileReader;
+	}
+
+	/**
+	 * Returns the index of the tree in its binary treespace file, or -1 in
+	 * case the tree is not backed by a binary treespace file.
+	 * 
+	 * @return binary tree index
+	 */
+	public int getBinaryTreeIndex() {
+		return binaryTreeIndex;
+	}
+
+	/**
+	 * Returns the identifier of the tree.
+	 * 
+	 * @return identifier
+	 */
+	public String getId() {
+		return element.getAttribute("id");
+	}
+
+	/**
+	 * Sets the x-translation of the unmaterialized tree. The transform
+	 * attribute is only rewritten when the translation changes.
+	 * 
+	 * @param x
+	 *            x-coordinate
+	 */
+	public void setXTranslate(float x) {
+		if (x == cachedXTranslate)
+			return;
+		cachedXTranslate = x;
+		element.setAttribute("transform", "translate(" + cachedXTranslate
+				+ "," + cachedYTranslate + ")");
+	}
+
+	/**
+	 * Returns the x-translation of the unmaterialized tree.
+	 * 
+	 * @return x-translation
+	 */
+	public float getXTranslate() {
+		return cachedXTranslate;
+	}
+
+	/**
+	 * Returns the y-translation of the unmaterialized tree.
+	 * 
+	 * @return y-translation
+	 */
+	public float getYTranslate() {
+		return cachedYTranslate;
+	}
+
+	/**
+	 * Returns the estimated width of the unmaterialized tree to the left of
+	 * its translation.
+	 * 
+	 * @return inner width
+	 */
+	public float getInnerWidth() {
+		return Math.max(0.0f, -extent[0]);
+	}
+
+	/**
+	 * Returns the estimated width of the unmaterialized tree to the right of
+	 * its translation.
+	 * 
+	 * @return outer width
+	 */
+	public float getOuterWidth() {
+		return Math.max(0.0f, extent[2]);
+	}
+
+	/**
+	 * Returns the estimated width of the unmaterialized tree.
+	 * 
+	 * @return width
+	 */
+	public float getWidth() {
+		return getInnerWidth() + getOuterWidth();
+	}
+
+	/**
+	 * Returns the estimated extent of the unmaterialized tree as {min x, min
+	 * y, max x, max y}, relative to its translation.
+	 * 
+	 * @return extent
+	 */
+	public float[] getExtent() {
+		return extent;
+	}
+}
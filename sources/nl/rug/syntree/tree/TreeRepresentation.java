@@ -21,17 +21,24 @@
 package nl.rug.syntree.tree;
 
 import java.io.File;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Vector;
 
 import nl.rug.syntree.editor.TreeEditorBridge;
+import nl.rug.syntree.io.IOBinaryTreespaceFileFilter;
+import nl.rug.syntree.io.IOBinaryTreespaceFileReader;
+import nl.rug.syntree.io.IOEditJournal;
 import nl.rug.syntree.tree.component.MdomBranchElement;
 import nl.rug.syntree.tree.component.MetaGroupElement;
 import nl.rug.syntree.tree.component.NodeElement;
 import nl.rug.syntree.tree.component.SVGDocument;
+import nl.rug.syntree.tree.component.SVGElement;
 import nl.rug.syntree.tree.component.TreeElement;
 import nl.rug.syntree.tree.component.TreeGroupElement;
 
 import org.apache.batik.dom.AbstractElement;
+import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 /**
@@ -97,6 +104,24 @@ public class TreeRepresentation {
 	 */
 	public static final String MDOM_BRANCH_BACKGROUND_PATH_IDENTIFIER_PREFIX = "09";
 
+	/**
+	 * Minimum number of trees constant for which trees are materialized
+	 * lazily
+	 */
+	public static final int LAZY_TREE_THRESHOLD = 64;
+
+	/**
+	 * Number of trees constant that are materialized when a lazy tree
+	 * representation is loaded
+	 */
+	public static final int LAZY_INITIAL_TREES = 16;
+
+	/**
+	 * Margin constant around the visible part of the document within which
+	 * trees are not culled, as a fraction of the visible width
+	 */
+	public static final float CULL_MARGIN = 0.5f;
+
 	/**
 	 * A bridge between the graphical and bracket tree structures
 	 */
@@ -112,6 +137,34 @@ public class TreeRepresentation {
 	 */
 	protected Vector<TreeElement> treeVector;
 
+	/**
+	 * Records of all of the trees of this tree representation, in document
+	 * order
+	 */
+	protected Vector<TreeRecord> treeRecordVector = new Vector<TreeRecord>();
+
+	/**
+	 * Records of the trees, keyed by dom element
+	 */
+	protected IdentityHashMap<AbstractElement, TreeRecord> treeRecordMap = new IdentityHashMap<AbstractElement, TreeRecord>();
+
+	/**
+	 * Boolean indicating whether trees are materialized lazily
+	 */
+	protected boolean lazy = false;
+
+	/**
+	 * Reader of the binary treespace file this tree representation was
+	 * opened from, or null
+	 */
+	protected IOBinaryTreespaceFileReader binaryTreespaceFileReader;
+
+	/**
+	 * Horizontal range of the document outside of which trees are culled as
+	 * {min x, max x}, or null in case trees are not culled
+	 */
+	protected float cullRange[];
+
 	/**
 	 * Mdom vector for this tree representation
 	 */
@@ -127,6 +180,41 @@ public class TreeRepresentation {
 	 */
 	protected MetaGroupElement metaGroupElement;
 
+	/**
+	 * Boolean indicating whether attribute writes are deferred
+	 */
+	protected boolean deferredWriteMode = false;
+
+	/**
+	 * Vector containing the elements with deferred attribute writes
+	 */
+	protected Vector<SVGElement> dirtyElementVector = new Vector<SVGElement>();
+
+	/**
+	 * Number of dom attribute writes since the start of the last drawing pass
+	 */
+	protected int domWriteCount = 0;
+
+	/**
+	 * Spatial index over the node rectangles of this tree representation
+	 */
+	protected NodeSpatialIndex nodeSpatialIndex = new NodeSpatialIndex(this);
+
+	/**
+	 * Registered elements, keyed by dom element
+	 */
+	protected IdentityHashMap<AbstractElement, SVGElement> elementMap = new IdentityHashMap<AbstractElement, SVGElement>();
+
+	/**
+	 * Registered elements, keyed by identifier
+	 */
+	protected HashMap<String, SVGElement> idMap = new HashMap<String, SVGElement>();
+
+	/**
+	 * Allocator for the identifiers of the trees
+	 */
+	protected IdentifierAllocator treeIdentifierAllocator = new IdentifierAllocator();
+
 	/**
 	 * Constructs a new generic tree representation.
 	 * 
@@ -139,11 +227,13 @@ public class TreeRepresentation {
 
 		// tree group element
 		treeGroupElement = new TreeGroupElement(this);
+		treeGroupElement.register();
 		svgDocument.getDocumentElement().appendChild(
 				treeGroupElement.getElement());
 
 		// meta group element
 		metaGroupElement = new MetaGroupElement(this);
+		metaGroupElement.register();
 		svgDocument.getDocumentElement().appendChild(
 				metaGroupElement.getElement());
 
@@ -161,32 +251,104 @@ public class TreeRepresentation {
 	 *            the SVG XML file
 	 */
 	public TreeRepresentation(TreeEditorBridge treeEditorBridge, File svgXMLFile) {
-		this.treeEditorBridge = treeEditorBridge;
-		svgDocument = new SVGDocument(svgXMLFile);
+		this(treeEditorBridge, svgXMLFile, false);
+	}
 
-		// tree group element
-		treeGroupElement = new TreeGroupElement(this, svgDocument);
+	/**
+	 * Constructs a new generic tree representation from a SVG XML file. In
+	 * case lazy materialization is requested and the file contains more than
+	 * LAZY_TREE_THRESHOLD trees, only the first LAZY_INITIAL_TREES trees, and
+	 * the trees that are related by multidominance, are materialized. The
+	 * other trees are hidden, so that no graphics nodes are built for them,
+	 * and are only kept as a record until they are materialized.
+	 * 
+	 * In case the file is a binary treespace file, the trees are decoded
+	 * from the memory-mapped file when they are first accessed, rather than
+	 * parsed as a whole.
+	 * 
+	 * @param treeEditorBridge
+	 *            bridge between graphical and bracket structure
+	 * @param svgXMLFile
+	 *            the SVG XML file, or a binary treespace file
+	 * @param lazy
+	 *            boolean indicating whether trees may be materialized lazily
+	 */
+	public TreeRepresentation(TreeEditorBridge treeEditorBridge,
+			File svgXMLFile, boolean lazy) {
+		this(treeEditorBridge, svgXMLFile, lazy, null);
+	}
 
-		// meta group element
-		metaGroupElement = new MetaGroupElement(this, svgDocument);
+	/**
+	 * Constructs a new generic tree representation from a SVG XML file, or a
+	 * binary treespace file, and replays the specified edit journal onto it
+	 * before any tree is materialized.
+	 * 
+	 * @param treeEditorBridge
+	 *            bridge between graphical and bracket structure
+	 * @param svgXMLFile
+	 *            the SVG XML file, or a binary treespace file
+	 * @param lazy
+	 *            boolean indicating whether trees may be materialized lazily
+	 * @param journalFile
+	 *            the edit journal to replay, or null
+	 */
+	public TreeRepresentation(TreeEditorBridge treeEditorBridge,
+			File svgXMLFile, boolean lazy, File journalFile) {
+		this.treeEditorBridge = treeEditorBridge;
+		treeVector = new Vector<TreeElement>();
 
 		// node list
 		NodeList nodeList;
 
-		// tree vectors
-		treeVector = new Vector<TreeElement>();
-		nodeList = treeGroupElement.getElement().getChildNodes();
-		for (int i = 0; i < nodeList.getLength(); i++) {
-			if (nodeList.item(i).getNodeName().compareTo("g") == 0) {
-				AbstractElement element = (AbstractElement) nodeList.item(i);
-				String id = element.getAttribute("id");
-				if (id.substring(0, TREE_IDENTIFIER_PREFIX.length()).compareTo(
-						TREE_IDENTIFIER_PREFIX) == 0) {
-					treeVector.add(new TreeElement(this, element));
+		// tree records
+		if (IOBinaryTreespaceFileFilter.isBinaryTreespaceFile(svgXMLFile)) {
+			openBinaryTreespaceFile(svgXMLFile);
+		} else {
+			svgDocument = new SVGDocument(svgXMLFile);
+
+			// tree group element
+			treeGroupElement = new TreeGroupElement(this, svgDocument);
+			treeGroupElement.register();
+
+			// meta group element
+			metaGroupElement = new MetaGroupElement(this, svgDocument);
+			metaGroupElement.register();
+
+			nodeList = treeGroupElement.getElement().getChildNodes();
+			for (int i = 0; i < nodeList.getLength(); i++) {
+				if (nodeList.item(i).getNodeName().compareTo("g") == 0) {
+					AbstractElement element = (AbstractElement) nodeList
+							.item(i);
+					String id = element.getAttribute("id");
+					if (id.substring(0, TREE_IDENTIFIER_PREFIX.length())
+							.compareTo(TREE_IDENTIFIER_PREFIX) == 0) {
+						TreeRecord treeRecord = new TreeRecord(element);
+						treeRecordVector.add(treeRecord);
+						treeRecordMap.put(element, treeRecord);
+						treeIdentifierAllocator.claim(IdentifierAllocator
+								.parseIndex(id));
+					}
 				}
 			}
 		}
 
+		// edit journal
+		if (journalFile != null)
+			IOEditJournal.replay(journalFile, this);
+
+		// tree vector
+		this.lazy = lazy && treeRecordVector.size() > LAZY_TREE_THRESHOLD;
+		for (int i = 0; i < treeRecordVector.size(); i++) {
+			TreeRecord treeRecord = treeRecordVector.elementAt(i);
+			if (!this.lazy || i < LAZY_INITIAL_TREES) {
+				materializeTree(treeRecord);
+			} else {
+				if (treeRecord.isDecoded())
+					treeRecord.estimateExtent();
+				treeRecord.setHidden(true);
+			}
+		}
+
 		// mdom vector
 		mdomVector = new Vector<MdomBranchElement>();
 		nodeList = metaGroupElement.getElement().getChildNodes();
@@ -196,12 +358,354 @@ public class TreeRepresentation {
 				String id = element.getAttribute("id");
 				if (id.substring(0, MDOM_BRANCH_IDENTIFIER_PREFIX.length())
 						.compareTo(MDOM_BRANCH_IDENTIFIER_PREFIX) == 0) {
-					mdomVector.add(new MdomBranchElement(this, element));
+					materializeTree(getTreeRecordByNodeId(element
+							.getAttribute("mother")));
+					materializeTree(getTreeRecordByNodeId(element
+							.getAttribute("daughter")));
+					MdomBranchElement mdomBranchElement = new MdomBranchElement(
+							this, element);
+					mdomBranchElement.register();
+					mdomVector.add(mdomBranchElement);
 				}
 			}
 		}
 	}
 
+	/**
+	 * Opens the specified binary treespace file. An empty dom element is
+	 * created for every tree, into which the tree is decoded on first access,
+	 * and the multidominance branches are decoded into the multidominance
+	 * group.
+	 * 
+	 * @param binaryTreespaceFile
+	 *            the binary treespace file
+	 */
+	protected void openBinaryTreespaceFile(File binaryTreespaceFile) {
+		svgDocument = new SVGDocument();
+
+		// tree group element
+		treeGroupElement = new TreeGroupElement(this);
+		treeGroupElement.register();
+		svgDocument.getDocumentElement().appendChild(
+				treeGroupElement.getElement());
+
+		// meta group element
+		metaGroupElement = new MetaGroupElement(this);
+		metaGroupElement.register();
+		svgDocument.getDocumentElement().appendChild(
+				metaGroupElement.getElement());
+
+		try {
+			binaryTreespaceFileReader = new IOBinaryTreespaceFileReader(
+					binaryTreespaceFile);
+		} catch (Exception e) {
+			System.err
+					.println("[TreeRepresentation::openBinaryTreespaceFile()] unable to read "
+							+ binaryTreespaceFile.getPath());
+			e.printStackTrace();
+			return;
+		}
+
+		// tree records
+		for (int i = 0; i < binaryTreespaceFileReader.getNumberOfTrees(); i++) {
+			String id = binaryTreespaceFileReader.getTreeId(i);
+			AbstractElement element = (AbstractElement) svgDocument
+					.getDocument().createElementNS(svgDocument.getNamespace(),
+							"g");
+			element.setAttribute("id", id);
+			float translate[] = binaryTreespaceFileReader.getTreeTranslate(i);
+			element.setAttribute("transform", "translate(" + translate[0]
+					+ "," + translate[1] + ")");
+			treeGroupElement.getElement().appendChild(element);
+			TreeRecord treeRecord = new TreeRecord(element,
+					binaryTreespaceFileReader, i);
+			treeRecordVector.add(treeRecord);
+			treeRecordMap.put(element, treeRecord);
+			treeIdentifierAllocator.claim(IdentifierAllocator.parseIndex(id));
+		}
+
+		// mdoms
+		for (int i = 0; i < binaryTreespaceFileReader.getNumberOfMdoms(); i++)
+			metaGroupElement.getElement().appendChild(
+					binaryTreespaceFileReader.decodeMdom(i, svgDocument
+							.getDocument(), svgDocument.getNamespace()));
+	}
+
+	/**
+	 * Restores the tree with the specified index of the specified binary
+	 * treespace image at the specified position, replacing the tree with the
+	 * same identifier, if any. The restored tree is not materialized.
+	 * 
+	 * @param binaryTreespaceFileReader
+	 *            reader of the binary treespace image
+	 * @param index
+	 *            index of the tree in the image
+	 * @param position
+	 *            position of the tree among the trees of this representation
+	 */
+	public void restoreTree(
+			IOBinaryTreespaceFileReader binaryTreespaceFileReader, int index,
+			int position) {
+		String id = binaryTreespaceFileReader.getTreeId(index);
+		discardTree(id);
+		AbstractElement element = (AbstractElement) svgDocument.getDocument()
+				.createElementNS(svgDocument.getNamespace(), "g");
+		element.setAttribute("id", id);
+		float translate[] = binaryTreespaceFileReader.getTreeTranslate(index);
+		element.setAttribute("transform", "translate(" + translate[0] + ","
+				+ translate[1] + ")");
+		position = Math.max(0, Math.min(position, treeRecordVector.size()));
+		if (position < treeRecordVector.size())
+			treeGroupElement.getElement().insertBefore(element,
+					treeRecordVector.elementAt(position)
+							.getContainerElement());
+		else
+			treeGroupElement.getElement().appendChild(element);
+		TreeRecord treeRecord = new TreeRecord(element,
+				binaryTreespaceFileReader, index);
+		treeRecordVector.insertElementAt(treeRecord, position);
+		treeRecordMap.put(element, treeRecord);
+		treeIdentifierAllocator.claim(IdentifierAllocator.parseIndex(id));
+	}
+
+	/**
+	 * Discards the tree with the specified identifier, in case there is such
+	 * a tree.
+	 * 
+	 * @param id
+	 *            tree identifier
+	 */
+	public void discardTree(String id) {
+		for (int i = 0; i < treeRecordVector.size(); i++) {
+			TreeRecord treeRecord = treeRecordVector.elementAt(i);
+			if (treeRecord.getId().compareTo(id) != 0)
+				continue;
+			AbstractElement element = treeRecord.getContainerElement();
+			treeRecord.setCulled(false);
+			if (treeRecord.isMaterialized()) {
+				treeVector.remove(treeRecord.getTreeElement());
+				treeRecord.getTreeElement().unregister();
+				nodeSpatialIndex.invalidate(treeRecord.getTreeElement());
+			}
+			treeGroupElement.getElement().removeChild(element);
+			treeRecordMap.remove(element);
+			treeRecordVector.removeElementAt(i);
+			treeIdentifierAllocator.release(IdentifierAllocator.parseIndex(id));
+			return;
+		}
+	}
+
+	/**
+	 * Replaces the multidominance branches of the multidominance group by
+	 * those of the specified binary treespace image. This is only meaningful
+	 * before the multidominance branches are materialized.
+	 * 
+	 * @param binaryTreespaceFileReader
+	 *            reader of the binary treespace image
+	 */
+	public void restoreMdoms(
+			IOBinaryTreespaceFileReader binaryTreespaceFileReader) {
+		AbstractElement groupElement = metaGroupElement.getElement();
+		Node node = groupElement.getFirstChild();
+		while (node != null) {
+			Node nextNode = node.getNextSibling();
+			if (node.getNodeType() == Node.ELEMENT_NODE
+					&& ((AbstractElement) node).getAttribute("id").startsWith(
+							MDOM_BRANCH_IDENTIFIER_PREFIX))
+				groupElement.removeChild(node);
+			node = nextNode;
+		}
+		for (int i = 0; i < binaryTreespaceFileReader.getNumberOfMdoms(); i++)
+			groupElement.appendChild(binaryTreespaceFileReader.decodeMdom(i,
+					svgDocument.getDocument(), svgDocument.getNamespace()));
+	}
+
+	/**
+	 * Decodes all trees that were opened from a binary treespace file and
+	 * have not been decoded yet, so that the whole document can be
+	 * serialized or copied.
+	 */
+	public void decodeTrees() {
+		for (int i = 0; i < treeRecordVector.size(); i++)
+			treeRecordVector.elementAt(i).getElement();
+	}
+
+	/**
+	 * Materializes the tree of the specified record, in case it is not
+	 * materialized yet. The tree is wrapped into its tree element, inserted
+	 * into the tree vector in document order, and shown.
+	 * 
+	 * @param treeRecord
+	 *            tree record, or null
+	 * @return the materialized tree element, or null in case the tree was
+	 *         already materialized
+	 */
+	public TreeElement materializeTree(TreeRecord treeRecord) {
+		if (treeRecord == null || treeRecord.isMaterialized())
+			return null;
+		TreeElement treeElement = new TreeElement(this, treeRecord
+				.getElement());
+		treeRecord.setTreeElement(treeElement);
+		treeElement.register();
+		int index = 0;
+		for (int i = 0; i < treeRecordVector.size(); i++) {
+			TreeRecord precedingTreeRecord = treeRecordVector.elementAt(i);
+			if (precedingTreeRecord == treeRecord)
+				break;
+			if (precedingTreeRecord.isMaterialized())
+				index++;
+		}
+		treeVector.insertElementAt(treeElement, index);
+		nodeSpatialIndex.invalidate(treeElement);
+		treeRecord.setHidden(false);
+		return treeElement;
+	}
+
+	/**
+	 * Materializes the unmaterialized trees that overlap the specified
+	 * horizontal range of the document, and whose estimated width is at
+	 * least the specified minimum width.
+	 * 
+	 * @param minX
+	 *            minimum x-coordinate
+	 * @param maxX
+	 *            maximum x-coordinate
+	 * @param minWidth
+	 *            minimum width
+	 * @return number of materialized trees
+	 */
+	public int materializeTrees(float minX, float maxX, float minWidth) {
+		int materializedCount = 0;
+		for (int i = 0; i < treeRecordVector.size(); i++) {
+			TreeRecord treeRecord = treeRecordVector.elementAt(i);
+			if (treeRecord.isMaterialized()
+					|| treeRecord.getWidth() < minWidth)
+				continue;
+			float extent[] = treeRecord.getExtent();
+			float x = treeRecord.getXTranslate();
+			if (x + extent[2] < minX || x + extent[0] > maxX)
+				continue;
+			materializeTree(treeRecord);
+			materializedCount++;
+		}
+		return materializedCount;
+	}
+
+	/**
+	 * Sets the horizontal range of the document that is visible, so that the
+	 * materialized trees outside of this range, widened by a margin, are
+	 * culled by cullTrees().
+	 * 
+	 * @param minX
+	 *            minimum x-coordinate
+	 * @param maxX
+	 *            maximum x-coordinate
+	 */
+	public void setCullRange(float minX, float maxX) {
+		float margin = CULL_MARGIN * (maxX - minX);
+		cullRange = new float[] { minX - margin, maxX + margin };
+	}
+
+	/**
+	 * Culls the materialized trees that lie outside of the cull range, and
+	 * restores the culled trees that lie within it. Culled trees are hidden,
+	 * so that they have no graphics nodes to render while they are off
+	 * screen.
+	 * 
+	 * @return number of trees that were culled or restored
+	 */
+	public int cullTrees() {
+		if (cullRange == null)
+			return 0;
+		int changedCount = 0;
+		for (int i = 0; i < treeVector.size(); i++) {
+			TreeElement treeElement = treeVector.elementAt(i);
+			TreeRecord treeRecord = treeRecordMap.get(treeElement
+					.getElement());
+			if (treeRecord == null)
+				continue;
+			boolean culled = false;
+			NodeElement rootNode = treeElement.getRootNode();
+			if (rootNode != null) {
+				float rootBounds[] = rootNode.getBounds();
+				float x = rootNode.getAbsoluteXTranslate();
+				culled = rootBounds[2] + x < cullRange[0]
+						|| rootBounds[0] + x > cullRange[1];
+			}
+			if (culled != treeRecord.isCulled()) {
+				treeRecord.setCulled(culled);
+				changedCount++;
+			}
+		}
+		return changedCount;
+	}
+
+	/**
+	 * Restores the culled tree that contains the specified dom element, so
+	 * that the element can be measured.
+	 * 
+	 * @param element
+	 *            dom element
+	 * @return true in case a culled tree was restored, false otherwise
+	 */
+	public boolean uncullTree(AbstractElement element) {
+		for (Node node = element; node != null; node = node.getParentNode()) {
+			TreeRecord treeRecord = treeRecordMap.get(node);
+			if (treeRecord == null)
+				continue;
+			if (!treeRecord.isCulled())
+				return false;
+			treeRecord.setCulled(false);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the bounds of the materialized trees as {min x, min y, max x,
+	 * max y}, or null in case no tree is materialized.
+	 * 
+	 * @return bounds
+	 */
+	public float[] getMaterializedBounds() {
+		float bounds[] = null;
+		for (int i = 0; i < treeVector.size(); i++) {
+			NodeElement rootNode = treeVector.elementAt(i).getRootNode();
+			if (rootNode == null)
+				continue;
+			float rootBounds[] = rootNode.getBounds();
+			float x = rootNode.getAbsoluteXTranslate();
+			float y = rootNode.getAbsoluteYTranslate();
+			if (bounds == null)
+				bounds = new float[] { rootBounds[0] + x, rootBounds[1] + y,
+						rootBounds[2] + x, rootBounds[3] + y };
+			NodeElement.extendBounds(bounds, rootBounds[0] + x, rootBounds[1]
+					+ y);
+			NodeElement.extendBounds(bounds, rootBounds[2] + x, rootBounds[3]
+					+ y);
+		}
+		return bounds;
+	}
+
+	/**
+	 * Returns the record of the tree that contains the node with the
+	 * specified identifier, or null in case there is no such tree.
+	 * 
+	 * @param nodeId
+	 *            node identifier
+	 * @return tree record
+	 */
+	protected TreeRecord getTreeRecordByNodeId(String nodeId) {
+		int i = nodeId == null ? -1 : nodeId.indexOf('@');
+		if (i < 0)
+			return null;
+		String treeId = nodeId.substring(i + 1);
+		for (int z = 0; z < treeRecordVector.size(); z++)
+			if (treeRecordVector.elementAt(z).getId().compareTo(treeId) == 0)
+				return treeRecordVector.elementAt(z);
+		return null;
+	}
+
 	/**
 	 * Creates a new tree for this tree representation.
 	 * 
@@ -211,7 +715,10 @@ public class TreeRepresentation {
 		TreeElement treeElement = new TreeElement(this);
 		treeGroupElement.getElement().appendChild(treeElement.getElement());
 		treeElement.createRootNode();
+		treeElement.register();
 		treeVector.add(treeElement);
+		nodeSpatialIndex.invalidate(treeElement);
+		addTreeRecord(treeElement);
 		return treeElement;
 	}
 
@@ -224,6 +731,11 @@ public class TreeRepresentation {
 	public void addTree(TreeElement treeElement) {
 		treeGroupElement.getElement().appendChild(treeElement.getElement());
 		treeVector.add(treeElement);
+		nodeSpatialIndex.invalidate(treeElement);
+		addTreeRecord(treeElement);
+		treeElement.register();
+		treeIdentifierAllocator.claim(IdentifierAllocator
+				.parseIndex(treeElement.getId()));
 	}
 
 	/**
@@ -233,19 +745,41 @@ public class TreeRepresentation {
 	 *            tree element
 	 */
 	public void removeTree(TreeElement treeElement) {
-		if (treeVector.size() > 1) {
+		if (treeRecordVector.size() > 1) {
+			TreeRecord treeRecord = treeRecordMap.remove(treeElement
+					.getElement());
+			if (treeRecord != null)
+				treeRecord.setCulled(false);
 			treeGroupElement.getElement().removeChild(treeElement.getElement());
 			treeVector.remove(treeElement);
-		}					
+			treeRecordVector.remove(treeRecord);
+			treeElement.unregister();
+			treeIdentifierAllocator.release(IdentifierAllocator
+					.parseIndex(treeElement.getId()));
+			nodeSpatialIndex.invalidate(treeElement);
+		}
+	}
+
+	/**
+	 * Appends a record for the specified materialized tree.
+	 * 
+	 * @param treeElement
+	 *            tree element
+	 */
+	protected void addTreeRecord(TreeElement treeElement) {
+		TreeRecord treeRecord = new TreeRecord(treeElement);
+		treeRecordVector.add(treeRecord);
+		treeRecordMap.put(treeElement.getElement(), treeRecord);
 	}
 
 	/**
-	 * Returns the number of trees in this representation.
+	 * Returns the number of trees in this representation, including the
+	 * trees that are not materialized.
 	 * 
 	 * @return number of trees
 	 */
 	public int getNumberOfTrees() {
-		return getTreeVector().size();
+		return treeRecordVector.size();
 	}
 
 	/**
@@ -273,6 +807,7 @@ public class TreeRepresentation {
 				motherNode);
 		metaGroupElement.getElement().appendChild(
 				mdomBranchElement.getElement());
+		mdomBranchElement.register();
 		mdomVector.add(mdomBranchElement);
 	}
 
@@ -295,7 +830,8 @@ public class TreeRepresentation {
 	}
 
 	/**
-	 * Returns the tree vector for this representation.
+	 * Returns the tree vector for this representation, which contains the
+	 * materialized trees in document order.
 	 * 
 	 * @return tree vector
 	 */
@@ -303,6 +839,130 @@ public class TreeRepresentation {
 		return treeVector;
 	}
 
+	/**
+	 * Returns the records of all of the trees of this representation, in
+	 * document order.
+	 * 
+	 * @return tree record vector
+	 */
+	public Vector<TreeRecord> getTreeRecordVector() {
+		return treeRecordVector;
+	}
+
+	/**
+	 * Returns the record of the tree with the specified dom element, or null
+	 * in case there is no such tree.
+	 * 
+	 * @param element
+	 *            dom element
+	 * @return tree record
+	 */
+	public TreeRecord getTreeRecord(AbstractElement element) {
+		return treeRecordMap.get(element);
+	}
+
+	/**
+	 * Returns the reader of the binary treespace file this tree
+	 * representation was opened from, or null in case it was not opened from
+	 * a binary treespace file.
+	 * 
+	 * @return binary treespace file reader
+	 */
+	public IOBinaryTreespaceFileReader getBinaryTreespaceFileReader() {
+		return binaryTreespaceFileReader;
+	}
+
+	/**
+	 * Returns a boolean indicating whether trees are materialized lazily.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isLazy() {
+		return lazy;
+	}
+
+	/**
+	 * Returns the spatial index over the node rectangles of this
+	 * representation.
+	 * 
+	 * @return node spatial index
+	 */
+	public NodeSpatialIndex getNodeSpatialIndex() {
+		return nodeSpatialIndex;
+	}
+
+	/**
+	 * Returns the allocator for the identifiers of the trees.
+	 * 
+	 * @return tree identifier allocator
+	 */
+	public IdentifierAllocator getTreeIdentifierAllocator() {
+		return treeIdentifierAllocator;
+	}
+
+	/**
+	 * Registers the specified element by its dom element, and by its
+	 * identifier in case it has one.
+	 * 
+	 * @param svgElement
+	 *            svg element
+	 */
+	public synchronized void registerElement(SVGElement svgElement) {
+		elementMap.put(svgElement.getElement(), svgElement);
+		String id = svgElement.getId();
+		if (id != null && id.length() > 0)
+			idMap.put(id, svgElement);
+	}
+
+	/**
+	 * Unregisters the specified element. Mappings that have since been taken
+	 * over by another element are left untouched.
+	 * 
+	 * @param svgElement
+	 *            svg element
+	 */
+	public synchronized void unregisterElement(SVGElement svgElement) {
+		if (elementMap.get(svgElement.getElement()) == svgElement)
+			elementMap.remove(svgElement.getElement());
+		unregisterId(svgElement);
+	}
+
+	/**
+	 * Unregisters the identifier of the specified element.
+	 * 
+	 * @param svgElement
+	 *            svg element
+	 */
+	public synchronized void unregisterId(SVGElement svgElement) {
+		String id = svgElement.getId();
+		if (id != null && idMap.get(id) == svgElement)
+			idMap.remove(id);
+	}
+
+	/**
+	 * Returns the registered element that wraps the specified dom element, or
+	 * null in case there is no such element.
+	 * 
+	 * @param element
+	 *            dom element
+	 * @return svg element
+	 */
+	public synchronized SVGElement getSVGElement(AbstractElement element) {
+		return elementMap.get(element);
+	}
+
+	/**
+	 * Returns the registered element that possesses the specified identifier,
+	 * or null in case there is no such element.
+	 * 
+	 * @param id
+	 *            identifier
+	 * @return svg element
+	 */
+	public synchronized SVGElement getSVGElementById(String id) {
+		return idMap.get(id);
+	}
+
 	/**
 	 * Returns the mdom vector for this representation.
 	 * 
@@ -329,4 +989,66 @@ public class TreeRepresentation {
 	public SVGDocument getSVGDocument() {
 		return svgDocument;
 	}
+
+	/**
+	 * Sets the deferred write mode. While attribute writes are deferred, the
+	 * elements only update their cached values and are marked dirty. Enabling
+	 * the deferred write mode starts a new drawing pass and resets the dom
+	 * write counter; disabling it flushes all of the dirty elements.
+	 * 
+	 * @param deferredWriteMode
+	 *            boolean
+	 */
+	public void setDeferredWriteMode(boolean deferredWriteMode) {
+		if (deferredWriteMode)
+			domWriteCount = 0;
+		else
+			flushDirtyElements();
+		this.deferredWriteMode = deferredWriteMode;
+	}
+
+	/**
+	 * Returns a boolean indicating whether attribute writes are deferred.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isDeferredWriteMode() {
+		return deferredWriteMode;
+	}
+
+	/**
+	 * Marks the specified element as having deferred attribute writes.
+	 * 
+	 * @param svgElement
+	 *            svg element
+	 */
+	public void addDirtyElement(SVGElement svgElement) {
+		dirtyElementVector.add(svgElement);
+	}
+
+	/**
+	 * Writes the deferred attributes of all of the dirty elements.
+	 */
+	public void flushDirtyElements() {
+		for (int i = 0; i < dirtyElementVector.size(); i++)
+			dirtyElementVector.elementAt(i).flush();
+		dirtyElementVector.clear();
+	}
+
+	/**
+	 * Counts a single dom attribute write.
+	 */
+	public void countDOMWrite() {
+		domWriteCount++;
+	}
+
+	/**
+	 * Returns the number of dom attribute writes since the start of the last
+	 * drawing pass.
+	 * 
+	 * @return number of dom writes
+	 */
+	public int getDOMWriteCount() {
+		return domWriteCount;
+	}
 }
\ No newline at end of file
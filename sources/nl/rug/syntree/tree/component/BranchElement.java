@@ -158,14 +158,8 @@ public class BranchElement extends SVGElement {
 	 *            x-coordinate
 	 */
 	public void setX1(float x1) {
-		if (isLine())
-			element.setAttribute("points", x1 + "," + this.getY1() + " "
-					+ this.getX2() + "," + this.getY2());
-		if (isTriangle())
-			element.setAttribute("points", x1 + "," + this.getY1() + " "
-					+ this.getX2() + "," + this.getY2() + " " + this.getX3()
-					+ "," + this.getY3());
 		this.cachedX1 = x1;
+		writePoints();
 	}
 
 	/**
@@ -175,14 +169,8 @@ public class BranchElement extends SVGElement {
 	 *            y-coordinate
 	 */
 	public void setY1(float y1) {
-		if (isLine())
-			element.setAttribute("points", this.getX1() + "," + y1 + " "
-					+ this.getX2() + "," + this.getY2());
-		if (isTriangle())
-			element.setAttribute("points", this.getX1() + "," + y1 + " "
-					+ this.getX2() + "," + this.getY2() + " " + this.getX3()
-					+ "," + this.getY3());
 		this.cachedY1 = y1;
+		writePoints();
 	}
 
 	/**
@@ -192,14 +180,8 @@ public class BranchElement extends SVGElement {
 	 *            x-coordinate
 	 */
 	public void setX2(float x2) {
-		if (isLine())
-			element.setAttribute("points", this.getX1() + "," + this.getY1()
-					+ " " + x2 + "," + this.getY2());
-		if (isTriangle())
-			element.setAttribute("points", this.getX1() + "," + this.getY1()
-					+ " " + x2 + "," + this.getY2() + " " + this.getX3() + ","
-					+ this.getY3());
 		this.cachedX2 = x2;
+		writePoints();
 	}
 
 	/**
@@ -209,14 +191,8 @@ public class BranchElement extends SVGElement {
 	 *            y-coordinate
 	 */
 	public void setY2(float y2) {
-		if (isLine())
-			element.setAttribute("points", this.getX1() + "," + this.getY1()
-					+ " " + this.getX2() + "," + y2);
-		if (isTriangle())
-			element.setAttribute("points", this.getX1() + "," + this.getY1()
-					+ " " + this.getX2() + "," + y2 + " " + this.getX3() + ","
-					+ this.getY3());
 		this.cachedY2 = y2;
+		writePoints();
 	}
 
 	/**
@@ -226,11 +202,9 @@ public class BranchElement extends SVGElement {
 	 *            x-coordinate
 	 */
 	public void setX3(float x3) {
-		if (isTriangle())
-			element.setAttribute("points", this.getX1() + "," + this.getY1()
-					+ " " + this.getX2() + "," + this.getY2() + " " + x3 + ","
-					+ this.getY3());
 		this.cachedX3 = x3;
+		if (isTriangle())
+			writePoints();
 	}
 
 	/**
@@ -240,11 +214,22 @@ public class BranchElement extends SVGElement {
 	 *            y-coordinate
 	 */
 	public void setY3(float y3) {
-		if (isTriangle())
-			element.setAttribute("points", this.getX1() + "," + this.getY1()
-					+ " " + this.getX2() + "," + this.getY2() + " "
-					+ this.getX3() + "," + y3);
 		this.cachedY3 = y3;
+		if (isTriangle())
+			writePoints();
+	}
+
+	/**
+	 * Writes the points attribute of this branch element from the cached
+	 * coordinates.
+	 */
+	protected void writePoints() {
+		if (isLine())
+			setAttribute("points", getX1() + "," + getY1() + " " + getX2()
+					+ "," + getY2());
+		if (isTriangle())
+			setAttribute("points", getX1() + "," + getY1() + " " + getX2()
+					+ "," + getY2() + " " + getX3() + "," + getY3());
 	}
 
 	/**
@@ -310,12 +295,12 @@ public class BranchElement extends SVGElement {
 	public void setType(String type) {
 		this.type = type;
 		if (type.compareTo(LINE) == 0) {
-			element.setAttribute("type", LINE);
-			element.setAttribute("points", "0.0,0.0 0.0,0.0");
+			setAttribute("type", LINE);
+			setAttribute("points", "0.0,0.0 0.0,0.0");
 		}
 		if (type.compareTo(TRIANGLE) == 0) {
-			element.setAttribute("type", TRIANGLE);
-			element.setAttribute("points", "0.0,0.0 0.0,0.0 0.0,0.0");
+			setAttribute("type", TRIANGLE);
+			setAttribute("points", "0.0,0.0 0.0,0.0 0.0,0.0");
 		}
 	}
 
@@ -359,7 +344,7 @@ public class BranchElement extends SVGElement {
 	 *            style
 	 */
 	public void setStyle(String style) {
-		element.setAttribute("style", style);
+		setAttribute("style", style);
 		this.style = style;
 	}
 
@@ -372,6 +357,24 @@ public class BranchElement extends SVGElement {
 		return style;
 	}
 
+	/**
+	 * Registers this branch and its rectangle with the tree representation.
+	 */
+	public void register() {
+		super.register();
+		if (branchRectElement != null)
+			branchRectElement.register();
+	}
+
+	/**
+	 * Unregisters this branch and its rectangle from the tree representation.
+	 */
+	public void unregister() {
+		super.unregister();
+		if (branchRectElement != null)
+			branchRectElement.unregister();
+	}
+
 	/**
 	 * Returns the branch rectangle element.
 	 * 
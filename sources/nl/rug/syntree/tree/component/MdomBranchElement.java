@@ -96,12 +96,6 @@ public class MdomBranchElement extends SVGElement {
 		mdomBranchPathElement = new MdomBranchPathElement(treeRepresentation,
 				this);
 		element.appendChild(mdomBranchPathElement.getElement());
-
-		// event listeners
-		treeRepresentation.getTreeEditorBridge()
-				.addMdomBranchBackgroundPathElementEventListeners(this);
-		treeRepresentation.getTreeEditorBridge()
-				.addMdomBranchPathElementEventListeners(this);
 	}
 
 	/**
@@ -120,36 +114,19 @@ public class MdomBranchElement extends SVGElement {
 		// mother node
 		String motherNodeId = element.getAttribute("mother");
 		if (motherNodeId != null) {
-			Vector<TreeElement> treeVector = treeRepresentation.getTreeVector();
-			for (int i = 0; i < treeVector.size(); i++) {
-				Vector<NodeElement> nodeVector = treeVector.elementAt(i)
-						.getNodeVector();
-				for (int x = 0; x < nodeVector.size(); x++) {
-					if (nodeVector.elementAt(x).getId().compareTo(motherNodeId) == 0) {
-						motherNode = nodeVector.elementAt(x);
-						x = nodeVector.size();
-						i = treeVector.size();
-					}
-				}
-			}
+			SVGElement svgElement = treeRepresentation
+					.getSVGElementById(motherNodeId);
+			if (svgElement instanceof NodeElement)
+				motherNode = (NodeElement) svgElement;
 		}
 
 		// daughter node
 		String daughterNodeId = element.getAttribute("daughter");
 		if (daughterNodeId != null) {
-			Vector<TreeElement> treeVector = treeRepresentation.getTreeVector();
-			for (int i = 0; i < treeVector.size(); i++) {
-				Vector<NodeElement> nodeVector = treeVector.elementAt(i)
-						.getNodeVector();
-				for (int x = 0; x < nodeVector.size(); x++) {
-					if (nodeVector.elementAt(x).getId().compareTo(
-							daughterNodeId) == 0) {
-						daughterNode = nodeVector.elementAt(x);
-						x = nodeVector.size();
-						i = treeVector.size();
-					}
-				}
-			}
+			SVGElement svgElement = treeRepresentation
+					.getSVGElementById(daughterNodeId);
+			if (svgElement instanceof NodeElement)
+				daughterNode = (NodeElement) svgElement;
 		}
 
 		// path elements
@@ -166,8 +143,6 @@ public class MdomBranchElement extends SVGElement {
 							TreeRepresentation.MDOM_BRANCH_BACKGROUND_PATH_IDENTIFIER_PREFIX) == 0) {
 				mdomBranchBackgroundPathElement = new MdomBranchBackgroundPathElement(
 						treeRepresentation, this, childElement);
-				treeRepresentation.getTreeEditorBridge()
-						.addMdomBranchBackgroundPathElementEventListeners(this);
 			}
 			if (id.substring(
 					0,
@@ -176,8 +151,6 @@ public class MdomBranchElement extends SVGElement {
 					TreeRepresentation.MDOM_BRANCH_PATH_IDENTIFIER_PREFIX) == 0) {
 				mdomBranchPathElement = new MdomBranchPathElement(
 						treeRepresentation, this, childElement);
-				treeRepresentation.getTreeEditorBridge()
-						.addMdomBranchPathElementEventListeners(this);
 			}
 		}
 	}
@@ -245,4 +218,28 @@ public class MdomBranchElement extends SVGElement {
 	public MdomBranchBackgroundPathElement getMdomBranchBackgroundPathElement() {
 		return mdomBranchBackgroundPathElement;
 	}
+
+	/**
+	 * Registers this mdom branch and its path elements with the tree
+	 * representation.
+	 */
+	public void register() {
+		super.register();
+		if (mdomBranchBackgroundPathElement != null)
+			mdomBranchBackgroundPathElement.register();
+		if (mdomBranchPathElement != null)
+			mdomBranchPathElement.register();
+	}
+
+	/**
+	 * Unregisters this mdom branch and its path elements from the tree
+	 * representation.
+	 */
+	public void unregister() {
+		super.unregister();
+		if (mdomBranchBackgroundPathElement != null)
+			mdomBranchBackgroundPathElement.unregister();
+		if (mdomBranchPathElement != null)
+			mdomBranchPathElement.unregister();
+	}
 }
\ No newline at end of file
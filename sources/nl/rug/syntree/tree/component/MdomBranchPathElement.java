@@ -208,8 +208,9 @@ public class MdomBranchPathElement extends SVGElement {
 	 *            y-coordinate
 	 */
 	public void setMoveto(float x, float y) {
-		setMovetoX(x);
-		setMovetoY(y);
+		cachedMovetoX = x;
+		cachedMovetoY = y;
+		writePathData();
 	}
 
 	/**
@@ -219,31 +220,8 @@ public class MdomBranchPathElement extends SVGElement {
 	 *            x-coordinate
 	 */
 	public void setMovetoX(float x) {
-		// moveto
-		String moveto = MOVETO;
-		moveto += x + "," + getMovetoY();
-
-		// first curveto
-		String firstCurveto = CURVETO;
-		firstCurveto += getFirstCurvetoCP1X() + "," + getFirstCurvetoCP1Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoCP2X() + "," + getFirstCurvetoCP2Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoX() + "," + getFirstCurvetoY();
-
-		// second curveto
-		String secondCurveto = CURVETO;
-		secondCurveto += getSecondCurvetoCP1X() + "," + getSecondCurvetoCP1Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoCP2X() + "," + getSecondCurvetoCP2Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoX() + "," + getSecondCurvetoY();
-
-		// path data
-		String pathData = moveto + " " + firstCurveto + " " + secondCurveto;
-		element.setAttribute("d", pathData);
-
 		cachedMovetoX = x;
+		writePathData();
 	}
 
 	/**
@@ -253,31 +231,8 @@ public class MdomBranchPathElement extends SVGElement {
 	 *            y-coordinate
 	 */
 	public void setMovetoY(float y) {
-		// moveto
-		String moveto = MOVETO;
-		moveto += getMovetoX() + "," + y;
-
-		// first curveto
-		String firstCurveto = CURVETO;
-		firstCurveto += getFirstCurvetoCP1X() + "," + getFirstCurvetoCP1Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoCP2X() + "," + getFirstCurvetoCP2Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoX() + "," + getFirstCurvetoY();
-
-		// second curveto
-		String secondCurveto = CURVETO;
-		secondCurveto += getSecondCurvetoCP1X() + "," + getSecondCurvetoCP1Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoCP2X() + "," + getSecondCurvetoCP2Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoX() + "," + getSecondCurvetoY();
-
-		// path data
-		String pathData = moveto + " " + firstCurveto + " " + secondCurveto;
-		element.setAttribute("d", pathData);
-
 		cachedMovetoY = y;
+		writePathData();
 	}
 
 	/**
@@ -318,16 +273,17 @@ public class MdomBranchPathElement extends SVGElement {
 	public void setFirstCurveto(float x1, float y1, float x2, float y2,
 			float x, float y) {
 		// first control point
-		setFirstCurvetoCP1X(x1);
-		setFirstCurvetoCP1Y(y1);
+		cachedFirstCurvetoCP1X = x1;
+		cachedFirstCurvetoCP1Y = y1;
 
 		// second control point
-		setFirstCurvetoCP2X(x2);
-		setFirstCurvetoCP2Y(y2);
+		cachedFirstCurvetoCP2X = x2;
+		cachedFirstCurvetoCP2Y = y2;
 
 		// set curveto
-		setFirstCurvetoX(x);
-		setFirstCurvetoY(y);
+		cachedFirstCurvetoX = x;
+		cachedFirstCurvetoY = y;
+		writePathData();
 	}
 
 	/**
@@ -337,30 +293,8 @@ public class MdomBranchPathElement extends SVGElement {
 	 *            x-coordinate
 	 */
 	public void setFirstCurvetoCP1X(float x1) {
-		// moveto
-		String moveto = MOVETO;
-		moveto += getMovetoX() + "," + getMovetoY();
-
-		// first curveto
-		String firstCurveto = CURVETO;
-		firstCurveto += x1 + "," + getFirstCurvetoCP1Y() + " ";
-		firstCurveto += getFirstCurvetoCP2X() + "," + getFirstCurvetoCP2Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoX() + "," + getFirstCurvetoY();
-
-		// second curveto
-		String secondCurveto = CURVETO;
-		secondCurveto += getSecondCurvetoCP1X() + "," + getSecondCurvetoCP1Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoCP2X() + "," + getSecondCurvetoCP2Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoX() + "," + getSecondCurvetoY();
-
-		// path data
-		String pathData = moveto + " " + firstCurveto + " " + secondCurveto;
-		element.setAttribute("d", pathData);
-
 		cachedFirstCurvetoCP1X = x1;
+		writePathData();
 	}
 
 	/**
@@ -370,30 +304,8 @@ public class MdomBranchPathElement extends SVGElement {
 	 *            y-coordinate
 	 */
 	public void setFirstCurvetoCP1Y(float y1) {
-		// moveto
-		String moveto = MOVETO;
-		moveto += getMovetoX() + "," + getMovetoY();
-
-		// first curveto
-		String firstCurveto = CURVETO;
-		firstCurveto += getFirstCurvetoCP1X() + "," + y1 + " ";
-		firstCurveto += getFirstCurvetoCP2X() + "," + getFirstCurvetoCP2Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoX() + "," + getFirstCurvetoY();
-
-		// second curveto
-		String secondCurveto = CURVETO;
-		secondCurveto += getSecondCurvetoCP1X() + "," + getSecondCurvetoCP1Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoCP2X() + "," + getSecondCurvetoCP2Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoX() + "," + getSecondCurvetoY();
-
-		// path data
-		String pathData = moveto + " " + firstCurveto + " " + secondCurveto;
-		element.setAttribute("d", pathData);
-
 		cachedFirstCurvetoCP1Y = y1;
+		writePathData();
 	}
 
 	/**
@@ -423,30 +335,8 @@ public class MdomBranchPathElement extends SVGElement {
 	 *            x-coordinate
 	 */
 	public void setFirstCurvetoCP2X(float x2) {
-		// moveto
-		String moveto = MOVETO;
-		moveto += getMovetoX() + "," + getMovetoY();
-
-		// first curveto
-		String firstCurveto = CURVETO;
-		firstCurveto += getFirstCurvetoCP1X() + "," + getFirstCurvetoCP1Y()
-				+ " ";
-		firstCurveto += x2 + "," + getFirstCurvetoCP2Y() + " ";
-		firstCurveto += getFirstCurvetoX() + "," + getFirstCurvetoY();
-
-		// second curveto
-		String secondCurveto = CURVETO;
-		secondCurveto += getSecondCurvetoCP1X() + "," + getSecondCurvetoCP1Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoCP2X() + "," + getSecondCurvetoCP2Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoX() + "," + getSecondCurvetoY();
-
-		// path data
-		String pathData = moveto + " " + firstCurveto + " " + secondCurveto;
-		element.setAttribute("d", pathData);
-
 		cachedFirstCurvetoCP2X = x2;
+		writePathData();
 	}
 
 	/**
@@ -456,30 +346,8 @@ public class MdomBranchPathElement extends SVGElement {
 	 *            y-coordinate
 	 */
 	public void setFirstCurvetoCP2Y(float y2) {
-		// moveto
-		String moveto = MOVETO;
-		moveto += getMovetoX() + "," + getMovetoY();
-
-		// first curveto
-		String firstCurveto = CURVETO;
-		firstCurveto += getFirstCurvetoCP1X() + "," + getFirstCurvetoCP1Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoCP2X() + "," + y2 + " ";
-		firstCurveto += getFirstCurvetoX() + "," + getFirstCurvetoY();
-
-		// second curveto
-		String secondCurveto = CURVETO;
-		secondCurveto += getSecondCurvetoCP1X() + "," + getSecondCurvetoCP1Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoCP2X() + "," + getSecondCurvetoCP2Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoX() + "," + getSecondCurvetoY();
-
-		// path data
-		String pathData = moveto + " " + firstCurveto + " " + secondCurveto;
-		element.setAttribute("d", pathData);
-
 		cachedFirstCurvetoCP2Y = y2;
+		writePathData();
 	}
 
 	/**
@@ -509,31 +377,8 @@ public class MdomBranchPathElement extends SVGElement {
 	 *            x-coordinate
 	 */
 	public void setFirstCurvetoX(float x) {
-		// moveto
-		String moveto = MOVETO;
-		moveto += getMovetoX() + "," + getMovetoY();
-
-		// first curveto
-		String firstCurveto = CURVETO;
-		firstCurveto += getFirstCurvetoCP1X() + "," + getFirstCurvetoCP1Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoCP2X() + "," + getFirstCurvetoCP2Y()
-				+ " ";
-		firstCurveto += x + "," + getFirstCurvetoY();
-
-		// second curveto
-		String secondCurveto = CURVETO;
-		secondCurveto += getSecondCurvetoCP1X() + "," + getSecondCurvetoCP1Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoCP2X() + "," + getSecondCurvetoCP2Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoX() + "," + getSecondCurvetoY();
-
-		// path data
-		String pathData = moveto + " " + firstCurveto + " " + secondCurveto;
-		element.setAttribute("d", pathData);
-
 		cachedFirstCurvetoX = x;
+		writePathData();
 	}
 
 	/**
@@ -543,31 +388,8 @@ public class MdomBranchPathElement extends SVGElement {
 	 *            y-coordinate
 	 */
 	public void setFirstCurvetoY(float y) {
-		// moveto
-		String moveto = MOVETO;
-		moveto += getMovetoX() + "," + getMovetoY();
-
-		// first curveto
-		String firstCurveto = CURVETO;
-		firstCurveto += getFirstCurvetoCP1X() + "," + getFirstCurvetoCP1Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoCP2X() + "," + getFirstCurvetoCP2Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoX() + "," + y;
-
-		// second curveto
-		String secondCurveto = CURVETO;
-		secondCurveto += getSecondCurvetoCP1X() + "," + getSecondCurvetoCP1Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoCP2X() + "," + getSecondCurvetoCP2Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoX() + "," + getSecondCurvetoY();
-
-		// path data
-		String pathData = moveto + " " + firstCurveto + " " + secondCurveto;
-		element.setAttribute("d", pathData);
-
 		cachedFirstCurvetoY = y;
+		writePathData();
 	}
 
 	/**
@@ -608,16 +430,17 @@ public class MdomBranchPathElement extends SVGElement {
 	public void setSecondCurveto(float x1, float y1, float x2, float y2,
 			float x, float y) {
 		// first control point
-		setSecondCurvetoCP1X(x1);
-		setSecondCurvetoCP1Y(y1);
+		cachedSecondCurvetoCP1X = x1;
+		cachedSecondCurvetoCP1Y = y1;
 
 		// second control point
-		setSecondCurvetoCP2X(x2);
-		setSecondCurvetoCP2Y(y2);
+		cachedSecondCurvetoCP2X = x2;
+		cachedSecondCurvetoCP2Y = y2;
 
 		// set curveto
-		setSecondCurvetoX(x);
-		setSecondCurvetoY(y);
+		cachedSecondCurvetoX = x;
+		cachedSecondCurvetoY = y;
+		writePathData();
 	}
 
 	/**
@@ -627,30 +450,8 @@ public class MdomBranchPathElement extends SVGElement {
 	 *            x-coordinate
 	 */
 	public void setSecondCurvetoCP1X(float x1) {
-		// moveto
-		String moveto = MOVETO;
-		moveto += getMovetoX() + "," + getMovetoY();
-
-		// first curveto
-		String firstCurveto = CURVETO;
-		firstCurveto += getFirstCurvetoCP1X() + "," + getFirstCurvetoCP1Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoCP2X() + "," + getFirstCurvetoCP2Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoX() + "," + getFirstCurvetoY();
-
-		// second curveto
-		String secondCurveto = CURVETO;
-		secondCurveto += x1 + "," + getSecondCurvetoCP1Y() + " ";
-		secondCurveto += getSecondCurvetoCP2X() + "," + getSecondCurvetoCP2Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoX() + "," + getSecondCurvetoY();
-
-		// path data
-		String pathData = moveto + " " + firstCurveto + " " + secondCurveto;
-		element.setAttribute("d", pathData);
-
 		cachedSecondCurvetoCP1X = x1;
+		writePathData();
 	}
 
 	/**
@@ -660,30 +461,8 @@ public class MdomBranchPathElement extends SVGElement {
 	 *            y-coordinate
 	 */
 	public void setSecondCurvetoCP1Y(float y1) {
-		// moveto
-		String moveto = MOVETO;
-		moveto += getMovetoX() + "," + getMovetoY();
-
-		// first curveto
-		String firstCurveto = CURVETO;
-		firstCurveto += getFirstCurvetoCP1X() + "," + getFirstCurvetoCP1Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoCP2X() + "," + getFirstCurvetoCP2Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoX() + "," + getFirstCurvetoY();
-
-		// second curveto
-		String secondCurveto = CURVETO;
-		secondCurveto += getSecondCurvetoCP1X() + "," + y1 + " ";
-		secondCurveto += getSecondCurvetoCP2X() + "," + getSecondCurvetoCP2Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoX() + "," + getSecondCurvetoY();
-
-		// path data
-		String pathData = moveto + " " + firstCurveto + " " + secondCurveto;
-		element.setAttribute("d", pathData);
-
 		cachedSecondCurvetoCP1Y = y1;
+		writePathData();
 	}
 
 	/**
@@ -713,30 +492,8 @@ public class MdomBranchPathElement extends SVGElement {
 	 *            x-coordinate
 	 */
 	public void setSecondCurvetoCP2X(float x2) {
-		// moveto
-		String moveto = MOVETO;
-		moveto += getMovetoX() + "," + getMovetoY();
-
-		// first curveto
-		String firstCurveto = CURVETO;
-		firstCurveto += getFirstCurvetoCP1X() + "," + getFirstCurvetoCP1Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoCP2X() + "," + getFirstCurvetoCP2Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoX() + "," + getFirstCurvetoY();
-
-		// second curveto
-		String secondCurveto = CURVETO;
-		secondCurveto += getSecondCurvetoCP1X() + "," + getSecondCurvetoCP1Y()
-				+ " ";
-		secondCurveto += x2 + "," + getSecondCurvetoCP2Y() + " ";
-		secondCurveto += getSecondCurvetoX() + "," + getSecondCurvetoY();
-
-		// path data
-		String pathData = moveto + " " + firstCurveto + " " + secondCurveto;
-		element.setAttribute("d", pathData);
-
 		cachedSecondCurvetoCP2X = x2;
+		writePathData();
 	}
 
 	/**
@@ -746,30 +503,8 @@ public class MdomBranchPathElement extends SVGElement {
 	 *            y-coordinate
 	 */
 	public void setSecondCurvetoCP2Y(float y2) {
-		// moveto
-		String moveto = MOVETO;
-		moveto += getMovetoX() + "," + getMovetoY();
-
-		// first curveto
-		String firstCurveto = CURVETO;
-		firstCurveto += getFirstCurvetoCP1X() + "," + getFirstCurvetoCP1Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoCP2X() + "," + getFirstCurvetoCP2Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoX() + "," + getFirstCurvetoY();
-
-		// second curveto
-		String secondCurveto = CURVETO;
-		secondCurveto += getSecondCurvetoCP1X() + "," + getSecondCurvetoCP1Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoCP2X() + "," + y2 + " ";
-		secondCurveto += getSecondCurvetoX() + "," + getSecondCurvetoY();
-
-		// path data
-		String pathData = moveto + " " + firstCurveto + " " + secondCurveto;
-		element.setAttribute("d", pathData);
-
 		cachedSecondCurvetoCP2Y = y2;
+		writePathData();
 	}
 
 	/**
@@ -799,31 +534,8 @@ public class MdomBranchPathElement extends SVGElement {
 	 *            x-coordinate
 	 */
 	public void setSecondCurvetoX(float x) {
-		// moveto
-		String moveto = MOVETO;
-		moveto += getMovetoX() + "," + getMovetoY();
-
-		// first curveto
-		String firstCurveto = CURVETO;
-		firstCurveto += getFirstCurvetoCP1X() + "," + getFirstCurvetoCP1Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoCP2X() + "," + getFirstCurvetoCP2Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoX() + "," + getFirstCurvetoY();
-
-		// second curveto
-		String secondCurveto = CURVETO;
-		secondCurveto += getSecondCurvetoCP1X() + "," + getSecondCurvetoCP1Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoCP2X() + "," + getSecondCurvetoCP2Y()
-				+ " ";
-		secondCurveto += x + "," + getSecondCurvetoY();
-
-		// path data
-		String pathData = moveto + " " + firstCurveto + " " + secondCurveto;
-		element.setAttribute("d", pathData);
-
 		cachedSecondCurvetoX = x;
+		writePathData();
 	}
 
 	/**
@@ -833,31 +545,8 @@ public class MdomBranchPathElement extends SVGElement {
 	 *            y-coordinate
 	 */
 	public void setSecondCurvetoY(float y) {
-		// moveto
-		String moveto = MOVETO;
-		moveto += getMovetoX() + "," + getMovetoY();
-
-		// first curveto
-		String firstCurveto = CURVETO;
-		firstCurveto += getFirstCurvetoCP1X() + "," + getFirstCurvetoCP1Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoCP2X() + "," + getFirstCurvetoCP2Y()
-				+ " ";
-		firstCurveto += getFirstCurvetoX() + "," + getFirstCurvetoY();
-
-		// second curveto
-		String secondCurveto = CURVETO;
-		secondCurveto += getSecondCurvetoCP1X() + "," + getSecondCurvetoCP1Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoCP2X() + "," + getSecondCurvetoCP2Y()
-				+ " ";
-		secondCurveto += getSecondCurvetoX() + "," + y;
-
-		// path data
-		String pathData = moveto + " " + firstCurveto + " " + secondCurveto;
-		element.setAttribute("d", pathData);
-
 		cachedSecondCurvetoY = y;
+		writePathData();
 	}
 
 	/**
@@ -886,4 +575,33 @@ public class MdomBranchPathElement extends SVGElement {
 	public MdomBranchElement getMdomBranchElement() {
 		return mdomBranchElement;
 	}
+
+	/**
+	 * Writes the path data attribute of this element from the cached moveto
+	 * and curveto coordinates.
+	 */
+	protected void writePathData() {
+		// moveto
+		String moveto = MOVETO;
+		moveto += getMovetoX() + "," + getMovetoY();
+
+		// first curveto
+		String firstCurveto = CURVETO;
+		firstCurveto += getFirstCurvetoCP1X() + "," + getFirstCurvetoCP1Y()
+				+ " ";
+		firstCurveto += getFirstCurvetoCP2X() + "," + getFirstCurvetoCP2Y()
+				+ " ";
+		firstCurveto += getFirstCurvetoX() + "," + getFirstCurvetoY();
+
+		// second curveto
+		String secondCurveto = CURVETO;
+		secondCurveto += getSecondCurvetoCP1X() + "," + getSecondCurvetoCP1Y()
+				+ " ";
+		secondCurveto += getSecondCurvetoCP2X() + "," + getSecondCurvetoCP2Y()
+				+ " ";
+		secondCurveto += getSecondCurvetoX() + "," + getSecondCurvetoY();
+
+		// path data
+		setAttribute("d", moveto + " " + firstCurveto + " " + secondCurveto);
+	}
 }
\ No newline at end of file
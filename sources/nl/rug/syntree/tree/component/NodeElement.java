@@ -70,6 +70,21 @@ public class NodeElement extends SVGElement {
 	 */
 	protected float cachedOuterWidth = 0.0f;
 
+	/**
+	 * Cached depth relative to the root node of the tree
+	 */
+	protected int cachedDepth = 0;
+
+	/**
+	 * Cached generation heights of this (sub)tree, indexed by relative depth
+	 */
+	protected float cachedGenerationHeights[];
+
+	/**
+	 * Cached bounds of this (sub)tree as {min x, min y, max x, max y}
+	 */
+	protected float cachedBounds[];
+
 	/**
 	 * Boolean indicating whether this node is new
 	 */
@@ -95,21 +110,9 @@ public class NodeElement extends SVGElement {
 		this.treeElement = treeElement;
 
 		// id
-		Vector<NodeElement> nodeVector = treeElement.getNodeVector();
-		for (int i = 0; i <= nodeVector.size(); i++) {
-			boolean isAvailable = true;
-			String id = TreeRepresentation.NODE_IDENTIFIER_PREFIX + "-" + i
-					+ "@" + treeElement.getId();
-			for (int x = 0; x < nodeVector.size(); x++)
-				if (nodeVector.elementAt(x).getId().compareTo(id) == 0) {
-					isAvailable = false;
-					x = nodeVector.size();
-				}
-			if (isAvailable) {
-				setId(id);
-				i = nodeVector.size() + 1;
-			}
-		}
+		setId(TreeRepresentation.NODE_IDENTIFIER_PREFIX + "-"
+				+ treeElement.getNodeIdentifierAllocator().allocate() + "@"
+				+ treeElement.getId());
 
 		// daughter vector
 		daughterVector = new Vector<NodeElement>();
@@ -121,12 +124,6 @@ public class NodeElement extends SVGElement {
 		// text element
 		textElement = new TextElement(treeRepresentation, this, "x");
 		element.appendChild(textElement.getElement());
-
-		// dom event listeners
-		treeRepresentation.getTreeEditorBridge()
-				.addNodeRectElementEventListeners(this);
-		treeRepresentation.getTreeEditorBridge().addTextElementEventListeners(
-				this);
 	}
 
 	/**
@@ -151,7 +148,7 @@ public class NodeElement extends SVGElement {
 		this.treeElement = treeElement;
 
 		// mother node element
-		this.motherNodeElement = motherNodeElement;
+		setMother(motherNodeElement);
 		if (motherNodeElement != null)
 			motherNodeElement.getDaughterVector().add(this);
 
@@ -184,8 +181,6 @@ public class NodeElement extends SVGElement {
 							.compareTo(TreeRepresentation.NODE_RECTANGLE_IDENTIFIER_PREFIX) == 0) {
 						nodeRectElement = new NodeRectElement(
 								treeRepresentation, childElement);
-						treeRepresentation.getTreeEditorBridge()
-								.addNodeRectElementEventListeners(this);
 					}
 				}
 
@@ -199,8 +194,6 @@ public class NodeElement extends SVGElement {
 							.compareTo(TreeRepresentation.NODE_TEXT_IDENTIFIER_PREFIX) == 0) {
 						textElement = new TextElement(treeRepresentation, this,
 								childElement);
-						treeRepresentation.getTreeEditorBridge()
-								.addTextElementEventListeners(this);						
 					}
 				}
 
@@ -214,10 +207,6 @@ public class NodeElement extends SVGElement {
 							.compareTo(TreeRepresentation.BRANCH_IDENTIFIER_PREFIX) == 0) {
 						branchElement = new BranchElement(treeRepresentation,
 								childElement);
-						treeRepresentation.getTreeEditorBridge()
-								.addBranchElementEventListeners(this);
-						treeRepresentation.getTreeEditorBridge()
-								.addBranchRectElementEventListeners(this);
 					}
 				}
 
@@ -228,9 +217,9 @@ public class NodeElement extends SVGElement {
 							TreeRepresentation.NODE_IDENTIFIER_PREFIX.length());
 					if (idSubstring
 							.compareTo(TreeRepresentation.NODE_IDENTIFIER_PREFIX) == 0) {
-						treeElement.getNodeVector().add(
-								new NodeElement(treeRepresentation,
-										treeElement, this, childElement));
+						treeElement.addNode(new NodeElement(
+								treeRepresentation, treeElement, this,
+								childElement));
 					}
 				}
 			}
@@ -271,10 +260,12 @@ public class NodeElement extends SVGElement {
 			element.appendChild(daughterNode.getElement());
 			daughterVector.add(daughterNode);
 		}
-		treeElement.getNodeVector().add(daughterNode);
+		treeElement.addNode(daughterNode);
 
 		// branch
 		daughterNode.createBranch(this);
+		if (registered)
+			daughterNode.register();
 
 		// taint
 		NodeElement iteratorElement = this;
@@ -303,25 +294,32 @@ public class NodeElement extends SVGElement {
 		daughterNode.setMother(this);
 		daughterNode.setIsNewNode(false);
 
-		for (int i = 0; i < mergeNode.getDaughterVector().size(); i++) {
-			daughterNode.mergeDaughter(mergeNode.getDaughterVector().elementAt(
-					i));
-		}
-
-		// insert in DOM and vector
-		if (nextDaughterNode != null) {
-			element.insertBefore(daughterNode.getElement(), nextDaughterNode
-					.getElement());
-			daughterVector.insertElementAt(daughterNode, daughterVector
-					.indexOf(nextDaughterNode));
-		} else {
-			element.appendChild(daughterNode.getElement());
-			daughterVector.add(daughterNode);
+		// insert in DOM and vector, and release the identifiers of the
+		// duplicate in case it cannot be attached
+		try {
+			for (int i = 0; i < mergeNode.getDaughterVector().size(); i++) {
+				daughterNode.mergeDaughter(mergeNode.getDaughterVector()
+						.elementAt(i));
+			}
+			if (nextDaughterNode != null) {
+				element.insertBefore(daughterNode.getElement(),
+						nextDaughterNode.getElement());
+				daughterVector.insertElementAt(daughterNode, daughterVector
+						.indexOf(nextDaughterNode));
+			} else {
+				element.appendChild(daughterNode.getElement());
+				daughterVector.add(daughterNode);
+			}
+		} catch (RuntimeException e) {
+			daughterNode.discard();
+			throw e;
 		}
-		treeElement.getNodeVector().add(daughterNode);
+		treeElement.addNode(daughterNode);
 
 		// branch
 		daughterNode.createBranch(this);
+		if (registered)
+			daughterNode.register();
 
 		// taint
 		NodeElement iteratorElement = this;
@@ -330,11 +328,6 @@ public class NodeElement extends SVGElement {
 			iteratorElement = iteratorElement.getMother();
 		}
 
-		treeRepresentation.getTreeEditorBridge()
-				.addNodeRectElementEventListeners(daughterNode);		
-		treeRepresentation.getTreeEditorBridge().addTextElementEventListeners(
-				daughterNode);
-
 		return daughterNode;
 	}
 
@@ -351,6 +344,17 @@ public class NodeElement extends SVGElement {
 		return nodeElement;
 	}
 
+	/**
+	 * Discards this detached node, such as a duplicate that is dropped
+	 * before it is attached, by removing it and its descendants from the
+	 * node vector of the tree, which releases their identifiers.
+	 */
+	public void discard() {
+		for (int i = 0; i < daughterVector.size(); i++)
+			daughterVector.elementAt(i).discard();
+		treeElement.removeNode(this);
+	}
+
 	/**
 	 * Adds an existing daughter to this node.
 	 * 
@@ -372,7 +376,9 @@ public class NodeElement extends SVGElement {
 			element.appendChild(daughterNode.getElement());
 			daughterVector.add(daughterNode);
 		}
-		treeElement.getNodeVector().add(daughterNode);
+		addNodeToNodeVector(daughterNode);
+		if (registered)
+			daughterNode.register();
 
 		// taint
 		NodeElement iteratorElement = this;
@@ -384,6 +390,21 @@ public class NodeElement extends SVGElement {
 		return daughterNode;
 	}
 
+	/**
+	 * Adds the specified daughter and all of its descendants to the node
+	 * vector of the tree.
+	 * 
+	 * @param daughterNode
+	 *            daughter node
+	 */
+	protected void addNodeToNodeVector(NodeElement daughterNode) {
+		daughterNode.setMother(this);
+		treeElement.addNode(daughterNode);
+		for (int i = 0; i < daughterNode.getDaughterVector().size(); i++)
+			daughterNode.addNodeToNodeVector(daughterNode.getDaughterVector()
+					.elementAt(i));
+	}
+
 	/**
 	 * 
 	 * @param daughterNode
@@ -392,7 +413,7 @@ public class NodeElement extends SVGElement {
 		for (int i = 0; i < daughterNode.getDaughterVector().size(); i++)
 			removeNodeFromNodeVector(daughterNode.getDaughterVector()
 					.elementAt(i));
-		treeElement.getNodeVector().removeElement(daughterNode);
+		treeElement.removeNode(daughterNode);
 	}
 
 	/**
@@ -406,6 +427,7 @@ public class NodeElement extends SVGElement {
 
 		element.removeChild(daughterNode.getElement());
 		daughterVector.remove(daughterNode);
+		daughterNode.unregister();
 
 		// taint
 		NodeElement iteratorElement = this;
@@ -426,12 +448,36 @@ public class NodeElement extends SVGElement {
 		element.appendChild(branchElement.getElement());
 		element.insertBefore(branchElement.getBranchRectElement().getElement(),
 				(AbstractElement) element.getFirstChild());
+		if (registered)
+			branchElement.register();
+	}
 
-		// dom event listeners
-		treeRepresentation.getTreeEditorBridge()
-				.addBranchElementEventListeners(this);
-		treeRepresentation.getTreeEditorBridge()
-				.addBranchRectElementEventListeners(this);
+	/**
+	 * Registers this node, its components and its descendants with the tree
+	 * representation.
+	 */
+	public void register() {
+		super.register();
+		nodeRectElement.register();
+		textElement.register();
+		if (branchElement != null)
+			branchElement.register();
+		for (int i = 0; i < daughterVector.size(); i++)
+			daughterVector.elementAt(i).register();
+	}
+
+	/**
+	 * Unregisters this node, its components and its descendants from the
+	 * tree representation.
+	 */
+	public void unregister() {
+		super.unregister();
+		nodeRectElement.unregister();
+		textElement.unregister();
+		if (branchElement != null)
+			branchElement.unregister();
+		for (int i = 0; i < daughterVector.size(); i++)
+			daughterVector.elementAt(i).unregister();
 	}
 
 	/**
@@ -451,6 +497,10 @@ public class NodeElement extends SVGElement {
 	 */
 	public void setMother(NodeElement motherNodeElement) {
 		this.motherNodeElement = motherNodeElement;
+		if (motherNodeElement != null)
+			cachedDepth = motherNodeElement.getDepth() + 1;
+		else
+			cachedDepth = 0;
 	}
 
 	/**
@@ -469,25 +519,17 @@ public class NodeElement extends SVGElement {
 	 * @return generation vector
 	 */
 	public Vector<NodeElement> getGenerationVector() {
-		Vector<NodeElement> generationVector = new Vector<NodeElement>();
-		int depth = this.getDepth();
-		for (int i = 0; i < treeElement.getNodeVector().size(); i++)
-			if (treeElement.getNodeVector().elementAt(i).getDepth() == depth)
-				generationVector.add(treeElement.getNodeVector().elementAt(i));
-		return generationVector;
+		return treeElement.getNodeGenerationVector(getDepth());
 	}
 
 	/**
-	 * Returns the depth of this tree relative to the root node of the tree.
+	 * Returns the (cached) depth of this node relative to the root node of the
+	 * tree.
 	 * 
 	 * @return depth
 	 */
 	public int getDepth() {
-		int depth = 0;
-		NodeElement motherNode = this.getMother();
-		if (motherNode != null)
-			depth = motherNode.getDepth() + 1;
-		return depth;
+		return cachedDepth;
 	}
 
 	/**
@@ -564,6 +606,117 @@ public class NodeElement extends SVGElement {
 		return cachedOuterWidth;
 	}
 
+	/**
+	 * Returns the cached generation heights of this (sub)tree. Element i of
+	 * this array holds the maximum text height of the mother nodes that are i
+	 * generations below this node, or null if these have not been computed.
+	 * 
+	 * @return generation heights
+	 */
+	public float[] getGenerationHeights() {
+		return cachedGenerationHeights;
+	}
+
+	/**
+	 * Sets the cached generation heights of this (sub)tree to the specified
+	 * generation heights.
+	 * 
+	 * @param generationHeights
+	 *            generation heights
+	 */
+	public void setGenerationHeights(float generationHeights[]) {
+		this.cachedGenerationHeights = generationHeights;
+	}
+
+	/**
+	 * Computes the bounds of this (sub)tree from the geometry of its node
+	 * rectangle, and from the cached bounds and branches of its daughters.
+	 */
+	public void computeBounds() {
+		float bounds[] = new float[4];
+		bounds[0] = nodeRectElement.getX();
+		bounds[1] = nodeRectElement.getY();
+		bounds[2] = nodeRectElement.getX() + nodeRectElement.getWidth();
+		bounds[3] = nodeRectElement.getY() + nodeRectElement.getHeight();
+		for (int i = 0; i < daughterVector.size(); i++) {
+			NodeElement daughterNode = daughterVector.elementAt(i);
+			float daughterBounds[] = daughterNode.getBounds();
+			float x = daughterNode.getXTranslate();
+			float y = daughterNode.getYTranslate();
+			extendBounds(bounds, daughterBounds[0] + x, daughterBounds[1] + y);
+			extendBounds(bounds, daughterBounds[2] + x, daughterBounds[3] + y);
+			BranchElement daughterBranch = daughterNode.getBranchElement();
+			if (daughterBranch != null) {
+				extendBounds(bounds, daughterBranch.getX1(), daughterBranch
+						.getY1());
+				extendBounds(bounds, daughterBranch.getX2(), daughterBranch
+						.getY2());
+				if (daughterBranch.isTriangle())
+					extendBounds(bounds, daughterBranch.getX3(),
+							daughterBranch.getY3());
+			}
+		}
+		cachedBounds = bounds;
+	}
+
+	/**
+	 * Returns the cached bounds of this (sub)tree as {min x, min y, max x,
+	 * max y}, relative to this node. The bounds are computed in case they
+	 * have not been computed before.
+	 * 
+	 * @return bounds
+	 */
+	public float[] getBounds() {
+		if (cachedBounds == null)
+			computeBounds();
+		return cachedBounds;
+	}
+
+	/**
+	 * Extends the specified bounds to include the specified point.
+	 * 
+	 * @param bounds
+	 *            bounds
+	 * @param x
+	 *            x-coordinate
+	 * @param y
+	 *            y-coordinate
+	 */
+	public static void extendBounds(float bounds[], float x, float y) {
+		bounds[0] = Math.min(bounds[0], x);
+		bounds[1] = Math.min(bounds[1], y);
+		bounds[2] = Math.max(bounds[2], x);
+		bounds[3] = Math.max(bounds[3], y);
+	}
+
+	/**
+	 * Returns the x-coordinate of this node relative to the document, as the
+	 * sum of the cached translations of this node, its ancestors and its tree.
+	 * 
+	 * @return x-coordinate
+	 */
+	public float getAbsoluteXTranslate() {
+		float x = treeElement.getXTranslate();
+		for (NodeElement nodeElement = this; nodeElement != null; nodeElement = nodeElement
+				.getMother())
+			x += nodeElement.getXTranslate();
+		return x;
+	}
+
+	/**
+	 * Returns the y-coordinate of this node relative to the document, as the
+	 * sum of the cached translations of this node, its ancestors and its tree.
+	 * 
+	 * @return y-coordinate
+	 */
+	public float getAbsoluteYTranslate() {
+		float y = treeElement.getYTranslate();
+		for (NodeElement nodeElement = this; nodeElement != null; nodeElement = nodeElement
+				.getMother())
+			y += nodeElement.getYTranslate();
+		return y;
+	}
+
 	/**
 	 * Returns a boolean indicating whether this node is new.
 	 * 
@@ -610,7 +763,10 @@ public class NodeElement extends SVGElement {
 	public void setTextElement(TextElement textElement) {
 		element.replaceChild(textElement.getElement(), this.textElement
 				.getElement());
+		this.textElement.unregister();
 		this.textElement = textElement;
+		if (registered)
+			textElement.register();
 	}
 
 	/**
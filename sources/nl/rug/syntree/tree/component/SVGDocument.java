@@ -60,6 +60,16 @@ public class SVGDocument {
 	 */
 	protected String namespace;
 
+	/**
+	 * Bounds of the document as {min x, min y, max x, max y}
+	 */
+	protected float bounds[];
+
+	/**
+	 * Cached value of the viewBox attribute
+	 */
+	protected String cachedViewBox;
+
 	/**
 	 * Constructs a new document object model document that represents a
 	 * scalable vector graphics document.
@@ -139,8 +149,10 @@ public class SVGDocument {
 	}
 
 	/**
-	 * Sets the viewBox of the SVG document element to the geometry of the SVG
-	 * bounding box.
+	 * Sets the viewBox of the SVG document element to the bounds of the
+	 * document. The bounds are maintained by the tree drawer; in case these
+	 * are not available, the SVG bounding box is used instead, if it has been
+	 * computed. The viewBox attribute is only rewritten when it changes.
 	 */
 	public void computeViewBox() {
 		float x = 0.0f;
@@ -148,15 +160,46 @@ public class SVGDocument {
 		float w = 0.0f;
 		float h = 0.0f;
 		SVGSVGElement svgSVGElement = (SVGSVGElement) documentElement;
-		SVGRect svgRect = svgSVGElement.getBBox();
-		while (svgRect == null)
-			if (svgSVGElement != null)
-				svgRect = svgSVGElement.getBBox();
-		x = svgRect.getX();
-		y = svgRect.getY();
-		w = svgRect.getWidth();
-		h = svgRect.getHeight();
-		svgSVGElement.setAttribute("viewBox", x + " " + y + " " + w + " " + h);
+		if (bounds != null) {
+			x = bounds[0];
+			y = bounds[1];
+			w = bounds[2] - bounds[0];
+			h = bounds[3] - bounds[1];
+		} else {
+			SVGRect svgRect = svgSVGElement.getBBox();
+			if (svgRect == null)
+				return;
+			x = svgRect.getX();
+			y = svgRect.getY();
+			w = svgRect.getWidth();
+			h = svgRect.getHeight();
+		}
+		String viewBox = x + " " + y + " " + w + " " + h;
+		if (cachedViewBox != null && cachedViewBox.compareTo(viewBox) == 0)
+			return;
+		cachedViewBox = viewBox;
+		svgSVGElement.setAttribute("viewBox", viewBox);
+	}
+
+	/**
+	 * Sets the bounds of the document to the specified bounds, as {min x,
+	 * min y, max x, max y}, or null in case these are unknown.
+	 * 
+	 * @param bounds
+	 *            bounds
+	 */
+	public void setBounds(float bounds[]) {
+		this.bounds = bounds;
+	}
+
+	/**
+	 * Returns the bounds of the document as {min x, min y, max x, max y}, or
+	 * null in case these are unknown.
+	 * 
+	 * @return bounds
+	 */
+	public float[] getBounds() {
+		return bounds;
 	}
 
 	/**
@@ -20,6 +20,9 @@
 
 package nl.rug.syntree.tree.component;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import nl.rug.syntree.tree.TreeRepresentation;
 
 import org.apache.batik.dom.AbstractElement;
@@ -117,6 +120,17 @@ public abstract class SVGElement {
 	 */
 	protected float cachedStrokeOpacity = 0.0f;
 
+	/**
+	 * Attribute writes that are deferred until the next flush
+	 */
+	protected LinkedHashMap<String, String> deferredAttributeMap;
+
+	/**
+	 * Boolean indicating whether this element is registered with the tree
+	 * representation
+	 */
+	protected boolean registered = false;
+
 	/**
 	 * Constructs a new scalable vector graphics dom element for the specified
 	 * tree representation.
@@ -154,15 +168,20 @@ public abstract class SVGElement {
 	}
 
 	/**
-	 * Return the SVG point for this element.
+	 * Return the SVG point for this element, or null in case the bounding box
+	 * of the element has not been computed yet. In case the tree of this
+	 * element is culled, it is restored first.
 	 * 
 	 * @return SVG point
 	 */
 	public SVGPoint getSVGPoint() {
+		treeRepresentation.flushDirtyElements();
 		SVGLocatable svgLocatable = (SVGLocatable) element;
 		SVGRect svgRect = svgLocatable.getBBox();
-		while (svgRect == null)
+		if (svgRect == null && treeRepresentation.uncullTree(element))
 			svgRect = svgLocatable.getBBox();
+		if (svgRect == null)
+			return null;
 		SVGOMPoint svgOMPoint = new SVGOMPoint(svgRect.getX(), svgRect.getY());
 		SVGSVGElement svgElement = (SVGSVGElement) treeRepresentation
 				.getSVGDocument().getDocumentElement();
@@ -180,8 +199,9 @@ public abstract class SVGElement {
 	 *            y-coordinate
 	 */
 	public void setTranslate(float x, float y) {
-		setXTranslate(x);
-		setYTranslate(y);
+		cachedXTranslate = x;
+		cachedYTranslate = y;
+		writeTransform();
 	}
 
 	/**
@@ -192,11 +212,8 @@ public abstract class SVGElement {
 	 *            x-coordinate
 	 */
 	public void setXTranslate(float x) {
-		String rotate = "rotate(" + getARotate() + "," + getXRotate() + ","
-				+ getYRotate() + ")";
-		element.setAttribute("transform", "translate(" + x + ","
-				+ getYTranslate() + ") " + rotate);
 		cachedXTranslate = x;
+		writeTransform();
 	}
 
 	/**
@@ -207,11 +224,54 @@ public abstract class SVGElement {
 	 *            y-coordinate
 	 */
 	public void setYTranslate(float y) {
-		String rotate = "rotate(" + getARotate() + "," + getXRotate() + ","
-				+ getYRotate() + ")";
-		element.setAttribute("transform", "translate(" + getXTranslate() + ","
-				+ y + ") " + rotate);
 		cachedYTranslate = y;
+		writeTransform();
+	}
+
+	/**
+	 * Writes the transform attribute of the element from the cached
+	 * translation and rotation.
+	 */
+	protected void writeTransform() {
+		setAttribute("transform", "translate(" + getXTranslate() + ","
+				+ getYTranslate() + ") rotate(" + getARotate() + ","
+				+ getXRotate() + "," + getYRotate() + ")");
+	}
+
+	/**
+	 * Sets the specified attribute of the element to the specified value. In
+	 * case the tree representation defers attribute writes, the value is
+	 * written to the element on the next flush.
+	 * 
+	 * @param name
+	 *            attribute name
+	 * @param value
+	 *            attribute value
+	 */
+	protected void setAttribute(String name, String value) {
+		if (treeRepresentation.isDeferredWriteMode()) {
+			if (deferredAttributeMap == null)
+				deferredAttributeMap = new LinkedHashMap<String, String>();
+			if (deferredAttributeMap.isEmpty())
+				treeRepresentation.addDirtyElement(this);
+			deferredAttributeMap.put(name, value);
+		} else {
+			element.setAttribute(name, value);
+			treeRepresentation.countDOMWrite();
+		}
+	}
+
+	/**
+	 * Writes the deferred attributes of this element to the element.
+	 */
+	public void flush() {
+		if (deferredAttributeMap == null || deferredAttributeMap.isEmpty())
+			return;
+		for (Map.Entry<String, String> entry : deferredAttributeMap.entrySet()) {
+			element.setAttribute(entry.getKey(), entry.getValue());
+			treeRepresentation.countDOMWrite();
+		}
+		deferredAttributeMap.clear();
 	}
 
 	/**
@@ -244,9 +304,10 @@ public abstract class SVGElement {
 	 *            y-coordinate
 	 */
 	public void setRotate(float a, float x, float y) {
-		setARotate(a);
-		setXRotate(x);
-		setYRotate(y);
+		cachedARotate = a;
+		cachedXRotate = x;
+		cachedYRotate = y;
+		writeTransform();
 	}
 
 	/**
@@ -257,11 +318,8 @@ public abstract class SVGElement {
 	 *            rotation angle
 	 */
 	public void setARotate(float a) {
-		String transform = "translate(" + getXTranslate() + ","
-				+ getYTranslate() + ")";
-		element.setAttribute("transform", transform + " rotate(" + a + ","
-				+ getXRotate() + "," + getYRotate() + ")");
 		cachedARotate = a;
+		writeTransform();
 	}
 
 	/**
@@ -272,11 +330,8 @@ public abstract class SVGElement {
 	 *            x-coordinate
 	 */
 	public void setXRotate(float x) {
-		String transform = "translate(" + getXTranslate() + ","
-				+ getYTranslate() + ")";
-		element.setAttribute("transform", transform + " rotate(" + getARotate()
-				+ "," + x + "," + getYRotate() + ")");
 		cachedXRotate = x;
+		writeTransform();
 	}
 
 	/**
@@ -287,11 +342,8 @@ public abstract class SVGElement {
 	 *            y-coordinate
 	 */
 	public void setYRotate(float y) {
-		String transform = "translate(" + getXTranslate() + ","
-				+ getYTranslate() + ")";
-		element.setAttribute("transform", transform + " rotate(" + getARotate()
-				+ "," + getXRotate() + "," + y + ")");
 		cachedYRotate = y;
+		writeTransform();
 	}
 
 	/**
@@ -350,7 +402,7 @@ public abstract class SVGElement {
 	 *            style
 	 */
 	public void setStyle(String style) {
-		element.setAttribute("style", style);
+		setAttribute("style", style);
 		cachedStyle = style;
 	}
 
@@ -370,7 +422,7 @@ public abstract class SVGElement {
 	 *            fill color
 	 */
 	public void setFill(String color) {
-		element.setAttribute("fill", color);
+		setAttribute("fill", color);
 		cachedFill = color;
 	}
 
@@ -390,7 +442,7 @@ public abstract class SVGElement {
 	 *            stroke color
 	 */
 	public void setStroke(String color) {
-		element.setAttribute("stroke", color);
+		setAttribute("stroke", color);
 		cachedStroke = color;
 	}
 
@@ -410,7 +462,7 @@ public abstract class SVGElement {
 	 *            fill opacity
 	 */
 	public void setFillOpacity(float opacity) {
-		element.setAttribute("fill-opacity", Float.toString(opacity));
+		setAttribute("fill-opacity", Float.toString(opacity));
 		cachedFillOpacity = opacity;
 	}
 
@@ -430,7 +482,7 @@ public abstract class SVGElement {
 	 *            stroke opacity
 	 */
 	public void setStrokeOpacity(float opacity) {
-		element.setAttribute("stroke-opacity", Float.toString(opacity));
+		setAttribute("stroke-opacity", Float.toString(opacity));
 		cachedStrokeOpacity = opacity;
 	}
 
@@ -468,8 +520,42 @@ public abstract class SVGElement {
 	 * @param id
 	 */
 	public void setId(String id) {
+		if (registered)
+			treeRepresentation.unregisterId(this);
 		this.id = id;
 		element.setAttribute("id", id);
+		if (registered)
+			treeRepresentation.registerElement(this);
+	}
+
+	/**
+	 * Registers this element, and the elements it is composed of, with the
+	 * tree representation. Elements are not registered on construction, but
+	 * once they are attached to the tree representation, so that detached
+	 * duplicates are never registered.
+	 */
+	public void register() {
+		registered = true;
+		treeRepresentation.registerElement(this);
+	}
+
+	/**
+	 * Unregisters this element, and the elements it is composed of, from the
+	 * tree representation.
+	 */
+	public void unregister() {
+		registered = false;
+		treeRepresentation.unregisterElement(this);
+	}
+
+	/**
+	 * Returns a boolean indicating whether this element is registered with
+	 * the tree representation.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isRegistered() {
+		return registered;
 	}
 
 	/**
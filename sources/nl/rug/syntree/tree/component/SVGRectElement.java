@@ -110,7 +110,7 @@ public abstract class SVGRectElement extends SVGElement {
 	 *            x-coordinate
 	 */
 	public void setX(float x) {
-		element.setAttribute("x", Float.toString(x));
+		setAttribute("x", Float.toString(x));
 		cachedX = x;
 	}
 
@@ -121,7 +121,7 @@ public abstract class SVGRectElement extends SVGElement {
 	 *            y-coordinate
 	 */
 	public void setY(float y) {
-		element.setAttribute("y", Float.toString(y));
+		setAttribute("y", Float.toString(y));
 		cachedY = y;
 	}
 
@@ -150,7 +150,7 @@ public abstract class SVGRectElement extends SVGElement {
 	 *            height
 	 */
 	public void setHeight(float height) {
-		element.setAttribute("height", Float.toString(height));
+		setAttribute("height", Float.toString(height));
 		cachedHeight = height;
 	}
 
@@ -161,7 +161,7 @@ public abstract class SVGRectElement extends SVGElement {
 	 *            width
 	 */
 	public void setWidth(float width) {
-		element.setAttribute("width", Float.toString(width));
+		setAttribute("width", Float.toString(width));
 		cachedWidth = width;
 	}
 
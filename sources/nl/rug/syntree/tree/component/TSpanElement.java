@@ -159,7 +159,7 @@ public class TSpanElement extends SVGElement {
 	 *            dx
 	 */
 	public void setDX(float dx) {
-		element.setAttribute("dx", Float.toString(dx));
+		setAttribute("dx", Float.toString(dx));
 		cachedDX = dx;
 	}
 
@@ -170,7 +170,7 @@ public class TSpanElement extends SVGElement {
 	 *            dy
 	 */
 	public void setDY(float dy) {
-		element.setAttribute("dy", Float.toString(dy));
+		setAttribute("dy", Float.toString(dy));
 		cachedDY = dy;
 	}
 
@@ -198,12 +198,8 @@ public class TSpanElement extends SVGElement {
 	 * @return height
 	 */
 	public float getHeight() {
-		if (getTaintMode() == TAINTED) {
-			SVGTSpanElement svgTSpanElement = (SVGTSpanElement) element;
-			for (int z = 0; z < getText().length(); z++)
-				cachedHeight = Math.max(cachedHeight, svgTSpanElement
-						.getExtentOfChar(z).getHeight());
-		}
+		if (getTaintMode() == TAINTED)
+			computeDimensions();
 		return cachedHeight;
 	}
 
@@ -213,11 +209,34 @@ public class TSpanElement extends SVGElement {
 	 * @return width
 	 */
 	public float getWidth() {
-		if (getTaintMode() == TAINTED) {
+		if (getTaintMode() == TAINTED)
+			computeDimensions();
+		return cachedWidth;
+	}
+
+	/**
+	 * Computes the width and height of this tspan element from the text
+	 * metrics cache. In case the cache can not measure the style of this tspan
+	 * element, the dimensions are measured in the document and cached, after
+	 * restoring the tree of this tspan element in case it is culled.
+	 */
+	protected void computeDimensions() {
+		float dimensions[] = TextMetricsCache.getDimensions(getStyle(),
+				getText());
+		if (dimensions == null) {
+			treeRepresentation.uncullTree(element);
 			SVGTSpanElement svgTSpanElement = (SVGTSpanElement) element;
-			cachedWidth = svgTSpanElement.getComputedTextLength();
+			float height = 0.0f;
+			for (int z = 0; z < getText().length(); z++)
+				height = Math.max(height, svgTSpanElement.getExtentOfChar(z)
+						.getHeight());
+			float width = svgTSpanElement.getComputedTextLength();
+			TextMetricsCache.putDimensions(getStyle(), getText(), width,
+					height);
+			dimensions = new float[] { width, height };
 		}
-		return cachedWidth;
+		cachedWidth = dimensions[0];
+		cachedHeight = dimensions[1];
 	}
 
 	/**
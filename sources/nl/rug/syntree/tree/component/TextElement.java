@@ -26,6 +26,7 @@ import nl.rug.syntree.tree.TreeRepresentation;
 
 import org.apache.batik.dom.AbstractElement;
 import org.w3c.dom.NodeList;
+import org.w3c.dom.svg.SVGRect;
 import org.w3c.dom.svg.SVGTextElement;
 
 /**
@@ -59,12 +60,12 @@ public class TextElement extends SVGElement {
 	/**
 	 * Constant value for visibility
 	 */
-	protected static final String VISIBLE = "visible";
+	public static final String VISIBLE = "visible";
 
 	/**
 	 * Constant value for invisibility
 	 */
-	protected static final String INVISIBLE = "hidden";
+	public static final String INVISIBLE = "hidden";
 
 	/**
 	 * Current state of visibility
@@ -265,6 +266,8 @@ public class TextElement extends SVGElement {
 			int index = tspanVector.indexOf(nextTSpanElement);
 			tspanVector.insertElementAt(tspanElement, index);
 		}
+		if (registered)
+			tspanElement.register();
 		return tspanElement;
 	}
 
@@ -301,6 +304,8 @@ public class TextElement extends SVGElement {
 			int index = tspanVector.indexOf(nextTSpanElement);
 			tspanVector.insertElementAt(tspanElement, index);
 		}
+		if (registered)
+			tspanElement.register();
 		return tspanElement;
 	}
 
@@ -337,12 +342,35 @@ public class TextElement extends SVGElement {
 			int index = tspanVector.indexOf(nextTSpanElement);
 			tspanVector.insertElementAt(tspanElement, index);
 		}
+		if (registered)
+			tspanElement.register();
 		return tspanElement;
 	}
 
 	public void removeTSpanElement(TSpanElement tspanElement) {
 		element.removeChild(tspanElement.getElement());
 		tspanVector.removeElement(tspanElement);
+		tspanElement.unregister();
+	}
+
+	/**
+	 * Registers this text element and its tspan elements with the tree
+	 * representation.
+	 */
+	public void register() {
+		super.register();
+		for (int i = 0; i < tspanVector.size(); i++)
+			tspanVector.elementAt(i).register();
+	}
+
+	/**
+	 * Unregisters this text element and its tspan elements from the tree
+	 * representation.
+	 */
+	public void unregister() {
+		super.unregister();
+		for (int i = 0; i < tspanVector.size(); i++)
+			tspanVector.elementAt(i).unregister();
 	}
 
 	/**
@@ -376,7 +404,7 @@ public class TextElement extends SVGElement {
 			if (getText().length() == 0)
 				cachedX = 0.0f;
 			if (getText().length() > 0 && getTaintMode() == TAINTED)
-				cachedX = ((SVGTextElement) element).getBBox().getX();
+				cachedX = getBBox().getX();
 		} else {
 			cachedX = 0.0f;
 		}
@@ -393,7 +421,7 @@ public class TextElement extends SVGElement {
 			if (getText().length() == 0)
 				cachedY = 0.0f;
 			if (getText().length() > 0 && getTaintMode() == TAINTED)
-				cachedY = ((SVGTextElement) element).getBBox().getY();
+				cachedY = getBBox().getY();
 		} else {
 			cachedY = 0.0f;
 		}
@@ -410,7 +438,7 @@ public class TextElement extends SVGElement {
 			if (getText().length() == 0)
 				cachedHeight = 0.0f;
 			if (getText().length() > 0 && getTaintMode() == TAINTED)
-				cachedHeight = ((SVGTextElement) element).getBBox().getHeight();
+				cachedHeight = getBBox().getHeight();
 		} else {
 			cachedHeight = 0.0f;
 		}
@@ -427,13 +455,30 @@ public class TextElement extends SVGElement {
 			if (getText().length() == 0)
 				cachedWidth = 0.0f;
 			if (getText().length() > 0 && getTaintMode() == TAINTED)
-				cachedWidth = ((SVGTextElement) element).getBBox().getWidth();
+				cachedWidth = getBBox().getWidth();
 		} else {
 			cachedWidth = 0.0f;
 		}
 		return cachedWidth;
 	}
 
+	/**
+	 * Returns the bounding box of this element, after writing the deferred
+	 * attributes of this element and its tspan elements. In case the tree of
+	 * this element is culled, it is restored first.
+	 * 
+	 * @return bounding box
+	 */
+	protected SVGRect getBBox() {
+		flush();
+		for (int i = 0; i < tspanVector.size(); i++)
+			tspanVector.elementAt(i).flush();
+		SVGRect svgRect = ((SVGTextElement) element).getBBox();
+		if (svgRect == null && treeRepresentation.uncullTree(element))
+			svgRect = ((SVGTextElement) element).getBBox();
+		return svgRect;
+	}
+
 	/**
 	 * Returns the starting x-coordinate of the character at the specified
 	 * position.
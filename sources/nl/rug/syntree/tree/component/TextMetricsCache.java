@@ -0,0 +1,249 @@
+/* TextMetricsCache.java */
+
+/*
+ Syntree - Syntax visualization and annotation software
+ Copyright (C) 2009, 2010  Harm Brouwer
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.rug.syntree.tree.component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.batik.bridge.BridgeContext;
+import org.apache.batik.bridge.DocumentLoader;
+import org.apache.batik.bridge.GVTBuilder;
+import org.apache.batik.bridge.UserAgentAdapter;
+import org.apache.batik.dom.AbstractDocument;
+import org.apache.batik.dom.AbstractElement;
+import org.apache.batik.dom.svg.SVGDOMImplementation;
+import org.w3c.dom.svg.SVGTSpanElement;
+
+/**
+ * This class represents a least recently used cache of text run dimensions,
+ * shared by all of the documents. Text runs are keyed by their style and
+ * their text. Runs that are not cached are measured in a detached measuring
+ * document, through the same Batik text path as the tspan elements of a
+ * rendered document, so that a layout never mixes two sources of text
+ * metrics, and font families are resolved by Batik. In case the measuring
+ * document is not available, the caller measures the run in its own
+ * document and stores it in the cache.
+ * 
+ * @author <a href="mailto:harm.brouwer[at]rug.nl">Harm Brouwer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class TextMetricsCache {
+	/**
+	 * Maximum number of cached text runs constant
+	 */
+	public static final int CACHE_CAPACITY = 4096;
+
+	/**
+	 * Cached text run dimensions, in least recently used order
+	 */
+	protected static LinkedHashMap<String, float[]> dimensionsMap = new LinkedHashMap<String, float[]>(
+			256, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+			return size() > CACHE_CAPACITY;
+		}
+	};
+
+	/**
+	 * Bridge context of the measuring document
+	 */
+	protected static BridgeContext bridgeContext;
+
+	/**
+	 * Text span element of the measuring document
+	 */
+	protected static AbstractElement measuringTSpanElement;
+
+	/**
+	 * Boolean indicating whether creating the measuring document failed
+	 */
+	protected static boolean measuringFailed = false;
+
+	/**
+	 * Number of cache hits
+	 */
+	protected static long hitCount = 0;
+
+	/**
+	 * Number of cache misses
+	 */
+	protected static long missCount = 0;
+
+	/**
+	 * Returns the width and height of the specified text run with the
+	 * specified style, or null in case the dimensions are not cached and the
+	 * run could not be measured.
+	 * 
+	 * @param style
+	 *            style
+	 * @param text
+	 *            text
+	 * @return dimensions
+	 */
+	public static synchronized float[] getDimensions(String style, String text) {
+		String key = createKey(style, text);
+		float dimensions[] = dimensionsMap.get(key);
+		if (dimensions != null) {
+			hitCount++;
+			return dimensions;
+		}
+		missCount++;
+		if (text == null || text.length() == 0) {
+			dimensions = new float[] { 0.0f, 0.0f };
+		} else {
+			dimensions = measure(style, text);
+			if (dimensions == null)
+				return null;
+		}
+		dimensionsMap.put(key, dimensions);
+		return dimensions;
+	}
+
+	/**
+	 * Stores the specified dimensions of the specified text run with the
+	 * specified style.
+	 * 
+	 * @param style
+	 *            style
+	 * @param text
+	 *            text
+	 * @param width
+	 *            width
+	 * @param height
+	 *            height
+	 */
+	public static synchronized void putDimensions(String style, String text,
+			float width, float height) {
+		dimensionsMap.put(createKey(style, text), new float[] { width, height });
+	}
+
+	/**
+	 * Returns the number of cache hits.
+	 * 
+	 * @return number of cache hits
+	 */
+	public static synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns the number of cache misses.
+	 * 
+	 * @return number of cache misses
+	 */
+	public static synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Creates a cache key for the specified text run with the specified
+	 * style.
+	 * 
+	 * @param style
+	 *            style
+	 * @param text
+	 *            text
+	 * @return key
+	 */
+	protected static String createKey(String style, String text) {
+		return style + "\u0000" + text;
+	}
+
+	/**
+	 * Measures the specified text run with the specified style in the
+	 * measuring document, the same way TSpanElement measures a text run in a
+	 * rendered document.
+	 * 
+	 * @param style
+	 *            style
+	 * @param text
+	 *            text
+	 * @return dimensions, or null in case the run could not be measured
+	 */
+	protected static float[] measure(String style, String text) {
+		if (!createMeasuringDocument())
+			return null;
+		try {
+			if (style != null)
+				measuringTSpanElement.setAttribute("style", style);
+			else
+				measuringTSpanElement.removeAttribute("style");
+			measuringTSpanElement.setTextContent(text);
+			SVGTSpanElement svgTSpanElement = (SVGTSpanElement) measuringTSpanElement;
+			float height = 0.0f;
+			for (int z = 0; z < text.length(); z++)
+				height = Math.max(height, svgTSpanElement.getExtentOfChar(z)
+						.getHeight());
+			float width = svgTSpanElement.getComputedTextLength();
+			return new float[] { width, height };
+		} catch (Exception e) {
+			System.err
+					.println("[TextMetricsCache::measure()] unable to measure text run");
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Creates the measuring document, which consists of a text element with
+	 * the attributes of a node text element and a single tspan element, in
+	 * case it does not exist yet.
+	 * 
+	 * @return boolean indicating whether the measuring document exists
+	 */
+	protected static boolean createMeasuringDocument() {
+		if (measuringTSpanElement != null)
+			return true;
+		if (measuringFailed)
+			return false;
+		try {
+			String namespace = SVGDOMImplementation.SVG_NAMESPACE_URI;
+			AbstractDocument document = (AbstractDocument) SVGDOMImplementation
+					.getDOMImplementation().createDocument(namespace, "svg",
+							null);
+			AbstractElement textElement = (AbstractElement) document
+					.createElementNS(namespace, "text");
+			textElement.setAttribute("style", "text-anchor:start;");
+			textElement.setAttribute("xml:space", "preserve");
+			AbstractElement tspanElement = (AbstractElement) document
+					.createElementNS(namespace, "tspan");
+			tspanElement.setTextContent("x");
+			textElement.appendChild(tspanElement);
+			document.getDocumentElement().appendChild(textElement);
+
+			UserAgentAdapter userAgent = new UserAgentAdapter();
+			bridgeContext = new BridgeContext(userAgent, new DocumentLoader(
+					userAgent));
+			bridgeContext.setDynamicState(BridgeContext.DYNAMIC);
+			new GVTBuilder().build(bridgeContext, document);
+			measuringTSpanElement = tspanElement;
+			return true;
+		} catch (Exception e) {
+			System.err
+					.println("[TextMetricsCache::createMeasuringDocument()] unable to create the measuring document");
+			e.printStackTrace();
+			measuringFailed = true;
+			return false;
+		}
+	}
+}
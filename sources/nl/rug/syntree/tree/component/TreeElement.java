@@ -22,6 +22,7 @@ package nl.rug.syntree.tree.component;
 
 import java.util.Vector;
 
+import nl.rug.syntree.tree.IdentifierAllocator;
 import nl.rug.syntree.tree.TreeRepresentation;
 
 import org.apache.batik.dom.AbstractElement;
@@ -40,11 +41,21 @@ public class TreeElement extends SVGElement {
 	 */
 	protected Vector<NodeElement> nodeVector;
 
+	/**
+	 * Vector containing the nodes of each generation, indexed by depth
+	 */
+	protected Vector<Vector<NodeElement>> generationVector;
+
 	/**
 	 * Root node element
 	 */
 	protected NodeElement rootNode;
 
+	/**
+	 * Allocator for the identifiers of the nodes of this tree
+	 */
+	protected IdentifierAllocator nodeIdentifierAllocator;
+
 	/**
 	 * Constructs a new tree element for the specified tree representation.
 	 * 
@@ -54,22 +65,12 @@ public class TreeElement extends SVGElement {
 	public TreeElement(TreeRepresentation treeRepresentation) {
 		super(treeRepresentation, "g");
 		nodeVector = new Vector<NodeElement>();
+		generationVector = new Vector<Vector<NodeElement>>();
+		nodeIdentifierAllocator = new IdentifierAllocator();
 
 		// id
-		Vector<TreeElement> treeVector = treeRepresentation.getTreeVector();
-		for (int i = 0; i <= treeVector.size(); i++) {
-			boolean isAvailable = true;
-			String id = TreeRepresentation.TREE_IDENTIFIER_PREFIX + "-" + i;
-			for (int x = 0; x < treeVector.size(); x++)
-				if (treeVector.elementAt(x).getId().compareTo(id) == 0) {
-					isAvailable = false;
-					x = treeVector.size();
-				}
-			if (isAvailable) {
-				setId(id);
-				i = treeVector.size() + 1;
-			}
-		}
+		setId(TreeRepresentation.TREE_IDENTIFIER_PREFIX + "-"
+				+ treeRepresentation.getTreeIdentifierAllocator().allocate());
 	}
 
 	/**
@@ -86,6 +87,8 @@ public class TreeElement extends SVGElement {
 
 		// node vector
 		nodeVector = new Vector<NodeElement>();
+		generationVector = new Vector<Vector<NodeElement>>();
+		nodeIdentifierAllocator = new IdentifierAllocator();
 		NodeList nodeList = element.getChildNodes();
 		for (int i = 0; i < nodeList.getLength(); i++) {
 			if (nodeList.item(i).getNodeName().compareTo("g") == 0) {
@@ -97,7 +100,7 @@ public class TreeElement extends SVGElement {
 						.compareTo(TreeRepresentation.NODE_IDENTIFIER_PREFIX) == 0) {
 					rootNode = new NodeElement(treeRepresentation, this, null,
 							childElement);
-					nodeVector.add(rootNode);
+					addNode(rootNode);
 				}
 			}
 		}
@@ -111,7 +114,62 @@ public class TreeElement extends SVGElement {
 	public void createRootNode() {
 		rootNode = new NodeElement(treeRepresentation, this);
 		element.appendChild(rootNode.getElement());
-		nodeVector.add(rootNode);
+		addNode(rootNode);
+	}
+
+	/**
+	 * Registers this tree and all of its nodes with the tree representation.
+	 */
+	public void register() {
+		super.register();
+		if (rootNode != null)
+			rootNode.register();
+	}
+
+	/**
+	 * Unregisters this tree and all of its nodes from the tree
+	 * representation.
+	 */
+	public void unregister() {
+		super.unregister();
+		if (rootNode != null)
+			rootNode.unregister();
+	}
+
+	/**
+	 * Adds the specified node to the node vector and to the generation of its
+	 * (cached) depth.
+	 * 
+	 * @param nodeElement
+	 *            node element
+	 */
+	public void addNode(NodeElement nodeElement) {
+		nodeVector.add(nodeElement);
+		nodeIdentifierAllocator.claim(IdentifierAllocator
+				.parseIndex(nodeElement.getId()));
+		int depth = nodeElement.getDepth();
+		while (generationVector.size() <= depth)
+			generationVector.add(new Vector<NodeElement>());
+		generationVector.elementAt(depth).add(nodeElement);
+	}
+
+	/**
+	 * Removes the specified node from the node vector and from the generation
+	 * of its (cached) depth.
+	 * 
+	 * @param nodeElement
+	 *            node element
+	 */
+	public void removeNode(NodeElement nodeElement) {
+		nodeVector.removeElement(nodeElement);
+		nodeIdentifierAllocator.release(IdentifierAllocator
+				.parseIndex(nodeElement.getId()));
+		int depth = nodeElement.getDepth();
+		if (depth < generationVector.size())
+			generationVector.elementAt(depth).removeElement(nodeElement);
+		while (generationVector.size() > 0
+				&& generationVector.lastElement().size() == 0)
+			generationVector.removeElementAt(generationVector.size() - 1);
 	}
 
 	/**
@@ -124,12 +182,20 @@ public class TreeElement extends SVGElement {
 	 */
 	public Vector<NodeElement> getNodeGenerationVector(int depth) {
 		Vector<NodeElement> nodeGenerationVector = new Vector<NodeElement>();
-		for (int i = 0; i < nodeVector.size(); i++)
-			if (nodeVector.elementAt(i).getDepth() == depth)
-				nodeGenerationVector.add(nodeVector.elementAt(i));
+		if (depth >= 0 && depth < generationVector.size())
+			nodeGenerationVector.addAll(generationVector.elementAt(depth));
 		return nodeGenerationVector;
 	}
 
+	/**
+	 * Returns the allocator for the identifiers of the nodes of this tree.
+	 * 
+	 * @return node identifier allocator
+	 */
+	public IdentifierAllocator getNodeIdentifierAllocator() {
+		return nodeIdentifierAllocator;
+	}
+
 	/**
 	 * Returns the number of nodes in this tree.
 	 * 
@@ -171,10 +237,7 @@ public class TreeElement extends SVGElement {
 	 * @return depth
 	 */
 	public int getDepth() {
-		int depth = 0;
-		for (int i = 0; i < nodeVector.size(); i++)
-			depth = Math.max(depth, nodeVector.elementAt(i).getDepth());
-		return depth;
+		return Math.max(0, generationVector.size() - 1);
 	}
 
 	/**
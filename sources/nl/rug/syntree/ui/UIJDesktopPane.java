@@ -126,6 +126,10 @@ public class UIJDesktopPane extends JDesktopPane {
 	 *            internal frame
 	 */
 	public void removeUIJInternalFrame(UIJInternalFrame uiJInternalFrame) {
+		uiJInternalFrame.getTreeEditorJSVGScrollPane().getTreeEditorJSVGCanvas()
+				.getOverlayBlinkScheduler().stopAll();
+		uiJInternalFrame.getTreeEditorJSVGScrollPane().getTreeEditorBridge()
+				.getRedrawScheduler().stop();
 		uiJInternalFrame.dispose();
 	}
 
@@ -21,22 +21,41 @@
 package nl.rug.syntree.ui;
 
 import java.awt.BorderLayout;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.beans.PropertyVetoException;
 import java.io.File;
+import java.util.Vector;
 
 import javax.swing.JInternalFrame;
 import javax.swing.JOptionPane;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.event.InternalFrameAdapter;
 import javax.swing.event.InternalFrameEvent;
 
 import nl.rug.syntree.Main;
 import nl.rug.syntree.editor.TreeEditorBridge;
 import nl.rug.syntree.editor.TreeEditorJSVGScrollPane;
+import nl.rug.syntree.io.IOBinaryTreespaceFileFilter;
+import nl.rug.syntree.io.IOBinaryTreespaceFileWriter;
+import nl.rug.syntree.io.IOBracketFileFilter;
+import nl.rug.syntree.io.IOBracketNode;
+import nl.rug.syntree.io.IOBracketReader;
+import nl.rug.syntree.io.IOBracketWriter;
+import nl.rug.syntree.io.IOEditJournal;
 import nl.rug.syntree.io.IOJFileChooser;
 import nl.rug.syntree.io.IOSVGXMLFileWriter;
+import nl.rug.syntree.io.IOTreespaceFileWriter;
+import nl.rug.syntree.io.IOTranscodedImageFileFilter;
+import nl.rug.syntree.io.IOTranscodedImageFileWriter;
 import nl.rug.syntree.tree.TreeRepresentation;
 
 import org.apache.batik.bridge.UpdateManager;
+import org.apache.batik.util.RunnableQueue;
 
 /**
  * This class represents an internal frame for the desktop pane. This internal
@@ -52,6 +71,16 @@ public class UIJInternalFrame extends JInternalFrame {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * Export progress polling interval constant (in milliseconds)
+	 */
+	public static final int EXPORT_PROGRESS_INTERVAL = 100;
+
+	/**
+	 * Title suffix constant of a treespace that is being saved
+	 */
+	public static final String SAVING_TITLE_SUFFIX = " (saving...)";
+
 	/**
 	 * Reference to the desktop pane of the user interface
 	 */
@@ -82,6 +111,11 @@ public class UIJInternalFrame extends JInternalFrame {
 	 */
 	boolean isModified = false;
 
+	/**
+	 * Boolean indicating whether the document in this frame is being saved
+	 */
+	boolean isSaving = false;
+
 	/**
 	 * Constructs a new internal frame for the desktop pane.
 	 * 
@@ -102,7 +136,9 @@ public class UIJInternalFrame extends JInternalFrame {
 	}
 
 	/**
-	 * Constructs a new internal frame for the desktop pane.
+	 * Constructs a new internal frame for the desktop pane. In case the file
+	 * has an edit journal with unsaved edits, the user is asked whether these
+	 * edits are to be recovered.
 	 * 
 	 * @param uiJDesktopPane
 	 *            reference to the desktop pane
@@ -118,8 +154,16 @@ public class UIJInternalFrame extends JInternalFrame {
 		this.uiJInternalFrameNumber = uiJInternalFrameNumber;
 		this.setFrameIcon(UIIcons.APPLICATION_ICON);
 		this.uiJDesktopPane = uiJDesktopPane;
-		treeEditorBridge = new TreeEditorBridge(this, svgXMLFile);
+		boolean recoverJournal = false;
+		if (IOEditJournal.hasJournal(svgXMLFile))
+			recoverJournal = JOptionPane.showConfirmDialog(null,
+					"There are unsaved edits of " + svgXMLFile.getName()
+							+ ". Do you want to recover them?", "Recover",
+					JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE) == JOptionPane.YES_OPTION;
+		treeEditorBridge = new TreeEditorBridge(this, svgXMLFile,
+				recoverJournal);
 		setupUIJInternalFrame();
+		setModified(recoverJournal);
 	}
 
 	/**
@@ -204,14 +248,21 @@ public class UIJInternalFrame extends JInternalFrame {
 							options[0]);
 			// save
 			if (choice == 0) {
-				saveTreespace();
-				uiJDesktopPane.removeUIJInternalFrame(this);
+				final UIJInternalFrame uiJInternalFrame = this;
+				saveTreespace(new Runnable() {
+					public void run() {
+						treeEditorBridge.closeEditJournal();
+						uiJDesktopPane.removeUIJInternalFrame(uiJInternalFrame);
+					}
+				});
 			}
 			// don't save
 			if (choice == 1) {
+				treeEditorBridge.closeEditJournal();
 				uiJDesktopPane.removeUIJInternalFrame(this);
 			}
 		} else {
+			treeEditorBridge.closeEditJournal();
 			uiJDesktopPane.removeUIJInternalFrame(this);
 		}
 	}
@@ -220,39 +271,224 @@ public class UIJInternalFrame extends JInternalFrame {
 	 * Saves the tree representation in this treespace.
 	 */
 	public void saveTreespace() {
+		saveTreespace(null);
+	}
+
+	/**
+	 * Saves the tree representation in this treespace. The tree
+	 * representation is captured on the update manager thread and written in
+	 * the background, so that it can be edited further while it is saved. The
+	 * specified runnable, if any, is run on the event dispatch thread once the
+	 * treespace is saved.
+	 * 
+	 * @param savedRunnable
+	 *            runnable to run once the treespace is saved, or null
+	 */
+	public void saveTreespace(Runnable savedRunnable) {
+		saveTreespace(savedRunnable, null);
+	}
+
+	/**
+	 * Saves the tree representation in this treespace. The tree
+	 * representation is captured on the update manager thread and written in
+	 * the background, so that it can be edited further while it is saved.
+	 * Either of the specified runnables, if any, is run on the event dispatch
+	 * thread: the first once the treespace is saved, the second in case it is
+	 * not, because the file dialog was cancelled, a save is already in
+	 * progress, or writing failed.
+	 * 
+	 * @param savedRunnable
+	 *            runnable to run once the treespace is saved, or null
+	 * @param unsavedRunnable
+	 *            runnable to run in case the treespace is not saved, or null
+	 */
+	public void saveTreespace(Runnable savedRunnable, Runnable unsavedRunnable) {
+		if (isSaving) {
+			Toolkit.getDefaultToolkit().beep();
+			if (unsavedRunnable != null)
+				SwingUtilities.invokeLater(unsavedRunnable);
+			return;
+		}
 		if (svgXMLFileName == null) {
 			IOJFileChooser ioJFileChooser = new IOJFileChooser(
 					IOJFileChooser.SVG_XML);
 			if (ioJFileChooser.showSaveDialog(this) == IOJFileChooser.APPROVE_OPTION) {
-				TreeRepresentation treeRepresentation = treeEditorBridge
-						.getTreeRepresentation();
-
-				// write file
 				File svgXMLFile = ioJFileChooser.getSelectedFile();
-				IOSVGXMLFileWriter ioSVGXMLFileWriter = new IOSVGXMLFileWriter(
-						treeRepresentation, svgXMLFile);
-				ioSVGXMLFileWriter.writeFile();
-				svgXMLFileName = ioJFileChooser.getSelectedFile().toString();
-
-				// change window and application title
-				setTitle("[" + svgXMLFileName + "]");
-				uiJDesktopPane.getUIMainJFrame().setTitle(
-						Main.APPLICATION_IDENTIFIER + " " + getTitle());
-
-				// set modified
-				setModified(false);
+				if (ioJFileChooser.getFileFilter() instanceof IOBinaryTreespaceFileFilter
+						&& !IOBinaryTreespaceFileFilter
+								.isBinaryTreespaceFile(svgXMLFile))
+					svgXMLFile = new File(svgXMLFile.getPath() + "."
+							+ IOBinaryTreespaceFileFilter.BINARY_TREESPACE_FILE_EXTENSION);
+				writeTreespaceFile(svgXMLFile, true, savedRunnable,
+						unsavedRunnable);
+			} else if (unsavedRunnable != null) {
+				SwingUtilities.invokeLater(unsavedRunnable);
 			}
 		} else {
-			File svgXMLFile = new File(svgXMLFileName);
-			TreeRepresentation treeRepresentation = treeEditorBridge
-					.getTreeRepresentation();
-			IOSVGXMLFileWriter ioSVGXMLFileWriter = new IOSVGXMLFileWriter(
-					treeRepresentation, svgXMLFile);
-			ioSVGXMLFileWriter.writeFile();
-			setModified(false);
+			writeTreespaceFile(new File(svgXMLFileName), false, savedRunnable,
+					unsavedRunnable);
 		}
 	}
 
+	/**
+	 * Writes the tree representation to the specified file, as a binary
+	 * treespace file or as a SVG XML file depending on the extension of the
+	 * file. The snapshot is taken on the update manager thread, after which
+	 * the file is written in the background, while the title of the frame
+	 * shows that the treespace is being saved.
+	 * 
+	 * @param file
+	 *            the file to write to
+	 * @param isNewFile
+	 *            boolean indicating whether the file becomes the file of
+	 *            this treespace
+	 * @param savedRunnable
+	 *            runnable to run once the treespace is saved, or null
+	 * @param unsavedRunnable
+	 *            runnable to run in case the treespace could not be saved, or
+	 *            null
+	 */
+	protected void writeTreespaceFile(final File file, final boolean isNewFile,
+			final Runnable savedRunnable, final Runnable unsavedRunnable) {
+		TreeRepresentation treeRepresentation = treeEditorBridge
+				.getTreeRepresentation();
+		final IOTreespaceFileWriter ioTreespaceFileWriter;
+		if (IOBinaryTreespaceFileFilter.isBinaryTreespaceFile(file))
+			ioTreespaceFileWriter = new IOBinaryTreespaceFileWriter(
+					treeRepresentation, file);
+		else
+			ioTreespaceFileWriter = new IOSVGXMLFileWriter(treeRepresentation,
+					file);
+		final int snapshotReturnCode[] = new int[1];
+		final int snapshotEditCount[] = new int[1];
+		setSaving(true);
+
+		// writing
+		final SwingWorker<Integer, Object> swingWorker = new SwingWorker<Integer, Object>() {
+			protected Integer doInBackground() {
+				if (snapshotReturnCode[0] != 0)
+					return Integer.valueOf(-1);
+				return Integer.valueOf(ioTreespaceFileWriter.writeFile());
+			}
+
+			protected void done() {
+				setSaving(false);
+				int returnCode = -1;
+				try {
+					returnCode = get().intValue();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+				if (returnCode != 0) {
+					JOptionPane.showMessageDialog(null,
+							"The treespace could not be saved.", "Error",
+							JOptionPane.ERROR_MESSAGE);
+					if (unsavedRunnable != null)
+						unsavedRunnable.run();
+					return;
+				}
+				if (isNewFile) {
+					svgXMLFileName = file.toString();
+
+					// change window and application title
+					setTitle("[" + svgXMLFileName + "]");
+					uiJDesktopPane.getUIMainJFrame().setTitle(
+							Main.APPLICATION_IDENTIFIER + " " + getTitle());
+				}
+				savedTreespace(file, isNewFile, snapshotEditCount[0], savedRunnable);
+			}
+		};
+
+		// snapshot
+		Runnable snapshotRunnable = new Runnable() {
+			public void run() {
+				treeEditorBridge.getRedrawScheduler().flush();
+				snapshotEditCount[0] = treeEditorBridge.getEditCount();
+				snapshotReturnCode[0] = ioTreespaceFileWriter.snapshot();
+				swingWorker.execute();
+			}
+		};
+		UpdateManager um = treeEditorBridge.getUpdateManager();
+		RunnableQueue rq = (um != null) ? um.getUpdateRunnableQueue() : null;
+		if (rq != null)
+			rq.invokeLater(snapshotRunnable);
+		else
+			snapshotRunnable.run();
+	}
+
+	/**
+	 * Updates the edit journal and the modified state once the treespace is
+	 * saved to the specified file. This is done on the update manager thread,
+	 * so that no edit can slip in between. In case the treespace was edited
+	 * after the snapshot was taken, it remains modified, and the edit journal
+	 * is kept, as replaying it onto the saved file is harmless.
+	 * 
+	 * @param file
+	 *            the saved file
+	 * @param isNewFile
+	 *            boolean indicating whether the file became the file of this
+	 *            treespace
+	 * @param snapshotEditCount
+	 *            number of edits when the snapshot was taken
+	 * @param savedRunnable
+	 *            runnable to run once the treespace is saved, or null
+	 */
+	protected void savedTreespace(final File file, final boolean isNewFile,
+			final int snapshotEditCount, final Runnable savedRunnable) {
+		Runnable journalRunnable = new Runnable() {
+			public void run() {
+				boolean isEdited = treeEditorBridge.getEditCount() != snapshotEditCount;
+				if (isNewFile) {
+					treeEditorBridge.openEditJournal(file, false);
+					if (isEdited && treeEditorBridge.getEditJournal() != null)
+						treeEditorBridge.getEditJournal().compact(
+								treeEditorBridge.getTreeRepresentation());
+				} else if (!isEdited
+						&& treeEditorBridge.getEditJournal() != null) {
+					treeEditorBridge.getEditJournal().reset();
+				}
+				if (!isEdited)
+					setModified(false);
+				if (savedRunnable != null)
+					SwingUtilities.invokeLater(savedRunnable);
+			}
+		};
+		UpdateManager um = treeEditorBridge.getUpdateManager();
+		RunnableQueue rq = (um != null) ? um.getUpdateRunnableQueue() : null;
+		if (rq != null)
+			rq.invokeLater(journalRunnable);
+		else
+			journalRunnable.run();
+	}
+
+	/**
+	 * Sets whether the treespace is being saved, and shows it in the title
+	 * of the frame.
+	 * 
+	 * @param isSaving
+	 *            boolean
+	 */
+	protected void setSaving(boolean isSaving) {
+		this.isSaving = isSaving;
+		String title = getTitle();
+		if (title.endsWith(SAVING_TITLE_SUFFIX))
+			title = title.substring(0, title.length()
+					- SAVING_TITLE_SUFFIX.length());
+		setTitle(isSaving ? title + SAVING_TITLE_SUFFIX : title);
+		if (isSelected())
+			uiJDesktopPane.getUIMainJFrame().setTitle(
+					Main.APPLICATION_IDENTIFIER + " " + getTitle());
+	}
+
+	/**
+	 * Returns whether the treespace is being saved.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isSaving() {
+		return isSaving;
+	}
+
 	/**
 	 * Saves the tree representation as the specified file.
 	 */
@@ -264,6 +500,157 @@ public class UIJInternalFrame extends JInternalFrame {
 			svgXMLFileName = oldSVGXMLFileName;
 	}
 
+	/**
+	 * Exports the tree representation in this treespace as a transcoded
+	 * image. The document is copied on the update manager thread, after which
+	 * the image is transcoded in the background while a progress monitor
+	 * allows the export to be cancelled.
+	 */
+	public void exportTreespace() {
+		IOJFileChooser ioJFileChooser = new IOJFileChooser(
+				IOJFileChooser.TRANSCODED_IMAGE);
+		if (ioJFileChooser.showSaveDialog(this) != IOJFileChooser.APPROVE_OPTION)
+			return;
+		File transcodedImageFile = ioJFileChooser.getSelectedFile();
+		if (!ioJFileChooser.getFileFilter().accept(transcodedImageFile))
+			transcodedImageFile = new File(
+					transcodedImageFile.getAbsolutePath()
+							+ "."
+							+ IOTranscodedImageFileFilter.TRANSCODED_IMAGE_PNG_FILE_EXTENSION);
+		final IOTranscodedImageFileWriter ioTranscodedImageFileWriter = new IOTranscodedImageFileWriter(
+				treeEditorBridge.getTreeRepresentation(), transcodedImageFile);
+		final ProgressMonitor progressMonitor = new ProgressMonitor(this,
+				"Exporting " + transcodedImageFile.getName(), null, 0, 100);
+
+		// transcoding
+		final SwingWorker<Integer, Object> swingWorker = new SwingWorker<Integer, Object>() {
+			protected Integer doInBackground() {
+				return Integer.valueOf(ioTranscodedImageFileWriter.writeFile());
+			}
+		};
+
+		// progress
+		final Timer timer = new Timer(EXPORT_PROGRESS_INTERVAL, null);
+		timer.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent ae) {
+				if (progressMonitor.isCanceled())
+					ioTranscodedImageFileWriter.cancel();
+				if (swingWorker.isDone()) {
+					timer.stop();
+					progressMonitor.close();
+					try {
+						if (swingWorker.get().intValue() != 0
+								&& !ioTranscodedImageFileWriter.isCancelled())
+							JOptionPane.showMessageDialog(null,
+									"The treespace could not be exported.",
+									"Error", JOptionPane.ERROR_MESSAGE);
+					} catch (Exception e) {
+						e.printStackTrace();
+					}
+				} else {
+					progressMonitor.setProgress(ioTranscodedImageFileWriter
+							.getProgress());
+				}
+			}
+		});
+		timer.start();
+
+		// snapshot
+		Runnable snapshotRunnable = new Runnable() {
+			public void run() {
+				treeEditorBridge.getRedrawScheduler().flush();
+				ioTranscodedImageFileWriter.snapshot();
+				swingWorker.execute();
+			}
+		};
+		UpdateManager um = treeEditorBridge.getUpdateManager();
+		RunnableQueue rq = (um != null) ? um.getUpdateRunnableQueue() : null;
+		if (rq != null)
+			rq.invokeLater(snapshotRunnable);
+		else
+			snapshotRunnable.run();
+	}
+
+	/**
+	 * Imports the trees in a labelled bracketing file into this treespace.
+	 * The file is parsed in the background, after which all of its trees are
+	 * added at once.
+	 */
+	public void importBrackets() {
+		IOJFileChooser ioJFileChooser = new IOJFileChooser(
+				IOJFileChooser.BRACKET);
+		if (ioJFileChooser.showOpenDialog(this) != IOJFileChooser.APPROVE_OPTION)
+			return;
+		final File bracketFile = ioJFileChooser.getSelectedFile();
+		new SwingWorker<Vector<IOBracketNode>, Object>() {
+			protected Vector<IOBracketNode> doInBackground() throws Exception {
+				return IOBracketReader.readFile(bracketFile);
+			}
+
+			protected void done() {
+				try {
+					Vector<IOBracketNode> bracketTreeVector = get();
+					if (bracketTreeVector.size() > 0)
+						treeEditorBridge.importTrees(bracketTreeVector);
+				} catch (Exception e) {
+					e.printStackTrace();
+					JOptionPane.showMessageDialog(null,
+							"The bracketing could not be imported:\n"
+									+ (e.getCause() != null ? e.getCause()
+											.getMessage() : e.getMessage()),
+							"Error", JOptionPane.ERROR_MESSAGE);
+				}
+			}
+		}.execute();
+	}
+
+	/**
+	 * Exports the trees in this treespace as a labelled bracketing file. The
+	 * bracketings are taken on the update manager thread, and written in the
+	 * background.
+	 */
+	public void exportBrackets() {
+		IOJFileChooser ioJFileChooser = new IOJFileChooser(
+				IOJFileChooser.BRACKET);
+		if (ioJFileChooser.showSaveDialog(this) != IOJFileChooser.APPROVE_OPTION)
+			return;
+		File bracketFile = ioJFileChooser.getSelectedFile();
+		if (!ioJFileChooser.getFileFilter().accept(bracketFile))
+			bracketFile = new File(bracketFile.getAbsolutePath() + "."
+					+ IOBracketFileFilter.BRACKET_MRG_FILE_EXTENSION);
+		final IOBracketWriter ioBracketWriter = new IOBracketWriter(
+				treeEditorBridge.getTreeRepresentation(), bracketFile);
+		final SwingWorker<Integer, Object> swingWorker = new SwingWorker<Integer, Object>() {
+			protected Integer doInBackground() {
+				return Integer.valueOf(ioBracketWriter.writeFile());
+			}
+
+			protected void done() {
+				try {
+					if (get().intValue() != 0)
+						JOptionPane.showMessageDialog(null,
+								"The bracketing could not be exported.",
+								"Error", JOptionPane.ERROR_MESSAGE);
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		};
+		Runnable snapshotRunnable = new Runnable() {
+			public void run() {
+				treeEditorBridge.getRedrawScheduler().flush();
+				ioBracketWriter.snapshot();
+				swingWorker.execute();
+			}
+		};
+		UpdateManager um = treeEditorBridge.getUpdateManager();
+		RunnableQueue rq = (um != null) ? um.getUpdateRunnableQueue() : null;
+		if (rq != null)
+			rq.invokeLater(snapshotRunnable);
+		else
+			snapshotRunnable.run();
+	}
+
 	/**
 	 * Sets whether the document in this frame is modified
 	 * 
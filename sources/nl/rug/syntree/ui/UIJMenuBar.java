@@ -159,8 +159,36 @@ public class UIJMenuBar extends JMenuBar {
 						UIIcons.FILE_EXPORT_TREESPACE, KeyEvent.VK_E,
 						new ActionListener() {
 							public void actionPerformed(ActionEvent ae) {
+								uiMainJFrame.getUIJDesktopPane()
+										.getSelectedUIJInternalFrame()
+										.exportTreespace();
 							}
-						}, true));
+						}, (uiMainJFrame.getUIJDesktopPane()
+								.getSelectedUIJInternalFrame() != null)));
+
+				// import brackets ///////////////////////////////////////////
+				
+				fileJMenu.add(new UIJMenuItem("Import brackets",
+						KeyEvent.VK_I, new ActionListener() {
+							public void actionPerformed(ActionEvent ae) {
+								uiMainJFrame.getUIJDesktopPane()
+										.getSelectedUIJInternalFrame()
+										.importBrackets();
+							}
+						}, (uiMainJFrame.getUIJDesktopPane()
+								.getSelectedUIJInternalFrame() != null)));
+
+				// export brackets ///////////////////////////////////////////
+				
+				fileJMenu.add(new UIJMenuItem("Export brackets",
+						KeyEvent.VK_B, new ActionListener() {
+							public void actionPerformed(ActionEvent ae) {
+								uiMainJFrame.getUIJDesktopPane()
+										.getSelectedUIJInternalFrame()
+										.exportBrackets();
+							}
+						}, (uiMainJFrame.getUIJDesktopPane()
+								.getSelectedUIJInternalFrame() != null)));
 
 				// separator /////////////////////////////////////////////////
 				
@@ -23,6 +23,7 @@ package nl.rug.syntree.ui;
 import java.awt.BorderLayout;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.util.Vector;
 
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
@@ -128,23 +129,83 @@ public class UIMainJFrame extends JFrame {
 							"Warning", JOptionPane.DEFAULT_OPTION,
 							JOptionPane.WARNING_MESSAGE, null, options,
 							options[0]);
-			// save and quit
+			// save and quit, once every treespace is either saved or not
 			if (choice == 0) {
+				final UIJInternalFrame savedUIJInternalFrames[] = uiJInternalFrames;
+				final int pendingCount[] = { uiJInternalFrames.length };
+				final Vector<String> unsavedTitleVector = new Vector<String>();
 				for (int i = 0; i < uiJInternalFrames.length; i++) {
-					uiJInternalFrames[i].setSelected(true);
-					uiJInternalFrames[i].saveTreespace();
+					final UIJInternalFrame uiJInternalFrame = uiJInternalFrames[i];
+					Runnable savedRunnable = new Runnable() {
+						public void run() {
+							savedOnExit(savedUIJInternalFrames, pendingCount,
+									unsavedTitleVector);
+						}
+					};
+					Runnable unsavedRunnable = new Runnable() {
+						public void run() {
+							unsavedTitleVector.add(uiJInternalFrame.getTitle());
+							savedOnExit(savedUIJInternalFrames, pendingCount,
+									unsavedTitleVector);
+						}
+					};
+					uiJInternalFrame.setSelected(true);
+					uiJInternalFrame.saveTreespace(savedRunnable,
+							unsavedRunnable);
 				}
-				Main.exit(Main.EXIT_SUCCESS);
 			}
 			// quit without saving
 			if (choice == 1) {
-				Main.exit(Main.EXIT_SUCCESS);
+				exit(uiJInternalFrames);
 			}
 		} else {
-			Main.exit(Main.EXIT_SUCCESS);
+			exit(uiJInternalFrames);
 		}
 	}
 
+	/**
+	 * Counts down the treespaces that are still being saved on exit. Once
+	 * all of them are either saved or not, the program exits, unless some of
+	 * them were not saved, in which case these are listed and the program
+	 * keeps running. This is run on the event dispatch thread.
+	 * 
+	 * @param uiJInternalFrames
+	 *            internal frames
+	 * @param pendingCount
+	 *            number of treespaces that are still being saved
+	 * @param unsavedTitleVector
+	 *            titles of the treespaces that were not saved
+	 */
+	protected void savedOnExit(UIJInternalFrame uiJInternalFrames[],
+			int pendingCount[], Vector<String> unsavedTitleVector) {
+		pendingCount[0]--;
+		if (pendingCount[0] > 0)
+			return;
+		if (unsavedTitleVector.size() == 0) {
+			exit(uiJInternalFrames);
+			return;
+		}
+		StringBuilder message = new StringBuilder(
+				"The following file(s) were not saved:\n");
+		for (int i = 0; i < unsavedTitleVector.size(); i++)
+			message.append("\n").append(unsavedTitleVector.elementAt(i));
+		JOptionPane.showMessageDialog(null, message.toString(), "Warning",
+				JOptionPane.WARNING_MESSAGE);
+	}
+
+	/**
+	 * Deletes the edit journals of the specified internal frames, and exits.
+	 * 
+	 * @param uiJInternalFrames
+	 *            internal frames
+	 */
+	protected void exit(UIJInternalFrame uiJInternalFrames[]) {
+		for (int i = 0; i < uiJInternalFrames.length; i++)
+			uiJInternalFrames[i].getTreeEditorJSVGScrollPane()
+					.getTreeEditorBridge().closeEditJournal();
+		Main.exit(Main.EXIT_SUCCESS);
+	}
+
 	/**
 	 * Return a reference to the desktop pane of the user interface.
 	 * 
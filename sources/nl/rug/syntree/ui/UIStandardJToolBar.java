@@ -104,6 +104,11 @@ public class UIStandardJToolBar extends JToolBar {
 		this.add(new UIToolBarJButton(UIIcons.FILE_EXPORT_TREESPACE,
 				"Export treespace", new ActionListener() {
 					public void actionPerformed(ActionEvent ae) {
+						UIJInternalFrame uiJInternalFrame = uiMainJFrame
+								.getUIJDesktopPane()
+								.getSelectedUIJInternalFrame();
+						if (uiJInternalFrame != null)
+							uiJInternalFrame.exportTreespace();
 					}
 				}, false));
 